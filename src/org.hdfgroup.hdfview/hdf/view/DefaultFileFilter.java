@@ -358,4 +358,13 @@ public class DefaultFileFilter {
 
         return filter;
     }
+
+    /** @return a file filter for NumPy array file. */
+    public static DefaultFileFilter getFileFilterNumpy() {
+        DefaultFileFilter filter = new DefaultFileFilter();
+        filter.addExtension("npy");
+        filter.setDescription("NumPy array");
+
+        return filter;
+    }
 }
@@ -0,0 +1,116 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the files COPYING and Copyright.html. *
+ * COPYING can be found at the root of the source code distribution tree.    *
+ * Or, see https://support.hdfgroup.org/products/licenses.html               *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.view;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * DiskCache locates and trims the directories where HDFView caches data derived
+ * from the files it displays, such as image overviews and dataset statistics.
+ * <p>
+ * The cache directories are private to the user: they are kept in a
+ * ".hdfview&lt;version&gt;.cache" directory next to the user property file,
+ * one sub-directory per kind of cached data, and never next to the data files.
+ * Each cache is bounded in size: {@link #trim(File, long)} deletes the least
+ * recently used files of a directory until it fits in its budget, and drops
+ * the files that have not been used for {@link #MAX_AGE_DAYS} days.
+ */
+public final class DiskCache {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DiskCache.class);
+
+    /** Cached files not used for this many days are deleted */
+    public static final int     MAX_AGE_DAYS = 30;
+
+    private static final long   MAX_AGE_MILLIS = MAX_AGE_DAYS * 24L * 60L * 60L * 1000L;
+
+    private DiskCache() {
+    }
+
+    /**
+     * Returns the directory of a cache, creating it if needed.
+     *
+     * @param name
+     *            the name of the cache, e.g. "pyramid".
+     *
+     * @return the cache directory, or null if it can not be created.
+     */
+    public static synchronized File getDirectory(String name) {
+        String propFile = ViewProperties.getPropertyFile();
+
+        File base = null;
+        if (propFile != null)
+            base = new File(propFile + ".cache");
+        else
+            base = new File(System.getProperty("user.home"), ".hdfview" + ViewProperties.VERSION + ".cache");
+
+        File dir = new File(base, name);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            log.debug("getDirectory(): cannot create cache directory {}", dir);
+            return null;
+        }
+
+        return dir;
+    }
+
+    /**
+     * Marks a cached file as used, so that it is among the last to be deleted by
+     * {@link #trim(File, long)}.
+     *
+     * @param file
+     *            the cached file.
+     */
+    public static void touch(File file) {
+        if (!file.setLastModified(System.currentTimeMillis()))
+            log.trace("touch(): cannot update {}", file);
+    }
+
+    /**
+     * Deletes the files of a cache directory not used for {@link #MAX_AGE_DAYS}
+     * days, then the least recently used files until the directory holds at
+     * most maxBytes bytes.
+     *
+     * @param dir
+     *            the cache directory.
+     * @param maxBytes
+     *            the size budget of the cache in bytes.
+     */
+    public static synchronized void trim(File dir, long maxBytes) {
+        File[] files = (dir == null) ? null : dir.listFiles();
+        if (files == null)
+            return;
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+
+        long oldest = System.currentTimeMillis() - MAX_AGE_MILLIS;
+        long total = 0;
+        for (File file : files)
+            total += file.length();
+
+        for (File file : files) {
+            if ((total <= maxBytes) && (file.lastModified() >= oldest))
+                break;
+
+            long length = file.length();
+            if (file.delete())
+                total -= length;
+            else
+                log.debug("trim(): cannot delete {}", file);
+        }
+
+        log.trace("trim(): {} holds {} bytes", dir, total);
+    }
+}
@@ -447,6 +447,8 @@ public class HDFView implements DataViewManager {
                 }
                 catch (Exception ex) {}
 
+                StatisticsCache.flush();
+
                 if (currentFont != null) currentFont.dispose();
             }
         });
@@ -47,7 +47,9 @@ import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 import org.eclipse.swt.SWT;
@@ -95,11 +97,13 @@ import org.eclipse.swt.widgets.ToolBar;
 import org.eclipse.swt.widgets.ToolItem;
 import org.eclipse.swt.widgets.TreeItem;
 
+import hdf.object.Dataset;
 import hdf.object.Group;
 import hdf.object.HObject;
 import hdf.object.ScalarDS;
 import hdf.view.Chart;
 import hdf.view.DefaultFileFilter;
+import hdf.view.SlicePrefetcher;
 import hdf.view.Tools;
 import hdf.view.ViewProperties;
 import hdf.view.ViewProperties.BITMASK_OP;
@@ -282,7 +286,17 @@ public class DefaultImageView implements ImageView {
 
     private Origin                  imageOrigin = null;
 
-    private List<Integer>           invalidValueIndex;
+    /** The overviews of an image too large to be displayed at full resolution, or null */
+    private ImagePyramid            pyramid = null;
+
+    /** The pyramid level being displayed */
+    private int                     pyramidLevel = 0;
+
+    /** Reads the frames next to the current frame in the background, or null */
+    private SlicePrefetcher         slicePrefetcher = null;
+
+    /** The finest pyramid level that can be displayed */
+    private int                     finestLevel = 0;
 
     /**
      * Constructs an ImageView.
@@ -325,6 +339,16 @@ public class DefaultImageView implements ImageView {
                     dataset.clearData();
                 }
 
+                if (pyramid != null) {
+                    pyramid.cancel();
+                    pyramid.restoreSelection();
+                }
+
+                if (slicePrefetcher != null) {
+                    slicePrefetcher.close();
+                    slicePrefetcher = null;
+                }
+
                 if (curFont != null) curFont.dispose();
 
                 data = null;
@@ -372,7 +396,6 @@ public class DefaultImageView implements ImageView {
         autoGainData = null;
         contrastSlider = null;
         bitmask = null;
-        invalidValueIndex = new ArrayList<>();
 
         toolkit = Toolkit.getDefaultToolkit();
 
@@ -580,6 +603,13 @@ public class DefaultImageView implements ImageView {
         viewer.addDataView(this);
 
         shell.open();
+
+        // read the frames next to the first one while it is displayed
+        if ((rank > 2) && !isTrueColor && (pyramid == null) && (bitmask == null)) {
+            slicePrefetcher = SlicePrefetcher.create(dataset, ViewProperties.getSlicePrefetchSize() * 1024L * 1024L);
+            if (slicePrefetcher != null)
+                slicePrefetcher.prefetch(curFrame - indexBase);
+        }
     }
 
     private Menu createMenuBar() {
@@ -1012,24 +1042,23 @@ public class DefaultImageView implements ImageView {
             @Override
             public void widgetSelected(SelectionEvent e) {
                 try {
-                    double[] minmax = new double[2];
-                    double[] stat = new double[2];
-
                     Object theData = null;
                     theData = getSelectedData();
 
-                    if (theData == null) {
-                        theData = data;
+                    double[] stats = null;
+                    if ((theData == null) && (bitmask == null)) {
+                        // the statistics of the whole image are cached with the file
+                        stats = Tools.getStatistics(dataset, data, dataset.getFillValue());
+                    }
+                    else if (theData != null) {
+                        stats = Tools.getStatistics(theData, dataset.getFillValue());
+                    }
+                    else {
+                        stats = Tools.getStatistics(data, dataset.getFillValue());
                     }
 
-                    Tools.findMinMax(theData, minmax, dataset.getFillValue());
-                    if (Tools.computeStatistics(theData, stat, dataset.getFillValue()) > 0) {
-                        String statistics = "Min                      = "
-                                + minmax[0] + "\nMax                      = "
-                                + minmax[1] + "\nMean                     = "
-                                + stat[0] + "\nStandard deviation = " + stat[1];
-
-                        Tools.showInformation(shell, "Statistics", statistics);
+                    if (stats != null) {
+                        Tools.showInformation(shell, "Statistics", Tools.getStatisticsInfo(stats));
                     }
                 }
                 catch (Exception ex) {
@@ -1430,13 +1459,31 @@ public class DefaultImageView implements ImageView {
             dataset.getSelectedDims()[dataset.getSelectedIndex()[2]] = 1;
         }
 
-        data = dataset.getData();
+        // Display large images from reduced resolution overviews
+        if ((pyramid == null) && ImagePyramid.isPyramidNeeded(dataset)) {
+            pyramid = new ImagePyramid(dataset);
+            pyramidLevel = pyramid.getLevelForSize(ImagePyramid.PREVIEW_PIXELS);
+            finestLevel = pyramid.getLevelForSize(ImagePyramid.MAX_LEVEL_PIXELS);
+            buildPyramidLevels();
+        }
+
+        if (pyramid != null) {
+            pyramid.selectLevel(pyramidLevel);
+            data = pyramid.readLevel(pyramidLevel);
+        }
+        else {
+            data = dataset.getData();
+        }
+
         if ((bitmask != null) && Tools.applyBitmask(data, bitmask, bitmaskOP)) {
             doAutoGainContrast = false;
         }
 
         if (dataset.getDatatype().isInteger() || dataset.getDatatype().isChar()) {
-            data = dataset.convertFromUnsignedC();
+            if (pyramid == null)
+                data = dataset.convertFromUnsignedC();
+            else if (dataset.getDatatype().isUnsigned())
+                data = Dataset.convertFromUnsignedC(data, null);
             isUnsignedConverted = true;
             doAutoGainContrast = doAutoGainContrast ||
                     (ViewProperties.isAutoContrast() && noPalette && isLocalFile);
@@ -1452,17 +1499,23 @@ public class DefaultImageView implements ImageView {
         long w = dataset.getWidth();
         long h = dataset.getHeight();
 
+        // the range of an image is cached with the file, so the data of a large
+        // image is only scanned the first time the image is displayed
+        if ((dataRange != null) && (dataRange[0] == dataRange[1]) && (bitmask == null)) {
+            Tools.findMinMax(dataset, data, dataRange, null);
+        }
+
         if (isAutoContrastFailed) {
             doAutoGainContrast = false;
-            imageByteData = Tools.getBytes(data, dataRange, w, h, !dataset
-                    .isDefaultImageOrder(), dataset.getFilteredImageValues(),
-                    convertByteData, imageByteData, invalidValueIndex);
-        }
-        else if (dataRange!= null && dataRange[0]==dataRange[1]) {
-            Tools.findMinMax(data, dataRange, null);
+            image = renderIndexedImage(dataRange, w, h, convertByteData);
         }
+        else {
+            if (dataRange!= null && dataRange[0]==dataRange[1]) {
+                Tools.findMinMax(data, dataRange, null);
+            }
 
-        image = createIndexedImage(imageByteData, imagePalette, w, h);
+            image = createIndexedImage(imageByteData, imagePalette, w, h);
+        }
     }
 
     /**
@@ -1540,8 +1593,81 @@ public class DefaultImageView implements ImageView {
         return retValue;
     }
 
+    /**
+     * Reads the pyramid levels finer than the displayed level in the background,
+     * so that zooming in does not wait for the data to be read from file.
+     */
+    private void buildPyramidLevels() {
+        // only datasets that read blocks without changing their selection can be read in the background
+        if (!dataset.hasDirectBlockIO() || (pyramidLevel <= finestLevel))
+            return;
+
+        final ImagePyramid thePyramid = pyramid;
+        final int coarsest = pyramidLevel - 1;
+        final int finest = finestLevel;
+
+        Thread builder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    thePyramid.buildLevels(coarsest, finest, new ImagePyramid.ProgressListener() {
+                        @Override
+                        public void levelBuilt(final int level, final int nBuilt, final int nTotal) {
+                            display.asyncExec(new Runnable() {
+                                @Override
+                                public void run() {
+                                    if (!shell.isDisposed())
+                                        viewer.showStatus("Image overviews of " + dataset.getName() + ": " + nBuilt + " of " + nTotal + " built");
+                                }
+                            });
+                        }
+                    });
+                }
+                catch (Exception ex) {
+                    log.debug("buildPyramidLevels(): ", ex);
+                }
+            }
+        }, "ImagePyramid-builder");
+
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * Displays the image at the given pyramid level.
+     *
+     * @param level
+     *            the pyramid level to display
+     */
+    private void setPyramidLevel(int level) {
+        pyramidLevel = level;
+        image = null;
+        gainBias = null;
+
+        shell.setCursor(display.getSystemCursor(SWT.CURSOR_WAIT));
+        try {
+            imageComponent.setImage(getImage());
+        }
+        finally {
+            shell.setCursor(null);
+        }
+
+        resetImageOrientation();
+
+        if (pyramidLevel > 0)
+            shell.setText(frameTitle + " - overview 1:" + (1 << pyramidLevel));
+        else
+            shell.setText(frameTitle);
+    }
+
     // implementing ImageObserver
     private void zoomIn() {
+        // show a finer overview instead of magnifying the current one
+        if ((pyramid != null) && (pyramidLevel > finestLevel) && (zoomFactor >= 1)) {
+            setPyramidLevel(pyramidLevel - 1);
+            return;
+        }
+
         if (zoomFactor >= 1) {
             zoomTo(zoomFactor + 1.0f);
         }
@@ -1552,6 +1678,11 @@ public class DefaultImageView implements ImageView {
 
     // implementing ImageObserver
     private void zoomOut() {
+        if ((pyramid != null) && (pyramidLevel < pyramid.getLevelCount() - 1) && (zoomFactor <= 1)) {
+            setPyramidLevel(pyramidLevel + 1);
+            return;
+        }
+
         if (zoomFactor > 1) {
             zoomTo(zoomFactor - 1.0f);
         }
@@ -1763,28 +1894,6 @@ public class DefaultImageView implements ImageView {
         shell.pack();
     }
 
-    /** change alpha value for a given list of pixel locations
-     *
-     * @param img the image to adjust
-     * @param alpha the alpha value
-     * @param idx the list of indices to adjust
-     *
-     */
-    private void adjustAlpha(BufferedImage img, int alpha, List<Integer> idx)
-    {
-        if (img == null || idx.isEmpty())
-            return;
-
-        final int[] pixels = ( (DataBufferInt) img.getRaster().getDataBuffer() ).getData();
-        int len = pixels.length;
-
-        alpha = alpha << 24;
-        for (Integer i : idx) {
-            if (i<len)
-                pixels[i] = alpha | (pixels[i] & 0x00ffffff);
-        }
-    }
-
     /**
      * Save the image to an image file.
      *
@@ -2079,14 +2188,28 @@ public class DefaultImageView implements ImageView {
             return;
         }
 
-        start[selectedIndex[2]] = idx;
         curFrame = idx + indexBase;
-        dataset.clearData();
+        if (slicePrefetcher != null) {
+            // the frame is taken from the frames read ahead, if it was read
+            slicePrefetcher.gotoSlice(idx);
+        }
+        else {
+            start[selectedIndex[2]] = idx;
+            dataset.clearData();
+        }
         image = null;
         gainBias = null;
         imageComponent.setImage(getImage());
         frameField.setText(String.valueOf(curFrame));
 
+        resetImageOrientation();
+    }
+
+    /**
+     * Clears any flips and rotations of a newly loaded image and applies the
+     * flips and rotations of the image origin.
+     */
+    private void resetImageOrientation() {
         isHorizontalFlipped = false;
         isVerticalFlipped = false;
         rotateCount = 0;
@@ -2109,6 +2232,11 @@ public class DefaultImageView implements ImageView {
      * @return the image object
      */
     private org.eclipse.swt.graphics.Image convertBufferedImageToSWTImage(BufferedImage image) {
+        // copy the packed pixels of the images created by the view at once
+        ImageData packedData = PixelKernel.toImageData(image);
+        if (packedData != null)
+            return new org.eclipse.swt.graphics.Image(display, packedData);
+
         if (image.getColorModel() instanceof DirectColorModel) {
             DirectColorModel colorModel = (DirectColorModel) image
                     .getColorModel();
@@ -2201,12 +2329,59 @@ public class DefaultImageView implements ImageView {
      */
     private Image createIndexedImage(byte[] imageData, byte[][] palette, long w, long h)
     {
-        bufferedImage = (BufferedImage)Tools.createIndexedImage(bufferedImage, imageData, palette, w, h);
-        adjustAlpha(bufferedImage, 0, invalidValueIndex);
+        if (imageData == null || w <= 0 || h <= 0)
+            return null;
+
+        // keep the transparent pixels of the invalid values of the last rendering
+        boolean isNewImage = (bufferedImage == null) || (bufferedImage.getWidth() != w)
+                || (bufferedImage.getHeight() != h);
+        int[] pixels = getImagePixels(w, h);
+        PixelKernel.applyPalette(imageData, palette, pixels, !isNewImage);
 
         return bufferedImage;
     }
 
+    /**
+     * Creates an indexed image from the raw data in a single pass, which maps the
+     * data through the data range, the invalid values and the palette.
+     *
+     * @param range
+     *            the data range.
+     * @param w
+     *            the width of the image.
+     * @param h
+     *            the height of the image.
+     * @param convertBytes
+     *            if byte data is mapped through the data range.
+     *
+     * @return the image.
+     */
+    private Image renderIndexedImage(double[] range, long w, long h, boolean convertBytes)
+    {
+        int[] pixels = getImagePixels(w, h);
+        byte[] byteData = PixelKernel.render(data, range, (int) w, (int) h, !dataset.isDefaultImageOrder(),
+                dataset.getFilteredImageValues(), convertBytes, imagePalette, imageByteData, pixels);
+
+        if (byteData == null) {
+            imageByteData = Tools.getBytes(data, range, w, h, !dataset.isDefaultImageOrder(),
+                    dataset.getFilteredImageValues(), convertBytes, imageByteData);
+            return createIndexedImage(imageByteData, imagePalette, w, h);
+        }
+
+        imageByteData = byteData;
+
+        return bufferedImage;
+    }
+
+    /** Returns the pixels of the image buffer, created for the size of the image if needed. */
+    private int[] getImagePixels(long w, long h)
+    {
+        if ((bufferedImage == null) || (bufferedImage.getWidth() != w) || (bufferedImage.getHeight() != h))
+            bufferedImage = new BufferedImage((int) w, (int) h, BufferedImage.TYPE_INT_ARGB);
+
+        return ((DataBufferInt) bufferedImage.getRaster().getDataBuffer()).getData();
+    }
+
     /**
      * Creates a true color image.
      * <p>
@@ -2265,8 +2440,6 @@ public class DefaultImageView implements ImageView {
             }
         }
 
-        adjustAlpha(bufferedImage, 0, invalidValueIndex);
-
         return bufferedImage;
     }
 
@@ -2296,15 +2469,8 @@ public class DefaultImageView implements ImageView {
             long w = dataset.getWidth();
             long h = dataset.getHeight();
 
-            invalidValueIndex.clear(); // data range changed. need to reset
-
-            // invalid values
-            imageByteData = Tools.getBytes(data, newRange, w, h,
-                    !dataset.isDefaultImageOrder(),
-                    dataset.getFilteredImageValues(), true, null,
-                    invalidValueIndex);
-
-            image = createIndexedImage(imageByteData, imagePalette, w, h);
+            // the invalid values are rendered again for the new range
+            image = renderIndexedImage(newRange, w, h, true);
             setImage(image);
             zoomTo(zoomFactor);
             paletteComponent.updateRange(newRange);
@@ -2489,12 +2655,40 @@ public class DefaultImageView implements ImageView {
         }
     }
 
-    /** ImageComponent draws the image. */
+    /**
+     * ImageComponent draws the image.
+     * <p>
+     * A zoomed image is drawn from a grid of tiles scaled from the image, which
+     * are scaled when they are first painted and kept for the zoom levels shown
+     * last. Only the tiles intersecting the damaged region are painted, so the
+     * cost of panning and zooming depends on the size of the viewport rather
+     * than on the size of the image.
+     */
     private class ImageComponent extends Canvas implements ImageObserver {
+        /** The approximate size of a tile on screen */
+        private static final int TILE_SIZE = 256;
+
+        /** The number of scaled tiles kept */
+        private static final int MAX_TILES = 128;
 
         /* The BufferedImage is converted to an SWT Image for dislay */
         private org.eclipse.swt.graphics.Image convertedImage;
 
+        /** The scaled tiles, by zoom level and position in the grid */
+        private final Map<Long, org.eclipse.swt.graphics.Image> tiles = new LinkedHashMap<Long, org.eclipse.swt.graphics.Image>(
+                16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, org.eclipse.swt.graphics.Image> eldest) {
+                if (size() <= MAX_TILES)
+                    return false;
+
+                eldest.getValue().dispose();
+                return true;
+            }
+        };
+
         private Dimension originalSize;
         private Dimension imageSize;
         private Point scrollDim = null;
@@ -2523,6 +2717,8 @@ public class DefaultImageView implements ImageView {
             this.addDisposeListener(new DisposeListener() {
                 @Override
                 public void widgetDisposed(DisposeEvent arg0) {
+                    clearTiles();
+
                     if (convertedImage != null && !convertedImage.isDisposed())
                         convertedImage.dispose();
                 }
@@ -2548,12 +2744,17 @@ public class DefaultImageView implements ImageView {
                             int w = x1 - x0;
                             int h = y1 - y0;
 
+                            // redraw the area of the old and the new selection only
+                            Rectangle damaged = selectedArea.union(new Rectangle(x0, y0, w, h));
+
                             selectedArea.setBounds(x0, y0, w, h);
                             double ratio = 1.0 / zoomFactor;
 
                             originalSelectedArea.setBounds((int) (x0 * ratio),
                                     (int) (y0 * ratio), (int) (w * ratio),
                                     (int) (h * ratio));
+
+                            redraw(damaged.x, damaged.y, damaged.width + 1, damaged.height + 1, false);
                         }
                         else {
                             if((hbar != null) && hbar.isVisible()) {
@@ -2565,9 +2766,9 @@ public class DefaultImageView implements ImageView {
                                 int dy = startPosition.y - currentPosition.y;
                                 vbar.setSelection(vbar.getSelection() + dy);
                             }
-                        }
 
-                        redraw();
+                            redraw();
+                        }
                     }
 
                     if(showValues) {
@@ -2642,10 +2843,7 @@ public class DefaultImageView implements ImageView {
                 public void paintControl(PaintEvent e) {
                     GC gc = e.gc;
 
-                    org.eclipse.swt.graphics.Rectangle sourceBounds = convertedImage.getBounds();
-
-                    gc.drawImage(convertedImage, 0, 0, sourceBounds.width, sourceBounds.height,
-                            0, 0, imageSize.width, imageSize.height);
+                    paintImage(gc, e.x, e.y, e.width, e.height);
 
                     if ((selectedArea.width > 0) && (selectedArea.height > 0)) {
                         gc.setForeground(Display.getCurrent().getSystemColor(SWT.COLOR_RED));
@@ -2661,6 +2859,88 @@ public class DefaultImageView implements ImageView {
             return false;
         }
 
+        /**
+         * Draws the part of the image in the given region of the component, from
+         * the image itself at the original size, or else from the scaled tiles.
+         */
+        private void paintImage(GC gc, int x, int y, int width, int height) {
+            if ((convertedImage == null) || (width <= 0) || (height <= 0))
+                return;
+
+            org.eclipse.swt.graphics.Rectangle sourceBounds = convertedImage.getBounds();
+
+            if ((imageSize.width == sourceBounds.width) && (imageSize.height == sourceBounds.height)) {
+                int w = Math.min(x + width, sourceBounds.width) - x;
+                int h = Math.min(y + height, sourceBounds.height) - y;
+                if ((w > 0) && (h > 0))
+                    gc.drawImage(convertedImage, x, y, w, h, x, y, w, h);
+                return;
+            }
+
+            // the tiles are a multiple of 8 pixels of the image, so that they are
+            // a whole number of pixels at every zoom factor, a multiple of 1/8
+            int zoomLevel = Math.round(zoomFactor * 8);
+            int sourceTile = Math.max(8, Math.round(TILE_SIZE * 8f / zoomLevel / 8) * 8);
+            int tile = sourceTile * zoomLevel / 8;
+
+            int nTilesX = (sourceBounds.width + sourceTile - 1) / sourceTile;
+            int nTilesY = (sourceBounds.height + sourceTile - 1) / sourceTile;
+            int tx1 = Math.min(nTilesX - 1, (x + width - 1) / tile);
+            int ty1 = Math.min(nTilesY - 1, (y + height - 1) / tile);
+
+            for (int ty = Math.max(0, y / tile); ty <= ty1; ty++) {
+                for (int tx = Math.max(0, x / tile); tx <= tx1; tx++) {
+                    org.eclipse.swt.graphics.Image tileImage = getTile(zoomLevel, sourceTile, tile, tx, ty);
+                    if (tileImage != null)
+                        gc.drawImage(tileImage, tx * tile, ty * tile);
+                }
+            }
+        }
+
+        /**
+         * Returns a tile of the image at a zoom level, scaling it from the image if
+         * it is not kept.
+         */
+        private org.eclipse.swt.graphics.Image getTile(int zoomLevel, int sourceTile, int tile, int tx, int ty) {
+            Long key = Long.valueOf(((long) zoomLevel << 48) | ((long) ty << 24) | tx);
+            org.eclipse.swt.graphics.Image tileImage = tiles.get(key);
+            if (tileImage != null)
+                return tileImage;
+
+            org.eclipse.swt.graphics.Rectangle sourceBounds = convertedImage.getBounds();
+            int sx = tx * sourceTile;
+            int sy = ty * sourceTile;
+            int sw = Math.min(sourceTile, sourceBounds.width - sx);
+            int sh = Math.min(sourceTile, sourceBounds.height - sy);
+            int w = Math.min(tile, imageSize.width - tx * tile);
+            int h = Math.min(tile, imageSize.height - ty * tile);
+            if ((sw <= 0) || (sh <= 0) || (w <= 0) || (h <= 0))
+                return null;
+
+            tileImage = new org.eclipse.swt.graphics.Image(display, w, h);
+            GC gc = new GC(tileImage);
+            try {
+                // transparent pixels show the background, as when the image is drawn on the component
+                gc.setBackground(getBackground());
+                gc.fillRectangle(0, 0, w, h);
+                gc.drawImage(convertedImage, sx, sy, sw, sh, 0, 0, w, h);
+            }
+            finally {
+                gc.dispose();
+            }
+
+            tiles.put(key, tileImage);
+
+            return tileImage;
+        }
+
+        /** Disposes the scaled tiles, when the image is replaced. */
+        private void clearTiles() {
+            for (org.eclipse.swt.graphics.Image tileImage : tiles.values())
+                tileImage.dispose();
+            tiles.clear();
+        }
+
         /**
          * Create an image using multiple step bilinear, see details at
          * http://today.java.net/pub/a/today/2007/04/03/perils-of-image-getscaledinstance.html
@@ -2865,6 +3145,7 @@ public class DefaultImageView implements ImageView {
 
         private void setImage(Image img) {
             /* Make sure to dispose the old image first so resources aren't leaked */
+            clearTiles();
             if (convertedImage != null && !convertedImage.isDisposed())
                 convertedImage.dispose();
 
@@ -3537,16 +3818,54 @@ public class DefaultImageView implements ImageView {
 
     /**
      * Makes animation for 3D images.
+     * <p>
+     * The frames are streamed: a producer thread reads and renders the slices
+     * ahead of the frame displayed into a ring buffer of ANIMATION_BUFFER_FRAMES
+     * frames, so the animation starts as soon as the first frame is rendered and
+     * the memory used does not depend on the number of slices. If all the frames
+     * fit in the buffer, they are rendered once and kept.
      */
     private class Animation extends Dialog {
 
         private static final int MAX_ANIMATION_IMAGE_SIZE = 300;
 
-        /* A list of frames to display for animation */
-        private org.eclipse.swt.graphics.Image[] frames = null;
+        /** The number of frames rendered ahead of the frame displayed */
+        private static final int ANIMATION_BUFFER_FRAMES = 32;
+
+        private final ScalarDS dataset;
+
+        /* The selection of a frame; the frame index is set in the start */
+        private final long[] frameStart;
+        private final long[] frameStride;
+        private final long[] frameCount;
+        private final int frameIndex;
+        private final int w;
+        private final int h;
+        private final double[] frameRange;
+        private final byte[][] framePalette;
+
+        /* The ring buffer of the rendered frames, and the sequence number of the frame in each slot */
+        private final ImageData[] frameBuffer;
+        private final long[] frameSeq;
+        private final boolean isCached;
+        private final Object frameLock = new Object();
+
+        /* Frames are rendered ahead on a producer thread only if the dataset reads blocks without changing its selection */
+        private final boolean isBackground;
+
+        /* Sequence numbers grow while the animation loops; the frame of sequence s is s % numberOfImages */
+        private long nextSeq = 0;
+        private long produceSeq = 0;
+        private int generation = 0;
+        private volatile boolean isClosed = false;
+        private Thread producer = null;
+
+        /* The frame displayed */
+        private org.eclipse.swt.graphics.Image frameImage = null;
 
         private Shell shell;
         private Canvas canvas; // Canvas to draw the image
+        private Scale frameScale;
         private int numberOfImages = 0;
         private int currentFrame = 0;
         private int sleepTime = 200;
@@ -3554,78 +3873,52 @@ public class DefaultImageView implements ImageView {
         public Animation(Shell parent, int style, ScalarDS dataset) {
             super(parent, style);
 
+            this.dataset = dataset;
+
             long[] dims = dataset.getDims();
-            long[] stride = dataset.getStride();
-            long[] start = dataset.getStartDims();
-            long[] selected = dataset.getSelectedDims();
             int[] selectedIndex = dataset.getSelectedIndex();
             int rank = dataset.getRank();
             if (animationSpeed != 0) {
                 sleepTime = 1000 / animationSpeed;
             }
 
-            // back up the start and selected size
-            long[] tstart = new long[rank];
-            long[] tselected = new long[rank];
-            long[] tstride = new long[rank];
-            System.arraycopy(start, 0, tstart, 0, rank);
-            System.arraycopy(selected, 0, tselected, 0, rank);
-            System.arraycopy(stride, 0, tstride, 0, rank);
-
             int strideN = 1;
+            long[] selected = dataset.getSelectedDims();
             int maxSize = (int) Math.max(selected[selectedIndex[0]],
                     selected[selectedIndex[1]]);
             if (maxSize > MAX_ANIMATION_IMAGE_SIZE) {
                 strideN = (int) ((double) maxSize / (double) MAX_ANIMATION_IMAGE_SIZE + 0.5);
             }
 
-            start[selectedIndex[0]] = 0;
-            start[selectedIndex[1]] = 0;
-            start[selectedIndex[2]] = 0;
-            selected[selectedIndex[0]] = dims[selectedIndex[0]] / strideN;
-            selected[selectedIndex[1]] = dims[selectedIndex[1]] / strideN;
-            selected[selectedIndex[2]] = 1;
-            stride[selectedIndex[0]] = strideN;
-            stride[selectedIndex[1]] = strideN;
-            stride[selectedIndex[2]] = 1;
-
-            Object data3d = null;
-            byte[] byteData = null;
-            int h = (int) selected[selectedIndex[0]];
-            int w = (int) selected[selectedIndex[1]];
-            int size = w * h;
-
-            numberOfImages = (int) dims[selectedIndex[2]];
-            frames = new org.eclipse.swt.graphics.Image[numberOfImages];
-
-            BufferedImage frameImage;
-            try {
-                for (int i = 0; i < numberOfImages; i++) {
-                    start[selectedIndex[2]] = i;
-
-                    dataset.clearData();
-                    try {
-                        data3d = dataset.read();
-                    }
-                    catch (Exception err) {
-                        continue;
-                    }
+            // the frames are read as blocks, so the selection of the dataset is not changed
+            frameStart = dataset.getStartDims().clone();
+            frameStride = new long[rank];
+            frameCount = new long[rank];
+            for (int i = 0; i < rank; i++) {
+                frameStride[i] = 1;
+                frameCount[i] = 1;
+            }
+            for (int i = 0; i < 2; i++) {
+                frameStart[selectedIndex[i]] = 0;
+                frameStride[selectedIndex[i]] = strideN;
+                frameCount[selectedIndex[i]] = Math.max(1, dims[selectedIndex[i]] / strideN);
+            }
+            frameIndex = selectedIndex[2];
 
-                    byteData = new byte[size];
+            h = (int) frameCount[selectedIndex[0]];
+            w = (int) frameCount[selectedIndex[1]];
+            frameRange = (dataRange == null) ? null : dataRange.clone();
+            framePalette = imagePalette;
 
-                    byteData = Tools.getBytes(data3d, dataRange, w, h, false, dataset.getFilteredImageValues(),
-                            true, byteData);
+            numberOfImages = (int) dims[frameIndex];
+            isCached = (numberOfImages <= ANIMATION_BUFFER_FRAMES);
+            int nSlots = Math.min(numberOfImages, ANIMATION_BUFFER_FRAMES);
+            frameBuffer = new ImageData[nSlots];
+            frameSeq = new long[nSlots];
+            for (int i = 0; i < nSlots; i++)
+                frameSeq[i] = -1;
 
-                    frameImage = (BufferedImage) createIndexedImage(byteData, imagePalette, w, h);
-                    frames[i] = convertBufferedImageToSWTImage(frameImage);
-                }
-            }
-            finally {
-                // set back to original state
-                System.arraycopy(tstart, 0, start, 0, rank);
-                System.arraycopy(tselected, 0, selected, 0, rank);
-                System.arraycopy(tstride, 0, stride, 0, rank);
-            }
+            isBackground = dataset.hasDirectBlockIO();
         }
 
         public void open() {
@@ -3643,12 +3936,12 @@ public class DefaultImageView implements ImageView {
                 public void paintControl(PaintEvent e) {
                     GC gc = e.gc;
 
-                    if (frames == null) return;
+                    if (frameImage == null) return;
 
                     org.eclipse.swt.graphics.Rectangle canvasBounds = canvas.getBounds();
-                    int x = ((canvasBounds.width / 2) - (frames[currentFrame].getBounds().width / 2));
-                    int y = ((canvasBounds.height / 2) - (frames[currentFrame].getBounds().height / 2));
-                    gc.drawImage(frames[currentFrame], x, y);
+                    int x = ((canvasBounds.width / 2) - (frameImage.getBounds().width / 2));
+                    int y = ((canvasBounds.height / 2) - (frameImage.getBounds().height / 2));
+                    gc.drawImage(frameImage, x, y);
 
                     gc.dispose();
                 }
@@ -3657,11 +3950,25 @@ public class DefaultImageView implements ImageView {
             canvas.addDisposeListener(new DisposeListener() {
                 @Override
                 public void widgetDisposed(DisposeEvent arg0) {
-                    /* Make sure to dispose of all generated images */
-                    for (int i = 0; i < frames.length; i++) {
-                        if (frames[i] != null && !frames[i].isDisposed())
-                            frames[i].dispose();
-                    }
+                    stopProducer();
+
+                    /* Make sure to dispose of the generated image */
+                    if (frameImage != null && !frameImage.isDisposed())
+                        frameImage.dispose();
+                }
+            });
+
+            frameScale = new Scale(shell, SWT.HORIZONTAL);
+            frameScale.setFont(curFont);
+            frameScale.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, false));
+            frameScale.setMinimum(0);
+            frameScale.setMaximum(Math.max(1, numberOfImages - 1));
+            frameScale.setIncrement(1);
+            frameScale.setPageIncrement(Math.max(1, numberOfImages / 10));
+            frameScale.addSelectionListener(new SelectionAdapter() {
+                @Override
+                public void widgetSelected(SelectionEvent e) {
+                    seek(frameScale.getSelection());
                 }
             });
 
@@ -3685,6 +3992,12 @@ public class DefaultImageView implements ImageView {
             shell.setLocation((parentBounds.x + (parentBounds.width / 2)) - (shellSize.x / 2),
                     (parentBounds.y + (parentBounds.height / 2)) - (shellSize.y / 2));
 
+            if (isBackground) {
+                producer = new Thread(new FrameProducer(), "Animation " + dataset.getName());
+                producer.setDaemon(true);
+                producer.start();
+            }
+
             shell.open();
 
             Runnable runnable = new AnimationThread();
@@ -3705,17 +4018,187 @@ public class DefaultImageView implements ImageView {
             openDisplay.timerExec(-1, runnable);
         }
 
+        /** Continues the animation from a frame; the frames rendered ahead are discarded. */
+        private void seek(int frame) {
+            synchronized (frameLock) {
+                nextSeq = frame;
+                if (!isCached) {
+                    produceSeq = frame;
+                    generation++;
+                    for (int i = 0; i < frameBuffer.length; i++) {
+                        frameBuffer[i] = null;
+                        frameSeq[i] = -1;
+                    }
+                }
+                frameLock.notifyAll();
+            }
+        }
+
+        /** Stops the producer, and waits for the frame being read so the dataset can be used again. */
+        private void stopProducer() {
+            synchronized (frameLock) {
+                isClosed = true;
+                frameLock.notifyAll();
+            }
+
+            if (producer != null) {
+                try {
+                    producer.join();
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /** Returns the slot of the ring buffer of a sequence number. */
+        private int getSlot(long seq) {
+            return (int) ((isCached ? (seq % numberOfImages) : seq) % frameBuffer.length);
+        }
+
+        /**
+         * Reads a frame and renders it with the data range and palette of the
+         * image view.
+         */
+        private ImageData renderFrame(int frame) throws Exception {
+            long[] start = frameStart.clone();
+            start[frameIndex] = frame;
+
+            Object frameData = dataset.readBlock(start, frameStride, frameCount.clone(), null);
+            if (dataset.getDatatype().isUnsigned())
+                frameData = Dataset.convertFromUnsignedC(frameData, null);
+
+            BufferedImage renderedImage = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            int[] pixels = ((DataBufferInt) renderedImage.getRaster().getDataBuffer()).getData();
+            double[] range = (frameRange == null) ? null : frameRange.clone();
+            byte[] byteData = PixelKernel.render(frameData, range, w, h, !dataset.isDefaultImageOrder(),
+                    dataset.getFilteredImageValues(), true, framePalette, null, pixels);
+
+            if (byteData == null) {
+                byteData = Tools.getBytes(frameData, range, w, h, !dataset.isDefaultImageOrder(),
+                        dataset.getFilteredImageValues(), true, null);
+                if (byteData == null)
+                    return null;
+                PixelKernel.applyPalette(byteData, framePalette, pixels, false);
+            }
+
+            return PixelKernel.toImageData(renderedImage);
+        }
+
+        /**
+         * Reads and renders the next frame on the UI thread, for datasets that
+         * change their selection to read a block. The frames are kept if they
+         * all fit in the ring buffer.
+         */
+        private ImageData renderNextFrame() {
+            int frame = (int) (nextSeq % numberOfImages);
+
+            ImageData frameData = null;
+            try {
+                frameData = renderFrame(frame);
+            }
+            catch (Exception ex) {
+                log.debug("Animation: frame {} failure: ", frame, ex);
+            }
+
+            synchronized (frameLock) {
+                if (isCached) {
+                    int slot = getSlot(nextSeq);
+                    frameBuffer[slot] = frameData;
+                    frameSeq[slot] = frame;
+                }
+                currentFrame = frame;
+                nextSeq++;
+            }
+
+            return frameData;
+        }
+
+        /** Reads and renders the frames ahead of the frame displayed. */
+        private class FrameProducer implements Runnable {
+            @Override
+            public void run() {
+                while (true) {
+                    long seq;
+                    int gen;
+                    synchronized (frameLock) {
+                        while (!isClosed && (isCached ? (produceSeq >= numberOfImages)
+                                : (produceSeq >= nextSeq + frameBuffer.length))) {
+                            try {
+                                frameLock.wait();
+                            }
+                            catch (InterruptedException ex) {
+                                return;
+                            }
+                        }
+
+                        if (isClosed)
+                            return;
+
+                        seq = produceSeq++;
+                        gen = generation;
+                    }
+
+                    ImageData frame = null;
+                    try {
+                        frame = renderFrame((int) (seq % numberOfImages));
+                    }
+                    catch (Exception ex) {
+                        log.debug("Animation: frame {} failure: ", seq % numberOfImages, ex);
+                    }
+
+                    synchronized (frameLock) {
+                        if (gen == generation) {
+                            int slot = getSlot(seq);
+                            frameBuffer[slot] = frame;
+                            frameSeq[slot] = seq;
+                        }
+                    }
+                }
+            }
+        }
+
         private class AnimationThread implements Runnable {
             @Override
             public void run() {
-                if ((frames == null) || (canvas == null)) {
+                if ((canvas == null) || canvas.isDisposed()) {
                     return;
                 }
 
-                if (++currentFrame >= numberOfImages)
-                    currentFrame = 0;
+                ImageData frame = null;
+                boolean isReady = false;
+                synchronized (frameLock) {
+                    int slot = getSlot(nextSeq);
+                    if (isCached ? (frameSeq[slot] >= 0) : (frameSeq[slot] == nextSeq)) {
+                        isReady = true;
+                        frame = frameBuffer[slot];
+                        currentFrame = (int) (nextSeq % numberOfImages);
+                        if (!isCached) {
+                            frameBuffer[slot] = null;
+                            frameSeq[slot] = -1;
+                        }
+                        nextSeq++;
+                        frameLock.notifyAll();
+                    }
+                }
+
+                // without a producer, the frame is read here, with the selection of the dataset changed while it is read
+                if (!isReady && !isBackground) {
+                    frame = renderNextFrame();
+                    isReady = true;
+                }
 
-                canvas.redraw();
+                // wait for the producer if the next frame is not rendered yet
+                if (isReady) {
+                    if (frame != null) {
+                        if (frameImage != null && !frameImage.isDisposed())
+                            frameImage.dispose();
+                        frameImage = new org.eclipse.swt.graphics.Image(display, frame);
+                    }
+
+                    frameScale.setSelection(currentFrame);
+                    canvas.redraw();
+                }
 
                 Display.getCurrent().timerExec(sleepTime, this);
             }
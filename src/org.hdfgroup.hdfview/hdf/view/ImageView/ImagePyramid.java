@@ -0,0 +1,501 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the files COPYING and Copyright.html. *
+ * COPYING can be found at the root of the source code distribution tree.    *
+ * Or, see https://support.hdfgroup.org/products/licenses.html               *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.view.ImageView;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+
+import hdf.object.ScalarDS;
+import hdf.object.Utils;
+import hdf.view.DiskCache;
+
+/**
+ * ImagePyramid provides reduced resolution overviews of a large 2D image.
+ * <p>
+ * Level 0 of the pyramid is the selection of the image when the pyramid is
+ * created. Each following level halves the width and height of the previous
+ * level by doubling the stride of the selection along the two image
+ * dimensions, so a level is read from file with a single strided read and the
+ * full resolution image is never loaded into memory.
+ * <p>
+ * Levels read from file are cached on disk, in the "pyramid" cache of
+ * {@link DiskCache}, so the overviews of an image are only read from file once.
+ * A cached level is a small header followed by the raw values of the level in
+ * row-major order. It is invalidated when the file is modified, and the cache
+ * is trimmed to {@link #MAX_CACHE_BYTES} bytes after each new level.
+ */
+public class ImagePyramid {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ImagePyramid.class);
+
+    /** Images with more pixels than this are displayed from an overview level. */
+    public static final long    MAX_LEVEL_PIXELS = 8192L * 8192L;
+
+    /** The maximum number of pixels of the level first displayed for a large image. */
+    public static final long    PREVIEW_PIXELS   = 2048L * 2048L;
+
+    /** Levels stop when both dimensions are at most this size. */
+    private static final long   MIN_LEVEL_SIZE   = 256;
+
+    /** The size budget of the disk cache of the levels of all images. */
+    public static final long    MAX_CACHE_BYTES  = 512L * 1024L * 1024L;
+
+    /** The first bytes of a cached level */
+    private static final int    CACHE_MAGIC      = 0x4856504C;
+
+    private static final int    IO_BUFFER_BYTES  = 1024 * 1024;
+
+    /**
+     * Listener notified of the progress of {@link #buildLevels(int, int, ProgressListener)}.
+     */
+    public interface ProgressListener {
+        /**
+         * Called after a level has been built.
+         *
+         * @param level
+         *            the level that has been built.
+         * @param nBuilt
+         *            the number of levels built so far.
+         * @param nTotal
+         *            the number of levels to build.
+         */
+        void levelBuilt(int level, int nBuilt, int nTotal);
+    }
+
+    private final ScalarDS      dataset;
+
+    /** The dataset dimensions of the image rows and columns */
+    private final int           rowDim;
+    private final int           colDim;
+
+    /** The selection of the dataset at level 0 */
+    private final long[]        baseStart;
+    private final long[]        baseStride;
+    private final long[]        baseCount;
+
+    private final int           nLevels;
+
+    private final File          cacheDir;
+
+    private volatile boolean    isCancelled = false;
+
+    /**
+     * Creates a pyramid for the current selection of an image.
+     *
+     * @param dset
+     *            the image dataset; the selection of the dataset defines level 0.
+     */
+    public ImagePyramid(ScalarDS dset) {
+        dataset = dset;
+
+        int[] selectedIndex = dataset.getSelectedIndex();
+        rowDim = selectedIndex[0];
+        colDim = selectedIndex[1];
+
+        long[] stride = dataset.getStride();
+        baseStart = dataset.getStartDims().clone();
+        baseCount = dataset.getSelectedDims().clone();
+        baseStride = new long[baseStart.length];
+        for (int i = 0; i < baseStride.length; i++)
+            baseStride[i] = (stride == null) ? 1 : stride[i];
+
+        int n = 1;
+        while ((getLevelHeight(n - 1) > MIN_LEVEL_SIZE) || (getLevelWidth(n - 1) > MIN_LEVEL_SIZE))
+            n++;
+        nLevels = n;
+
+        cacheDir = DiskCache.getDirectory("pyramid");
+
+        log.trace("ImagePyramid: {} levels for {}x{} image, cache={}", nLevels, getLevelWidth(0), getLevelHeight(0), cacheDir);
+    }
+
+    /**
+     * Returns true if an image is too large to be displayed at full resolution
+     * and should be displayed from a pyramid.
+     *
+     * @param dset
+     *            the image dataset.
+     *
+     * @return true if the image should be displayed from a pyramid.
+     */
+    public static boolean isPyramidNeeded(ScalarDS dset) {
+        if ((dset.getRank() < 2) || dset.isTrueColor())
+            return false;
+
+        return (dset.getWidth() * dset.getHeight() > MAX_LEVEL_PIXELS);
+    }
+
+    /**
+     * Returns the number of levels of the pyramid.
+     *
+     * @return the number of levels.
+     */
+    public int getLevelCount() {
+        return nLevels;
+    }
+
+    /**
+     * Returns the width of the image at the given level.
+     *
+     * @param level
+     *            the level of the pyramid.
+     *
+     * @return the width of the image at the level.
+     */
+    public long getLevelWidth(int level) {
+        return ((baseCount[colDim] - 1) >> level) + 1;
+    }
+
+    /**
+     * Returns the height of the image at the given level.
+     *
+     * @param level
+     *            the level of the pyramid.
+     *
+     * @return the height of the image at the level.
+     */
+    public long getLevelHeight(int level) {
+        return ((baseCount[rowDim] - 1) >> level) + 1;
+    }
+
+    /**
+     * Returns the finest level whose image has at most the given number of pixels.
+     *
+     * @param maxPixels
+     *            the maximum number of pixels.
+     *
+     * @return the finest level with at most maxPixels pixels, or the coarsest level.
+     */
+    public int getLevelForSize(long maxPixels) {
+        int level = 0;
+        while ((level < nLevels - 1) && (getLevelWidth(level) * getLevelHeight(level) > maxPixels))
+            level++;
+
+        return level;
+    }
+
+    private long[] getLevelStart() {
+        // the frame of a 3D image may change after the pyramid is created
+        long[] start = dataset.getStartDims().clone();
+        start[rowDim] = baseStart[rowDim];
+        start[colDim] = baseStart[colDim];
+
+        return start;
+    }
+
+    private long[] getLevelStride(int level) {
+        long[] stride = baseStride.clone();
+        stride[rowDim] <<= level;
+        stride[colDim] <<= level;
+
+        return stride;
+    }
+
+    private long[] getLevelDims(int level) {
+        long[] count = dataset.getSelectedDims().clone();
+        count[rowDim] = getLevelHeight(level);
+        count[colDim] = getLevelWidth(level);
+
+        return count;
+    }
+
+    /**
+     * Sets the selection of the dataset to the given level, so that the width,
+     * height and stride of the dataset describe the image at the level.
+     *
+     * @param level
+     *            the level of the pyramid.
+     */
+    public void selectLevel(int level) {
+        long[] start = dataset.getStartDims();
+        long[] stride = dataset.getStride();
+        long[] count = dataset.getSelectedDims();
+        long[] levelStride = getLevelStride(level);
+
+        start[rowDim] = baseStart[rowDim];
+        start[colDim] = baseStart[colDim];
+        stride[rowDim] = levelStride[rowDim];
+        stride[colDim] = levelStride[colDim];
+        count[rowDim] = getLevelHeight(level);
+        count[colDim] = getLevelWidth(level);
+    }
+
+    /**
+     * Restores the selection of the dataset at the time the pyramid was created.
+     */
+    public void restoreSelection() {
+        long[] start = dataset.getStartDims();
+        long[] stride = dataset.getStride();
+        long[] count = dataset.getSelectedDims();
+
+        start[rowDim] = baseStart[rowDim];
+        start[colDim] = baseStart[colDim];
+        stride[rowDim] = baseStride[rowDim];
+        stride[colDim] = baseStride[colDim];
+        count[rowDim] = baseCount[rowDim];
+        count[colDim] = baseCount[colDim];
+    }
+
+    /**
+     * Reads the image at the given level, from the disk cache if the level was
+     * read before.
+     *
+     * @param level
+     *            the level of the pyramid.
+     *
+     * @return the data of the image at the level, in the same form as read()
+     *         returns it for the selection of the level.
+     *
+     * @throws Exception
+     *             if the data can not be read
+     */
+    public Object readLevel(int level) throws Exception {
+        long[] start = getLevelStart();
+        long[] stride = getLevelStride(level);
+        long[] count = getLevelDims(level);
+
+        String key = getCacheKey(start, stride, count);
+        File cacheFile = getCacheFile(key);
+
+        Object data = readCache(cacheFile, key);
+        if (data != null) {
+            log.trace("readLevel({}): read from cache {}", level, cacheFile);
+            return data;
+        }
+
+        log.trace("readLevel({}): read from file", level);
+        data = dataset.readBlock(start, stride, count, null);
+
+        writeCache(cacheFile, key, data);
+
+        return data;
+    }
+
+    /**
+     * Reads the given levels into the disk cache, from the coarsest level to the
+     * finest level, so that later zooming does not read them from file.
+     *
+     * @param coarsest
+     *            the coarsest level to build.
+     * @param finest
+     *            the finest level to build.
+     * @param listener
+     *            the listener to notify of the progress, or null.
+     *
+     * @throws Exception
+     *             if a level can not be read
+     */
+    public void buildLevels(int coarsest, int finest, ProgressListener listener) throws Exception {
+        int nTotal = coarsest - finest + 1;
+        int nBuilt = 0;
+
+        for (int level = coarsest; (level >= finest) && !isCancelled; level--) {
+            readLevel(level);
+            nBuilt++;
+
+            if (listener != null)
+                listener.levelBuilt(level, nBuilt, nTotal);
+        }
+    }
+
+    /**
+     * Stops a running {@link #buildLevels(int, int, ProgressListener)} after the
+     * level being read.
+     */
+    public void cancel() {
+        isCancelled = true;
+    }
+
+    private String getCacheKey(long[] start, long[] stride, long[] count) {
+        File file = new File(dataset.getFileFormat().getFilePath());
+
+        StringBuilder sb = new StringBuilder(file.getAbsolutePath());
+        sb.append('|').append(file.length()).append('|').append(file.lastModified());
+        sb.append('|').append(dataset.getFullName());
+        for (int i = 0; i < start.length; i++)
+            sb.append('|').append(start[i]).append(',').append(stride[i]).append(',').append(count[i]);
+
+        return sb.toString();
+    }
+
+    private File getCacheFile(String key) {
+        if (cacheDir == null)
+            return null;
+
+        return new File(cacheDir, Integer.toHexString(key.hashCode()) + ".level");
+    }
+
+    private Object readCache(File cacheFile, String key) {
+        if ((cacheFile == null) || !cacheFile.exists())
+            return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if ((in.readInt() != CACHE_MAGIC) || !key.equals(in.readUTF()))
+                return null;
+
+            char typeClass = (char) in.readByte();
+            int length = in.readInt();
+            int elementSize = getElementSize(typeClass);
+            Object data = Array.newInstance(getElementClass(typeClass), length);
+
+            byte[] bytes = new byte[IO_BUFFER_BYTES];
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            int maxElements = IO_BUFFER_BYTES / elementSize;
+
+            for (int offset = 0; offset < length; offset += maxElements) {
+                int n = Math.min(maxElements, length - offset);
+                in.readFully(bytes, 0, n * elementSize);
+                buf.clear();
+
+                switch (typeClass) {
+                    case 'B':
+                        buf.get((byte[]) data, offset, n);
+                        break;
+                    case 'S':
+                        buf.asShortBuffer().get((short[]) data, offset, n);
+                        break;
+                    case 'I':
+                        buf.asIntBuffer().get((int[]) data, offset, n);
+                        break;
+                    case 'J':
+                        buf.asLongBuffer().get((long[]) data, offset, n);
+                        break;
+                    case 'F':
+                        buf.asFloatBuffer().get((float[]) data, offset, n);
+                        break;
+                    default:
+                        buf.asDoubleBuffer().get((double[]) data, offset, n);
+                        break;
+                }
+            }
+
+            DiskCache.touch(cacheFile);
+
+            return data;
+        }
+        catch (Exception ex) {
+            log.debug("readCache(): failed to read {}: ", cacheFile, ex);
+        }
+
+        return null;
+    }
+
+    private void writeCache(File cacheFile, String key, Object data) {
+        if ((cacheFile == null) || (data == null))
+            return;
+
+        // only arrays of numbers are cached
+        char typeClass = Utils.getJavaObjectRuntimeClass(data);
+        if ("BSIJFD".indexOf(typeClass) < 0)
+            return;
+
+        // write to a temporary file first, since a level may be read by two threads at once
+        File tmpFile = new File(cacheFile.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+
+        boolean isWritten = false;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            int length = Array.getLength(data);
+            int elementSize = getElementSize(typeClass);
+
+            out.writeInt(CACHE_MAGIC);
+            out.writeUTF(key);
+            out.writeByte(typeClass);
+            out.writeInt(length);
+
+            byte[] bytes = new byte[IO_BUFFER_BYTES];
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            int maxElements = IO_BUFFER_BYTES / elementSize;
+
+            for (int offset = 0; offset < length; offset += maxElements) {
+                int n = Math.min(maxElements, length - offset);
+                buf.clear();
+
+                switch (typeClass) {
+                    case 'B':
+                        buf.put((byte[]) data, offset, n);
+                        break;
+                    case 'S':
+                        buf.asShortBuffer().put((short[]) data, offset, n);
+                        break;
+                    case 'I':
+                        buf.asIntBuffer().put((int[]) data, offset, n);
+                        break;
+                    case 'J':
+                        buf.asLongBuffer().put((long[]) data, offset, n);
+                        break;
+                    case 'F':
+                        buf.asFloatBuffer().put((float[]) data, offset, n);
+                        break;
+                    default:
+                        buf.asDoubleBuffer().put((double[]) data, offset, n);
+                        break;
+                }
+
+                out.write(bytes, 0, n * elementSize);
+            }
+
+            isWritten = true;
+        }
+        catch (Exception ex) {
+            log.debug("writeCache(): failed to write {}: ", tmpFile, ex);
+        }
+
+        if (!isWritten || (cacheFile.exists() && !cacheFile.delete()) || !tmpFile.renameTo(cacheFile)) {
+            log.debug("writeCache(): level not cached in {}", cacheFile);
+            if (tmpFile.exists() && !tmpFile.delete())
+                log.debug("writeCache(): failed to delete {}", tmpFile);
+            return;
+        }
+
+        DiskCache.trim(cacheDir, MAX_CACHE_BYTES);
+    }
+
+    private static int getElementSize(char typeClass) {
+        switch (typeClass) {
+            case 'B':
+                return 1;
+            case 'S':
+                return 2;
+            case 'I':
+            case 'F':
+                return 4;
+            default:
+                return 8;
+        }
+    }
+
+    private static Class<?> getElementClass(char typeClass) {
+        switch (typeClass) {
+            case 'B':
+                return byte.class;
+            case 'S':
+                return short.class;
+            case 'I':
+                return int.class;
+            case 'J':
+                return long.class;
+            case 'F':
+                return float.class;
+            default:
+                return double.class;
+        }
+    }
+}
@@ -0,0 +1,482 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the files COPYING and Copyright.html. *
+ * COPYING can be found at the root of the source code distribution tree.    *
+ * Or, see https://support.hdfgroup.org/products/licenses.html               *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.view.ImageView;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.PaletteData;
+
+import hdf.object.Utils;
+import hdf.view.Tools;
+
+/**
+ * PixelKernel converts the raw data of an image to pixels in a single pass.
+ * <p>
+ * {@link #render(Object, double[], int, int, boolean, List, boolean, byte[][], byte[], int[])}
+ * maps each raw value through the data range and the invalid values to a
+ * palette index and, through the palette, to an ARGB pixel, transposing the
+ * image if needed; invalid values become transparent pixels. The palette
+ * indices are kept, so a change of palette only needs
+ * {@link #applyPalette(byte[], byte[][], int[], boolean)}, and
+ * {@link #toImageData(BufferedImage)} copies the pixels to an SWT ImageData
+ * without going through the color model pixel by pixel.
+ * <p>
+ * The rows of the image are split into bands that are processed in parallel in
+ * the common fork-join pool.
+ *
+ * <pre>
+ * byteData = PixelKernel.render(data, range, w, h, false, invalidValues, false, palette, byteData, pixels);
+ * ImageData imageData = PixelKernel.toImageData(bufferedImage);
+ * </pre>
+ */
+public final class PixelKernel {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PixelKernel.class);
+
+    /** Bands with fewer pixels than this are processed by a single thread. */
+    private static final int PARTITION_PIXELS = 1 << 16;
+
+    private PixelKernel() {
+    }
+
+    /**
+     * Converts the raw data of an image to palette indices and ARGB pixels.
+     * <p>
+     * A value is mapped linearly from the data range to the indices 0 to 255. A
+     * value out of the range, equal to one of the invalid values, NaN or
+     * infinite is mapped to the index 0 and to a transparent pixel. If the range
+     * is not set, it is computed from the data. Byte data is mapped through the
+     * range only if convertByteData is true and the range is not [0, 255].
+     * <p>
+     * If the image is transposed, the raw data is stored by column.
+     *
+     * @param rawData
+     *            the raw data of the image, an array of byte, short, int, long,
+     *            float or double.
+     * @param minmax
+     *            the data range, which is computed if both values are equal.
+     * @param w
+     *            the width of the image.
+     * @param h
+     *            the height of the image.
+     * @param isTransposed
+     *            if the raw data is stored by column.
+     * @param invalidValues
+     *            the values to display as transparent pixels, or null.
+     * @param convertByteData
+     *            if byte data is mapped through the data range.
+     * @param palette
+     *            the color lookup table, or null for a gray palette.
+     * @param byteData
+     *            the buffer of the palette indices, reused if it has w*h
+     *            elements.
+     * @param pixels
+     *            the ARGB pixels of the image, of w*h elements.
+     *
+     * @return the palette indices of the pixels, or null if the raw data is not
+     *         supported.
+     */
+    public static byte[] render(Object rawData, double[] minmax, int w, int h, boolean isTransposed,
+            List<Number> invalidValues, boolean convertByteData, byte[][] palette, byte[] byteData, int[] pixels) {
+        if ((rawData == null) || !rawData.getClass().isArray() || (w <= 0) || (h <= 0))
+            return null;
+
+        int size = w * h;
+        if ((pixels == null) || (pixels.length < size))
+            return null;
+
+        char dname = Utils.getJavaObjectRuntimeClass(rawData);
+        if ("BSIJFD".indexOf(dname) < 0)
+            return null;
+
+        if ((byteData == null) || (byteData.length != size))
+            byteData = new byte[size];
+
+        if (minmax == null)
+            minmax = new double[2];
+
+        boolean isScaled = true;
+        if (dname == 'B') {
+            isScaled = convertByteData;
+            if (isScaled && (minmax[0] == minmax[1]))
+                Tools.findMinMax(rawData, minmax, null);
+            if ((minmax[0] == 0) && (minmax[1] == 255))
+                isScaled = false;
+        }
+        else if (minmax[0] == minmax[1]) {
+            Tools.findMinMax(rawData, minmax, null);
+        }
+
+        ValueSet invalidSet = null;
+        if ((dname != 'B') && (invalidValues != null) && !invalidValues.isEmpty())
+            invalidSet = new ValueSet(invalidValues);
+
+        RenderAction action = new RenderAction(rawData, dname, minmax[0], minmax[1], isScaled, w, h, isTransposed,
+                invalidSet, getColors(palette), byteData, pixels, 0, h);
+        ForkJoinPool.commonPool().invoke(action);
+
+        log.trace("render(): {}x{} pixels of type {}", w, h, dname);
+
+        return byteData;
+    }
+
+    /**
+     * Converts palette indices to ARGB pixels.
+     *
+     * @param byteData
+     *            the palette indices of the pixels.
+     * @param palette
+     *            the color lookup table, or null for a gray palette.
+     * @param pixels
+     *            the ARGB pixels, of the length of the indices.
+     * @param keepAlpha
+     *            if true, the alpha of the pixels is kept, so the transparent
+     *            pixels of invalid values stay transparent; otherwise, the
+     *            pixels are opaque.
+     */
+    public static void applyPalette(byte[] byteData, byte[][] palette, int[] pixels, boolean keepAlpha) {
+        if ((byteData == null) || (pixels == null))
+            return;
+
+        int size = Math.min(byteData.length, pixels.length);
+        ForkJoinPool.commonPool().invoke(new PaletteAction(byteData, getColors(palette), pixels, keepAlpha, 0, size));
+    }
+
+    /**
+     * Copies the pixels of an image of packed integer pixels, such as an image of
+     * type TYPE_INT_ARGB or TYPE_INT_RGB, to a 32-bit SWT ImageData.
+     *
+     * @param image
+     *            the image.
+     *
+     * @return the image data, or null if the pixels of the image are not packed
+     *         integers.
+     */
+    public static ImageData toImageData(BufferedImage image) {
+        if ((image == null) || !(image.getColorModel() instanceof DirectColorModel)
+                || !(image.getRaster().getDataBuffer() instanceof DataBufferInt)
+                || !(image.getSampleModel() instanceof SinglePixelPackedSampleModel))
+            return null;
+
+        DirectColorModel colorModel = (DirectColorModel) image.getColorModel();
+        if ((colorModel.getRedMask() != 0xff0000) || (colorModel.getGreenMask() != 0xff00)
+                || (colorModel.getBlueMask() != 0xff))
+            return null;
+
+        int w = image.getWidth();
+        int h = image.getHeight();
+        SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel) image.getSampleModel();
+        DataBufferInt buffer = (DataBufferInt) image.getRaster().getDataBuffer();
+        if ((buffer.getNumBanks() != 1) || (image.getRaster().getParent() != null))
+            return null;
+
+        ImageData imgData = new ImageData(w, h, 32, new PaletteData(0xff0000, 0xff00, 0xff));
+        if (colorModel.hasAlpha())
+            imgData.alphaData = new byte[w * h];
+
+        ForkJoinPool.commonPool().invoke(new ConvertAction(buffer.getData(), buffer.getOffset(),
+                sampleModel.getScanlineStride(), imgData, 0, h));
+
+        return imgData;
+    }
+
+    /** Returns the ARGB colors of the 256 entries of a palette. */
+    private static int[] getColors(byte[][] palette) {
+        if (palette == null)
+            palette = Tools.createGrayPalette();
+
+        int[] colors = new int[256];
+        for (int i = 0; i < 256; i++)
+            colors[i] = 0xff000000 | ((palette[0][i] & 0xff) << 16) | ((palette[1][i] & 0xff) << 8) | (palette[2][i] & 0xff);
+
+        return colors;
+    }
+
+    /**
+     * A set of double values, hashed by their bits, so a value is looked up
+     * without boxing. 0.0 and -0.0 are the same value, as in a comparison.
+     */
+    private static final class ValueSet {
+        private final long[]    keys;
+        private final boolean[] used;
+        private final int       mask;
+
+        ValueSet(List<Number> values) {
+            int capacity = Integer.highestOneBit(Math.max(2, values.size()) * 2) * 2;
+            keys = new long[capacity];
+            used = new boolean[capacity];
+            mask = capacity - 1;
+
+            for (Number value : values) {
+                if (value == null)
+                    continue;
+
+                long key = toKey(value.doubleValue());
+                int i = hash(key);
+                while (used[i] && (keys[i] != key))
+                    i = (i + 1) & mask;
+                keys[i] = key;
+                used[i] = true;
+            }
+        }
+
+        boolean contains(double value) {
+            long key = toKey(value);
+            for (int i = hash(key); used[i]; i = (i + 1) & mask) {
+                if (keys[i] == key)
+                    return true;
+            }
+
+            return false;
+        }
+
+        private static long toKey(double value) {
+            return Double.doubleToLongBits((value == 0) ? 0.0 : value);
+        }
+
+        private int hash(long key) {
+            long h = key * 0x9e3779b97f4a7c15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+
+    /** Processes a range of rows, splitting it into bands processed in parallel. */
+    private abstract static class RowAction extends RecursiveAction {
+        private static final long serialVersionUID = -2913712464836420981L;
+
+        final int from;
+        final int to;
+        final int rowPixels;
+
+        RowAction(int from, int to, int rowPixels) {
+            this.from = from;
+            this.to = to;
+            this.rowPixels = Math.max(1, rowPixels);
+        }
+
+        abstract RowAction split(int from, int to);
+
+        abstract void processRows(int from, int to);
+
+        @Override
+        protected void compute() {
+            if (((long) (to - from) * rowPixels <= PARTITION_PIXELS) || (to - from < 2)) {
+                processRows(from, to);
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(split(from, mid), split(mid, to));
+        }
+    }
+
+    /** Maps raw values to palette indices and ARGB pixels. */
+    private static final class RenderAction extends RowAction {
+        private static final long serialVersionUID = 4478925374962317035L;
+
+        private final Object   rawData;
+        private final char     dname;
+        private final double   min;
+        private final double   max;
+        private final double   ratio;
+        private final boolean  isScaled;
+        private final int      w;
+        private final int      h;
+        private final boolean  isTransposed;
+        private final ValueSet invalidSet;
+        private final int[]    colors;
+        private final byte[]   byteData;
+        private final int[]    pixels;
+
+        RenderAction(Object rawData, char dname, double min, double max, boolean isScaled, int w, int h,
+                boolean isTransposed, ValueSet invalidSet, int[] colors, byte[] byteData, int[] pixels, int from, int to) {
+            super(from, to, w);
+            this.rawData = rawData;
+            this.dname = dname;
+            this.min = min;
+            this.max = max;
+            this.ratio = (min == max) ? 1.00d : (double) (255.00 / (max - min));
+            this.isScaled = isScaled;
+            this.w = w;
+            this.h = h;
+            this.isTransposed = isTransposed;
+            this.invalidSet = invalidSet;
+            this.colors = colors;
+            this.byteData = byteData;
+            this.pixels = pixels;
+        }
+
+        @Override
+        RowAction split(int from, int to) {
+            return new RenderAction(rawData, dname, min, max, isScaled, w, h, isTransposed, invalidSet, colors,
+                    byteData, pixels, from, to);
+        }
+
+        @Override
+        void processRows(int from, int to) {
+            // the source index of a pixel is src + j * step
+            int step = isTransposed ? h : 1;
+
+            for (int i = from; i < to; i++) {
+                int dst = i * w;
+                int src = isTransposed ? i : dst;
+
+                switch (dname) {
+                    case 'B':
+                        byte[] b = (byte[]) rawData;
+                        for (int j = 0; j < w; j++, src += step) {
+                            if (isScaled)
+                                setPixel(dst + j, b[src]);
+                            else
+                                setIndex(dst + j, b[src]);
+                        }
+                        break;
+                    case 'S':
+                        short[] s = (short[]) rawData;
+                        for (int j = 0; j < w; j++, src += step)
+                            setPixel(dst + j, s[src]);
+                        break;
+                    case 'I':
+                        int[] ia = (int[]) rawData;
+                        for (int j = 0; j < w; j++, src += step)
+                            setPixel(dst + j, ia[src]);
+                        break;
+                    case 'J':
+                        long[] l = (long[]) rawData;
+                        for (int j = 0; j < w; j++, src += step)
+                            setPixel(dst + j, l[src]);
+                        break;
+                    case 'F':
+                        float[] f = (float[]) rawData;
+                        for (int j = 0; j < w; j++, src += step)
+                            setPixel(dst + j, f[src]);
+                        break;
+                    case 'D':
+                        double[] d = (double[]) rawData;
+                        for (int j = 0; j < w; j++, src += step)
+                            setPixel(dst + j, d[src]);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        private void setIndex(int idx, byte value) {
+            byteData[idx] = value;
+            pixels[idx] = colors[value & 0xff];
+        }
+
+        private void setPixel(int idx, double value) {
+            if ((value < min) || (value > max) || Double.isNaN(value) || Double.isInfinite(value)
+                    || ((invalidSet != null) && invalidSet.contains(value))) {
+                byteData[idx] = 0;
+                pixels[idx] = colors[0] & 0x00ffffff;
+            }
+            else {
+                byte out = (byte) ((value - min) * ratio);
+                byteData[idx] = out;
+                pixels[idx] = colors[out & 0xff];
+            }
+        }
+    }
+
+    /** Maps palette indices to ARGB pixels. The rows are single pixels. */
+    private static final class PaletteAction extends RowAction {
+        private static final long serialVersionUID = 2160472470985134593L;
+
+        private final byte[]  byteData;
+        private final int[]   colors;
+        private final int[]   pixels;
+        private final boolean keepAlpha;
+
+        PaletteAction(byte[] byteData, int[] colors, int[] pixels, boolean keepAlpha, int from, int to) {
+            super(from, to, 1);
+            this.byteData = byteData;
+            this.colors = colors;
+            this.pixels = pixels;
+            this.keepAlpha = keepAlpha;
+        }
+
+        @Override
+        RowAction split(int from, int to) {
+            return new PaletteAction(byteData, colors, pixels, keepAlpha, from, to);
+        }
+
+        @Override
+        void processRows(int from, int to) {
+            if (keepAlpha) {
+                for (int i = from; i < to; i++)
+                    pixels[i] = (pixels[i] & 0xff000000) | (colors[byteData[i] & 0xff] & 0x00ffffff);
+            }
+            else {
+                for (int i = from; i < to; i++)
+                    pixels[i] = colors[byteData[i] & 0xff];
+            }
+        }
+    }
+
+    /** Copies packed integer pixels to the bytes of a 32-bit ImageData. */
+    private static final class ConvertAction extends RowAction {
+        private static final long serialVersionUID = -6604113284117263392L;
+
+        private final int[]     pixels;
+        private final int       offset;
+        private final int       scanline;
+        private final ImageData imgData;
+
+        ConvertAction(int[] pixels, int offset, int scanline, ImageData imgData, int from, int to) {
+            super(from, to, imgData.width);
+            this.pixels = pixels;
+            this.offset = offset;
+            this.scanline = scanline;
+            this.imgData = imgData;
+        }
+
+        @Override
+        RowAction split(int from, int to) {
+            return new ConvertAction(pixels, offset, scanline, imgData, from, to);
+        }
+
+        @Override
+        void processRows(int from, int to) {
+            byte[] data = imgData.data;
+            byte[] alpha = imgData.alphaData;
+            int w = imgData.width;
+
+            for (int y = from; y < to; y++) {
+                int src = offset + y * scanline;
+                int dst = y * imgData.bytesPerLine;
+                int alphaIdx = y * w;
+
+                // a 32-bit pixel is stored most significant byte first
+                for (int x = 0; x < w; x++, src++, dst += 4) {
+                    int argb = pixels[src];
+                    data[dst + 1] = (byte) (argb >> 16);
+                    data[dst + 2] = (byte) (argb >> 8);
+                    data[dst + 3] = (byte) argb;
+                    if (alpha != null)
+                        alpha[alphaIdx + x] = (byte) (argb >>> 24);
+                }
+            }
+        }
+    }
+}
@@ -17,13 +17,20 @@ package hdf.view.MetaDataView;
 import java.io.File;
 import java.lang.reflect.Array;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.ScrolledComposite;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.events.MenuAdapter;
 import org.eclipse.swt.events.MenuEvent;
 import org.eclipse.swt.events.SelectionAdapter;
@@ -123,6 +130,25 @@ public abstract class DefaultBaseMetaDataView implements MetaDataView {
     private static final int              ATTR_TAB_INDEX = 0;
     private static final int              GENERAL_TAB_INDEX = 1;
 
+    /** The number of attribute values shown in the attribute table at a time */
+    private static final int              ATTR_VALUE_BATCH_SIZE = 32;
+
+    /**
+     * Reads the attribute values that were not read with the attribute list, one
+     * object at a time, so that the selection of objects is not held by file I/O.
+     */
+    private static final ExecutorService  attrValueLoader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Attribute Value Loader");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /** The task reading the attribute values of this object */
+    private Future<?>                     attrValueTask;
+
     public DefaultBaseMetaDataView(Composite parentComposite, DataViewManager viewer, HObject theObj) {
         this.parent = parentComposite;
         this.viewManager = viewer;
@@ -390,9 +416,88 @@ public abstract class DefaultBaseMetaDataView implements MetaDataView {
         // the window too wide
         attrTable.getColumn(3).setWidth(200);
 
+        loadAttributeValues();
+
         return attributeInfoGroup;
     }
 
+    /**
+     * Reads the values of the attributes listed without their values on the
+     * attribute value loader thread, and shows them in the attribute table in
+     * batches. The task is cancelled when the attribute table is disposed.
+     */
+    private void loadAttributeValues() {
+        final List<Attribute> pending = new ArrayList<>();
+        for (TableItem item : attrTable.getItems()) {
+            Attribute attr = (Attribute) item.getData();
+            if (attr.toString(", ", 50) == null) {
+                pending.add(attr);
+                item.setText(3, "Loading...");
+            }
+        }
+
+        if (pending.isEmpty())
+            return;
+
+        log.trace("loadAttributeValues(): {} attribute values to read", pending.size());
+
+        attrValueTask = attrValueLoader.submit(new Runnable() {
+            @Override
+            public void run() {
+                List<Attribute> batch = new ArrayList<>();
+                for (int i = 0; i < pending.size(); i++) {
+                    if (Thread.currentThread().isInterrupted())
+                        return;
+
+                    Attribute attr = pending.get(i);
+                    try {
+                        attr.getData();
+                    }
+                    catch (Exception ex) {
+                        log.debug("loadAttributeValues(): {} getData() failure: ", attr.getName(), ex);
+                    }
+
+                    batch.add(attr);
+                    if ((batch.size() == ATTR_VALUE_BATCH_SIZE) || (i == pending.size() - 1)) {
+                        final List<Attribute> loaded = batch;
+                        batch = new ArrayList<>();
+                        if (display.isDisposed())
+                            return;
+
+                        display.asyncExec(new Runnable() {
+                            @Override
+                            public void run() {
+                                showAttributeValues(loaded);
+                            }
+                        });
+                    }
+                }
+            }
+        });
+
+        attrTable.addDisposeListener(new DisposeListener() {
+            @Override
+            public void widgetDisposed(DisposeEvent e) {
+                if (attrValueTask != null)
+                    attrValueTask.cancel(true);
+            }
+        });
+    }
+
+    /** Shows the values of the given attributes in the attribute table. */
+    private void showAttributeValues(List<Attribute> attrs) {
+        if ((attrTable == null) || attrTable.isDisposed())
+            return;
+
+        for (TableItem item : attrTable.getItems()) {
+            if (!attrs.contains(item.getData()))
+                continue;
+
+            String attrValue = ((Attribute) item.getData()).toString(", ", 50);
+            item.setText(3, (attrValue == null) ? "null" : attrValue);
+        }
+    }
+
     private Composite createGeneralObjectInfoPane(Composite parent, final HObject dataObject) {
         if (parent == null || dataObject == null) return null;
 
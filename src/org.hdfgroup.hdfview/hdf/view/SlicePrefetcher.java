@@ -0,0 +1,387 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the files COPYING and Copyright.html. *
+ * COPYING can be found at the root of the source code distribution tree.    *
+ * Or, see https://support.hdfgroup.org/products/licenses.html               *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.view;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import hdf.object.Dataset;
+import hdf.object.Datatype;
+import hdf.object.ScalarDS;
+
+/**
+ * SlicePrefetcher reads the slices of a dataset next to the frame displayed by
+ * a data view in the background, so that stepping to the next or previous frame
+ * does not wait for the file.
+ * <p>
+ * A slice is the current selection of the dataset at another index of the
+ * frame dimension, selectedIndex[2]. Once a frame is shown, the next and
+ * previous slices are read on a background thread, nearest first, into a small
+ * least-recently-used cache, whose size is bounded by a memory budget. When the
+ * view moves to another frame, gotoSlice() hands a copy of the cached slice to
+ * the dataset with {@link Dataset#setSelectionData(Object)}, so that getData()
+ * returns it at once, and the view may change it without changing the cache.
+ * <p>
+ * The background thread reads the slices with
+ * {@link Dataset#readBlock(long[], long[], long[], Object)} at the selection the
+ * prefetcher was created for, and never uses the selection of the dataset. Only
+ * gotoSlice(), called on the thread of the view, moves the selection, so the
+ * view must step through the frames with gotoSlice() rather than by changing the
+ * start of the selection itself. Only the datasets that support
+ * {@link Dataset#hasDirectBlockIO()} are prefetched.
+ *
+ * <pre>
+ * SlicePrefetcher prefetcher = SlicePrefetcher.create(dataset, ViewProperties.getSlicePrefetchSize() * 1024L * 1024L);
+ * prefetcher.prefetch(currentFrame);
+ * ...
+ * prefetcher.gotoSlice(nextFrame);
+ * Object data = dataset.getData();
+ * </pre>
+ */
+public final class SlicePrefetcher {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(SlicePrefetcher.class);
+
+    /** The largest number of slices read ahead on each side of the current slice */
+    private static final int             MAX_DEPTH = 4;
+
+    private final Dataset                dataset;
+    private final int                    sliceDim;
+    private final long                   nSlices;
+
+    /** The number of slices read ahead on each side of the current slice */
+    private final int                    depth;
+
+    /** The selection of the slices, but for the start of the frame dimension */
+    private final long[]                 selStart;
+    private final long[]                 selStride;
+    private final long[]                 selCount;
+
+    private final Map<Long, Object>      sliceCache;
+    private final Map<Long, Future<Object>> pendingSlices = new HashMap<>();
+    private final ExecutorService        executor;
+
+    /** Incremented when the cache is cleared, to drop the slices still being read */
+    private long                         generation = 0;
+
+    private SlicePrefetcher(Dataset dset, int depth) {
+        this.dataset = dset;
+        this.depth = depth;
+
+        int rank = dset.getRank();
+        long[] stride = dset.getStride();
+
+        sliceDim = dset.getSelectedIndex()[2];
+        nSlices = dset.getDims()[sliceDim];
+        selStart = dset.getStartDims().clone();
+        selCount = dset.getSelectedDims().clone();
+        selStride = new long[rank];
+        for (int i = 0; i < rank; i++)
+            selStride[i] = (stride == null) ? 1 : stride[i];
+
+        final int maxSlices = 2 * depth + 1;
+        sliceCache = new LinkedHashMap<Long, Object>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Object> eldest) {
+                return size() > maxSlices;
+            }
+        };
+
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "SlicePrefetcher-" + dataset.getName());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Creates a prefetcher for the current selection of a dataset, if the
+     * selection is a single frame of a dataset of numbers with at least three
+     * dimensions that supports direct block I/O, and at least one slice on each
+     * side of the current one fits in the memory budget.
+     *
+     * @param dset
+     *            the dataset displayed by the view.
+     * @param budget
+     *            the memory budget in bytes for the cached slices.
+     *
+     * @return the prefetcher, or null if the slices of the dataset are not read
+     *         ahead.
+     */
+    public static SlicePrefetcher create(Dataset dset, long budget) {
+        if (!(dset instanceof ScalarDS) || !dset.hasDirectBlockIO() || (dset.getRank() < 3) || (budget <= 0))
+            return null;
+
+        Datatype dtype = dset.getDatatype();
+        if ((dtype == null) || !(dtype.isInteger() || dtype.isFloat() || dtype.isChar()))
+            return null;
+
+        int sliceDim = dset.getSelectedIndex()[2];
+        long[] count = dset.getSelectedDims();
+        if ((count[sliceDim] != 1) || (dset.getDims()[sliceDim] < 2))
+            return null;
+
+        long sliceBytes = Math.max(1, dtype.getDatatypeSize());
+        for (int i = 0; i < count.length; i++)
+            sliceBytes *= count[i];
+        if (sliceBytes > Integer.MAX_VALUE)
+            return null;
+
+        int depth = (int) Math.min(MAX_DEPTH, (budget / sliceBytes - 1) / 2);
+        if (depth < 1) {
+            log.trace("create(): {} slices of {} bytes do not fit in {} bytes", dset.getName(), sliceBytes, budget);
+            return null;
+        }
+
+        log.trace("create(): {} depth={} sliceBytes={}", dset.getName(), depth, sliceBytes);
+
+        return new SlicePrefetcher(dset, depth);
+    }
+
+    /**
+     * Moves the selection of the dataset to a slice and sets the data of the
+     * dataset to the slice, from the cache or else from file, then reads the
+     * slices around it in the background. If the slice can not be read, the data
+     * of the dataset is cleared, so that the next getData() reports the failure.
+     *
+     * @param index
+     *            the index of the slice in the frame dimension.
+     */
+    public void gotoSlice(long index) {
+        Long key = Long.valueOf(index);
+        Object slice = null;
+        Future<Object> pending = null;
+
+        synchronized (sliceCache) {
+            slice = sliceCache.get(key);
+            if (slice == null)
+                pending = pendingSlices.get(key);
+        }
+
+        if (pending != null) {
+            try {
+                slice = pending.get();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            catch (ExecutionException | CancellationException ex) {
+                log.debug("gotoSlice({}): prefetch failure: ", index, ex);
+            }
+        }
+
+        boolean isCached = (slice != null);
+
+        if (!isSameSelection()) {
+            log.trace("gotoSlice({}): the selection of {} has changed", index, dataset.getName());
+            clear();
+            dataset.getStartDims()[sliceDim] = index;
+            dataset.setSelectionData(null);
+            return;
+        }
+
+        dataset.getStartDims()[sliceDim] = index;
+
+        // read a slice that is not cached here, as the next slices are read
+        // in the background while the view displays it
+        if (!isCached) {
+            try {
+                slice = readSlice(index);
+            }
+            catch (Exception ex) {
+                log.debug("gotoSlice({}): read failure: ", index, ex);
+                dataset.setSelectionData(null);
+                return;
+            }
+        }
+
+        // the view may convert or edit the data of the dataset in place
+        dataset.setSelectionData(copySlice(slice));
+
+        log.trace("gotoSlice({}): cached={}", index, isCached);
+
+        synchronized (sliceCache) {
+            if (!isCached)
+                sliceCache.put(key, slice);
+        }
+
+        prefetch(index);
+    }
+
+    /**
+     * Reads the slices next to a slice in the background, nearest first. The
+     * slices still waiting to be read that are farther from the slice are
+     * dropped.
+     *
+     * @param index
+     *            the index of the slice displayed in the frame dimension.
+     */
+    public void prefetch(long index) {
+        synchronized (sliceCache) {
+            if (executor.isShutdown())
+                return;
+
+            Iterator<Map.Entry<Long, Future<Object>>> it = pendingSlices.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Future<Object>> entry = it.next();
+                if (Math.abs(entry.getKey().longValue() - index) > depth) {
+                    entry.getValue().cancel(false);
+                    it.remove();
+                }
+            }
+
+            // keep the current slice in the cache, as the most recently used
+            sliceCache.get(Long.valueOf(index));
+
+            for (int d = 1; d <= depth; d++) {
+                prefetchSlice(index + d);
+                prefetchSlice(index - d);
+            }
+        }
+    }
+
+    /**
+     * Drops a slice from the cache, for example after its values were changed in
+     * file.
+     *
+     * @param index
+     *            the index of the slice in the frame dimension.
+     */
+    public void invalidate(long index) {
+        synchronized (sliceCache) {
+            sliceCache.remove(Long.valueOf(index));
+        }
+    }
+
+    /**
+     * Drops all the cached slices and the slices waiting to be read.
+     */
+    public void clear() {
+        synchronized (sliceCache) {
+            generation++;
+            for (Future<Object> pending : pendingSlices.values())
+                pending.cancel(false);
+            pendingSlices.clear();
+            sliceCache.clear();
+        }
+    }
+
+    /**
+     * Drops all the slices and stops the background thread. The prefetcher can
+     * not be used afterwards.
+     */
+    public void close() {
+        clear();
+        executor.shutdownNow();
+    }
+
+    /*
+     * Reads the given slice in the background if it exists and is not cached.
+     * Called with the lock of the cache held.
+     */
+    private void prefetchSlice(final long index) {
+        if ((index < 0) || (index >= nSlices))
+            return;
+
+        final Long key = Long.valueOf(index);
+        if (sliceCache.containsKey(key) || pendingSlices.containsKey(key))
+            return;
+
+        final long sliceGeneration = generation;
+
+        pendingSlices.put(key, executor.submit(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                Object slice = null;
+                try {
+                    slice = readSlice(index);
+                    return slice;
+                }
+                finally {
+                    synchronized (sliceCache) {
+                        if (sliceGeneration == generation) {
+                            if (slice != null)
+                                sliceCache.put(key, slice);
+                            pendingSlices.remove(key);
+                        }
+                    }
+                }
+            }
+        }));
+    }
+
+    /*
+     * Reads the given slice from file, without changing or using the selection
+     * of the dataset.
+     */
+    private Object readSlice(long index) throws Exception {
+        long[] start = selStart.clone();
+        start[sliceDim] = index;
+
+        return dataset.readBlock(start, selStride.clone(), selCount.clone(), null);
+    }
+
+    /*
+     * Returns a copy of the array of a slice, so that the cached slice is not
+     * changed by the view.
+     */
+    private static Object copySlice(Object slice) {
+        if ((slice == null) || !slice.getClass().isArray())
+            return slice;
+
+        int n = Array.getLength(slice);
+        Object copy = Array.newInstance(slice.getClass().getComponentType(), n);
+        System.arraycopy(slice, 0, copy, 0, n);
+
+        return copy;
+    }
+
+    /*
+     * Checks that the selection of the dataset, but for the start of the frame
+     * dimension, is the one the slices are read for.
+     */
+    private boolean isSameSelection() {
+        long[] start = dataset.getStartDims();
+        long[] stride = dataset.getStride();
+        long[] count = dataset.getSelectedDims();
+
+        if ((dataset.getSelectedIndex()[2] != sliceDim) || !Arrays.equals(count, selCount))
+            return false;
+
+        for (int i = 0; i < start.length; i++) {
+            if ((i != sliceDim) && (start[i] != selStart[i]))
+                return false;
+            if (selStride[i] != ((stride == null) ? 1 : stride[i]))
+                return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,286 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the files COPYING and Copyright.html. *
+ * COPYING can be found at the root of the source code distribution tree.    *
+ * Or, see https://support.hdfgroup.org/products/licenses.html               *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.view;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import hdf.object.Dataset;
+
+/**
+ * StatisticsCache keeps the statistics of dataset selections, so that the
+ * data of a large dataset is only scanned the first time its range or
+ * statistics are needed.
+ * <p>
+ * The statistics of the objects of a file are stored in a small properties
+ * file in the "stats" cache of {@link DiskCache}. An entry is keyed by the
+ * object ID and name of the dataset, its selection and the fill value excluded
+ * from the statistics. All the entries of a file are dropped when the file is
+ * modified.
+ * <p>
+ * New entries are written to disk in batches: a store is written once it holds
+ * {@link #FLUSH_PUTS} new entries. The store of a file is written and dropped
+ * from memory by {@link #close(String)}, which the application calls when the
+ * file is closed, and all the stores by {@link #flush()}.
+ */
+public final class StatisticsCache {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(StatisticsCache.class);
+
+    /** Index of the minimum in the statistics values */
+    public static final int    MIN         = 0;
+    /** Index of the maximum in the statistics values */
+    public static final int    MAX         = 1;
+    /** Index of the mean in the statistics values */
+    public static final int    MEAN        = 2;
+    /** Index of the standard deviation in the statistics values */
+    public static final int    STDEV       = 3;
+    /** Index of the number of NaN and infinite values in the statistics values */
+    public static final int    NAN_COUNT   = 4;
+    /** The number of statistics values */
+    public static final int    NVALUES     = 5;
+
+    /** The store is cleared when it holds more entries than this */
+    private static final int   MAX_ENTRIES = 1024;
+
+    /** A store is written to disk once it holds this many new entries */
+    public static final int    FLUSH_PUTS  = 16;
+
+    /** The size budget of the stores of all files */
+    private static final long  MAX_CACHE_BYTES = 16L * 1024L * 1024L;
+
+    private static final String KEY_PATH     = "file.path";
+    private static final String KEY_LENGTH   = "file.length";
+    private static final String KEY_MODIFIED = "file.modified";
+
+    /** The stores loaded so far, by the path of the data file */
+    private static final Map<String, Properties> stores = new HashMap<>();
+
+    /** The number of new entries of the stores not yet written, by the path of the data file */
+    private static final Map<String, Integer> pendingPuts = new HashMap<>();
+
+    private StatisticsCache() {
+    }
+
+    /**
+     * Returns the cached statistics of the current selection of a dataset.
+     *
+     * @param dataset
+     *            the dataset.
+     * @param fillValue
+     *            the fill value excluded from the statistics, or null.
+     *
+     * @return the statistics values, indexed by MIN, MAX, MEAN, STDEV and
+     *         NAN_COUNT, or null if the selection is not in the cache.
+     */
+    public static synchronized double[] get(Dataset dataset, Object fillValue) {
+        File file = getDataFile(dataset);
+        if (file == null)
+            return null;
+
+        Properties store = getStore(file);
+        String value = store.getProperty(getKey(dataset, fillValue));
+        if (value == null)
+            return null;
+
+        String[] tokens = value.split(",");
+        if (tokens.length != NVALUES)
+            return null;
+
+        double[] values = new double[NVALUES];
+        try {
+            for (int i = 0; i < NVALUES; i++)
+                values[i] = Double.parseDouble(tokens[i]);
+        }
+        catch (NumberFormatException ex) {
+            log.debug("get(): invalid entry {}", value);
+            return null;
+        }
+
+        log.trace("get(): {} found in cache", dataset.getFullName());
+        return values;
+    }
+
+    /**
+     * Adds the statistics of the current selection of a dataset to the cache.
+     *
+     * @param dataset
+     *            the dataset.
+     * @param fillValue
+     *            the fill value excluded from the statistics, or null.
+     * @param values
+     *            the statistics values, indexed by MIN, MAX, MEAN, STDEV and
+     *            NAN_COUNT.
+     */
+    public static synchronized void put(Dataset dataset, Object fillValue, double[] values) {
+        File file = getDataFile(dataset);
+        if ((file == null) || (values == null) || (values.length != NVALUES))
+            return;
+
+        Properties store = getStore(file);
+        if (store.size() > MAX_ENTRIES)
+            resetStore(store, file);
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < NVALUES; i++) {
+            if (i > 0)
+                sb.append(',');
+            sb.append(values[i]);
+        }
+        store.setProperty(getKey(dataset, fillValue), sb.toString());
+
+        Integer pending = pendingPuts.get(file.getPath());
+        int nPending = (pending == null) ? 1 : pending.intValue() + 1;
+        if (nPending >= FLUSH_PUTS) {
+            writeStore(file.getPath(), store);
+            pendingPuts.remove(file.getPath());
+        }
+        else
+            pendingPuts.put(file.getPath(), Integer.valueOf(nPending));
+    }
+
+    /**
+     * Writes the new entries of all the stores to disk, and drops the stores
+     * from memory.
+     */
+    public static synchronized void flush() {
+        boolean isWritten = !pendingPuts.isEmpty();
+
+        for (String path : pendingPuts.keySet())
+            writeStore(path, stores.get(path));
+        pendingPuts.clear();
+        stores.clear();
+
+        if (isWritten)
+            DiskCache.trim(DiskCache.getDirectory("stats"), MAX_CACHE_BYTES);
+    }
+
+    /**
+     * Writes the new entries of the store of a file to disk, and drops the
+     * store from memory.
+     *
+     * @param filePath
+     *            the path of the data file being closed.
+     */
+    public static synchronized void close(String filePath) {
+        if (filePath == null)
+            return;
+
+        String path = new File(filePath).getAbsoluteFile().getPath();
+        Properties store = stores.remove(path);
+        if (pendingPuts.remove(path) != null) {
+            writeStore(path, store);
+            DiskCache.trim(DiskCache.getDirectory("stats"), MAX_CACHE_BYTES);
+        }
+    }
+
+    private static void writeStore(String path, Properties store) {
+        File storeFile = getStoreFile(path);
+        if ((storeFile == null) || (store == null))
+            return;
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(storeFile))) {
+            store.store(out, "HDFView statistics of " + new File(path).getName());
+        }
+        catch (Exception ex) {
+            log.debug("writeStore(): failed to write {}: ", storeFile, ex);
+        }
+    }
+
+    /** Returns the data file of a dataset, or null if it is not a local file. */
+    private static File getDataFile(Dataset dataset) {
+        if ((dataset == null) || (dataset.getFileFormat() == null))
+            return null;
+
+        File file = new File(dataset.getFileFormat().getFilePath()).getAbsoluteFile();
+        return file.isFile() ? file : null;
+    }
+
+    private static Properties getStore(File file) {
+        Properties store = stores.get(file.getPath());
+        if (store == null) {
+            store = new Properties();
+
+            File storeFile = getStoreFile(file.getPath());
+            if ((storeFile != null) && storeFile.exists()) {
+                try (InputStream in = new BufferedInputStream(new FileInputStream(storeFile))) {
+                    store.load(in);
+                    DiskCache.touch(storeFile);
+                }
+                catch (Exception ex) {
+                    log.debug("getStore(): failed to read {}: ", storeFile, ex);
+                    store.clear();
+                }
+            }
+
+            stores.put(file.getPath(), store);
+        }
+
+        if (!file.getPath().equals(store.getProperty(KEY_PATH))
+                || !String.valueOf(file.length()).equals(store.getProperty(KEY_LENGTH))
+                || !String.valueOf(file.lastModified()).equals(store.getProperty(KEY_MODIFIED))) {
+            log.trace("getStore(): {} modified, statistics dropped", file);
+            resetStore(store, file);
+        }
+
+        return store;
+    }
+
+    private static void resetStore(Properties store, File file) {
+        store.clear();
+        store.setProperty(KEY_PATH, file.getPath());
+        store.setProperty(KEY_LENGTH, String.valueOf(file.length()));
+        store.setProperty(KEY_MODIFIED, String.valueOf(file.lastModified()));
+    }
+
+    private static File getStoreFile(String path) {
+        File dir = DiskCache.getDirectory("stats");
+        if (dir == null)
+            return null;
+
+        return new File(dir, Integer.toHexString(path.hashCode()) + ".stats");
+    }
+
+    private static String getKey(Dataset dataset, Object fillValue) {
+        StringBuilder sb = new StringBuilder(dataset.getFullName());
+
+        long[] oid = dataset.getOID();
+        if (oid != null) {
+            for (int i = 0; i < oid.length; i++)
+                sb.append(i == 0 ? '@' : '.').append(oid[i]);
+        }
+
+        long[] start = dataset.getStartDims();
+        long[] stride = dataset.getStride();
+        long[] count = dataset.getSelectedDims();
+        for (int i = 0; i < start.length; i++) {
+            sb.append('|').append(start[i]).append(',').append((stride == null) ? 1 : stride[i])
+              .append(',').append(count[i]);
+        }
+
+        if ((fillValue != null) && fillValue.getClass().isArray() && (Array.getLength(fillValue) > 0))
+            sb.append("|fill=").append(Array.get(fillValue, 0));
+
+        return sb.toString();
+    }
+}
@@ -15,15 +15,26 @@ package hdf.view.TableView;
 
 import java.lang.reflect.Array;
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.eclipse.nebula.widgets.nattable.data.IDataProvider;
 
 import hdf.object.Attribute;
 import hdf.object.CompoundDataFormat;
 import hdf.object.DataFormat;
+import hdf.object.Dataset;
 import hdf.object.Datatype;
 import hdf.object.Utils;
 import hdf.object.h5.H5Datatype;
@@ -106,6 +117,68 @@ public class DataProviderFactory {
         return dataProvider;
     }
 
+    /**
+     * Returns true if the current selection of the given data object can be
+     * displayed with a {@link TiledDataProvider}, i.e. if the data object is a
+     * numerical dataset that reads blocks without changing its selection, and
+     * the table cells map directly to the dataset.
+     *
+     * @param dataObject
+     *            the data object to display.
+     * @param dataTransposed
+     *            true if the data is transposed for display.
+     *
+     * @return true if the data can be read in tiles.
+     */
+    public static boolean canUseTiles(final DataFormat dataObject, final boolean dataTransposed) {
+        // tiles are read on a background thread while the table uses the dataset
+        if (!(dataObject instanceof Dataset) || !((Dataset) dataObject).hasDirectBlockIO())
+            return false;
+
+        Datatype dtype = dataObject.getDatatype();
+        if ((dtype == null) || !(dtype.isInteger() || dtype.isFloat()))
+            return false;
+
+        int rank = dataObject.getRank();
+        if (rank < 1)
+            return false;
+        if (rank == 1)
+            return true;
+
+        // "reshaped" data does not map table cells to a rectangular block of the dataset
+        boolean isNaturalOrder = (dataObject.getSelectedIndex()[0] < dataObject.getSelectedIndex()[1]);
+
+        return (isNaturalOrder != dataTransposed);
+    }
+
+    /**
+     * Returns a DataProvider that reads the current selection of a numerical
+     * dataset in tiles as the table is scrolled, instead of reading the whole
+     * selection into memory.
+     *
+     * @param dataset
+     *            the dataset to display.
+     * @param dataTransposed
+     *            true if the data is transposed for display.
+     * @param cacheSize
+     *            the memory budget in bytes for the cached tiles.
+     *
+     * @return the new DataProvider.
+     *
+     * @throws Exception
+     *             if the first tile of the dataset can not be read
+     */
+    public static TiledDataProvider getTiledDataProvider(final Dataset dataset, final boolean dataTransposed, final long cacheSize) throws Exception {
+        if (!canUseTiles(dataset, dataTransposed)) {
+            log.debug("getTiledDataProvider(): dataset can not be read in tiles");
+            throw new UnsupportedOperationException("dataset can not be read in tiles");
+        }
+
+        dataFormatReference = dataset;
+
+        return new TiledDataProvider(dataset, dataTransposed, cacheSize);
+    }
+
     /*
      * The base DataProvider which pulls data from a given Array object using direct
      * indices.
@@ -140,7 +213,10 @@ public class DataProviderFactory {
         HDFDataProvider(final Datatype dtype, final Object dataBuf, final boolean dataTransposed) throws Exception {
             this.dataBuf = dataBuf;
 
-            this.originalFormatClass = dataFormatReference.getOriginalClass();
+            if (this instanceof TiledDataProvider)
+                this.originalFormatClass = dataBuf.getClass();
+            else
+                this.originalFormatClass = dataFormatReference.getOriginalClass();
 
             char runtimeTypeClass = Utils.getJavaObjectRuntimeClass(dataBuf);
             if (runtimeTypeClass == ' ') {
@@ -1290,6 +1366,363 @@ public class DataProviderFactory {
 
     }
 
+    /**
+     * A DataProvider for numerical datasets that reads the data lazily, in tiles
+     * of rows and columns, as the cells of the table are requested.
+     * <p>
+     * Tiles are read with hyperslab selections and kept in a least recently used
+     * cache whose size is bounded by a memory budget. When the table is scrolled,
+     * the next tile in the direction of the scrolling is read ahead in the
+     * background, so opening a very large dataset only reads the first screenful
+     * of data. The data of a TiledDataProvider is read-only.
+     */
+    public static class TiledDataProvider extends HDFDataProvider {
+
+        /** The number of data points held by one tile */
+        public static final int           TILE_POINTS = 64 * 1024;
+
+        /** The maximum number of columns held by one tile */
+        public static final int           TILE_COLS   = 128;
+
+        private final Dataset             dataset;
+
+        private final boolean             isUnsigned;
+        private final boolean             isUINT64;
+
+        /** The dataset dimensions displayed as rows and columns; colDim is -1 for 1D data */
+        private final int                 rowDim;
+        private final int                 colDim;
+
+        /** The selection of the dataset that the tiles are read from */
+        private long[]                    selStart;
+        private long[]                    selStride;
+
+        private final int                 tileRows;
+        private final int                 tileCols;
+        private final long                nTileCols;
+        private final int                 maxTiles;
+
+        private final Map<Long, Object>   tileCache;
+        private final Map<Long, Future<Object>> pendingTiles;
+        private final ExecutorService     prefetcher;
+
+        /** Incremented when the selection changes, so that stale prefetched tiles are dropped */
+        private long                      generation  = 0;
+
+        private long                      lastTileRow = -1;
+        private long                      lastTileCol = -1;
+
+        private char                      runtimeTypeClass = ' ';
+
+        TiledDataProvider(final Dataset dset, final boolean dataTransposed, final long cacheSize) throws Exception {
+            super(dset.getDatatype(), readFirstPoint(dset), dataTransposed);
+
+            log = org.slf4j.LoggerFactory.getLogger(TiledDataProvider.class);
+
+            dataset = dset;
+
+            Datatype dtype = dset.getDatatype();
+            isUnsigned = dtype.isUnsigned();
+            isUINT64 = isUnsigned && (dtype.getDatatypeSize() == 8);
+
+            int[] selectedIndex = dset.getSelectedIndex();
+            rowDim = selectedIndex[0];
+            colDim = (rank > 1) ? selectedIndex[1] : -1;
+
+            snapshotSelection();
+
+            int cols = (int) Math.max(1, Math.min(colCount, TILE_COLS));
+            int rows = Math.max(1, TILE_POINTS / cols);
+
+            // make the tiles a whole number of chunks tall when the chunks are not much larger than a tile
+            long[] chunks = dset.getChunkSize();
+            if ((chunks != null) && (selStride[rowDim] == 1) && (chunks[rowDim] > 0) && (chunks[rowDim] <= 4L * rows))
+                rows = (int) (((rows + chunks[rowDim] - 1) / chunks[rowDim]) * chunks[rowDim]);
+
+            tileRows = (int) Math.max(1, Math.min(rowCount, rows));
+            tileCols = cols;
+            nTileCols = (colCount + tileCols - 1) / tileCols;
+
+            long pointSize = Math.max(1, dtype.getDatatypeSize());
+            if (isUnsigned && !isUINT64)
+                pointSize *= 2;
+
+            maxTiles = (int) Math.max(4, Math.min(Integer.MAX_VALUE, cacheSize / (pointSize * tileRows * tileCols)));
+
+            tileCache = new LinkedHashMap<Long, Object>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Object> eldest) {
+                    return size() > maxTiles;
+                }
+            };
+            pendingTiles = new HashMap<>();
+
+            prefetcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "TiledDataProvider-prefetch");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+            runtimeTypeClass = Utils.getJavaObjectRuntimeClass(convertTile(dataBuf));
+
+            log.trace("constructor: tileRows={} tileCols={} maxTiles={}", tileRows, tileCols, maxTiles);
+        }
+
+        /*
+         * Reads the first point of the selection so that the base class can
+         * determine the type of the data.
+         */
+        private static Object readFirstPoint(final Dataset dset) throws Exception {
+            int rank = dset.getRank();
+            long[] start = dset.getStartDims().clone();
+            long[] stride = new long[rank];
+            long[] dims = new long[rank];
+            Arrays.fill(stride, 1);
+            Arrays.fill(dims, 1);
+
+            return dset.readBlock(start, stride, dims, null);
+        }
+
+        private void snapshotSelection() {
+            long[] stride = dataset.getStride();
+
+            selStart = dataset.getStartDims().clone();
+            selStride = new long[rank];
+            for (int i = 0; i < rank; i++)
+                selStride[i] = (stride == null) ? 1 : stride[i];
+        }
+
+        private Object convertTile(Object tile) {
+            if (isUnsigned && !isUINT64)
+                return Dataset.convertFromUnsignedC(tile, null);
+
+            return tile;
+        }
+
+        /*
+         * Reads the tile at the given tile row and column from file.
+         */
+        private Object readTile(long tileRow, long tileCol) throws Exception {
+            long[] start;
+            long[] stride;
+            long[] dims = new long[rank];
+            Arrays.fill(dims, 1);
+
+            synchronized (tileCache) {
+                start = selStart.clone();
+                stride = selStride.clone();
+            }
+
+            long r0 = tileRow * tileRows;
+            start[rowDim] += r0 * stride[rowDim];
+            dims[rowDim] = Math.min(tileRows, rowCount - r0);
+
+            if (colDim >= 0) {
+                long c0 = tileCol * tileCols;
+                start[colDim] += c0 * stride[colDim];
+                dims[colDim] = Math.min(tileCols, colCount - c0);
+            }
+
+            log.trace("readTile({}, {}): start={} dims={}", tileRow, tileCol, start, dims);
+
+            Object tile;
+            synchronized (this) {
+                tile = dataset.readBlock(start, stride, dims, null);
+            }
+
+            return convertTile(tile);
+        }
+
+        /*
+         * Returns the tile at the given tile row and column, reading it from file if
+         * it is not cached.
+         */
+        private Object getTile(long tileRow, long tileCol) throws Exception {
+            Long key = Long.valueOf(tileRow * nTileCols + tileCol);
+            Future<Object> pending = null;
+
+            synchronized (tileCache) {
+                Object tile = tileCache.get(key);
+                if (tile != null)
+                    return tile;
+
+                pending = pendingTiles.get(key);
+            }
+
+            Object tile = null;
+            if (pending != null) {
+                try {
+                    tile = pending.get();
+                }
+                catch (ExecutionException | CancellationException ex) {
+                    log.debug("getTile({}, {}): prefetch failure: ", tileRow, tileCol, ex);
+                }
+            }
+
+            if (tile == null) {
+                tile = readTile(tileRow, tileCol);
+
+                synchronized (tileCache) {
+                    tileCache.put(key, tile);
+                }
+            }
+
+            return tile;
+        }
+
+        /*
+         * Reads the given tile in the background if it exists and is not cached.
+         */
+        private void prefetchTile(final long tileRow, final long tileCol) {
+            long nTileRows = (rowCount + tileRows - 1) / tileRows;
+            if ((tileRow < 0) || (tileRow >= nTileRows) || (tileCol < 0) || (tileCol >= nTileCols))
+                return;
+
+            final Long key = Long.valueOf(tileRow * nTileCols + tileCol);
+
+            synchronized (tileCache) {
+                if (tileCache.containsKey(key) || pendingTiles.containsKey(key) || prefetcher.isShutdown())
+                    return;
+
+                final long tileGeneration = generation;
+
+                pendingTiles.put(key, prefetcher.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() throws Exception {
+                        Object tile = null;
+                        try {
+                            tile = readTile(tileRow, tileCol);
+                            return tile;
+                        }
+                        finally {
+                            synchronized (tileCache) {
+                                if (tileGeneration == generation) {
+                                    if (tile != null)
+                                        tileCache.put(key, tile);
+                                    pendingTiles.remove(key);
+                                }
+                            }
+                        }
+                    }
+                }));
+            }
+        }
+
+        /**
+         * Returns the value of the data buffer at the given table position, before
+         * any conversion for display.
+         *
+         * @param columnIndex
+         *            the column of the table.
+         * @param rowIndex
+         *            the row of the table.
+         *
+         * @return the value of the data buffer.
+         *
+         * @throws Exception
+         *             if the tile holding the value can not be read
+         */
+        public Object getBufValue(int columnIndex, int rowIndex) throws Exception {
+            long tileRow = rowIndex / tileRows;
+            long tileCol = columnIndex / tileCols;
+
+            Object tile = getTile(tileRow, tileCol);
+
+            // read ahead the next tile in the direction the table is moving
+            if ((tileRow != lastTileRow) || (tileCol != lastTileCol)) {
+                long dRow = Long.signum(tileRow - lastTileRow);
+                long dCol = (lastTileCol < 0) ? 0 : Long.signum(tileCol - lastTileCol);
+                lastTileRow = tileRow;
+                lastTileCol = tileCol;
+
+                prefetchTile(tileRow + dRow, tileCol + dCol);
+            }
+
+            long nRows = Math.min(tileRows, rowCount - tileRow * tileRows);
+            long nCols = Math.min(tileCols, colCount - tileCol * tileCols);
+            long r = rowIndex - tileRow * tileRows;
+            long c = columnIndex - tileCol * tileCols;
+
+            long index;
+            if ((colDim < 0) || (rowDim < colDim))
+                index = r * nCols + c;
+            else
+                index = c * nRows + r;
+
+            return Array.get(tile, (int) index);
+        }
+
+        @Override
+        public Object getDataValue(int columnIndex, int rowIndex) {
+            log.trace("getDataValue({}, {}): start", rowIndex, columnIndex);
+
+            try {
+                theValue = getBufValue(columnIndex, rowIndex);
+
+                if (isUINT64)
+                    theValue = Tools.convertUINT64toBigInt(Long.valueOf((long) theValue));
+            }
+            catch (Exception ex) {
+                log.debug("getDataValue({}, {}): failure: ", rowIndex, columnIndex, ex);
+                theValue = DataFactoryUtils.errStr;
+            }
+
+            log.trace("getDataValue({}, {})({}): finish", rowIndex, columnIndex, theValue);
+
+            return theValue;
+        }
+
+        @Override
+        public void setDataValue(int columnIndex, int rowIndex, Object newValue) {
+            log.debug("setDataValue({}, {}, {}): data read in tiles is read-only", rowIndex, columnIndex, newValue);
+        }
+
+        /**
+         * Returns the Java type of the data values: B, S, I, J, F or D.
+         *
+         * @return the Java type of the data values.
+         */
+        public char getRuntimeTypeClass() {
+            return runtimeTypeClass;
+        }
+
+        /**
+         * Discards the cached tiles and starts reading from the current selection
+         * of the dataset, e.g. after the displayed frame of a 3D dataset changed.
+         */
+        public void reset() {
+            synchronized (tileCache) {
+                for (Future<Object> pending : pendingTiles.values())
+                    pending.cancel(false);
+                pendingTiles.clear();
+                tileCache.clear();
+
+                generation++;
+                snapshotSelection();
+            }
+
+            lastTileRow = -1;
+            lastTileCol = -1;
+        }
+
+        /**
+         * Stops reading ahead and releases the cached tiles.
+         */
+        public void close() {
+            prefetcher.shutdownNow();
+
+            synchronized (tileCache) {
+                pendingTiles.clear();
+                tileCache.clear();
+            }
+        }
+    }
+
     private static class EnumDataProvider extends HDFDataProvider {
 
         EnumDataProvider(final Datatype dtype, final Object dataBuf, final boolean dataTransposed) throws Exception {
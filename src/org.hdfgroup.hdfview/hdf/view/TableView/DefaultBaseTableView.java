@@ -41,6 +41,8 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.function.DoubleSupplier;
 
 import org.eclipse.nebula.widgets.nattable.NatTable;
 import org.eclipse.nebula.widgets.nattable.command.StructuralRefreshCommand;
@@ -117,6 +119,7 @@ import org.eclipse.swt.widgets.ToolBar;
 import org.eclipse.swt.widgets.ToolItem;
 
 import hdf.object.CompoundDS;
+import hdf.object.DataBlockIterator;
 import hdf.object.DataFormat;
 import hdf.object.Dataset;
 import hdf.object.Datatype;
@@ -124,20 +127,25 @@ import hdf.object.FileFormat;
 import hdf.object.Group;
 import hdf.object.HObject;
 import hdf.object.ScalarDS;
+import hdf.object.TextExporter;
+import hdf.object.TextImporter;
 import hdf.object.h5.H5Datatype;
 import hdf.view.Chart;
 import hdf.view.DefaultFileFilter;
 import hdf.view.HDFView;
+import hdf.view.SlicePrefetcher;
 import hdf.view.Tools;
 import hdf.view.ViewProperties;
 import hdf.view.ViewProperties.BITMASK_OP;
 import hdf.view.DataView.DataViewManager;
 import hdf.view.TableView.DataDisplayConverterFactory.HDFDisplayConverter;
 import hdf.view.TableView.DataProviderFactory.HDFDataProvider;
+import hdf.view.TableView.DataProviderFactory.TiledDataProvider;
 import hdf.view.TreeView.TreeView;
 import hdf.view.dialog.InputDialog;
 import hdf.view.dialog.MathConversionDialog;
 import hdf.view.dialog.NewDatasetDialog;
+import hdf.view.dialog.ProgressDialog;
 
 /**
  * DefaultBaseTableView serves as the base class for a DataView that displays
@@ -188,6 +196,9 @@ public abstract class DefaultBaseTableView implements TableView {
     private long                            curDataFrame = 0;
     private long                            maxDataFrame = 1;
 
+    // Reads the frames next to the current frame in the background, or null
+    private SlicePrefetcher                 slicePrefetcher = null;
+
     // The index base used for display row and column numbers of data
     protected int                           indexBase = 0;
 
@@ -202,6 +213,9 @@ public abstract class DefaultBaseTableView implements TableView {
     protected boolean                       isDisplayTypeChar, isDataTransposed;
 
     protected boolean                       isRegRef = false, isObjRef = false, isStdRef = false;
+
+    /** Flag to indicate if the data is read in tiles as the table is scrolled */
+    protected boolean                       isTiledLoad = false;
     protected boolean                       showAsHex = false, showAsBin = false;
 
     // Keep references to the selection and data layers for ease of access
@@ -282,6 +296,14 @@ public abstract class DefaultBaseTableView implements TableView {
                     }
                 }
 
+                if (dataProvider instanceof TiledDataProvider)
+                    ((TiledDataProvider) dataProvider).close();
+
+                if (slicePrefetcher != null) {
+                    slicePrefetcher.close();
+                    slicePrefetcher = null;
+                }
+
                 dataValue = null;
                 dataTable = null;
 
@@ -485,6 +507,14 @@ public abstract class DefaultBaseTableView implements TableView {
             return;
         }
 
+        // read the frames next to the first one while it is displayed
+        if ((rank > 2) && !isTiledLoad && (dataObject instanceof Dataset)) {
+            slicePrefetcher = SlicePrefetcher.create((Dataset) dataObject,
+                    ViewProperties.getSlicePrefetchSize() * 1024L * 1024L);
+            if (slicePrefetcher != null)
+                slicePrefetcher.prefetch(curDataFrame - indexBase);
+        }
+
         /* Create the Shell's MenuBar */
         shell.setMenuBar(createMenuBar(shell));
 
@@ -865,15 +895,17 @@ public abstract class DefaultBaseTableView implements TableView {
                         theData = dataValue;
                     }
 
-                    double[] minmax = new double[2];
-                    double[] stat = new double[2];
+                    double[] stats = null;
+                    if ((theData == null) && isTiledLoad) {
+                        // the data of a tiled table is never in memory as a whole
+                        stats = Tools.getStatistics((Dataset) dataObject, null, fillValue);
+                    }
+                    else if (theData != null) {
+                        stats = Tools.getStatistics(theData, fillValue);
+                    }
 
-                    Tools.findMinMax(theData, minmax, fillValue);
-                    if (Tools.computeStatistics(theData, stat, fillValue) > 0) {
-                        String stats = "Min                      = " + minmax[0] + "\nMax                      = "
-                                + minmax[1] + "\nMean                     = " + stat[0] + "\nStandard deviation = "
-                                + stat[1];
-                        Tools.showInformation(theShell, "Statistics", stats);
+                    if (stats != null) {
+                        Tools.showInformation(theShell, "Statistics", Tools.getStatisticsInfo(stats));
                     }
 
                     System.gc();
@@ -949,6 +981,22 @@ public abstract class DefaultBaseTableView implements TableView {
             }
         });
 
+        item = new MenuItem(exportMenu, SWT.PUSH);
+        item.setText("Text File (Whole Dataset)");
+        item.setEnabled((dataObject instanceof ScalarDS) && ((Dataset) dataObject).hasDirectBlockIO());
+        item.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                try {
+                    saveDatasetAsText();
+                }
+                catch (Exception ex) {
+                    theShell.getDisplay().beep();
+                    Tools.showError(theShell, "Save", ex.getMessage());
+                }
+            }
+        });
+
         item = new MenuItem(importExportMenu, SWT.CASCADE);
         item.setText("Import Data from");
 
@@ -994,6 +1042,23 @@ public abstract class DefaultBaseTableView implements TableView {
             }
         });
 
+        item = new MenuItem(importMenu, SWT.PUSH);
+        item.setText("Text File (Whole Dataset)");
+        item.setEnabled((dataObject instanceof ScalarDS) && ((Dataset) dataObject).hasDirectBlockIO()
+                && !((HObject) dataObject).getFileFormat().isReadOnly());
+        item.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                try {
+                    importDatasetFromText();
+                }
+                catch (Exception ex) {
+                    theShell.getDisplay().beep();
+                    Tools.showError(theShell, "Import Data From Text File", ex.getMessage());
+                }
+            }
+        });
+
         return menuBar;
     }
 
@@ -1022,6 +1087,15 @@ public abstract class DefaultBaseTableView implements TableView {
         }
 
         dataValue = null;
+
+        // Read large datasets in tiles as the table is scrolled; tiled data can not be edited
+        isTiledLoad = isTiledLoadNeeded(dataObject);
+        if (isTiledLoad) {
+            log.trace("loadData(): data will be read in tiles");
+            isReadOnly = true;
+            return;
+        }
+
         try {
             dataValue = dataObject.getData();
         }
@@ -1032,6 +1106,21 @@ public abstract class DefaultBaseTableView implements TableView {
         }
     }
 
+    /**
+     * Returns true if the data of the given data object should be read in tiles
+     * as the table is scrolled, instead of being read into memory at once.
+     * Sub-classes that support tiled reading should replace this default
+     * implementation, which always returns false.
+     *
+     * @param dataObject
+     *            the data object to display.
+     *
+     * @return true if the data should be read in tiles.
+     */
+    protected boolean isTiledLoadNeeded(DataFormat dataObject) {
+        return false;
+    }
+
     protected abstract NatTable createTable(Composite parent, DataFormat dataObject);
 
     protected abstract void showObjRefData(long ref);
@@ -1496,6 +1585,9 @@ public abstract class DefaultBaseTableView implements TableView {
         // Make sure to save any changes to this frame of data before changing frames
         if (dataProvider.getIsValueChanged()) {
             updateValueInFile();
+
+            if (slicePrefetcher != null)
+                slicePrefetcher.invalidate(curDataFrame - indexBase);
         }
 
         long[] start = dataObject.getStartDims();
@@ -1510,15 +1602,27 @@ public abstract class DefaultBaseTableView implements TableView {
             return;
         }
 
-        start[selectedIndex[2]] = idx;
+        if (slicePrefetcher == null)
+            start[selectedIndex[2]] = idx;
         curDataFrame = idx + indexBase;
         frameField.setText(String.valueOf(curDataFrame));
 
-        dataObject.clearData();
+        if (isTiledLoad) {
+            ((TiledDataProvider) dataProvider).reset();
+            dataTable.doCommand(new VisualRefreshCommand());
+            return;
+        }
+
+        if (slicePrefetcher == null)
+            dataObject.clearData();
 
         shell.setCursor(display.getSystemCursor(SWT.CURSOR_WAIT));
 
         try {
+            // the frame is taken from the frames read ahead, if it was read
+            if (slicePrefetcher != null)
+                slicePrefetcher.gotoSlice(idx);
+
             dataValue = dataObject.getData();
 
             /*
@@ -1671,6 +1775,161 @@ public abstract class DefaultBaseTableView implements TableView {
      *             if a failure occurred
      */
     protected void saveAsText() throws Exception {
+        File chosenFile = chooseTextFile("Save Current Data To Text File --- " + ((HObject) dataObject).getName());
+        if (chosenFile == null) return;
+
+        String fname = chosenFile.getAbsolutePath();
+
+        log.trace("saveAsText: file={}", fname);
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(chosenFile)));
+
+        String delimiter = getTextDelimiter();
+
+        int cols = selectionLayer.getPreferredColumnCount();
+        int rows = selectionLayer.getPreferredRowCount();
+
+        for (int i = 0; i < rows; i++) {
+            out.print(selectionLayer.getDataValueByPosition(0, i));
+            for (int j = 1; j < cols; j++) {
+                out.print(delimiter);
+                out.print(selectionLayer.getDataValueByPosition(j, i));
+            }
+            out.println();
+        }
+
+        out.flush();
+        out.close();
+
+        viewer.showStatus("Data saved to: " + fname);
+    }
+
+    /**
+     * Save all the values of the dataset as text, regardless of the data shown
+     * in the table. The values are written in the order of the dataset, one
+     * line per row of the last dimension, by a TextExporter on a worker thread.
+     * Only datasets that read blocks without changing their selection can be
+     * exported while the table is shown.
+     *
+     * @throws Exception
+     *             if a failure occurred
+     */
+    protected void saveDatasetAsText() throws Exception {
+        if (!(dataObject instanceof ScalarDS) || !((Dataset) dataObject).hasDirectBlockIO()) return;
+
+        File chosenFile = chooseTextFile("Save Dataset To Text File --- " + ((HObject) dataObject).getName());
+        if (chosenFile == null) return;
+
+        final String fname = chosenFile.getAbsolutePath();
+
+        log.trace("saveDatasetAsText: file={}", fname);
+
+        final TextExporter exporter = new TextExporter((Dataset) dataObject, getTextDelimiter(), true);
+
+        runWithProgress("Export Data", "Exporting " + ((HObject) dataObject).getName(), new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                exporter.export(fname);
+                return null;
+            }
+        }, new DoubleSupplier() {
+            @Override
+            public double getAsDouble() {
+                return exporter.getProgress();
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                exporter.cancel();
+            }
+        });
+
+        if (exporter.isCancelled())
+            viewer.showStatus("Export cancelled: " + fname);
+        else
+            viewer.showStatus("Data saved to: " + fname);
+    }
+
+    /**
+     * Runs a task on a worker thread while a progress dialog is shown, and
+     * returns when the task ends.
+     *
+     * @param title
+     *            the title of the progress dialog.
+     * @param message
+     *            the message of the progress dialog, followed by the progress.
+     * @param task
+     *            the task to run.
+     * @param progress
+     *            returns the progress of the task, between 0 and 1.
+     * @param cancel
+     *            cancels the task when the user presses Cancel.
+     *
+     * @throws Exception
+     *             the exception thrown by the task, or an exception holding the
+     *             error thrown by the task, such as an OutOfMemoryError
+     */
+    private void runWithProgress(String title, final String message, final Callable<?> task,
+            DoubleSupplier progress, Runnable cancel) throws Exception {
+        final Throwable[] error = { null };
+        final Display display = shell.getDisplay();
+
+        Thread worker = new Thread(title + " " + ((HObject) dataObject).getName()) {
+            @Override
+            public void run() {
+                try {
+                    task.call();
+                }
+                catch (Throwable ex) {
+                    error[0] = ex;
+                }
+                finally {
+                    display.wake();
+                }
+            }
+        };
+        worker.setDaemon(true);
+        worker.start();
+
+        ProgressDialog progressDialog = new ProgressDialog(shell, title);
+        progressDialog.open(message + "...");
+
+        Runnable wake = new Runnable() {
+            @Override
+            public void run() {
+                // wakes the event loop to update the progress
+            }
+        };
+
+        boolean isCancelled = false;
+        while (worker.isAlive()) {
+            if (progressDialog.isCancelled() && !isCancelled) {
+                cancel.run();
+                isCancelled = true;
+            }
+            progressDialog.setMessage(message + "... " + (int) (progress.getAsDouble() * 100) + "%");
+
+            display.timerExec(250, wake);
+            if (!display.readAndDispatch())
+                display.sleep();
+        }
+        progressDialog.close();
+
+        if (error[0] instanceof Exception)
+            throw (Exception) error[0];
+        else if (error[0] != null)
+            throw new Exception(error[0].toString(), error[0]);
+    }
+
+    /**
+     * Asks for the text file to save data to.
+     *
+     * @param title
+     *            the title of the file dialog.
+     *
+     * @return the chosen file, or null if the user cancelled or the file is in use.
+     */
+    private File chooseTextFile(String title) {
         String currentDir = ((HObject) dataObject).getFileFormat().getParent();
 
         String filename = null;
@@ -1685,17 +1944,15 @@ public abstract class DefaultBaseTableView implements TableView {
             fChooser.setFilterExtensions(new String[] { "*", filter.getExtensions() });
             fChooser.setFilterNames(new String[] { "All Files", filter.getDescription() });
             fChooser.setFilterIndex(1);
-            fChooser.setText("Save Current Data To Text File --- " + ((HObject) dataObject).getName());
+            fChooser.setText(title);
 
             filename = fChooser.open();
         }
-        if (filename == null) return;
+        if (filename == null) return null;
 
         File chosenFile = new File(filename);
         String fname = chosenFile.getAbsolutePath();
 
-        log.trace("saveAsText: file={}", fname);
-
         // Check if the file is in use and prompt for overwrite
         if (chosenFile.exists()) {
             List<?> fileList = viewer.getTreeView().getCurrentFiles();
@@ -1708,16 +1965,19 @@ public abstract class DefaultBaseTableView implements TableView {
                         shell.getDisplay().beep();
                         Tools.showError(shell, "Save",
                                 "Unable to save data to file \"" + fname + "\". \nThe file is being used.");
-                        return;
+                        return null;
                     }
                 }
             }
 
-            if (!Tools.showConfirm(shell, "Save", "File exists. Do you want to replace it?")) return;
+            if (!Tools.showConfirm(shell, "Save", "File exists. Do you want to replace it?")) return null;
         }
 
-        PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(chosenFile)));
+        return chosenFile;
+    }
 
+    /** Returns the delimiter of the text files, as set in the user options. */
+    private String getTextDelimiter() {
         String delName = ViewProperties.getDataDelimiter();
         String delimiter = "";
 
@@ -1741,22 +2001,7 @@ public abstract class DefaultBaseTableView implements TableView {
             delimiter = ";" + delimiter;
         }
 
-        int cols = selectionLayer.getPreferredColumnCount();
-        int rows = selectionLayer.getPreferredRowCount();
-
-        for (int i = 0; i < rows; i++) {
-            out.print(selectionLayer.getDataValueByPosition(0, i));
-            for (int j = 1; j < cols; j++) {
-                out.print(delimiter);
-                out.print(selectionLayer.getDataValueByPosition(j, i));
-            }
-            out.println();
-        }
-
-        out.flush();
-        out.close();
-
-        viewer.showStatus("Data saved to: " + fname);
+        return delimiter;
     }
 
     /** Save data as text (from TextView). */
@@ -1915,18 +2160,23 @@ public abstract class DefaultBaseTableView implements TableView {
             if (!Tools.showConfirm(shell, "Save", "File exists. Do you want to replace it?")) return;
         }
 
+        ByteOrder bo = ByteOrder.nativeOrder();
+        if (binaryOrder == 2)
+            bo = ByteOrder.LITTLE_ENDIAN;
+        else if (binaryOrder == 3)
+            bo = ByteOrder.BIG_ENDIAN;
+
+        // tiled data is not held in memory, so stream it from file block by block
+        if (isTiledLoad && (dataObject instanceof ScalarDS)) {
+            ((Dataset) dataObject).exportBinary(fname, bo, false);
+            viewer.showStatus("Data saved to: " + fname);
+            return;
+        }
+
         try (DataOutputStream out = new DataOutputStream(new FileOutputStream(chosenFile))) {
             if (dataObject instanceof ScalarDS) {
                 ((ScalarDS) dataObject).convertToUnsignedC();
                 Object data = dataObject.getData();
-                ByteOrder bo = ByteOrder.nativeOrder();
-
-                if (binaryOrder == 1)
-                    bo = ByteOrder.nativeOrder();
-                else if (binaryOrder == 2)
-                    bo = ByteOrder.LITTLE_ENDIAN;
-                else if (binaryOrder == 3)
-                    bo = ByteOrder.BIG_ENDIAN;
 
                 Tools.saveAsBinary(out, data, bo);
 
@@ -2067,6 +2317,125 @@ public abstract class DefaultBaseTableView implements TableView {
         }
     }
 
+    /**
+     * Import all the values of the dataset from a text file, regardless of the
+     * data shown in the table. The values of the file are written in the order
+     * of the dataset, starting at the first row, by a TextImporter on a worker
+     * thread; the dataset is extended if the file holds more rows and the
+     * maximum size of the dataset allows it. Only datasets that write blocks
+     * without changing their selection can be imported while the table is
+     * shown.
+     *
+     * @throws Exception
+     *             if a failure occurred
+     */
+    protected void importDatasetFromText() throws Exception {
+        if (!(dataObject instanceof ScalarDS) || !((Dataset) dataObject).hasDirectBlockIO()) return;
+
+        String currentDir = ((HObject) dataObject).getFileFormat().getParent();
+
+        String filename = null;
+        if (((HDFView) viewer).getTestState()) {
+            filename = currentDir + File.separator + new InputDialog(shell, "Enter a file name", "").open();
+        }
+        else {
+            FileDialog fChooser = new FileDialog(shell, SWT.OPEN);
+            fChooser.setFilterPath(currentDir);
+
+            DefaultFileFilter filter = DefaultFileFilter.getFileFilterText();
+            fChooser.setFilterExtensions(new String[] { "*", filter.getExtensions() });
+            fChooser.setFilterNames(new String[] { "All Files", filter.getDescription() });
+            fChooser.setFilterIndex(1);
+            fChooser.setText("Import Dataset From Text File --- " + ((HObject) dataObject).getName());
+
+            filename = fChooser.open();
+        }
+
+        if (filename == null) return;
+
+        final File chosenFile = new File(filename);
+        if (!chosenFile.exists()) {
+            Tools.showError(shell, "Import Data From Text File", "Data import error: " + filename + " does not exist.");
+            return;
+        }
+
+        if (!Tools.showConfirm(shell, "Import Data From Text File",
+                "Do you want to replace the values of the dataset with the values of " + chosenFile.getName() + "?"))
+            return;
+
+        // the delimiter of compound data is not used for scalar datasets
+        final TextImporter importer = new TextImporter((Dataset) dataObject, getTextDelimiter().trim());
+        final long[] rows = { 0 };
+
+        log.trace("importDatasetFromText: file={}", chosenFile);
+
+        // the values changed in the table would be overwritten by the import
+        if (dataProvider.getIsValueChanged())
+            updateValueInFile();
+
+        runWithProgress("Import Data", "Importing " + chosenFile.getName(), new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                rows[0] = importer.importFile(chosenFile.getAbsolutePath(), 0);
+                return null;
+            }
+        }, new DoubleSupplier() {
+            @Override
+            public double getAsDouble() {
+                return importer.getProgress();
+            }
+        }, new Runnable() {
+            @Override
+            public void run() {
+                importer.cancel();
+            }
+        });
+
+        // the rows imported before a cancel are kept
+        reloadData();
+
+        if (importer.isCancelled())
+            viewer.showStatus("Import cancelled: " + chosenFile.getAbsolutePath());
+        else
+            viewer.showStatus(rows[0] + " rows imported from " + chosenFile.getAbsolutePath());
+    }
+
+    /**
+     * Reads the data shown in the table again from file, after the values of
+     * the dataset were changed in file.
+     */
+    private void reloadData() {
+        if (isTiledLoad) {
+            ((TiledDataProvider) dataProvider).reset();
+            dataTable.doCommand(new VisualRefreshCommand());
+            return;
+        }
+
+        if (slicePrefetcher != null)
+            slicePrefetcher.clear();
+
+        dataObject.clearData();
+
+        try {
+            dataValue = dataObject.getData();
+
+            if (!(dataObject instanceof CompoundDS))
+                dataObject.convertFromUnsignedC();
+
+            dataValue = dataObject.getData();
+        }
+        catch (Exception ex) {
+            shell.getDisplay().beep();
+            Tools.showError(shell, "Error loading data", "Dataset getData: " + ex.getMessage());
+            log.debug("reloadData(): ", ex);
+            dataValue = null;
+        }
+
+        dataProvider.updateDataBuffer(dataValue);
+
+        dataTable.doCommand(new VisualRefreshCommand());
+    }
+
     /**
      * Import data values from binary file.
      */
@@ -2097,7 +2466,11 @@ public abstract class DefaultBaseTableView implements TableView {
             return;
         }
 
-        if (!Tools.showConfirm(shell, "Import Data from Binary File", "Do you want to paste selected data?"))
+        // data read in tiles is not in memory, so the values are written to the dataset directly
+        boolean isDirectImport = isTiledLoad && (dataValue == null) && (dataObject instanceof ScalarDS);
+        String question = isDirectImport ? "Do you want to write the data to the dataset in the file?"
+                : "Do you want to paste selected data?";
+        if (!Tools.showConfirm(shell, "Import Data from Binary File", question))
             return;
 
         ByteOrder bo = ByteOrder.nativeOrder();
@@ -2108,6 +2481,11 @@ public abstract class DefaultBaseTableView implements TableView {
         else if (binaryOrder == 3)
             bo = ByteOrder.BIG_ENDIAN;
 
+        if (isDirectImport) {
+            importDatasetFromBinary(chosenFile, bo);
+            return;
+        }
+
         try {
             if (Tools.getBinaryDataFromFile(dataValue, chosenFile.getAbsolutePath(), bo))
                 dataProvider.setIsValueChanged(true);
@@ -2122,6 +2500,63 @@ public abstract class DefaultBaseTableView implements TableView {
         }
     }
 
+    /**
+     * Writes the values of a binary file to the selection of the dataset in
+     * file, by Dataset.importBinary() on a worker thread, as the text import
+     * does, and then reads the data of the table again.
+     *
+     * @param file
+     *            the binary file to import.
+     * @param order
+     *            the byte order of the values in the file.
+     */
+    private void importDatasetFromBinary(final File file, final ByteOrder order) {
+        final Dataset dset = (Dataset) dataObject;
+        final DataBlockIterator blocks = dset.blockIterator();
+        final long[] nvalues = { 0 };
+        final boolean[] isCancelled = { false };
+
+        log.trace("importDatasetFromBinary: file={}", file);
+
+        // the values changed in the table would be overwritten by the import
+        if (dataProvider.getIsValueChanged())
+            updateValueInFile();
+
+        try {
+            runWithProgress("Import Data", "Importing " + file.getName(), new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    nvalues[0] = dset.importBinary(file.getAbsolutePath(), order, blocks);
+                    return null;
+                }
+            }, new DoubleSupplier() {
+                @Override
+                public double getAsDouble() {
+                    long total = blocks.getTotalPoints();
+                    return (total <= 0) ? 0 : (double) blocks.getPointsRead() / total;
+                }
+            }, new Runnable() {
+                @Override
+                public void run() {
+                    isCancelled[0] = true;
+                    blocks.stop();
+                }
+            });
+
+            if (isCancelled[0])
+                viewer.showStatus("Import cancelled: " + file.getAbsolutePath());
+            else
+                viewer.showStatus(nvalues[0] + " values imported from " + file.getAbsolutePath());
+        }
+        catch (Exception ex) {
+            log.debug("importDatasetFromBinary():", ex);
+            Tools.showError(shell, "Import Data from Binary File", ex.getMessage());
+        }
+
+        // the blocks imported before a failure or a cancel are kept
+        reloadData();
+    }
+
     /**
      * Convert selected data based on predefined math functions.
      */
@@ -2365,8 +2800,14 @@ public abstract class DefaultBaseTableView implements TableView {
         Chart cv = new Chart(shell, title, Chart.LINEPLOT, data, xData, yRange);
         cv.setLineLabels(lineLabels);
 
-        String cname = dataValue.getClass().getName();
-        char dname = cname.charAt(cname.lastIndexOf('[') + 1);
+        char dname;
+        if (isTiledLoad) {
+            dname = ((TiledDataProvider) dataProvider).getRuntimeTypeClass();
+        }
+        else {
+            String cname = dataValue.getClass().getName();
+            dname = cname.charAt(cname.lastIndexOf('[') + 1);
+        }
         if ((dname == 'B') || (dname == 'S') || (dname == 'I') || (dname == 'J')) {
             cv.setTypeToInteger();
         }
@@ -67,6 +67,7 @@ import hdf.view.HDFView;
 import hdf.view.Tools;
 import hdf.view.ViewProperties;
 import hdf.view.DataView.DataViewManager;
+import hdf.view.TableView.DataProviderFactory.TiledDataProvider;
 import hdf.view.dialog.InputDialog;
 
 public class DefaultScalarDSTableView extends DefaultBaseTableView implements TableView {
@@ -128,6 +129,14 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
     protected void loadData(DataFormat dataObject) throws Exception {
         super.loadData(dataObject);
 
+        if (isTiledLoad) {
+            long cacheSize = ViewProperties.getTableCacheSize() * 1024L * 1024L;
+
+            dataProvider = DataProviderFactory.getTiledDataProvider((Dataset) dataObject, isDataTransposed, cacheSize);
+            fillValue = dataObject.getFillValue();
+            return;
+        }
+
         try {
             if (Tools.applyBitmask(dataValue, bitmask, bitmaskOP)) {
                 isReadOnly = true;
@@ -188,6 +197,25 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
         }
     }
 
+    /**
+     * Large numerical datasets are read in tiles unless the data must be converted
+     * as a whole for display, e.g. by a bitmask or as characters.
+     */
+    @Override
+    protected boolean isTiledLoadNeeded(DataFormat dataObject) {
+        if ((bitmask != null) || isDisplayTypeChar || !DataProviderFactory.canUseTiles(dataObject, isDataTransposed))
+            return false;
+
+        long npoints = 1;
+        long[] count = dataObject.getSelectedDims();
+        for (int i = 0; i < count.length; i++)
+            npoints *= count[i];
+
+        long size = npoints * dataObject.getDatatype().getDatatypeSize();
+
+        return (size > ViewProperties.getTableCacheSize() * 1024L * 1024L);
+    }
+
     /**
      * Creates the menubar for the Shell.
      */
@@ -291,9 +319,13 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
                 Menu importAsBinaryMenu = new Menu(importAsBinaryMenuItem);
                 importAsBinaryMenuItem.setMenu(importAsBinaryMenu);
 
+                // data read in tiles is imported directly into the file
+                boolean isBinaryImportEnabled = !isReadOnly
+                        || (isTiledLoad && !((HObject) dataObject).getFileFormat().isReadOnly());
+
                 item = new MenuItem(importAsBinaryMenu, SWT.PUSH);
                 item.setText("Native Order");
-                item.setEnabled(!isReadOnly);
+                item.setEnabled(isBinaryImportEnabled);
                 item.addSelectionListener(new SelectionAdapter() {
                     @Override
                     public void widgetSelected(SelectionEvent e) {
@@ -310,7 +342,7 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
 
                 item = new MenuItem(importAsBinaryMenu, SWT.PUSH);
                 item.setText("Little Endian");
-                item.setEnabled(!isReadOnly);
+                item.setEnabled(isBinaryImportEnabled);
                 item.addSelectionListener(new SelectionAdapter() {
                     @Override
                     public void widgetSelected(SelectionEvent e) {
@@ -327,7 +359,7 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
 
                 item = new MenuItem(importAsBinaryMenu, SWT.PUSH);
                 item.setText("Big Endian");
-                item.setEnabled(!isReadOnly);
+                item.setEnabled(isBinaryImportEnabled);
                 item.addSelectionListener(new SelectionAdapter() {
                     @Override
                     public void widgetSelected(SelectionEvent e) {
@@ -491,7 +523,8 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
             }
         });
 
-        char runtimeTypeClass = Utils.getJavaObjectRuntimeClass(dataValue);
+        char runtimeTypeClass = isTiledLoad ? ((TiledDataProvider) dataProvider).getRuntimeTypeClass()
+                : Utils.getJavaObjectRuntimeClass(dataValue);
         boolean isInt = (runtimeTypeClass == 'B' || runtimeTypeClass == 'S' || runtimeTypeClass == 'I'
                 || runtimeTypeClass == 'J');
 
@@ -611,7 +644,8 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
     protected NatTable createTable(Composite parent, DataFormat dataObject) {
         // Create body layer
         try {
-            dataProvider = DataProviderFactory.getDataProvider(dataObject, dataValue, isDataTransposed);
+            if (!isTiledLoad)
+                dataProvider = DataProviderFactory.getDataProvider(dataObject, dataValue, isDataTransposed);
 
             log.trace("createTable(): rows={} : cols={}", dataProvider.getRowCount(), dataProvider.getColumnCount());
 
@@ -690,7 +724,7 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
         log.trace("getSelectedData() data size: {}", size);
 
         // the whole table is selected
-        if ((dataTable.getPreferredColumnCount() - 1 == selectedCols.length)
+        if (!isTiledLoad && (dataTable.getPreferredColumnCount() - 1 == selectedCols.length)
                 && (dataTable.getPreferredRowCount() - 1 == selectedRows.length)) {
             return dataValue;
         }
@@ -704,7 +738,10 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
             selectedData = new String[size];
         }
         else {
-            switch (Utils.getJavaObjectRuntimeClass(dataValue)) {
+            char runtimeTypeClass = isTiledLoad ? ((TiledDataProvider) dataProvider).getRuntimeTypeClass()
+                    : Utils.getJavaObjectRuntimeClass(dataValue);
+
+            switch (runtimeTypeClass) {
                 case 'B':
                     selectedData = new byte[size];
                     break;
@@ -735,7 +772,7 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
             return null;
         }
 
-        log.trace("getSelectedData(): selectedData is type {}", Utils.getJavaObjectRuntimeClass(dataValue));
+        log.trace("getSelectedData(): selectedData is type {}", Utils.getJavaObjectRuntimeClass(selectedData));
 
         int w = dataTable.getPreferredColumnCount() - 1;
         log.trace("getSelectedData(): getColumnCount={}", w);
@@ -746,9 +783,26 @@ public class DefaultScalarDSTableView extends DefaultBaseTableView implements Ta
         for (int i = 0; i < selectedRows.length; i++) {
             for (int j = 0; j < selectedCols.length; j++) {
                 idxSrc = selectedRows[i] * w + selectedCols[j];
+
+                Object value = null;
+                if (isTiledLoad) {
+                    try {
+                        value = ((TiledDataProvider) dataProvider).getBufValue(selectedCols[j], selectedRows[i]);
+                    }
+                    catch (Exception ex) {
+                        log.debug("getSelectedData(): failed to read tile data: ", ex);
+                        shell.getDisplay().beep();
+                        Tools.showError(shell, "Select", "Failed to read selected data: " + ex.getMessage());
+                        return null;
+                    }
+                }
+                else {
+                    value = Array.get(dataValue, idxSrc);
+                }
+
                 log.trace("getSelectedData()[{},{}]: dataValue[{}]={} from r{} and c{}", i, j,
-                        idxSrc, Array.get(dataValue, idxSrc), selectedRows[i], selectedCols[j]);
-                Array.set(selectedData, idxDst, Array.get(dataValue, idxSrc));
+                        idxSrc, value, selectedRows[i], selectedCols[j]);
+                Array.set(selectedData, idxDst, value);
                 log.trace("getSelectedData()[{},{}]: selectedData[{}]={}", i, j, idxDst,
                         Array.get(selectedData, idxDst));
                 idxDst++;
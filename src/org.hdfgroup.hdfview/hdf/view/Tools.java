@@ -45,6 +45,9 @@ import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.nio.LongBuffer;
 import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
@@ -56,6 +59,8 @@ import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 
+import hdf.object.DataStatistics;
+import hdf.object.Dataset;
 import hdf.object.Datatype;
 import hdf.object.FileFormat;
 import hdf.object.Group;
@@ -89,6 +94,7 @@ public final class Tools {
     private static final int       LONG_BUFFER_SIZE = 262144;
     private static final int       DOUBLE_BUFFER_SIZE = 262144;
     private static final int       BYTE_BUFFER_SIZE = 2097152;
+    private static final int       MAP_WINDOW_BYTES = 1 << 30;
 
     /** Key for JPEG image file type. */
     public static final String     FILE_TYPE_JPEG  = "JPEG";
@@ -1477,126 +1483,215 @@ public final class Tools {
      *            for min/max
      *
      * @return non-negative if successful; otherwise, returns negative
+     *
+     * @see hdf.object.DataStatistics
      */
     public static int findMinMax(Object data, double[] minmax, Object fillValue) {
-        int retval = 1;
-
         if ((data == null) || (minmax == null) || (Array.getLength(data) <= 0) || (Array.getLength(minmax) < 2)) {
             return -1;
         }
 
-        int n = Array.getLength(data);
-        double fill = 0.0;
-        boolean hasFillValue = (fillValue != null && fillValue.getClass().isArray());
+        if (!DataStatistics.isSupported(data)) {
+            log.debug("findMinMax(): unsupported data type {}", data.getClass().getName());
+            return -1;
+        }
 
-        String cname = data.getClass().getName();
-        char dname = cname.charAt(cname.lastIndexOf('[') + 1);
-        log.trace("findMinMax() cname={} : dname={}", cname, dname);
+        DataStatistics stats = new DataStatistics(fillValue, false).accumulate(data);
+        setMinMax(stats, minmax, data);
 
-        minmax[0] = Float.MAX_VALUE;
-        minmax[1] = -Float.MAX_VALUE;
+        return 1;
+    }
 
-        switch (dname) {
-            case 'B':
-                byte[] b = (byte[]) data;
-                minmax[0] = minmax[1] = b[0];
-
-                if (hasFillValue) fill = ((byte[]) fillValue)[0];
-                for (int i = 0; i < n; i++) {
-                    if (hasFillValue && b[i] == fill) continue;
-                    if (minmax[0] > b[i]) {
-                        minmax[0] = b[i];
-                    }
-                    if (minmax[1] < b[i]) {
-                        minmax[1] = b[i];
-                    }
-                }
-                break;
-            case 'S':
-                short[] s = (short[]) data;
-                minmax[0] = minmax[1] = s[0];
+    /**
+     * Finds the min and max values of the current selection of a dataset.
+     * <p>
+     * The selection is read in blocks through {@link Dataset#blockIterator()},
+     * so the selection does not need to fit in memory.
+     *
+     * @param dataset
+     *            the dataset to scan
+     * @param minmax
+     *            the min and max values of the selection.
+     * @param fillValue
+     *            the missing value or fill value. Exclude this value when check
+     *            for min/max
+     *
+     * @return non-negative if successful; otherwise, returns negative
+     *
+     * @throws Exception
+     *             if the data can not be read
+     */
+    public static int findMinMax(Dataset dataset, double[] minmax, Object fillValue) throws Exception {
+        return findMinMax(dataset, null, minmax, fillValue);
+    }
 
-                if (hasFillValue) fill = ((short[]) fillValue)[0];
+    /**
+     * Finds the min and max values of the current selection of a dataset,
+     * from the {@link StatisticsCache} if the selection was scanned before.
+     *
+     * @param dataset
+     *            the dataset
+     * @param data
+     *            the data of the current selection, or null to read the
+     *            selection in blocks
+     * @param minmax
+     *            the min and max values of the selection.
+     * @param fillValue
+     *            the missing value or fill value. Exclude this value when check
+     *            for min/max
+     *
+     * @return non-negative if successful; otherwise, returns negative
+     *
+     * @throws Exception
+     *             if the data can not be read
+     */
+    public static int findMinMax(Dataset dataset, Object data, double[] minmax, Object fillValue) throws Exception {
+        if ((dataset == null) || (minmax == null) || (Array.getLength(minmax) < 2)) {
+            return -1;
+        }
 
-                for (int i = 0; i < n; i++) {
-                    if (hasFillValue && s[i] == fill) continue;
-                    if (minmax[0] > s[i]) {
-                        minmax[0] = s[i];
-                    }
-                    if (minmax[1] < s[i]) {
-                        minmax[1] = s[i];
-                    }
-                }
-                break;
-            case 'I':
-                int[] ia = (int[]) data;
-                minmax[0] = minmax[1] = ia[0];
+        double[] values = getStatistics(dataset, data, fillValue);
+        if (values == null) {
+            return -1;
+        }
 
-                if (hasFillValue) fill = ((int[]) fillValue)[0];
+        minmax[0] = values[StatisticsCache.MIN];
+        minmax[1] = values[StatisticsCache.MAX];
 
-                for (int i = 0; i < n; i++) {
-                    if (hasFillValue && ia[i] == fill) continue;
-                    if (minmax[0] > ia[i]) {
-                        minmax[0] = ia[i];
-                    }
-                    if (minmax[1] < ia[i]) {
-                        minmax[1] = ia[i];
-                    }
-                }
-                break;
-            case 'J':
-                long[] l = (long[]) data;
-                minmax[0] = minmax[1] = l[0];
-
-                if (hasFillValue) fill = ((long[]) fillValue)[0];
-                for (int i = 0; i < n; i++) {
-                    if (hasFillValue && l[i] == fill) continue;
-                    if (minmax[0] > l[i]) {
-                        minmax[0] = l[i];
-                    }
-                    if (minmax[1] < l[i]) {
-                        minmax[1] = l[i];
-                    }
-                }
-                break;
-            case 'F':
-                float[] f = (float[]) data;
-                minmax[0] = minmax[1] = f[0];
-
-                if (hasFillValue) fill = ((float[]) fillValue)[0];
-                for (int i = 0; i < n; i++) {
-                    if ((hasFillValue && f[i] == fill) || isNaNINF(f[i])) continue;
-                    if (minmax[0] > f[i]) {
-                        minmax[0] = f[i];
-                    }
-                    if (minmax[1] < f[i]) {
-                        minmax[1] = f[i];
-                    }
-                }
+        return 1;
+    }
 
-                break;
-            case 'D':
-                double[] d = (double[]) data;
-                minmax[0] = minmax[1] = d[0];
+    /**
+     * Computes mean and standard deviation of the current selection of a
+     * dataset, from the {@link StatisticsCache} if the selection was scanned
+     * before.
+     *
+     * @param dataset
+     *            the dataset
+     * @param data
+     *            the data of the current selection, or null to read the
+     *            selection in blocks
+     * @param avgstd
+     *            the statistics: avgstd[0]=mean and avgstd[1]=stdev.
+     * @param fillValue
+     *            the missing value or fill value. Exclude this value when
+     *            compute statistics
+     *
+     * @return non-negative if successful; otherwise, returns negative
+     *
+     * @throws Exception
+     *             if the data can not be read
+     */
+    public static int computeStatistics(Dataset dataset, Object data, double[] avgstd, Object fillValue) throws Exception {
+        if ((dataset == null) || (avgstd == null) || (Array.getLength(avgstd) < 2)) {
+            return -1;
+        }
 
-                if (hasFillValue) fill = ((double[]) fillValue)[0];
-                for (int i = 0; i < n; i++) {
-                    if ((hasFillValue && d[i] == fill) || isNaNINF(d[i])) continue;
+        double[] values = getStatistics(dataset, data, fillValue);
+        if (values == null) {
+            return -1;
+        }
 
-                    if (minmax[0] > d[i]) {
-                        minmax[0] = d[i];
-                    }
-                    if (minmax[1] < d[i]) {
-                        minmax[1] = d[i];
-                    }
-                }
-                break;
-            default:
-                retval = -1;
-                break;
-        } // (dname)
+        avgstd[0] = values[StatisticsCache.MEAN];
+        avgstd[1] = values[StatisticsCache.STDEV];
 
-        return retval;
+        return 1;
+    }
+
+    /**
+     * Returns the statistics of the current selection of a dataset. The
+     * statistics are taken from the {@link StatisticsCache}, or computed and
+     * added to the cache if the selection was not scanned before.
+     *
+     * @param dataset
+     *            the dataset
+     * @param data
+     *            the data of the current selection, or null to read the
+     *            selection in blocks
+     * @param fillValue
+     *            the missing value or fill value excluded from the statistics
+     *
+     * @return the statistics values, indexed by StatisticsCache.MIN, MAX, MEAN,
+     *         STDEV and NAN_COUNT, or null if the data is not numerical
+     *
+     * @throws Exception
+     *             if the data can not be read
+     */
+    public static double[] getStatistics(Dataset dataset, Object data, Object fillValue) throws Exception {
+        double[] values = StatisticsCache.get(dataset, fillValue);
+        if (values != null) {
+            return values;
+        }
+
+        if (data == null) {
+            DataStatistics stats = DataStatistics.compute(dataset, fillValue, 0, null);
+            if (stats.getTotalCount() <= 0) {
+                return null;
+            }
+            values = getStatisticsValues(stats, null, fillValue);
+        }
+        else {
+            values = getStatistics(data, fillValue);
+            if (values == null) {
+                return null;
+            }
+        }
+
+        StatisticsCache.put(dataset, fillValue, values);
+
+        return values;
+    }
+
+    /**
+     * Returns the statistics of a data array.
+     *
+     * @param data
+     *            the raw data array
+     * @param fillValue
+     *            the missing value or fill value excluded from the statistics
+     *
+     * @return the statistics values, indexed by StatisticsCache.MIN, MAX, MEAN,
+     *         STDEV and NAN_COUNT, or null if the data is not numerical
+     */
+    public static double[] getStatistics(Object data, Object fillValue) {
+        if (!DataStatistics.isSupported(data) || (Array.getLength(data) <= 0)) {
+            return null;
+        }
+
+        DataStatistics stats = new DataStatistics(fillValue, false).accumulate(data);
+
+        return getStatisticsValues(stats, data, fillValue);
+    }
+
+    private static double[] getStatisticsValues(DataStatistics stats, Object data, Object fillValue) {
+        double[] minmax = new double[2];
+        double[] avgstd = new double[2];
+
+        setMinMax(stats, minmax, data);
+        setStatistics(stats, avgstd, fillValue);
+
+        double[] values = new double[StatisticsCache.NVALUES];
+        values[StatisticsCache.MIN] = minmax[0];
+        values[StatisticsCache.MAX] = minmax[1];
+        values[StatisticsCache.MEAN] = avgstd[0];
+        values[StatisticsCache.STDEV] = avgstd[1];
+        values[StatisticsCache.NAN_COUNT] = stats.getNaNCount();
+
+        return values;
+    }
+
+    /**
+     * Copies the range of the statistics to minmax. When every point is a fill
+     * value or NaN, the range is the first point of the data, or 0.
+     */
+    private static void setMinMax(DataStatistics stats, double[] minmax, Object data) {
+        if (stats.getCount() > 0) {
+            minmax[0] = stats.getMin();
+            minmax[1] = stats.getMax();
+        }
+        else {
+            minmax[0] = minmax[1] = (data == null) ? 0 : ((Number) Array.get(data, 0)).doubleValue();
+        }
     }
 
     /**
@@ -1612,29 +1707,25 @@ public final class Tools {
      * @return non-negative if successful; otherwise, returns negative
      */
     public static int findDataDist(Object data, int[] dataDist, double[] minmax) {
-        int retval = 0;
-        double delt = 1;
-
-        if ((data == null) || (minmax == null) || dataDist == null) return -1;
-
-        int n = Array.getLength(data);
-
-        if (minmax[1] != minmax[0]) delt = (dataDist.length - 1) / (minmax[1] - minmax[0]);
+        if ((data == null) || (minmax == null) || (dataDist == null) || (dataDist.length <= 0)) return -1;
 
         for (int i = 0; i < dataDist.length; i++)
             dataDist[i] = 0;
 
-        int idx;
-        double val;
-        for (int i = 0; i < n; i++) {
-            val = ((Number) Array.get(data, i)).doubleValue();
-            if (val>=minmax[0] && val <=minmax[1]) {
-                idx = (int) ((val - minmax[0]) * delt);
-                dataDist[idx]++;
-            } // don't count invalid values
+        if (!DataStatistics.isSupported(data)) {
+            log.debug("findDataDist(): unsupported data type {}", data.getClass().getName());
+            return -1;
         }
 
-        return retval;
+        DataStatistics stats = new DataStatistics(null, false);
+        stats.setHistogram(dataDist.length, minmax[0], minmax[1]);
+        stats.accumulate(data);
+
+        long[] hist = stats.getHistogram();
+        for (int i = 0; i < dataDist.length; i++)
+            dataDist[i] = (int) Math.min(hist[i], Integer.MAX_VALUE);
+
+        return 0;
     }
 
     /**
@@ -1649,151 +1740,61 @@ public final class Tools {
      *            compute statistics
      *
      * @return non-negative if successful; otherwise, returns negative
+     *
+     * @see hdf.object.DataStatistics
      */
     public static int computeStatistics(Object data, double[] avgstd, Object fillValue) {
-        int retval = 1;
-        double sum = 0;
-        double avg = 0.0;
-        double var = 0.0;
-        double diff = 0.0;
-        double fill = 0.0;
-
         if ((data == null) || (avgstd == null) || (Array.getLength(data) <= 0) || (Array.getLength(avgstd) < 2)) {
             return -1;
         }
 
-        int n = Array.getLength(data);
-        boolean hasFillValue = (fillValue != null && fillValue.getClass().isArray());
+        if (!DataStatistics.isSupported(data)) {
+            log.debug("computeStatistics(): unsupported data type {}", data.getClass().getName());
+            return -1;
+        }
 
-        String cname = data.getClass().getName();
-        char dname = cname.charAt(cname.lastIndexOf('[') + 1);
-        log.trace("computeStatistics() cname={} : dname={}", cname, dname);
+        DataStatistics stats = new DataStatistics(fillValue, false).accumulate(data);
+        setStatistics(stats, avgstd, fillValue);
 
-        int npoints = 0;
-        switch (dname) {
-            case 'B':
-                byte[] b = (byte[]) data;
-                if (hasFillValue) fill = ((byte[]) fillValue)[0];
-                for (int i = 0; i < n; i++) {
-                    if (hasFillValue && b[i] == fill) continue;
-                    sum += b[i];
-                    npoints++;
-                }
-                if (npoints > 0) {
-                    avg = sum / npoints;
-                    for (int i = 0; i < n; i++) {
-                        if (hasFillValue && b[i] == fill)
-                            continue;
-                        diff = b[i] - avg;
-                        var += diff * diff;
-                    }
-                }
-                break;
-            case 'S':
-                short[] s = (short[]) data;
-                if (hasFillValue) fill = ((short[]) fillValue)[0];
-                for (int i = 0; i < n; i++) {
-                    if (hasFillValue && s[i] == fill) continue;
-                    sum += s[i];
-                    npoints++;
-                }
-                if (npoints > 0) {
-                    avg = sum / npoints;
-                    for (int i = 0; i < n; i++) {
-                        if (hasFillValue && s[i] == fill)
-                            continue;
-                        diff = s[i] - avg;
-                        var += diff * diff;
-                    }
-                }
-                break;
-            case 'I':
-                int[] ia = (int[]) data;
-                if (hasFillValue) fill = ((int[]) fillValue)[0];
-                for (int i = 0; i < n; i++) {
-                    if (hasFillValue && ia[i] == fill) continue;
-                    sum += ia[i];
-                    npoints++;
-                }
-                if (npoints > 0) {
-                    avg = sum / npoints;
-                    for (int i = 0; i < n; i++) {
-                        if (hasFillValue && ia[i] == fill)
-                            continue;
-                        diff = ia[i] - avg;
-                        var += diff * diff;
-                    }
-                }
-                break;
-            case 'J':
-                long[] l = (long[]) data;
-                if (hasFillValue) fill = ((long[]) fillValue)[0];
-                for (int i = 0; i < n; i++) {
-                    if (hasFillValue && l[i] == fill) continue;
-                    sum += l[i];
-                    npoints++;
-                }
-                if (npoints > 0) {
-                    avg = sum / npoints;
-                    for (int i = 0; i < n; i++) {
-                        if (hasFillValue && l[i] == fill)
-                            continue;
-                        diff = l[i] - avg;
-                        var += diff * diff;
-                    }
-                }
-                break;
-            case 'F':
-                float[] f = (float[]) data;
-                if (hasFillValue) fill = ((float[]) fillValue)[0];
-                for (int i = 0; i < n; i++) {
-                    if (hasFillValue && f[i] == fill) continue;
-                    sum += f[i];
-                    npoints++;
-                }
-                if (npoints > 0) {
-                    avg = sum / npoints;
-                    for (int i = 0; i < n; i++) {
-                        if (hasFillValue && f[i] == fill)
-                            continue;
-                        diff = f[i] - avg;
-                        var += diff * diff;
-                    }
-                }
-                break;
-            case 'D':
-                double[] d = (double[]) data;
-                if (hasFillValue) fill = ((double[]) fillValue)[0];
-                for (int i = 0; i < n; i++) {
-                    if (hasFillValue && d[i] == fill) continue;
-                    sum += d[i];
-                    npoints++;
-                }
-                if (npoints > 0) {
-                    avg = sum / npoints;
-                    for (int i = 0; i < n; i++) {
-                        if (hasFillValue && d[i] == fill)
-                            continue;
-                        diff = d[i] - avg;
-                        var += diff * diff;
-                    }
-                }
-                break;
-            default:
-                retval = -1;
-                break;
-        } // (dname)
+        return 1;
+    }
 
-        if (npoints <= 1) {
-            if (npoints < 1) avgstd[0] = fill;
-            avgstd[1] = 0;
+    /**
+     * Copies the mean and the standard deviation of the statistics to avgstd.
+     * When every point is a fill value, the mean is the fill value.
+     */
+    private static void setStatistics(DataStatistics stats, double[] avgstd, Object fillValue) {
+        if (stats.getCount() > 0) {
+            avgstd[0] = stats.getMean();
+        }
+        else if ((fillValue != null) && fillValue.getClass().isArray()) {
+            avgstd[0] = ((Number) Array.get(fillValue, 0)).doubleValue();
         }
         else {
-            avgstd[0] = avg;
-            avgstd[1] = Math.sqrt(var / (npoints - 1));
+            avgstd[0] = 0;
         }
 
-        return retval;
+        avgstd[1] = stats.getStdDev();
+    }
+
+    /**
+     * Returns the statistics shown to the user by the Show Statistics menu of the
+     * data views.
+     *
+     * @param values
+     *            the statistics values, indexed by StatisticsCache.MIN, MAX,
+     *            MEAN, STDEV and NAN_COUNT
+     *
+     * @return the min, max, mean and standard deviation of the data, one per line
+     */
+    public static String getStatisticsInfo(double[] values) {
+        String info = "Min                      = " + values[StatisticsCache.MIN] + "\nMax                      = "
+                + values[StatisticsCache.MAX] + "\nMean                     = " + values[StatisticsCache.MEAN]
+                + "\nStandard deviation = " + values[StatisticsCache.STDEV];
+        if (values[StatisticsCache.NAN_COUNT] > 0)
+            info += "\nNaN/Inf values          = " + (long) values[StatisticsCache.NAN_COUNT];
+
+        return info;
     }
 
     public static void saveAsBinary(DataOutputStream out, Object data, ByteOrder order) throws Exception {
@@ -1984,213 +1985,69 @@ public final class Tools {
     public static boolean getBinaryDataFromFile(Object dataOut, String fileName, ByteOrder order) {
         if (dataOut == null) return false;
 
-        String fname = fileName;
-        BufferedInputStream in = null;
-        ByteBuffer byteBuffer = null;
-        boolean valChanged = false;
-
-        try (FileInputStream inputFile = new FileInputStream(fname)) {
-            long fileSize = inputFile.getChannel().size();
-            in = new BufferedInputStream(inputFile);
-
-            int datasetSize = Array.getLength(dataOut);
-            String cname = dataOut.getClass().getName();
-            char dname = cname.charAt(cname.lastIndexOf('[') + 1);
-
-            if (dname == 'B') {
-                long datasetByteSize = datasetSize;
-                byteBuffer = ByteBuffer.allocate(BYTE_BUFFER_SIZE);
-                byteBuffer.order(order);
-
-                int bufferSize = (int) Math.min(fileSize, datasetByteSize);
-
-                int remainingSize = bufferSize - (BYTE_BUFFER_SIZE);
-                int allocValue = 0;
-                int iterationNumber = 0;
-                byte[] byteArray = new byte[BYTE_BUFFER_SIZE];
-                do {
-                    if (remainingSize <= 0) {
-                        allocValue = remainingSize + (BYTE_BUFFER_SIZE);
-                    }
-                    else {
-                        allocValue = (BYTE_BUFFER_SIZE);
-                    }
-
-                    in.read(byteBuffer.array(), 0, allocValue);
-
-                    byteBuffer.get(byteArray, 0, allocValue);
-                    System.arraycopy(byteArray, 0, dataOut, (iterationNumber * BYTE_BUFFER_SIZE), allocValue);
-                    byteBuffer.clear();
-                    remainingSize = remainingSize - (BYTE_BUFFER_SIZE);
-                    iterationNumber++;
-                } while (remainingSize > -(BYTE_BUFFER_SIZE));
-
-                valChanged = true;
-            }
-            else if (dname == 'S') {
-                long datasetShortSize = (long) datasetSize * 2;
-                byteBuffer = ByteBuffer.allocate(SHORT_BUFFER_SIZE * 2);
-                byteBuffer.order(order);
-
-                int bufferSize = (int) Math.min(fileSize, datasetShortSize);
-                int remainingSize = bufferSize - (SHORT_BUFFER_SIZE * 2);
-                int allocValue = 0;
-                int iterationNumber = 0;
-                ShortBuffer sb = byteBuffer.asShortBuffer();
-                short[] shortArray = new short[SHORT_BUFFER_SIZE];
-
-                do {
-                    if (remainingSize <= 0) {
-                        allocValue = remainingSize + (SHORT_BUFFER_SIZE * 2);
-                    }
-                    else {
-                        allocValue = (SHORT_BUFFER_SIZE * 2);
-                    }
-                    in.read(byteBuffer.array(), 0, allocValue);
-                    sb.get(shortArray, 0, allocValue / 2);
-                    System.arraycopy(shortArray, 0, dataOut, (iterationNumber * SHORT_BUFFER_SIZE), allocValue / 2);
-                    byteBuffer.clear();
-                    sb.clear();
-                    remainingSize = remainingSize - (SHORT_BUFFER_SIZE * 2);
-                    iterationNumber++;
-                } while (remainingSize > -(SHORT_BUFFER_SIZE * 2));
-
-                valChanged = true;
-            }
-            else if (dname == 'I') {
-                long datasetIntSize = (long) datasetSize * 4;
-                byteBuffer = ByteBuffer.allocate(INT_BUFFER_SIZE * 4);
-                byteBuffer.order(order);
-
-                int bufferSize = (int) Math.min(fileSize, datasetIntSize);
-                int remainingSize = bufferSize - (INT_BUFFER_SIZE * 4);
-                int allocValue = 0;
-                int iterationNumber = 0;
-                int[] intArray = new int[INT_BUFFER_SIZE];
-                byte[] tmpBuf = byteBuffer.array();
-                IntBuffer ib = byteBuffer.asIntBuffer();
-
-                do {
-                    if (remainingSize <= 0) {
-                        allocValue = remainingSize + (INT_BUFFER_SIZE * 4);
-                    }
-                    else {
-                        allocValue = (INT_BUFFER_SIZE * 4);
-                    }
-                    in.read(tmpBuf, 0, allocValue);
-                    ib.get(intArray, 0, allocValue / 4);
-                    System.arraycopy(intArray, 0, dataOut, (iterationNumber * INT_BUFFER_SIZE), allocValue / 4);
-                    byteBuffer.clear();
-                    ib.clear();
-                    remainingSize = remainingSize - (INT_BUFFER_SIZE * 4);
-                    iterationNumber++;
-                } while (remainingSize > -(INT_BUFFER_SIZE * 4));
-
-                valChanged = true;
-            }
-            else if (dname == 'J') {
-                long datasetLongSize = (long) datasetSize * 8;
-                byteBuffer = ByteBuffer.allocate(LONG_BUFFER_SIZE * 8);
-                byteBuffer.order(order);
-
-                int bufferSize = (int) Math.min(fileSize, datasetLongSize);
-                int remainingSize = bufferSize - (LONG_BUFFER_SIZE * 8);
-                int allocValue = 0;
-                int iterationNumber = 0;
-                long[] longArray = new long[LONG_BUFFER_SIZE];
-                LongBuffer lb = byteBuffer.asLongBuffer();
-
-                do {
-                    if (remainingSize <= 0) {
-                        allocValue = remainingSize + (LONG_BUFFER_SIZE * 8);
-                    }
-                    else {
-                        allocValue = (LONG_BUFFER_SIZE * 8);
-                    }
+        String cname = dataOut.getClass().getName();
+        char dname = cname.charAt(cname.lastIndexOf('[') + 1);
 
-                    in.read(byteBuffer.array(), 0, allocValue);
-                    lb.get(longArray, 0, allocValue / 8);
-                    System.arraycopy(longArray, 0, dataOut, (iterationNumber * LONG_BUFFER_SIZE), allocValue / 8);
-                    byteBuffer.clear();
-                    lb.clear();
-                    remainingSize = remainingSize - (LONG_BUFFER_SIZE * 8);
-                    iterationNumber++;
-                } while (remainingSize > -(LONG_BUFFER_SIZE * 8));
+        int elementSize;
+        switch (dname) {
+            case 'B':
+                elementSize = 1;
+                break;
+            case 'S':
+                elementSize = 2;
+                break;
+            case 'I':
+            case 'F':
+                elementSize = 4;
+                break;
+            case 'J':
+            case 'D':
+                elementSize = 8;
+                break;
+            default:
+                log.debug("getBinaryDataFromFile(): unsupported data type {}", dname);
+                return false;
+        }
 
-                valChanged = true;
-            }
-            else if (dname == 'F') {
-                long datasetFloatSize = (long) datasetSize * 4;
-                byteBuffer = ByteBuffer.allocate(FLOAT_BUFFER_SIZE * 4);
-                byteBuffer.order(order);
-
-                int bufferSize = (int) Math.min(fileSize, datasetFloatSize);
-                int remainingSize = bufferSize - (FLOAT_BUFFER_SIZE * 4);
-                int allocValue = 0;
-                int iterationNumber = 0;
-                FloatBuffer fb = byteBuffer.asFloatBuffer();
-                float[] floatArray = new float[FLOAT_BUFFER_SIZE];
-                do {
-                    if (remainingSize <= 0) {
-                        allocValue = remainingSize + (FLOAT_BUFFER_SIZE * 4);
-                    }
-                    else {
-                        allocValue = (FLOAT_BUFFER_SIZE * 4);
-                    }
+        boolean valChanged = false;
 
-                    in.read(byteBuffer.array(), 0, allocValue);
-                    fb.get(floatArray, 0, allocValue / 4);
-                    System.arraycopy(floatArray, 0, dataOut, (iterationNumber * FLOAT_BUFFER_SIZE), allocValue / 4);
-                    byteBuffer.clear();
-                    fb.clear();
-                    remainingSize = remainingSize - (FLOAT_BUFFER_SIZE * 4);
-                    iterationNumber++;
-                } while (remainingSize > -(FLOAT_BUFFER_SIZE * 4));
+        // the file is mapped in windows of whole values, as a mapping is limited to 2 GB
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            int datasetSize = Array.getLength(dataOut);
+            int nvalues = (int) Math.min(datasetSize, channel.size() / elementSize);
+            int windowValues = MAP_WINDOW_BYTES / elementSize;
 
-                valChanged = true;
-            }
-            else if (dname == 'D') {
-                long datasetDoubleSize = (long) datasetSize * 8;
-                byteBuffer = ByteBuffer.allocate(DOUBLE_BUFFER_SIZE * 8);
-                byteBuffer.order(order);
-
-                int bufferSize = (int) Math.min(fileSize, datasetDoubleSize);
-                int remainingSize = bufferSize - (DOUBLE_BUFFER_SIZE * 8);
-                int allocValue = 0;
-                int iterationNumber = 0;
-                DoubleBuffer db = byteBuffer.asDoubleBuffer();
-                double[] doubleArray = new double[DOUBLE_BUFFER_SIZE];
-
-                do {
-                    if (remainingSize <= 0) {
-                        allocValue = remainingSize + (DOUBLE_BUFFER_SIZE * 8);
-                    }
-                    else {
-                        allocValue = (DOUBLE_BUFFER_SIZE * 8);
-                    }
+            for (int offset = 0; offset < nvalues; offset += windowValues) {
+                int n = Math.min(windowValues, nvalues - offset);
+                ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, (long) offset * elementSize,
+                        (long) n * elementSize).order(order);
 
-                    in.read(byteBuffer.array(), 0, allocValue);
-                    db.get(doubleArray, 0, allocValue / 8);
-                    System.arraycopy(doubleArray, 0, dataOut, (iterationNumber * DOUBLE_BUFFER_SIZE), allocValue / 8);
-                    byteBuffer.clear();
-                    db.clear();
-                    remainingSize = remainingSize - (DOUBLE_BUFFER_SIZE * 8);
-                    iterationNumber++;
-                } while (remainingSize > -(DOUBLE_BUFFER_SIZE * 8));
+                switch (dname) {
+                    case 'B':
+                        map.get((byte[]) dataOut, offset, n);
+                        break;
+                    case 'S':
+                        map.asShortBuffer().get((short[]) dataOut, offset, n);
+                        break;
+                    case 'I':
+                        map.asIntBuffer().get((int[]) dataOut, offset, n);
+                        break;
+                    case 'J':
+                        map.asLongBuffer().get((long[]) dataOut, offset, n);
+                        break;
+                    case 'F':
+                        map.asFloatBuffer().get((float[]) dataOut, offset, n);
+                        break;
+                    default:
+                        map.asDoubleBuffer().get((double[]) dataOut, offset, n);
+                        break;
+                }
 
                 valChanged = true;
             }
         }
-        catch (Exception es) {
-            es.printStackTrace();
-        }
-        finally {
-            try {
-                in.close();
-            }
-            catch (IOException ex) {
-                // Empty on purpose
-            }
+        catch (Exception ex) {
+            log.debug("getBinaryDataFromFile(): failed to read {}: ", fileName, ex);
         }
 
         return valChanged;
@@ -23,14 +23,11 @@ import java.io.FileOutputStream;
 import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.DisposeEvent;
@@ -77,8 +74,11 @@ import hdf.object.Group;
 import hdf.object.HObject;
 import hdf.object.MetaDataContainer;
 import hdf.object.ScalarDS;
+import hdf.object.h5.H5File;
+import hdf.object.h5.H5Repacker;
 import hdf.view.DefaultFileFilter;
 import hdf.view.HDFView;
+import hdf.view.StatisticsCache;
 import hdf.view.Tools;
 import hdf.view.ViewProperties;
 import hdf.view.ViewProperties.DATA_VIEW_KEY;
@@ -96,6 +96,8 @@ import hdf.view.dialog.NewDatatypeDialog;
 import hdf.view.dialog.NewGroupDialog;
 import hdf.view.dialog.NewImageDialog;
 import hdf.view.dialog.NewLinkDialog;
+import hdf.view.dialog.ProgressDialog;
+import hdf.view.dialog.RepackDialog;
 
 /**
  * <p>
@@ -118,6 +120,15 @@ public class DefaultTreeView implements TreeView {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DefaultTreeView.class);
 
+    /** The time in milliseconds a file may take to open before a progress dialog is shown */
+    private static final int              OPEN_PROGRESS_DELAY = 500;
+
+    /** The interval in milliseconds at which the progress of opening a file is updated */
+    private static final int              OPEN_PROGRESS_INTERVAL = 250;
+
+    /** The number of top-level items added to the tree of a file at a time */
+    private static final int              POPULATE_BATCH_SIZE = 500;
+
     private Shell                         shell;
 
     private Font                          curFont;
@@ -128,6 +139,9 @@ public class DefaultTreeView implements TreeView {
     /** Thread to load TableView Data in the background */
     private LoadDataThread                loadDataThread;
 
+    /** True while a file is being opened in the background */
+    private boolean                       isOpeningFile = false;
+
     /**
      * The tree which holds file structures.
      */
@@ -495,6 +509,13 @@ public class DefaultTreeView implements TreeView {
                 // tree from redrawing until all the items are created
                 tree.setRedraw(false);
 
+                // The members of a group of a lazily loaded file are read
+                // from the file the first time the group is expanded
+                if (!theGroup.isMemberListLoaded()) {
+                    item.clearAll(true);
+                    item.setItemCount(theGroup.getMemberList().size());
+                }
+
                 if(item.getItemCount() > 0)
                     item.setImage(theGroup.hasAttribute() ? folderOpenIconA : folderOpenIcon);
 
@@ -530,8 +551,11 @@ public class DefaultTreeView implements TreeView {
                 TreeItem item = (TreeItem) event.item;
                 TreeItem parentItem = item.getParentItem();
 
-                int position = parentItem.indexOf(item);
-                HObject obj = ((Group) parentItem.getData()).getMember(position);
+                // The file root items are created when the files are opened
+                if (parentItem == null) return;
+
+                HObject obj = ((Group) parentItem.getData()).getMember(event.index);
+                if (obj == null) return;
 
                 item.setData(obj);
                 item.setFont(curFont);
@@ -539,7 +563,7 @@ public class DefaultTreeView implements TreeView {
                 item.setImage(getObjectTypeImage(obj));
 
                 if(obj instanceof Group) {
-                    item.setItemCount(((Group) obj).getMemberList().size());
+                    item.setItemCount(getMemberItemCount((Group) obj));
                 }
             }
         });
@@ -756,7 +780,7 @@ public class DefaultTreeView implements TreeView {
                     Tools.showError(shell, "Save", ex.getMessage() + "\n" + filename);
                 }
                 if (dstFile != null)
-                    pasteObject(selectedItems, findTreeItem(dstFile.getRootObject()), dstFile);
+                    pasteObject(getUserObjects(selectedItems), findTreeItem(dstFile.getRootObject()), dstFile);
             }
         });
 
@@ -1057,6 +1081,23 @@ public class DefaultTreeView implements TreeView {
             }
         });
 
+        item = new MenuItem(exportDatasetMenu, SWT.PUSH);
+        item.setText("Export Data to NumPy File");
+        item.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                binaryOrder = 4;
+
+                try {
+                    saveDataAsFile();
+                }
+                catch (Exception ex) {
+                    shell.getDisplay().beep();
+                    Tools.showError(shell, "Export Dataset", ex.getMessage());
+                }
+            }
+        });
+
         // Add listener to dynamically enable/disable menu items based
         // on selection in tree
         menu.addMenuListener(new MenuAdapter() {
@@ -1406,7 +1447,7 @@ public class DefaultTreeView implements TreeView {
                 return;
         }
 
-        pasteObject(objectsToCopy, pitem, dstFile);
+        pasteObject(getUserObjects(objectsToCopy), pitem, dstFile);
 
         if (moveFlag) {
             removeSelectedObjects();
@@ -1416,16 +1457,25 @@ public class DefaultTreeView implements TreeView {
         }
     }
 
-    /** Paste selected objects */
-    private void pasteObject(TreeItem[] objList, TreeItem pobj, FileFormat dstFile) {
+    /** Returns the data objects of the given tree items */
+    private HObject[] getUserObjects(TreeItem[] items) {
+        HObject[] objList = new HObject[items.length];
+        for (int i = 0; i < items.length; i++)
+            objList[i] = (HObject) items[i].getData();
+
+        return objList;
+    }
+
+    /** Paste the given objects into the group of the given tree item */
+    private void pasteObject(HObject[] objList, TreeItem pobj, FileFormat dstFile) {
         if ((objList == null) || (objList.length <= 0) || (pobj == null)) return;
 
-        FileFormat srcFile = ((HObject) objList[0].getData()).getFileFormat();
+        FileFormat srcFile = objList[0].getFileFormat();
         Group pgroup = (Group) pobj.getData();
 
         HObject theObj = null;
         for (int i = 0; i < objList.length; i++) {
-            theObj = (HObject) objList[i].getData();
+            theObj = objList[i];
 
             if ((theObj instanceof Group) && ((Group) theObj).isRoot()) {
                 shell.getDisplay().beep();
@@ -1452,12 +1502,10 @@ public class DefaultTreeView implements TreeView {
                     // Add the node to the tree
                     TreeItem newItem = insertObject(newObj, pobj);
 
-                    // If this is a group, add its first level child items
+                    // If this is a group, its child items are created when
+                    // the group is expanded
                     if(newObj instanceof Group) {
-                        Iterator<HObject> children = ((Group) newObj).getMemberList().iterator();
-                        while(children.hasNext()) {
-                            insertObject(children.next(), newItem);
-                        }
+                        newItem.setItemCount(getMemberItemCount((Group) newObj));
                     }
                 }
             }
@@ -1596,10 +1644,10 @@ public class DefaultTreeView implements TreeView {
     }
 
     /**
-     * Populates the TreeView with TreeItems corresponding to
-     * the top-level user objects in the specified file. The rest
-     * of the user objects in the file are populated as TreeItems
-     * on demand when the user expands groups.
+     * Populates the TreeView with the TreeItem of the root group of the
+     * specified file. The Tree is virtual: the TreeItems of the user objects
+     * in the file are created on demand by SetData, when the user expands
+     * their group and they are scrolled into view.
      *
      * @return the root TreeItem created in the Tree corresponding
      * to the file object.
@@ -1632,20 +1680,9 @@ public class DefaultTreeView implements TreeView {
         try {
             rootItem = insertObject(theFile.getRootObject(), null);
             if (rootItem != null) {
-                Iterator<HObject> it = ((Group) rootItem.getData()).getMemberList().iterator();
-                while (it.hasNext()) {
-                    TreeItem newItem = null;
-                    HObject obj = it.next();
-
-                    newItem = insertObject(obj, rootItem);
-
-                    // Tell SWT how many members this group has so they can
-                    // be populated when the group is expanded
-                    if (obj instanceof Group) {
-                        newItem.setItemCount(((Group) obj).getMemberList().size());
-                        log.debug("populateTree(): group members size {}:", ((Group) obj).getMemberList().size());
-                    }
-                }
+                // The items of the top-level objects are created by SetData
+                // as they are scrolled into view
+                insertMembers(rootItem);
             }
         }
         catch (Exception ex) {
@@ -1848,41 +1885,6 @@ public class DefaultTreeView implements TreeView {
         return isOpen;
     }
 
-    /**
-     * Returns a list that lists all TreeItems in the
-     * current Tree that are children of the specified
-     * TreeItem in a breadth-first manner.
-     *
-     * @param the current Tree item
-     *
-     * @return list of TreeItems
-     */
-    private ArrayList<TreeItem> getItemsBreadthFirst(TreeItem item) {
-        if (item == null) return null;
-
-        ArrayList<TreeItem> allItems = new ArrayList<>();
-        Queue<TreeItem> currentChildren = new LinkedList<>();
-        TreeItem currentItem = item;
-
-        // Add all root items in the Tree to a Queue
-        currentChildren.addAll(Arrays.asList(currentItem.getItems()));
-
-        // For every item in the queue, remove it from the head of the queue,
-        // add it to the list of all items, then add all of its possible children
-        // TreeItems to the end of the queue. This produces a breadth-first
-        // ordering of the Tree's TreeItems.
-        while(!currentChildren.isEmpty()) {
-            currentItem = currentChildren.remove();
-            allItems.add(currentItem);
-
-            if(currentItem.getItemCount() <= 0) continue;
-
-            currentChildren.addAll(Arrays.asList(currentItem.getItems()));
-        }
-
-        return allItems;
-    }
-
     /**
      * Returns a list of all user objects that traverses the subtree rooted at
      * this item in breadth-first order..
@@ -1896,13 +1898,10 @@ public class DefaultTreeView implements TreeView {
         ArrayList<Object> list = new ArrayList<>();
         list.add(item.getData()); // Add this item to the list first
 
-        Iterator<TreeItem> it = getItemsBreadthFirst(item).iterator();
-        TreeItem theItem = null;
-
-        while (it.hasNext()) {
-            theItem = it.next();
-            list.add(theItem.getData());
-        }
+        // Walk the groups instead of the tree items, which are created only
+        // when they are shown
+        if (item.getData() instanceof Group)
+            list.addAll(((Group) item.getData()).breadthFirstMemberList());
 
         return list;
     }
@@ -1943,13 +1942,15 @@ public class DefaultTreeView implements TreeView {
 
         if (objName == null || objName.length() <= 0) return null;
 
+        if (!(parentItem.getData() instanceof Group)) return null;
+
+        // Search the members of the group, not the tree items: the items of
+        // the virtual tree are created only when they are shown
         HObject obj = null;
         String theName = null;
-        TreeItem theItem = null;
-        Iterator<TreeItem> it = getItemsBreadthFirst(parentItem).iterator();
+        Iterator<HObject> it = ((Group) parentItem.getData()).breadthFirstMemberList().iterator();
         while (it.hasNext()) {
-            theItem = it.next();
-            obj = (HObject) theItem.getData();
+            obj = it.next();
             if (obj != null && (theName = obj.getName()) != null) {
                 if (isPrefix)
                     isFound = theName.startsWith(objName);
@@ -1967,7 +1968,8 @@ public class DefaultTreeView implements TreeView {
             }
         }
 
-        if (retObj != null) {
+        TreeItem theItem = (retObj == null) ? null : findTreeItem(retObj);
+        if (theItem != null) {
             tree.deselectAll();
             tree.setSelection(theItem);
             tree.showItem(theItem);
@@ -2125,6 +2127,12 @@ public class DefaultTreeView implements TreeView {
         }
         if(filename == null) return;
 
+        RepackDialog repackDialog = null;
+        if (!((HDFView) viewer).getTestState()) {
+            repackDialog = new RepackDialog(shell);
+            if (!repackDialog.open()) return;
+        }
+
         try {
             Tools.createNewFile(filename, currentDir, FileFormat.FILE_TYPE_HDF5, fileList);
         }
@@ -2132,17 +2140,15 @@ public class DefaultTreeView implements TreeView {
             Tools.showError(shell, "Save", ex.getMessage());
         }
 
-        TreeItem rootItem = findTreeItem(root);
-        int n = rootItem.getItemCount();
-        ArrayList<TreeItem> objList = new ArrayList<>(n);
-
-        try {
-            for (int i = 0; i < n; i++) objList.add(rootItem.getItem(i));
-        }
-        catch (Exception ex) {
-            log.debug("saveAsHDF5() objList add failure: ", ex);
+        if ((repackDialog != null) && repackDialog.isRepack()) {
+            repackFile(srcFile, filename, repackDialog.getChunkSize(), repackDialog.getGzipLevel());
+            return;
         }
 
+        // Take the members from the root group, not from the tree items: the
+        // items of the virtual tree may not be created yet
+        List<HObject> objList = new ArrayList<>(((Group) root).getMemberList());
+
         FileFormat newFile = null;
         try {
             newFile = openFile(filename, FileFormat.WRITE);
@@ -2157,7 +2163,7 @@ public class DefaultTreeView implements TreeView {
 
         HObject pitem = newFile.getRootObject();
 
-        pasteObject(objList.toArray(new TreeItem[0]), findTreeItem(pitem), newFile);
+        pasteObject(objList.toArray(new HObject[0]), findTreeItem(pitem), newFile);
         objList.clear();
 
         Group srcGroup = (Group) root;
@@ -2225,6 +2231,11 @@ public class DefaultTreeView implements TreeView {
                 fChooser.setFileName(dataset.getName() + ".txt");
                 filter = DefaultFileFilter.getFileFilterText();
             }
+            else if(binaryOrder == 4) {
+                fChooser.setText(msgtext);
+                fChooser.setFileName(dataset.getName() + ".npy");
+                filter = DefaultFileFilter.getFileFilterNumpy();
+            }
             else {
                 fChooser.setText(msgtext);
                 fChooser.setFileName(dataset.getName() + ".bin");
@@ -2330,6 +2341,11 @@ public class DefaultTreeView implements TreeView {
             return null;
         }
 
+        if (isOpeningFile) {
+            viewer.showStatus("Another file is being opened.");
+            return null;
+        }
+
         File tmpFile = new File(filename);
         if (!tmpFile.exists()) {
             throw new FileNotFoundException("File does not exist.");
@@ -2438,6 +2454,46 @@ public class DefaultTreeView implements TreeView {
         return initFile(fileFormat);
     }
 
+    /**
+     * Adds the virtual TreeItems of the top-level objects of a file,
+     * POPULATE_BATCH_SIZE items at a time. The following batches are added by
+     * calls scheduled with Display.asyncExec, so that a file with many top-level
+     * objects is shown at once and the window stays responsive while the tree
+     * is populated.
+     */
+    private void insertMembers(final TreeItem rootItem) {
+        // the file may have been closed before all the batches are added
+        if (rootItem.isDisposed())
+            return;
+
+        int total = ((Group) rootItem.getData()).getMemberList().size();
+        int count = Math.min(total, rootItem.getItemCount() + POPULATE_BATCH_SIZE);
+        if (count > rootItem.getItemCount())
+            rootItem.setItemCount(count);
+
+        if (count < total) {
+            shell.getDisplay().asyncExec(new Runnable() {
+                @Override
+                public void run() {
+                    insertMembers(rootItem);
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the number of child items of the TreeItem of a group. A group
+     * whose members are not loaded yet gets a single placeholder item if it has
+     * members in the file, so that it can be expanded; its members are loaded
+     * and the placeholder is replaced when the group is expanded.
+     */
+    private int getMemberItemCount(Group group) {
+        if (group.isMemberListLoaded())
+            return group.getMemberList().size();
+
+        return (group.getNumberOfMembersInFile() > 0) ? 1 : 0;
+    }
+
     /**
      * Initializes a FileFormat object by opening it and populating the file tree structure.
      *
@@ -2459,8 +2515,15 @@ public class DefaultTreeView implements TreeView {
         try {
             fileFormat.setMaxMembers(ViewProperties.getMaxMembers());
             fileFormat.setStartMembers(ViewProperties.getStartMembers());
+            fileFormat.setLazyHierarchy(ViewProperties.isLazyHierarchy());
+            fileFormat.setStructureIndexDirectory(
+                    ViewProperties.isStructureIndexed() ? new File(ViewProperties.getStructureIndexDir()) : null);
 
-            fileFormat.open();
+            if (!openInBackground(fileFormat)) {
+                log.trace("initFile[{}] - open cancelled", fileFormat.getAbsolutePath());
+                viewer.showStatus("Opening " + fileFormat.getAbsolutePath() + " was cancelled.");
+                return null;
+            }
 
             fileRoot = populateTree(fileFormat);
 
@@ -2489,6 +2552,79 @@ public class DefaultTreeView implements TreeView {
         return fileFormat;
     }
 
+    /**
+     * Opens a file on a worker thread, so that the window stays responsive while
+     * a large or slow file is opened. A file that opens within OPEN_PROGRESS_DELAY
+     * is opened without dispatching any event. Otherwise, a modal progress dialog
+     * that lets the user cancel the open is shown before events are dispatched,
+     * so that the user cannot act on the tree while the file is being opened.
+     * <p>
+     * The file libraries cannot interrupt an open, so a cancelled file is closed
+     * by the worker thread when the open completes.
+     *
+     * @param fileFormat
+     *            the file to open.
+     *
+     * @return true if the file is open; false if the open was cancelled.
+     *
+     * @throws Exception
+     *             if the file could not be opened
+     */
+    private boolean openInBackground(FileFormat fileFormat) throws Exception {
+        final Display display = shell.getDisplay();
+        final Runnable wakeUp = new Runnable() {
+            @Override
+            public void run() {
+                // nothing to do, the event loop below wakes up to update the progress
+            }
+        };
+
+        OpenFileThread openThread = new OpenFileThread(fileFormat, display);
+        ProgressDialog progress = null;
+        long startTime = System.currentTimeMillis();
+
+        isOpeningFile = true;
+        openThread.start();
+
+        try {
+            try {
+                openThread.join(OPEN_PROGRESS_DELAY);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (!openThread.isDone()) {
+                // the modal dialog must be open before any event is dispatched
+                progress = new ProgressDialog(shell, "Open File");
+                progress.open("Opening " + fileFormat.getAbsolutePath() + " ...");
+            }
+
+            while (!openThread.isDone()) {
+                if (shell.isDisposed() || progress.isCancelled()) {
+                    openThread.cancel();
+                    return false;
+                }
+
+                long elapsed = System.currentTimeMillis() - startTime;
+                progress.setMessage("Opening " + fileFormat.getAbsolutePath() + " ... " + (elapsed / 1000) + " s");
+
+                display.timerExec(OPEN_PROGRESS_INTERVAL, wakeUp);
+                if (!display.readAndDispatch())
+                    display.sleep();
+            }
+        }
+        finally {
+            isOpeningFile = false;
+            if (progress != null)
+                progress.close();
+        }
+
+        openThread.checkError();
+
+        return true;
+    }
+
     @Override
     public FileFormat reopenFile(FileFormat fileFormat, int newFileAccessMode) throws Exception {
         String fileFormatName = fileFormat.getAbsolutePath();
@@ -2541,6 +2677,9 @@ public class DefaultTreeView implements TreeView {
                     log.debug("closeFile({}):", theFile.getFilePath(), ex);
                 }
 
+                // Write the statistics of the file and drop them from memory
+                StatisticsCache.close(theFile.getFilePath());
+
                 fileList.remove(theFile);
                 if (theFile.equals(selectedFile)) {
                     selectedFile = null;
@@ -2589,6 +2728,63 @@ public class DefaultTreeView implements TreeView {
         }
     }
 
+    /**
+     * Copy the objects of a file into a new HDF5 file on a worker thread, and open
+     * the new file. The datasets of numbers are copied block by block with a new
+     * chunk size and compression level by an H5Repacker; the other objects and
+     * the links are copied unchanged.
+     */
+    private void repackFile(FileFormat srcFile, String filename, long[] chunkSize, int gzipLevel) {
+        final Display display = shell.getDisplay();
+        final Runnable wakeUp = new Runnable() {
+            @Override
+            public void run() {
+                // nothing to do, the event loop below wakes up to update the progress
+            }
+        };
+
+        RepackThread repackThread = new RepackThread(srcFile, filename, chunkSize, gzipLevel, display);
+        ProgressDialog progress = new ProgressDialog(shell, "Save As");
+        progress.open("Copying " + srcFile.getName() + " ...");
+
+        repackThread.start();
+
+        while (repackThread.isAlive()) {
+            if (progress.isCancelled())
+                repackThread.cancel();
+            progress.setMessage(repackThread.getMessage());
+
+            display.timerExec(OPEN_PROGRESS_INTERVAL, wakeUp);
+            if (!display.readAndDispatch())
+                display.sleep();
+        }
+        progress.close();
+
+        if (repackThread.isCancelled()) {
+            if (!new File(filename).delete())
+                log.debug("repackFile(): failed to delete {}", filename);
+            return;
+        }
+
+        if (repackThread.getError() != null) {
+            shell.getDisplay().beep();
+            Tools.showError(shell, "Save", repackThread.getError() + "\n" + filename);
+
+            // do not open a partial copy
+            if (!new File(filename).delete())
+                log.debug("repackFile(): failed to delete {}", filename);
+            return;
+        }
+
+        try {
+            openFile(filename, FileFormat.WRITE);
+        }
+        catch (Exception ex) {
+            shell.getDisplay().beep();
+            Tools.showError(shell, "Save", ex.getMessage() + "\n" + filename);
+        }
+    }
+
     /**
      * Returns the tree item that contains the given data object.
      */
@@ -2622,28 +2818,60 @@ public class DefaultTreeView implements TreeView {
             }
         }
 
-        TreeItem theItem = null;
-        HObject theObj = null;
-        List<TreeItem> breadthFirstItems = getItemsBreadthFirst(rootItem);
+        if (rootItem == null) return null;
 
-        if (breadthFirstItems != null) {
-            Iterator<TreeItem> it = getItemsBreadthFirst(rootItem).iterator();
+        // Follow the path of the object, so that only the items on the path
+        // are created in the virtual tree
+        return findItemByPath(rootItem, obj);
+    }
 
-            while (it.hasNext()) {
-                theItem = it.next();
-                theObj = (HObject) theItem.getData();
+    /**
+     * Returns the tree item of an object by following the names in the full
+     * path of the object from the root item of its file, one component at a
+     * time. The items of the groups on the path that are not created yet are
+     * added, the other items of the tree are left alone.
+     *
+     * @return the tree item, or null if the path does not lead to the object.
+     */
+    private TreeItem findItemByPath(TreeItem rootItem, HObject obj) {
+        TreeItem theItem = rootItem;
+        String[] names = obj.getFullName().split(HObject.SEPARATOR);
 
-                if (theObj == null) {
-                    continue;
-                }
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].length() <= 0) continue;
+
+            if (!(theItem.getData() instanceof Group)) return null;
+
+            Group theGroup = (Group) theItem.getData();
+            if (!theGroup.isMemberListLoaded()) {
+                theItem.clearAll(true);
+                theItem.setItemCount(theGroup.getMemberList().size());
+            }
 
-                if (theObj.equals(obj)) {
-                    return theItem;
+            List<HObject> members = theGroup.getMemberList();
+            int index = -1;
+            for (int j = 0; j < members.size(); j++) {
+                if (names[i].equals(members.get(j).getName())) {
+                    index = j;
+                    break;
                 }
             }
+
+            if (index < 0) return null;
+
+            // The top-level items of a file may still be added in batches
+            if (index >= theItem.getItemCount())
+                theItem.setItemCount(index + 1);
+
+            theItem = theItem.getItem(index);
+
+            // Make sure SetData has been sent for the virtual item
+            theItem.getText();
         }
 
-        return null;
+        HObject theObj = (HObject) theItem.getData();
+
+        return ((theObj != null) && theObj.equals(obj)) ? theItem : null;
     }
 
     /**
@@ -3237,6 +3465,162 @@ public class DefaultTreeView implements TreeView {
         }
     }
 
+    /** Thread to open a file in the background */
+    private class OpenFileThread extends Thread {
+        private final FileFormat fileFormat;
+        private final Display    display;
+
+        private boolean          isDone = false;
+        private boolean          isCancelled = false;
+        private Throwable        error = null;
+
+        OpenFileThread(FileFormat fileFormat, Display display) {
+            super("Open " + fileFormat.getName());
+            setDaemon(true);
+
+            this.fileFormat = fileFormat;
+            this.display = display;
+        }
+
+        @Override
+        public void run() {
+            try {
+                fileFormat.open();
+            }
+            catch (Throwable err) {
+                log.debug("OpenFileThread: open {} failure: ", fileFormat.getAbsolutePath(), err);
+                error = err;
+            }
+
+            synchronized (this) {
+                isDone = true;
+                if (isCancelled)
+                    closeFile();
+            }
+
+            if (!display.isDisposed())
+                display.wake();
+        }
+
+        synchronized boolean isDone() {
+            return isDone;
+        }
+
+        /** Closes the file as soon as it is open. */
+        synchronized void cancel() {
+            isCancelled = true;
+            if (isDone)
+                closeFile();
+        }
+
+        /** Throws the error that occurred while opening the file, if any. */
+        synchronized void checkError() throws Exception {
+            if (error instanceof Exception)
+                throw (Exception) error;
+            else if (error instanceof Error)
+                throw (Error) error;
+        }
+
+        private void closeFile() {
+            if (error != null)
+                return;
+
+            try {
+                fileFormat.close();
+            }
+            catch (Exception ex) {
+                log.debug("OpenFileThread: close {} failure: ", fileFormat.getAbsolutePath(), ex);
+            }
+        }
+    }
+
+    /** Thread to copy the objects of a file into a new HDF5 file */
+    private class RepackThread extends Thread {
+        private final FileFormat         srcFile;
+        private final String             filename;
+        private final long[]             chunkSize;
+        private final int                gzipLevel;
+        private final Display            display;
+
+        private volatile H5Repacker      repacker = null;
+        private volatile boolean         isCancelled = false;
+        private volatile Throwable       error = null;
+
+        RepackThread(FileFormat srcFile, String filename, long[] chunkSize, int gzipLevel, Display display) {
+            super("Repack " + srcFile.getName());
+            setDaemon(true);
+
+            this.srcFile = srcFile;
+            this.filename = filename;
+            this.chunkSize = chunkSize;
+            this.gzipLevel = gzipLevel;
+            this.display = display;
+        }
+
+        @Override
+        public void run() {
+            FileFormat dstFile = null;
+            try {
+                dstFile = FileFormat.getFileFormat(FileFormat.FILE_TYPE_HDF5).createInstance(filename, FileFormat.WRITE);
+                dstFile.open();
+
+                H5Repacker h5Repacker = new H5Repacker((H5File) srcFile);
+                h5Repacker.setChunkSize(chunkSize);
+                h5Repacker.setGzipLevel(gzipLevel);
+
+                repacker = h5Repacker;
+                if (isCancelled)
+                    h5Repacker.cancel();
+                h5Repacker.repack((H5File) dstFile);
+            }
+            catch (Throwable err) {
+                log.debug("RepackThread: copy {} failure: ", srcFile.getAbsolutePath(), err);
+                error = err;
+            }
+            finally {
+                if (dstFile != null) {
+                    try {
+                        dstFile.close();
+                    }
+                    catch (Exception ex) {
+                        log.debug("RepackThread: close {} failure: ", filename, ex);
+                    }
+                }
+            }
+
+            if (!display.isDisposed())
+                display.wake();
+        }
+
+        /** Returns the name and progress of the object being copied. */
+        String getMessage() {
+            H5Repacker h5Repacker = repacker;
+            if (h5Repacker == null)
+                return "Copying " + srcFile.getName() + " ...";
+
+            double progress = h5Repacker.getProgress();
+            if (progress < 0)
+                return "Copying " + h5Repacker.getCurrentName() + " ...";
+
+            return "Copying " + h5Repacker.getCurrentName() + " ... " + (int) (progress * 100) + "%";
+        }
+
+        void cancel() {
+            isCancelled = true;
+            H5Repacker h5Repacker = repacker;
+            if (h5Repacker != null)
+                h5Repacker.cancel();
+        }
+
+        boolean isCancelled() {
+            return isCancelled;
+        }
+
+        Throwable getError() {
+            return error;
+        }
+    }
+
     private class LoadDataThread extends Thread {
         LoadDataThread() {
             super();
@@ -197,6 +197,18 @@ public class ViewProperties extends PreferenceStore {
     /** flag to indicate if data is 1-based index */
     private static boolean           isIndexBase1           = false;
 
+    /** flag to indicate if the members of the groups of HDF5 files are loaded on demand */
+    private static boolean           isLazyHierarchy        = true;
+
+    /** flag to indicate if the structure of HDF5 files opened read-only is indexed on disk */
+    private static boolean           isStructureIndexed     = false;
+
+    /** the memory budget in MB for the data tiles cached by a table view of a large dataset */
+    private static int               tableCacheSize         = 64;
+
+    /** the memory budget in MB for the slices read ahead when stepping through the frames of a dataset */
+    private static int               slicePrefetchSize      = 64;
+
     /**
      * Current Java applications such as HDFView cannot handle files with a large
      * number of objects such as 1,000,000 objects. max_members defines the maximum
@@ -271,6 +283,10 @@ public class ViewProperties extends PreferenceStore {
         setDefault("enum.conversion", false);
         setDefault("regref.showvalues", false);
         setDefault("index.base1", false);
+        setDefault("h5file.lazyHierarchy", true);
+        setDefault("h5file.structureIndex", false);
+        setDefault("table.cacheSize", 64);
+        setDefault("data.slicePrefetchSize", 64);
         setDefault("image.origin", ORIGIN_UL);
         setDefault("h5file.indexType", "H5_INDEX_NAME");
         setDefault("h5file.indexOrder", "H5_ITER_INC");
@@ -1259,6 +1275,9 @@ public class ViewProperties extends PreferenceStore {
 
         setIndexBase1(getBoolean("index.base1"));
 
+        setLazyHierarchy(getBoolean("h5file.lazyHierarchy"));
+        setStructureIndexed(getBoolean("h5file.structureIndex"));
+
         propVal = getString("data.delimiter");
         if (!isDefault("data.delimiter"))
             setDataDelimiter(propVal);
@@ -1297,6 +1316,10 @@ public class ViewProperties extends PreferenceStore {
 
         setMaxMembers(getInt("max.members"));
 
+        setTableCacheSize(getInt("table.cacheSize"));
+
+        setSlicePrefetchSize(getInt("data.slicePrefetchSize"));
+
         // load the most recent file list from the property file
         log.trace("load user properties: most recent file list with {}", getWorkDir());
         String theFile = null;
@@ -1395,6 +1418,10 @@ public class ViewProperties extends PreferenceStore {
 
         setValue("max.members", maxMembers);
 
+        setValue("table.cacheSize", tableCacheSize);
+
+        setValue("data.slicePrefetchSize", slicePrefetchSize);
+
         if (isAutoContrast)
             setValue("image.contrast", "auto");
         else
@@ -1415,6 +1442,8 @@ public class ViewProperties extends PreferenceStore {
         setValue("enum.conversion", convertEnum);
         setValue("regref.showvalues", showRegRefValues);
         setValue("index.base1", isIndexBase1);
+        setValue("h5file.lazyHierarchy", isLazyHierarchy);
+        setValue("h5file.structureIndex", isStructureIndexed);
 
         // save the list of most recent files
         log.trace("save user properties: most recent files");
@@ -1927,6 +1956,102 @@ public class ViewProperties extends PreferenceStore {
         ViewProperties.isIndexBase1 = b;
     }
 
+    /**
+     * Returns true if the members of the groups of HDF5 files are loaded when the
+     * groups are first expanded instead of when the files are opened.
+     *
+     * @return true if the file hierarchy is loaded on demand; otherwise, returns false.
+     */
+    public static boolean isLazyHierarchy() {
+        return isLazyHierarchy;
+    }
+
+    /**
+     * Set the flag to indicate if the members of the groups of HDF5 files are
+     * loaded on demand.
+     *
+     * @param b
+     *            the flag to indicate if the file hierarchy is loaded on demand.
+     */
+    public static void setLazyHierarchy(boolean b) {
+        ViewProperties.isLazyHierarchy = b;
+    }
+
+    /**
+     * Returns true if the structure of HDF5 files opened read-only is kept in an
+     * index on disk, so that the files open faster the next time.
+     *
+     * @return true if the file structure is indexed; otherwise, returns false.
+     */
+    public static boolean isStructureIndexed() {
+        return isStructureIndexed;
+    }
+
+    /**
+     * Set the flag to indicate if the structure of HDF5 files opened read-only is
+     * indexed on disk.
+     *
+     * @param b
+     *            the flag to indicate if the file structure is indexed.
+     */
+    public static void setStructureIndexed(boolean b) {
+        ViewProperties.isStructureIndexed = b;
+    }
+
+    /**
+     * Returns the directory of the structure index files, in the user's home
+     * directory.
+     *
+     * @return the path of the structure index directory.
+     */
+    public static String getStructureIndexDir() {
+        return System.getProperty("user.home") + File.separator + USER_PROPERTY_FILE + ".index";
+    }
+
+    /**
+     * Returns the memory budget in MB for the data tiles cached by a table view.
+     * Datasets whose selection is larger than this budget are read lazily, one
+     * tile at a time, as the table is scrolled.
+     *
+     * @return the table cache size in MB.
+     */
+    public static int getTableCacheSize() {
+        return tableCacheSize;
+    }
+
+    /**
+     * Sets the memory budget in MB for the data tiles cached by a table view.
+     *
+     * @param size
+     *            the table cache size in MB.
+     */
+    public static void setTableCacheSize(int size) {
+        if (size > 0)
+            tableCacheSize = size;
+    }
+
+    /**
+     * Returns the memory budget in MB for the slices that an image or table view
+     * reads ahead of the current frame, so that stepping to the next or previous
+     * frame of a dataset does not wait for the file.
+     *
+     * @return the slice prefetch size in MB, or 0 if the slices are not read ahead.
+     */
+    public static int getSlicePrefetchSize() {
+        return slicePrefetchSize;
+    }
+
+    /**
+     * Sets the memory budget in MB for the slices read ahead of the current frame.
+     *
+     * @param size
+     *            the slice prefetch size in MB, or 0 to read no slices ahead.
+     */
+    public static void setSlicePrefetchSize(int size) {
+        if (size >= 0)
+            slicePrefetchSize = size;
+    }
+
     /**
      * Sets the list of most recently accessed files.
      *
@@ -25,7 +25,10 @@ import java.awt.image.ImageFilter;
 import java.awt.image.ImageProducer;
 import java.awt.image.IndexColorModel;
 import java.awt.image.WritableRaster;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.StringTokenizer;
 import java.util.Vector;
 
@@ -82,6 +85,20 @@ import hdf.view.ImageView.DefaultImageView.Rotate90Filter;
  * @version 2.4 3/26/2016
  */
 public class DataOptionDialog extends Dialog {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DataOptionDialog.class);
+
+    /** The number of preview images kept for the datasets opened last */
+    private static final int    PREVIEW_CACHE_SIZE = 16;
+
+    /** The preview images of the datasets opened last, by dataset and rendering */
+    private static final Map<String, BufferedImage> previewCache = new LinkedHashMap<String, BufferedImage>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+            return size() > PREVIEW_CACHE_SIZE;
+        }
+    };
 
     private Shell               shell;
 
@@ -197,10 +214,11 @@ public class DataOptionDialog extends Dialog {
 
         rank = dataObject.getRank();
         dims = dataObject.getDims();
-        selected = dataObject.getSelectedDims();
-        start = dataObject.getStartDims();
-        selectedIndex = dataObject.getSelectedIndex();
-        stride = dataObject.getStride();
+        // the selection is edited in copies, which are set to the dataset by setSelection()
+        selected = copyOf(dataObject.getSelectedDims());
+        start = copyOf(dataObject.getStartDims());
+        selectedIndex = dataObject.getSelectedIndex().clone();
+        stride = copyOf(dataObject.getStride());
         currentIndex = new int[Math.min(3, rank)];
 
         maxLabels = new Label[3];
@@ -240,6 +258,10 @@ public class DataOptionDialog extends Dialog {
         okButton.addSelectionListener(new SelectionAdapter() {
             @Override
             public void widgetSelected(SelectionEvent e) {
+                // wait for the preview, which reads the dataset
+                if (navigator != null)
+                    navigator.stopPreview();
+
                 // set palette for image view
                 if(imageButton != null) {
                     if ((dataObject instanceof ScalarDS) && imageButton.getSelection()) {
@@ -339,6 +361,9 @@ public class DataOptionDialog extends Dialog {
         shell.addDisposeListener(new DisposeListener() {
             @Override
             public void widgetDisposed(DisposeEvent e) {
+                if (navigator != null)
+                    navigator.stopPreview();
+
                 if (curFont != null) curFont.dispose();
             }
         });
@@ -646,6 +671,14 @@ public class DataOptionDialog extends Dialog {
             selected[selectedIndex[2]] = 3;
         }
 
+        // set the selection to the dataset object
+        if (rank > 0) {
+            System.arraycopy(start, 0, dataObject.getStartDims(), 0, rank);
+            System.arraycopy(selected, 0, dataObject.getSelectedDims(), 0, rank);
+            System.arraycopy(stride, 0, dataObject.getStride(), 0, rank);
+        }
+        System.arraycopy(selectedIndex, 0, dataObject.getSelectedIndex(), 0, selectedIndex.length);
+
         // clear the old data
         dataObject.clearData();
 
@@ -654,6 +687,10 @@ public class DataOptionDialog extends Dialog {
         return retVal;
     }
 
+    private static long[] copyOf(long[] values) {
+        return (values == null) ? null : values.clone();
+    }
+
     private void setBitmask() {
         boolean isAll = true;
         boolean isNothing = true;
@@ -1571,6 +1608,12 @@ public class DataOptionDialog extends Dialog {
         private Image             previewImage     = null;
         private String            selStr;
 
+        /** The preview image converted for display */
+        private org.eclipse.swt.graphics.Image previewSWTImage = null;
+
+        /** Generates the preview image in the background, or null */
+        private PreviewLoader     previewLoader    = null;
+
         private PreviewNavigator(Composite parent, int style, int w, int h) {
             super(parent, style);
 
@@ -1596,22 +1639,19 @@ public class DataOptionDialog extends Dialog {
 
             selStr = "";
 
-            try {
-                previewImage = createPreviewImage();
-
-                String origStr = ViewProperties.getImageOrigin();
-                if (ViewProperties.ORIGIN_LL.equalsIgnoreCase(origStr))
-                    flip(DefaultImageView.FLIP_VERTICAL);
-                else if (ViewProperties.ORIGIN_UR.equalsIgnoreCase(origStr))
-                    flip(DefaultImageView.FLIP_HORIZONTAL);
-                else if (ViewProperties.ORIGIN_LR.equalsIgnoreCase(origStr)) {
-                    rotate(DefaultImageView.ROTATE_CW_90);
-                    rotate(DefaultImageView.ROTATE_CW_90);
+            loadPreviewImage();
+
+            this.addDisposeListener(new DisposeListener() {
+                @Override
+                public void widgetDisposed(DisposeEvent e) {
+                    stopPreview();
+
+                    if (previewSWTImage != null) {
+                        previewSWTImage.dispose();
+                        previewSWTImage = null;
+                    }
                 }
-            }
-            catch (Exception ex) {
-                ex.printStackTrace();
-            }
+            });
 
             this.addMouseListener(new MouseListener() {
                 @Override
@@ -1669,8 +1709,10 @@ public class DataOptionDialog extends Dialog {
 
                     gc.setForeground(Display.getCurrent().getSystemColor(SWT.COLOR_BLUE));
 
-                    if (previewImage != null) {
-                        gc.drawImage(convertBufferedImageToSWTImage((BufferedImage) previewImage), 0, 0);
+                    if (previewSWTImage != null) {
+                        // a coarse preview is stretched to the size of the final one
+                        org.eclipse.swt.graphics.Rectangle imageBounds = previewSWTImage.getBounds();
+                        gc.drawImage(previewSWTImage, 0, 0, imageBounds.width, imageBounds.height, 0, 0, x, y);
                     }
                     else {
                         gc.fillRectangle(0, 0, x, y);
@@ -1691,120 +1733,274 @@ public class DataOptionDialog extends Dialog {
             });
         }
 
-        private Image createPreviewImage ( ) throws Exception {
+        /**
+         * Starts to generate the preview image of the first frame of the dataset
+         * in the background, from the cache if it was generated before. A coarse
+         * preview is shown first if the dataset is large. The preview being
+         * generated, if any, is dropped.
+         */
+        private void loadPreviewImage() {
+            if (previewLoader != null) {
+                previewLoader.cancel();
+                previewLoader = null;
+            }
+
             if ((rank <= 1) || !(dataObject instanceof ScalarDS)) {
-                return null;
+                return;
             }
 
-            Image preImage = null;
             ScalarDS sd = (ScalarDS) dataObject;
 
             if (sd.getDatatype().isText()) {
-                return null;
-            }
-
-            // backup the selection
-            long[] strideBackup = new long[rank];
-            long[] selectedBackup = new long[rank];
-            long[] startBackup = new long[rank];
-            int[] selectedIndexBackup = new int[3];
-            System.arraycopy(stride, 0, strideBackup, 0, rank);
-            System.arraycopy(selected, 0, selectedBackup, 0, rank);
-            System.arraycopy(start, 0, startBackup, 0, rank);
-            System.arraycopy(selectedIndex, 0, selectedIndexBackup, 0, 3);
-
-            // set the selection for preview
-            for (int i = 0; i < rank; i++) {
-                start[i] = 0;
-                stride[i] = 1;
-                selected[i] = 1;
+                return;
             }
 
+            int[] indices = { selectedIndex[0], selectedIndex[1], selectedIndex[2] };
             if (choices != null) {
                 try {
-                    selectedIndex[0] = choices[0].getSelectionIndex();
-                    selectedIndex[1] = choices[1].getSelectionIndex();
+                    indices[0] = choices[0].getSelectionIndex();
+                    indices[1] = choices[1].getSelectionIndex();
                 } catch (Exception ex) {
                 }
             }
+
             long steps = (long) Math.ceil(r);
-            selected[selectedIndex[0]] = (dims[selectedIndex[0]] / steps);
-            selected[selectedIndex[1]] = (dims[selectedIndex[1]] / steps);
-            stride[selectedIndex[0]] = stride[selectedIndex[1]] = steps;
+            long h = Math.max(1, dims[indices[0]] / steps);
+            long w = Math.max(1, dims[indices[1]] / steps);
+
+            // update the ratio of preview image size to the real dataset
+            y = (int) h;
+            x = (int) w;
+            r = Math.min((double) dims[indices[0]] / (double) h, (double) dims[indices[1]] / (double) w);
+
+            boolean isTransposed = (((isH5 || (rank > 2)) && (indices[0] > indices[1]))
+                    || (!isH5 && !sd.isDefaultImageOrder() && (indices[1] > indices[0])));
+
+            previewLoader = new PreviewLoader(sd, indices, steps, isTransposed);
+            previewLoader.load();
+        }
 
-            if (selected[selectedIndex[0]] == 0) {
-                selected[selectedIndex[0]] = 1;
+        /**
+         * Stops generating the preview image, and waits for the dataset to be
+         * read, so that its selection can be changed.
+         */
+        private void stopPreview() {
+            PreviewLoader loader = previewLoader;
+            previewLoader = null;
+            if (loader == null)
+                return;
+
+            loader.cancel();
+            try {
+                loader.join();
             }
-            if (selected[selectedIndex[1]] == 0) {
-                selected[selectedIndex[1]] = 1;
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
             }
+        }
+
+        /**
+         * Displays a preview image, with the orientation of the image origin.
+         */
+        private void setPreviewImage(BufferedImage image) {
+            previewImage = image;
 
-            if (isTrueColorImage && (start.length > 2)) {
-                start[selectedIndex[2]] = 0;
-                selected[selectedIndex[2]] = 3;
-                stride[selectedIndex[2]] = 1;
+            String origStr = ViewProperties.getImageOrigin();
+            if (ViewProperties.ORIGIN_LL.equalsIgnoreCase(origStr))
+                flip(DefaultImageView.FLIP_VERTICAL);
+            else if (ViewProperties.ORIGIN_UR.equalsIgnoreCase(origStr))
+                flip(DefaultImageView.FLIP_HORIZONTAL);
+            else if (ViewProperties.ORIGIN_LR.equalsIgnoreCase(origStr)) {
+                rotate(DefaultImageView.ROTATE_CW_90);
+                rotate(DefaultImageView.ROTATE_CW_90);
             }
 
-            // update the ratio of preview image size to the real dataset
-            y = (int) selected[selectedIndex[0]];
-            x = (int) selected[selectedIndex[1]];
-            r = Math.min((double) dims[selectedIndex[0]]
-                    / (double) selected[selectedIndex[0]],
-                    (double) dims[selectedIndex[1]]
-                            / (double) selected[selectedIndex[1]]);
+            if (previewSWTImage != null)
+                previewSWTImage.dispose();
+            previewSWTImage = convertBufferedImageToSWTImage((BufferedImage) previewImage);
 
-            try {
-                Object data = sd.read();
-                int h = (int)sd.getHeight();
-                int w = (int)sd.getWidth();
+            redraw();
+        }
+
+        /**
+         * PreviewLoader reads the first frame of the dataset with a large stride
+         * and converts it to the preview image. The dataset is read with
+         * readBlock(); if the dataset reads blocks without changing its selection,
+         * the preview is generated on a background thread, and a coarse preview
+         * is read first if the dataset is large. Otherwise it is generated on the
+         * UI thread.
+         */
+        private class PreviewLoader extends Thread {
+            /** The stride of the coarse preview is this multiple of the final stride */
+            private static final int  COARSE_FACTOR     = 4;
+
+            /** The smallest size of the coarse preview, or no coarse preview is read */
+            private static final long COARSE_MIN_SIZE   = 16;
+
+            private final ScalarDS    sd;
+            private final int[]       indices;
+            private final long        steps;
+            private final boolean     isTransposed;
+            private final Display     display;
+            private final boolean     isBackground;
+
+            private volatile boolean  isCancelled = false;
+
+            private PreviewLoader(ScalarDS sd, int[] indices, long steps, boolean isTransposed) {
+                super("Preview " + sd.getName());
+                setDaemon(true);
+
+                this.sd = sd;
+                this.indices = indices;
+                this.steps = steps;
+                this.isTransposed = isTransposed;
+                this.display = PreviewNavigator.this.getDisplay();
+                this.isBackground = sd.hasDirectBlockIO();
+            }
+
+            /** Generates the preview, in the background if the dataset allows it. */
+            private void load() {
+                if (isBackground)
+                    start();
+                else
+                    run();
+            }
+
+            private void cancel() {
+                isCancelled = true;
+            }
+
+            @Override
+            public void run() {
+                try {
+                    byte[][] palette = isTrueColorImage ? null : sd.getPalette();
+                    if (!isTrueColorImage && (palette == null))
+                        palette = Tools.createGrayPalette();
+
+                    String key = getKey(palette);
+                    BufferedImage image;
+                    synchronized (previewCache) {
+                        image = previewCache.get(key);
+                    }
+
+                    if (image == null) {
+                        long coarseSteps = steps * COARSE_FACTOR;
+                        if (isBackground && (steps > 1) && (Math.min(dims[indices[0]], dims[indices[1]]) / coarseSteps >= COARSE_MIN_SIZE))
+                            show(createPreviewImage(coarseSteps, palette));
+
+                        if (isCancelled)
+                            return;
+
+                        image = createPreviewImage(steps, palette);
+                        if (image == null)
+                            return;
+
+                        synchronized (previewCache) {
+                            previewCache.put(key, image);
+                        }
+                    }
+
+                    show(image);
+                }
+                catch (Exception ex) {
+                    log.debug("PreviewLoader: {} preview failure: ", sd.getName(), ex);
+                }
+            }
+
+            /** Displays a preview image on the UI thread, unless the preview was dropped. */
+            private void show(final BufferedImage image) {
+                if (isCancelled || (image == null) || display.isDisposed())
+                    return;
+
+                if (!isBackground) {
+                    setPreviewImage(image);
+                    return;
+                }
+
+                display.asyncExec(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!isCancelled && !PreviewNavigator.this.isDisposed())
+                            setPreviewImage(image);
+                    }
+                });
+            }
+
+            /**
+             * Returns the key of the preview in the cache, which identifies the
+             * dataset and the version of its file, and the way it is rendered.
+             */
+            private String getKey(byte[][] palette) {
+                FileFormat file = sd.getFileFormat();
+                StringBuilder sb = new StringBuilder(file.getAbsolutePath());
+                sb.append('|').append(file.lastModified()).append('|').append(sd.getFullName());
+
+                long[] oid = sd.getOID();
+                if (oid != null)
+                    sb.append('@').append(Arrays.toString(oid));
+
+                sb.append('|').append(indices[0]).append(',').append(indices[1]).append(',').append(steps);
+                if (isTrueColorImage)
+                    sb.append("|rgb").append(indices[2]).append(',').append(sd.getInterlace());
+                else
+                    sb.append("|pal").append(Arrays.deepHashCode(palette));
+
+                sb.append('|').append(Arrays.toString(sd.getImageDataRange()));
+                sb.append('|').append(sd.getFilteredImageValues());
+
+                return sb.toString();
+            }
+
+            /**
+             * Reads the first frame of the dataset with the given stride along the
+             * dimensions of the image, and converts it to an image.
+             */
+            private BufferedImage createPreviewImage(long blockSteps, byte[][] palette) throws Exception {
+                long[] blockStart = new long[rank];
+                long[] blockStride = new long[rank];
+                long[] blockCount = new long[rank];
+                Arrays.fill(blockStride, 1);
+                Arrays.fill(blockCount, 1);
+
+                blockCount[indices[0]] = Math.max(1, dims[indices[0]] / blockSteps);
+                blockCount[indices[1]] = Math.max(1, dims[indices[1]] / blockSteps);
+                blockStride[indices[0]] = blockStride[indices[1]] = blockSteps;
+
+                if (isTrueColorImage && (rank > 2)) {
+                    blockCount[indices[2]] = 3;
+                }
+
+                if (isCancelled)
+                    return null;
+                Object data = sd.readBlock(blockStart, blockStride, blockCount, null);
+
+                int h = (int) blockCount[indices[0]];
+                int w = (int) blockCount[indices[1]];
 
                 byte[] bData = Tools.getBytes(data, sd.getImageDataRange(), w, h, false, sd.getFilteredImageValues(), null);
 
+                Image preImage;
                 if (isTrueColorImage) {
                     boolean isPlaneInterlace = (sd.getInterlace() == ScalarDS.INTERLACE_PLANE);
-                    preImage = Tools.createTrueColorImage(bData,
-                            isPlaneInterlace, w, h);
+                    preImage = Tools.createTrueColorImage(bData, isPlaneInterlace, w, h);
                 }
                 else {
-                    byte[][] imagePalette = sd.getPalette();
-                    if (imagePalette == null) {
-                        imagePalette = Tools.createGrayPalette();
-                    }
-
-                    if ((isH5 || (rank > 2))
-                            && (selectedIndex[0] > selectedIndex[1])) {
-                        // transpose data
-                        int n = bData.length;
-                        byte[] bData2 = new byte[n];
-                        for (int i = 0; i < h; i++) {
-                            for (int j = 0; j < w; j++) {
-                                bData[i * w + j] = bData2[j * h + i];
+                    if (isTransposed) {
+                        // the rows of the image are the columns of the data read
+                        byte[] bData2 = new byte[bData.length];
+                        for (int j = 0, n = 0; j < w; j++) {
+                            for (int i = 0; i < h; i++) {
+                                bData2[i * w + j] = bData[n++];
                             }
                         }
+                        bData = bData2;
                     }
-                    if (!isH5 && !sd.isDefaultImageOrder() && (selectedIndex[1] > selectedIndex[0])) {
-                        // transpose data for hdf4 images where selectedIndex[1]
-                        // > selectedIndex[0]
-                        int n = bData.length;
-                        byte[] bData2 = new byte[n];
-                        for (int i = 0; i < h; i++) {
-                            for (int j = 0; j < w; j++) {
-                                bData[i * w + j] = bData2[j * h + i];
-                            }
-                        }
-                    }
-                    preImage = Tools.createIndexedImage(null, bData, imagePalette, w, h);
+
+                    preImage = Tools.createIndexedImage(null, bData, palette, w, h);
                 }
-            }
-            finally {
-                // set back the original selection
-                System.arraycopy(strideBackup, 0, stride, 0, rank);
-                System.arraycopy(selectedBackup, 0, selected, 0, rank);
-                System.arraycopy(startBackup, 0, start, 0, rank);
-                System.arraycopy(selectedIndexBackup, 0, selectedIndex, 0, 3);
-            }
 
-            return preImage;
+                return (preImage == null) ? null : Tools.toBufferedImage(preImage);
+            }
         }
 
         private void updateSelection (int x0, int y0, int w, int h) {
@@ -1858,12 +2054,14 @@ public class DataOptionDialog extends Dialog {
 
             selectedArea.setSize(0, 0);
 
-            try {
-                previewImage = createPreviewImage();
-            }
-            catch (Exception ex) {
+            previewImage = null;
+            if (previewSWTImage != null) {
+                previewSWTImage.dispose();
+                previewSWTImage = null;
             }
 
+            loadPreviewImage();
+
             this.redraw();
         }
 
@@ -0,0 +1,150 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the files COPYING and Copyright.html. *
+ * COPYING can be found at the root of the source code distribution tree.    *
+ * Or, see https://support.hdfgroup.org/products/licenses.html               *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.view.dialog;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Dialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+
+import hdf.view.ViewProperties;
+
+/**
+ * ProgressDialog shows the progress of a long running task executed on a
+ * worker thread and lets the user cancel the task.
+ * <p>
+ * Unlike the other dialogs, open() returns immediately. The caller keeps
+ * dispatching events while the task runs, updates the dialog with
+ * setMessage() and polls isCancelled(), and closes the dialog when the task
+ * ends.
+ */
+public class ProgressDialog extends Dialog {
+    private Shell           shell;
+    private Label           messageLabel;
+    private Font            curFont;
+    private volatile boolean isCancelled = false;
+
+    /**
+     * Creates a progress dialog.
+     *
+     * @param parent
+     *            the parent shell of the dialog.
+     * @param title
+     *            the title of the dialog.
+     */
+    public ProgressDialog(Shell parent, String title) {
+        super(parent, SWT.APPLICATION_MODAL);
+        setText(title);
+
+        try {
+            curFont = new Font(
+                    Display.getCurrent(),
+                    ViewProperties.getFontType(),
+                    ViewProperties.getFontSize(),
+                    SWT.NORMAL);
+        }
+        catch (Exception ex) {
+            curFont = null;
+        }
+    }
+
+    /**
+     * Shows the dialog. The method returns immediately.
+     *
+     * @param message
+     *            the initial message of the dialog.
+     */
+    public void open(String message) {
+        Shell parent = getParent();
+        shell = new Shell(parent, SWT.TITLE | SWT.BORDER | SWT.APPLICATION_MODAL);
+        shell.setFont(curFont);
+        shell.setText(getText());
+        shell.setLayout(new GridLayout(1, true));
+
+        messageLabel = new Label(shell, SWT.NONE);
+        messageLabel.setFont(curFont);
+        messageLabel.setText(message);
+        GridData data = new GridData(SWT.FILL, SWT.FILL, true, false);
+        data.widthHint = 400;
+        messageLabel.setLayoutData(data);
+
+        Button cancelButton = new Button(shell, SWT.PUSH);
+        cancelButton.setFont(curFont);
+        cancelButton.setText("   &Cancel   ");
+        cancelButton.setLayoutData(new GridData(SWT.CENTER, SWT.FILL, false, false));
+        cancelButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                isCancelled = true;
+                messageLabel.setText("Cancelling...");
+            }
+        });
+
+        shell.addDisposeListener(new DisposeListener() {
+            @Override
+            public void widgetDisposed(DisposeEvent e) {
+                if (curFont != null) curFont.dispose();
+            }
+        });
+
+        shell.pack();
+
+        Rectangle parentBounds = parent.getBounds();
+        Point shellSize = shell.getSize();
+        shell.setLocation((parentBounds.x + (parentBounds.width / 2)) - (shellSize.x / 2),
+                          (parentBounds.y + (parentBounds.height / 2)) - (shellSize.y / 2));
+
+        shell.open();
+    }
+
+    /**
+     * Updates the message of the dialog.
+     *
+     * @param message
+     *            the new message.
+     */
+    public void setMessage(String message) {
+        if ((messageLabel != null) && !messageLabel.isDisposed() && !isCancelled)
+            messageLabel.setText(message);
+    }
+
+    /**
+     * Returns true if the user cancelled the task.
+     *
+     * @return true if the Cancel button was pressed.
+     */
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    /**
+     * Closes the dialog.
+     */
+    public void close() {
+        if ((shell != null) && !shell.isDisposed())
+            shell.dispose();
+    }
+}
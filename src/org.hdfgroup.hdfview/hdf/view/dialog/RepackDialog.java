@@ -0,0 +1,239 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the files COPYING and Copyright.html. *
+ * COPYING can be found at the root of the source code distribution tree.    *
+ * Or, see https://support.hdfgroup.org/products/licenses.html               *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.view.dialog;
+
+import java.util.StringTokenizer;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.Font;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.Rectangle;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Dialog;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+
+import hdf.view.Tools;
+import hdf.view.ViewProperties;
+
+/**
+ * RepackDialog asks how the datasets are copied when a file is saved as a new
+ * file: unchanged, or repacked with a new chunk size and compression level.
+ */
+public class RepackDialog extends Dialog {
+    private Shell           shell;
+    private Font            curFont;
+
+    private Button          repackButton;
+    private Text            chunkField;
+    private Combo           gzipChoice;
+
+    private boolean         isConfirmed = false;
+    private boolean         isRepack = false;
+    private long[]          chunkSize = null;
+    private int             gzipLevel = 0;
+
+    /**
+     * Creates a repack dialog.
+     *
+     * @param parent
+     *            the parent shell of the dialog.
+     */
+    public RepackDialog(Shell parent) {
+        super(parent, SWT.APPLICATION_MODAL);
+        setText("Save As");
+
+        try {
+            curFont = new Font(
+                    Display.getCurrent(),
+                    ViewProperties.getFontType(),
+                    ViewProperties.getFontSize(),
+                    SWT.NORMAL);
+        }
+        catch (Exception ex) {
+            curFont = null;
+        }
+    }
+
+    /**
+     * Opens the dialog and waits until it is closed.
+     *
+     * @return true if the user pressed OK; false if the user cancelled.
+     */
+    public boolean open() {
+        Shell parent = getParent();
+        shell = new Shell(parent, SWT.TITLE | SWT.BORDER | SWT.APPLICATION_MODAL);
+        shell.setFont(curFont);
+        shell.setText(getText());
+        shell.setLayout(new GridLayout(2, false));
+
+        Button copyButton = new Button(shell, SWT.RADIO);
+        copyButton.setFont(curFont);
+        copyButton.setText("Copy the datasets unchanged");
+        copyButton.setSelection(true);
+        copyButton.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, false, 2, 1));
+
+        repackButton = new Button(shell, SWT.RADIO);
+        repackButton.setFont(curFont);
+        repackButton.setText("Repack the datasets of numbers");
+        repackButton.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, false, 2, 1));
+
+        Label label = new Label(shell, SWT.NONE);
+        label.setFont(curFont);
+        label.setText("Chunk size (e.g. 64 x 64, empty to keep): ");
+
+        chunkField = new Text(shell, SWT.SINGLE | SWT.BORDER);
+        chunkField.setFont(curFont);
+        GridData fieldData = new GridData(SWT.FILL, SWT.FILL, true, false);
+        fieldData.minimumWidth = 150;
+        chunkField.setLayoutData(fieldData);
+        chunkField.setEnabled(false);
+
+        label = new Label(shell, SWT.NONE);
+        label.setFont(curFont);
+        label.setText("GZIP compression level: ");
+
+        gzipChoice = new Combo(shell, SWT.DROP_DOWN | SWT.READ_ONLY);
+        gzipChoice.setFont(curFont);
+        for (int i = 0; i <= 9; i++)
+            gzipChoice.add(String.valueOf(i));
+        gzipChoice.select(6);
+        gzipChoice.setEnabled(false);
+
+        repackButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                chunkField.setEnabled(repackButton.getSelection());
+                gzipChoice.setEnabled(repackButton.getSelection());
+            }
+        });
+
+        Composite buttonComposite = new Composite(shell, SWT.NONE);
+        buttonComposite.setLayout(new GridLayout(2, true));
+        buttonComposite.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, false, 2, 1));
+
+        Button okButton = new Button(buttonComposite, SWT.PUSH);
+        okButton.setFont(curFont);
+        okButton.setText("   &OK   ");
+        okButton.setLayoutData(new GridData(SWT.END, SWT.FILL, true, false));
+        okButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                if (setOptions())
+                    shell.dispose();
+            }
+        });
+
+        Button cancelButton = new Button(buttonComposite, SWT.PUSH);
+        cancelButton.setFont(curFont);
+        cancelButton.setText(" &Cancel ");
+        cancelButton.setLayoutData(new GridData(SWT.BEGINNING, SWT.FILL, true, false));
+        cancelButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                isConfirmed = false;
+                shell.dispose();
+            }
+        });
+
+        shell.addDisposeListener(new DisposeListener() {
+            @Override
+            public void widgetDisposed(DisposeEvent e) {
+                if (curFont != null) curFont.dispose();
+            }
+        });
+
+        shell.pack();
+
+        Rectangle parentBounds = parent.getBounds();
+        Point shellSize = shell.getSize();
+        shell.setLocation((parentBounds.x + (parentBounds.width / 2)) - (shellSize.x / 2),
+                          (parentBounds.y + (parentBounds.height / 2)) - (shellSize.y / 2));
+
+        shell.open();
+
+        Display display = parent.getDisplay();
+        while (!shell.isDisposed()) {
+            if (!display.readAndDispatch())
+                display.sleep();
+        }
+
+        return isConfirmed;
+    }
+
+    private boolean setOptions() {
+        isRepack = repackButton.getSelection();
+        gzipLevel = gzipChoice.getSelectionIndex();
+        chunkSize = null;
+
+        String chunkStr = chunkField.getText().trim();
+        if (isRepack && (chunkStr.length() > 0)) {
+            StringTokenizer st = new StringTokenizer(chunkStr, "x, ");
+            chunkSize = new long[st.countTokens()];
+            try {
+                for (int i = 0; i < chunkSize.length; i++) {
+                    chunkSize[i] = Long.parseLong(st.nextToken());
+                    if (chunkSize[i] <= 0)
+                        throw new NumberFormatException();
+                }
+            }
+            catch (NumberFormatException ex) {
+                shell.getDisplay().beep();
+                Tools.showError(shell, "Save As", "Invalid chunk size: " + chunkStr);
+                return false;
+            }
+        }
+
+        isConfirmed = true;
+        return true;
+    }
+
+    /**
+     * Returns true if the datasets are repacked.
+     *
+     * @return true if the user chose to repack the datasets.
+     */
+    public boolean isRepack() {
+        return isRepack;
+    }
+
+    /**
+     * Returns the chunk size of the repacked datasets.
+     *
+     * @return the chunk size, or null to keep the chunk size of the datasets.
+     */
+    public long[] getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Returns the GZIP compression level of the repacked datasets.
+     *
+     * @return the compression level, from 0 (no compression) to 9.
+     */
+    public int getGzipLevel() {
+        return gzipLevel;
+    }
+}
@@ -42,7 +42,7 @@ import hdf.view.ViewProperties;
 public class UserOptionsGeneralPage extends UserOptionsDefaultPage {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(UserOptionsGeneralPage.class);
 
-    private Text UGField, workField, maxMemberField, startMemberField;
+    private Text UGField, workField, maxMemberField, startMemberField, tableCacheField, prefetchField;
 
     private Combo fontSizeChoice, fontTypeChoice, delimiterChoice, imageOriginChoice, indexBaseChoice;
 
@@ -144,6 +144,22 @@ public class UserOptionsGeneralPage extends UserOptionsDefaultPage {
         if (imageOriginChoice != null)
             ViewProperties.setImageOrigin(imageOriginChoice.getItem(imageOriginChoice.getSelectionIndex()));
 
+        if (tableCacheField != null) {
+            try {
+                ViewProperties.setTableCacheSize(Integer.parseInt(tableCacheField.getText()));
+            }
+            catch (Exception ex) {
+            }
+        }
+
+        if (prefetchField != null) {
+            try {
+                ViewProperties.setSlicePrefetchSize(Integer.parseInt(prefetchField.getText()));
+            }
+            catch (Exception ex) {
+            }
+        }
+
         if (checkReadAll != null) {
             if (checkReadAll.getSelection()) {
                 ViewProperties.setStartMembers(0);
@@ -303,6 +319,9 @@ public class UserOptionsGeneralPage extends UserOptionsDefaultPage {
             delimiterChoice.select(0);
         }
 
+        tableCacheField.setText(String.valueOf(ViewProperties.getTableCacheSize()));
+        prefetchField.setText(String.valueOf(ViewProperties.getSlicePrefetchSize()));
+
         int nMax = ViewProperties.getMaxMembers();
         checkReadAll.setSelection((nMax<=0) || (nMax==Integer.MAX_VALUE));
 
@@ -548,6 +567,22 @@ public class UserOptionsGeneralPage extends UserOptionsDefaultPage {
         delimiterChoice.setFont(curFont);
         delimiterChoice.setLayoutData(new GridData(SWT.FILL, SWT.FILL, false, false));
 
+        label = new Label(dataGroup, SWT.RIGHT);
+        label.setFont(curFont);
+        label.setText("Table Cache (MB): ");
+
+        tableCacheField = new Text(dataGroup, SWT.SINGLE | SWT.BORDER);
+        tableCacheField.setFont(curFont);
+        tableCacheField.setLayoutData(new GridData(SWT.FILL, SWT.FILL, false, false));
+
+        label = new Label(dataGroup, SWT.RIGHT);
+        label.setFont(curFont);
+        label.setText("Slice Prefetch (MB): ");
+
+        prefetchField = new Text(dataGroup, SWT.SINGLE | SWT.BORDER);
+        prefetchField.setFont(curFont);
+        prefetchField.setLayoutData(new GridData(SWT.FILL, SWT.FILL, false, false));
+
         org.eclipse.swt.widgets.Group objectsGroup = new org.eclipse.swt.widgets.Group(composite, SWT.NONE);
         objectsGroup.setLayout(new GridLayout(5, true));
         objectsGroup.setLayoutData(new GridData(SWT.FILL, SWT.FILL, false, false));
@@ -36,7 +36,7 @@ public class UserOptionsHDFPage extends UserOptionsDefaultPage {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(UserOptionsHDFPage.class);
 
     private Text fileExtField;
-    private Button checkConvertEnum, checkShowRegRefValues, helpButton;
+    private Button checkConvertEnum, checkShowRegRefValues, checkLazyHierarchy, checkStructureIndex, helpButton;
     private Button checkNativeOrder, checkDecOrder, checkIncOrder;
     private Button checkIndexName, checkIndexCreateOrder;
     private Button earlyLibVersion, early18LibVersion, early110LibVersion, earlyLateLibVersion;
@@ -136,6 +136,10 @@ public class UserOptionsHDFPage extends UserOptionsDefaultPage {
             ViewProperties.setConvertEnum(checkConvertEnum.getSelection());
         if (checkShowRegRefValues != null)
             ViewProperties.setShowRegRefValue(checkShowRegRefValues.getSelection());
+        if (checkLazyHierarchy != null)
+            ViewProperties.setLazyHierarchy(checkLazyHierarchy.getSelection());
+        if (checkStructureIndex != null)
+            ViewProperties.setStructureIndexed(checkStructureIndex.getSelection());
 
         return true;
     }
@@ -164,6 +168,8 @@ public class UserOptionsHDFPage extends UserOptionsDefaultPage {
 
         checkConvertEnum.setSelection(ViewProperties.isConvertEnum());
         checkShowRegRefValues.setSelection(ViewProperties.showRegRefValues());
+        checkLazyHierarchy.setSelection(ViewProperties.isLazyHierarchy());
+        checkStructureIndex.setSelection(ViewProperties.isStructureIndexed());
 
         indexType = ViewProperties.getIndexType();
         checkIndexName.setSelection(indexType.compareTo("H5_INDEX_NAME") == 0);
@@ -335,6 +341,16 @@ public class UserOptionsHDFPage extends UserOptionsDefaultPage {
         checkNativeOrder.setText("Native");
         checkNativeOrder.setLayoutData(new GridData(SWT.CENTER, SWT.FILL, true, false));
 
+        checkLazyHierarchy = new Button(displayIndexingGroup, SWT.CHECK);
+        checkLazyHierarchy.setFont(curFont);
+        checkLazyHierarchy.setText("Load Group Members When Expanded");
+        checkLazyHierarchy.setLayoutData(new GridData(SWT.FILL, SWT.FILL, false, false));
+
+        checkStructureIndex = new Button(displayIndexingGroup, SWT.CHECK);
+        checkStructureIndex.setFont(curFont);
+        checkStructureIndex.setText("Index the Structure of Read-Only Files");
+        checkStructureIndex.setLayoutData(new GridData(SWT.FILL, SWT.FILL, false, false));
+
         load();
         return composite;
     }
@@ -421,6 +421,36 @@ public abstract class CompoundDS extends Dataset implements CompoundDataFormat {
         return types;
     }
 
+    /**
+     * Reads the given members of the points of the current selection that
+     * satisfy a predicate, such as "temp &gt; 300 &amp;&amp; status == 2".
+     * <p>
+     * The members used by the predicate are read first, block by block, and the
+     * other members are read only for the matching points. The member selection
+     * of the dataset is not changed.
+     *
+     * @param members
+     *            the names of the members to read for the matching points, or
+     *            null to read the members currently selected.
+     * @param predicate
+     *            the predicate the points must satisfy, or null to match all the
+     *            points.
+     *
+     * @return the executed query, which holds the positions and the data of
+     *         the matching points.
+     *
+     * @throws Exception
+     *             if the predicate is not valid or the data can not be read
+     *
+     * @see hdf.object.CompoundQuery
+     */
+    public CompoundQuery query(String[] members, String predicate) throws Exception {
+        CompoundQuery query = new CompoundQuery(this, members, predicate);
+        query.execute();
+
+        return query;
+    }
+
     /**
      * @deprecated Not implemented for compound dataset.
      */
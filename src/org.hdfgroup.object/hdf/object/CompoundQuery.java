@@ -0,0 +1,665 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the files COPYING and Copyright.html. *
+ * COPYING can be found at the root of the source code distribution tree.    *
+ * Or, see https://support.hdfgroup.org/products/licenses.html               *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * CompoundQuery selects the points of a compound dataset whose members satisfy
+ * a predicate and reads a subset of the members of the matching points only.
+ * <p>
+ * The query runs in two phases over the current selection of the dataset:
+ * <ol>
+ * <li>The members used by the predicate are read block by block with
+ * {@link Dataset#blockIterator(long)}, and the predicate is evaluated on each
+ * block to build a bitmap of the matching points.
+ * <li>The projected members are read for the matching points only. Nearby
+ * matches are read together with the points between them, so that a sparse
+ * result is read with a few small hyperslab selections and a dense result
+ * with a few large ones.
+ * </ol>
+ * A predicate compares members with numbers and combines the comparisons with
+ * logical operators, for example:
+ *
+ * <pre>
+ * temp &gt; 300 &amp;&amp; status == 2
+ * (x &lt; -1.5 || x &gt; 1.5) &amp;&amp; !(flag != 0)
+ * </pre>
+ *
+ * The comparison operators are ==, !=, &lt;, &lt;=, &gt; and &gt;=, and the
+ * logical operators are &amp;&amp;, || and !. A member is referred to by its
+ * name, in double quotes if the name is not a plain identifier. Nested members
+ * may be named with "." between the names of the nesting levels. The members
+ * used by the predicate must be numbers with one value per point.
+ * <p>
+ * The member selection and the data selection of the dataset are restored when
+ * the query ends.
+ *
+ * <pre>
+ * CompoundQuery query = dataset.query(new String[] { "time", "temp" }, "temp &gt; 300 &amp;&amp; status == 2");
+ * long[] positions = query.getPositions(); // positions of the matches in the selection
+ * List&lt;Object&gt; data = query.getData(); // one array per projected member
+ * </pre>
+ *
+ * @see hdf.object.CompoundDS#query(String[], String)
+ */
+public class CompoundQuery {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CompoundQuery.class);
+
+    /** Matches that are at most this many bytes apart are read with a single selection */
+    private static final long  MERGE_GAP_BYTES = 64L * 1024;
+
+    private final CompoundDS   dataset;
+
+    /** The indices of the projected members, in the order requested */
+    private final int[]        projection;
+
+    /** The indices of the members used by the predicate, in increasing order */
+    private final int[]        predicateMembers;
+
+    private final Node         predicate;
+
+    private long[]             positions;
+    private List<Object>       data;
+    private long               pointsScanned;
+
+    /**
+     * Creates a query on the current selection of a compound dataset.
+     *
+     * @param dset
+     *            the compound dataset to query.
+     * @param members
+     *            the names of the members to read for the matching points, or
+     *            null to read the members currently selected.
+     * @param predicate
+     *            the predicate the points must satisfy, or null to match all the
+     *            points.
+     *
+     * @throws Exception
+     *             if a member does not exist or the predicate is not valid
+     */
+    public CompoundQuery(CompoundDS dset, String[] members, String predicate) throws Exception {
+        if (dset == null)
+            throw new IllegalArgumentException("dataset is null");
+
+        dataset = dset;
+        if (!dataset.isInited())
+            dataset.init();
+
+        if (members == null)
+            members = dataset.getSelectedMemberNames();
+
+        projection = new int[members.length];
+        for (int i = 0; i < members.length; i++)
+            projection[i] = findMember(members[i]);
+
+        List<Integer> used = new ArrayList<>();
+        if ((predicate == null) || (predicate.trim().length() == 0)) {
+            this.predicate = null;
+        }
+        else {
+            Parser parser = new Parser(predicate, used);
+            this.predicate = parser.parse();
+        }
+
+        predicateMembers = new int[used.size()];
+        for (int i = 0; i < predicateMembers.length; i++)
+            predicateMembers[i] = used.get(i);
+        Arrays.sort(predicateMembers);
+
+        log.trace("CompoundQuery: projection={} predicateMembers={}", projection, predicateMembers);
+    }
+
+    /**
+     * Runs the query.
+     *
+     * @throws Exception
+     *             if the data can not be read or a member used by the predicate
+     *             is not numerical
+     */
+    public void execute() throws Exception {
+        long[] count = dataset.getSelectedDims();
+        long totalPoints = 1;
+        for (int i = 0; i < count.length; i++)
+            totalPoints *= count[i];
+
+        if (totalPoints > Integer.MAX_VALUE)
+            throw new Exception("the selection has too many points to be queried: " + totalPoints);
+
+        boolean[] oldSelection = new boolean[dataset.getMemberCount()];
+        for (int i = 0; i < oldSelection.length; i++)
+            oldSelection[i] = dataset.isMemberSelected(i);
+
+        try {
+            BitSet matches = findMatches((int) totalPoints);
+            readMatches(matches);
+        }
+        finally {
+            dataset.setAllMemberSelection(false);
+            for (int i = 0; i < oldSelection.length; i++) {
+                if (oldSelection[i])
+                    dataset.selectMember(i);
+            }
+        }
+    }
+
+    /**
+     * Returns the positions of the matching points in the linearized selection
+     * of the dataset, in increasing order. For a one-dimensional dataset, the
+     * index of a matching point in the dataset is start + position * stride.
+     *
+     * @return the positions of the matching points.
+     */
+    public long[] getPositions() {
+        return positions;
+    }
+
+    /**
+     * Returns the data of the projected members for the matching points. The
+     * list holds one array per projected member, in the order the members were
+     * given, in the same form as {@link Dataset#read()} returns the member.
+     *
+     * @return the data of the projected members.
+     */
+    public List<Object> getData() {
+        return data;
+    }
+
+    /**
+     * Returns the number of points of the selection the predicate was evaluated on.
+     *
+     * @return the number of points scanned.
+     */
+    public long getPointsScanned() {
+        return pointsScanned;
+    }
+
+    /** Reads the members used by the predicate block by block and marks the matching points. */
+    private BitSet findMatches(int totalPoints) throws Exception {
+        BitSet matches = new BitSet(totalPoints);
+        pointsScanned = 0;
+
+        if (predicate == null) {
+            matches.set(0, totalPoints);
+            pointsScanned = totalPoints;
+            return matches;
+        }
+
+        Datatype[] types = dataset.getMemberTypes();
+        long rowBytes = 0;
+        dataset.setAllMemberSelection(false);
+        for (int i = 0; i < predicateMembers.length; i++) {
+            dataset.selectMember(predicateMembers[i]);
+            rowBytes += Math.max(1, types[predicateMembers[i]].getDatatypeSize());
+        }
+
+        DataBlockIterator blocks = dataset.blockIterator(Dataset.DEFAULT_BLOCK_BYTES / Math.max(1, rowBytes));
+        while (blocks.hasNext()) {
+            List<Object> columns = flatten(blocks.next());
+            int n = (int) blocks.getBlockPoints();
+
+            if (columns.size() != predicateMembers.length)
+                throw new Exception("failed to read the members of the predicate");
+
+            double[][] values = new double[dataset.getMemberCount()][];
+            for (int i = 0; i < predicateMembers.length; i++) {
+                int idx = predicateMembers[i];
+                values[idx] = toDouble(columns.get(i), types[idx].isUnsigned(), n, dataset.getMemberNames()[idx]);
+            }
+
+            boolean[] result = predicate.eval(values, n);
+            int offset = (int) blocks.getBlockOffset();
+            for (int i = 0; i < n; i++) {
+                if (result[i])
+                    matches.set(offset + i);
+            }
+
+            pointsScanned += n;
+        }
+
+        log.trace("findMatches(): {} of {} points match", matches.cardinality(), pointsScanned);
+
+        return matches;
+    }
+
+    /**
+     * Reads the projected members of the matching points. The selection is read
+     * in spans of whole rows of the slowest varying dimension; matches that are
+     * close enough are read in the same span.
+     */
+    private void readMatches(BitSet matches) throws Exception {
+        int nMatches = matches.cardinality();
+        positions = new long[nMatches];
+        data = new ArrayList<>(projection.length);
+
+        int[] sorted = projection.clone();
+        Arrays.sort(sorted);
+        int nSelected = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if ((i == 0) || (sorted[i] != sorted[i - 1]))
+                sorted[nSelected++] = sorted[i];
+        }
+        sorted = Arrays.copyOf(sorted, nSelected);
+
+        if ((nMatches == 0) || (sorted.length == 0)) {
+            for (int i = 0, p = matches.nextSetBit(0); i < nMatches; i++, p = matches.nextSetBit(p + 1))
+                positions[i] = p;
+            return;
+        }
+
+        Datatype[] types = dataset.getMemberTypes();
+        long rowBytes = 0;
+        dataset.setAllMemberSelection(false);
+        for (int i = 0; i < sorted.length; i++) {
+            dataset.selectMember(sorted[i]);
+            rowBytes += Math.max(1, types[sorted[i]].getDatatypeSize());
+        }
+
+        long[] start = dataset.getStartDims();
+        long[] stride = dataset.getStride();
+        long[] count = dataset.getSelectedDims();
+        int rank = count.length;
+
+        long[] spanStart = start.clone();
+        long[] spanStride = (stride == null) ? null : stride.clone();
+        long[] spanCount = count.clone();
+
+        // the number of points in one row of the slowest varying dimension
+        long rowPoints = 1;
+        for (int i = 1; i < rank; i++)
+            rowPoints *= count[i];
+
+        long maxGapRows = Math.max(1, MERGE_GAP_BYTES / Math.max(1, rowBytes * rowPoints));
+        long maxSpanRows = Math.max(1, Dataset.DEFAULT_BLOCK_BYTES / Math.max(1, rowBytes * rowPoints));
+
+        Object[] columns = new Object[sorted.length];
+        int[] valuesPerPoint = new int[sorted.length];
+        int nMatched = 0;
+        int nReads = 0;
+
+        int p = matches.nextSetBit(0);
+        while (p >= 0) {
+            long firstRow = p / rowPoints;
+            long lastRow = firstRow;
+
+            int next = matches.nextSetBit((int) ((lastRow + 1) * rowPoints));
+            while ((next >= 0) && (next / rowPoints - lastRow <= maxGapRows) && (next / rowPoints - firstRow < maxSpanRows)) {
+                lastRow = next / rowPoints;
+                next = matches.nextSetBit((int) ((lastRow + 1) * rowPoints));
+            }
+
+            spanStart[0] = start[0] + firstRow * ((stride == null) ? 1 : stride[0]);
+            spanCount[0] = lastRow - firstRow + 1;
+            List<Object> spanData = flatten(dataset.readBlock(spanStart, spanStride, spanCount, null));
+            nReads++;
+
+            if (spanData.size() != sorted.length)
+                throw new Exception("failed to read the projected members");
+
+            long spanFirst = firstRow * rowPoints;
+            long spanPoints = spanCount[0] * rowPoints;
+            for (int i = 0; i < sorted.length; i++) {
+                Object values = spanData.get(i);
+                if (columns[i] == null) {
+                    valuesPerPoint[i] = (int) (Array.getLength(values) / spanPoints);
+                    long length = (long) nMatches * valuesPerPoint[i];
+                    if (length > Integer.MAX_VALUE - 8)
+                        throw new Exception("too many matching points to be read: " + nMatches);
+                    columns[i] = Array.newInstance(values.getClass().getComponentType(), (int) length);
+                }
+            }
+
+            int spanMatched = 0;
+            for (int q = p; (q >= 0) && (q < spanFirst + spanPoints); q = matches.nextSetBit(q + 1)) {
+                positions[nMatched + spanMatched] = q;
+                int srcPoint = (int) (q - spanFirst);
+                for (int i = 0; i < sorted.length; i++) {
+                    int vpp = valuesPerPoint[i];
+                    System.arraycopy(spanData.get(i), srcPoint * vpp, columns[i], (nMatched + spanMatched) * vpp, vpp);
+                }
+                spanMatched++;
+            }
+
+            nMatched += spanMatched;
+            p = next;
+        }
+
+        for (int i = 0; i < projection.length; i++)
+            data.add(columns[Arrays.binarySearch(sorted, projection[i])]);
+
+        log.trace("readMatches(): {} matches read with {} selections", nMatched, nReads);
+    }
+
+    /** Returns the index of a member by its name. */
+    private int findMember(String name) throws Exception {
+        String[] names = dataset.getMemberNames();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name) || names[i].replace(CompoundDS.SEPARATOR, ".").equals(name))
+                return i;
+        }
+
+        throw new Exception("member " + name + " not found in " + dataset.getName());
+    }
+
+    /** Returns the member arrays of the data returned by read(), with nested compounds flattened. */
+    private static List<Object> flatten(Object readData) {
+        List<Object> columns = new ArrayList<>();
+        flatten(readData, columns);
+        return columns;
+    }
+
+    private static void flatten(Object readData, List<Object> columns) {
+        if (readData instanceof List) {
+            for (Object member : (List<?>) readData)
+                flatten(member, columns);
+        }
+        else {
+            columns.add(readData);
+        }
+    }
+
+    /** Converts the values of a member to double, one value per point. */
+    private static double[] toDouble(Object values, boolean isUnsigned, int n, String name) throws Exception {
+        if ((values == null) || !values.getClass().isArray() || (Array.getLength(values) != n))
+            throw new Exception("member " + name + " does not have a single number per point");
+
+        double[] result = new double[n];
+        if (values instanceof byte[]) {
+            byte[] v = (byte[]) values;
+            for (int i = 0; i < n; i++)
+                result[i] = isUnsigned ? (v[i] & 0xff) : v[i];
+        }
+        else if (values instanceof short[]) {
+            short[] v = (short[]) values;
+            for (int i = 0; i < n; i++)
+                result[i] = isUnsigned ? (v[i] & 0xffff) : v[i];
+        }
+        else if (values instanceof int[]) {
+            int[] v = (int[]) values;
+            for (int i = 0; i < n; i++)
+                result[i] = isUnsigned ? (v[i] & 0xffffffffL) : v[i];
+        }
+        else if (values instanceof long[]) {
+            long[] v = (long[]) values;
+            for (int i = 0; i < n; i++)
+                result[i] = (isUnsigned && (v[i] < 0)) ? (v[i] >>> 1) * 2.0 + (v[i] & 1) : v[i];
+        }
+        else if (values instanceof float[]) {
+            float[] v = (float[]) values;
+            for (int i = 0; i < n; i++)
+                result[i] = v[i];
+        }
+        else if (values instanceof double[]) {
+            System.arraycopy(values, 0, result, 0, n);
+        }
+        else {
+            throw new Exception("member " + name + " is not numerical");
+        }
+
+        return result;
+    }
+
+    /** A node of a parsed predicate, evaluated on the values of a block of points. */
+    private abstract static class Node {
+        abstract boolean[] eval(double[][] values, int n);
+    }
+
+    private static final class Comparison extends Node {
+        static final int EQ = 0, NE = 1, LT = 2, LE = 3, GT = 4, GE = 5;
+
+        /** The member index of each operand, or -1 for a constant */
+        final int    leftMember, rightMember;
+        final double leftValue, rightValue;
+        final int    op;
+
+        Comparison(int leftMember, double leftValue, int op, int rightMember, double rightValue) {
+            this.leftMember = leftMember;
+            this.leftValue = leftValue;
+            this.op = op;
+            this.rightMember = rightMember;
+            this.rightValue = rightValue;
+        }
+
+        @Override
+        boolean[] eval(double[][] values, int n) {
+            double[] left = (leftMember >= 0) ? values[leftMember] : null;
+            double[] right = (rightMember >= 0) ? values[rightMember] : null;
+            boolean[] result = new boolean[n];
+
+            for (int i = 0; i < n; i++) {
+                double a = (left == null) ? leftValue : left[i];
+                double b = (right == null) ? rightValue : right[i];
+
+                switch (op) {
+                    case EQ:
+                        result[i] = a == b;
+                        break;
+                    case NE:
+                        result[i] = a != b;
+                        break;
+                    case LT:
+                        result[i] = a < b;
+                        break;
+                    case LE:
+                        result[i] = a <= b;
+                        break;
+                    case GT:
+                        result[i] = a > b;
+                        break;
+                    default:
+                        result[i] = a >= b;
+                        break;
+                }
+            }
+
+            return result;
+        }
+    }
+
+    private static final class Logical extends Node {
+        final Node    left, right;
+        final boolean isAnd;
+
+        Logical(Node left, Node right, boolean isAnd) {
+            this.left = left;
+            this.right = right;
+            this.isAnd = isAnd;
+        }
+
+        @Override
+        boolean[] eval(double[][] values, int n) {
+            boolean[] a = left.eval(values, n);
+            boolean[] b = right.eval(values, n);
+            for (int i = 0; i < n; i++)
+                a[i] = isAnd ? (a[i] && b[i]) : (a[i] || b[i]);
+            return a;
+        }
+    }
+
+    private static final class Not extends Node {
+        final Node node;
+
+        Not(Node node) {
+            this.node = node;
+        }
+
+        @Override
+        boolean[] eval(double[][] values, int n) {
+            boolean[] a = node.eval(values, n);
+            for (int i = 0; i < n; i++)
+                a[i] = !a[i];
+            return a;
+        }
+    }
+
+    /**
+     * A recursive descent parser of predicates:
+     *
+     * <pre>
+     * or         := and ( "||" and )*
+     * and        := unary ( "&amp;&amp;" unary )*
+     * unary      := "!" unary | "(" or ")" | comparison
+     * comparison := operand op operand
+     * operand    := member | number
+     * </pre>
+     */
+    private final class Parser {
+        private final String        text;
+        private final List<Integer> usedMembers;
+        private int                 pos = 0;
+
+        Parser(String text, List<Integer> usedMembers) {
+            this.text = text;
+            this.usedMembers = usedMembers;
+        }
+
+        Node parse() throws Exception {
+            Node node = parseOr();
+            skipSpaces();
+            if (pos < text.length())
+                throw error("unexpected '" + text.charAt(pos) + "'");
+            return node;
+        }
+
+        private Node parseOr() throws Exception {
+            Node node = parseAnd();
+            while (accept("||"))
+                node = new Logical(node, parseAnd(), false);
+            return node;
+        }
+
+        private Node parseAnd() throws Exception {
+            Node node = parseUnary();
+            while (accept("&&"))
+                node = new Logical(node, parseUnary(), true);
+            return node;
+        }
+
+        private Node parseUnary() throws Exception {
+            if (!peek("!=") && accept("!"))
+                return new Not(parseUnary());
+
+            if (accept("(")) {
+                Node node = parseOr();
+                if (!accept(")"))
+                    throw error("missing ')'");
+                return node;
+            }
+
+            // an operand is either a member index or a constant
+            double[] left = parseOperand();
+            int op = parseOperator();
+            double[] right = parseOperand();
+
+            if ((left[0] < 0) && (right[0] < 0))
+                throw error("a comparison must use a member");
+
+            return new Comparison((int) left[0], left[1], op, (int) right[0], right[1]);
+        }
+
+        /** Returns {member index, 0} for a member, or {-1, value} for a number. */
+        private double[] parseOperand() throws Exception {
+            skipSpaces();
+            if (pos >= text.length())
+                throw error("missing operand");
+
+            char c = text.charAt(pos);
+            if (c == '"') {
+                int end = text.indexOf('"', pos + 1);
+                if (end < 0)
+                    throw error("missing '\"'");
+                String name = text.substring(pos + 1, end);
+                pos = end + 1;
+                return new double[] { useMember(name), 0 };
+            }
+
+            if (Character.isLetter(c) || (c == '_')) {
+                int begin = pos;
+                while ((pos < text.length())
+                        && (Character.isLetterOrDigit(text.charAt(pos)) || (text.charAt(pos) == '_') || (text.charAt(pos) == '.')))
+                    pos++;
+                return new double[] { useMember(text.substring(begin, pos)), 0 };
+            }
+
+            int begin = pos;
+            if ((c == '-') || (c == '+'))
+                pos++;
+            while ((pos < text.length()) && ("0123456789.eE".indexOf(text.charAt(pos)) >= 0
+                    || (((text.charAt(pos) == '-') || (text.charAt(pos) == '+'))
+                            && ((text.charAt(pos - 1) == 'e') || (text.charAt(pos - 1) == 'E')))))
+                pos++;
+
+            try {
+                return new double[] { -1, Double.parseDouble(text.substring(begin, pos)) };
+            }
+            catch (NumberFormatException ex) {
+                pos = begin;
+                throw error("invalid operand");
+            }
+        }
+
+        private int parseOperator() throws Exception {
+            if (accept("=="))
+                return Comparison.EQ;
+            if (accept("!="))
+                return Comparison.NE;
+            if (accept("<="))
+                return Comparison.LE;
+            if (accept(">="))
+                return Comparison.GE;
+            if (accept("<"))
+                return Comparison.LT;
+            if (accept(">"))
+                return Comparison.GT;
+            if (accept("="))
+                return Comparison.EQ;
+
+            throw error("missing comparison operator");
+        }
+
+        private int useMember(String name) throws Exception {
+            int idx = findMember(name);
+            if (!usedMembers.contains(idx))
+                usedMembers.add(idx);
+            return idx;
+        }
+
+        private boolean peek(String token) {
+            skipSpaces();
+            return text.startsWith(token, pos);
+        }
+
+        private boolean accept(String token) {
+            if (peek(token)) {
+                pos += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void skipSpaces() {
+            while ((pos < text.length()) && Character.isWhitespace(text.charAt(pos)))
+                pos++;
+        }
+
+        private Exception error(String message) {
+            return new Exception("invalid predicate at position " + pos + ": " + message + " in \"" + text + "\"");
+        }
+    }
+}
@@ -0,0 +1,324 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the files COPYING and Copyright.html. *
+ * COPYING can be found at the root of the source code distribution tree.    *
+ * Or, see https://support.hdfgroup.org/products/licenses.html               *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.util.NoSuchElementException;
+
+/**
+ * DataBlockIterator walks the current selection of a dataset in blocks so that
+ * a selection of any size can be processed in bounded memory.
+ * <p>
+ * The selection (start, stride and count) of the dataset is copied when the
+ * iterator is created, so later changes to the selection of the dataset do not
+ * affect the iteration. The selection is split along the slowest varying
+ * dimension that keeps a block within the requested number of points, and
+ * block boundaries along that dimension are aligned to the chunk boundaries of
+ * the dataset when it is chunked. Blocks are returned in row-major order of the
+ * selection, so the points of block n immediately follow the points of block
+ * n-1 in the linearized selection.
+ * <p>
+ * The buffer returned by next() may be reused by the following call to next()
+ * when the two blocks have the same number of points. Applications that need to
+ * keep the data of a block must copy it before advancing the iterator.
+ *
+ * <pre>
+ * DataBlockIterator blocks = dataset.blockIterator();
+ * while (blocks.hasNext()) {
+ *     Object data = blocks.next();
+ *     long offset = blocks.getBlockOffset(); // position of data[0] in the selection
+ *     ...
+ * }
+ * </pre>
+ *
+ * @see hdf.object.Dataset#blockIterator()
+ * @see hdf.object.Dataset#blockIterator(long)
+ */
+public class DataBlockIterator {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DataBlockIterator.class);
+
+    /** The dataset being iterated */
+    private final Dataset dataset;
+
+    private final int     rank;
+
+    /** The selection of the dataset at the time the iterator was created */
+    private final long[]  selStart;
+    private final long[]  selStride;
+    private final long[]  selCount;
+
+    /** The chunk size of the dataset, or null if it is not chunked */
+    private final long[]  chunkDims;
+
+    /** The dimension along which the selection is split into blocks */
+    private final int     splitDim;
+
+    /** The maximum number of rows of the split dimension in a block */
+    private final long    blockRows;
+
+    /** The position of the next block in the selection; one index per dimension up to splitDim */
+    private final long[]  position;
+
+    /** The number of points of the whole selection */
+    private final long    totalPoints;
+
+    private final long[]  blockStart;
+    private final long[]  blockDims;
+    private long          blockOffset = 0;
+    private long          blockPoints = 0;
+    private volatile long pointsRead  = 0;
+
+    /** True once stop() was called */
+    private volatile boolean isStopped = false;
+
+    private Object        blockBuf    = null;
+
+    /**
+     * Creates an iterator over the current selection of a dataset.
+     *
+     * @param dset
+     *            the dataset to read from.
+     * @param maxBlockPoints
+     *            the maximum number of data points held by one block.
+     */
+    public DataBlockIterator(Dataset dset, long maxBlockPoints) {
+        if (dset == null)
+            throw new IllegalArgumentException("dataset is null");
+
+        dataset = dset;
+        if (!dataset.isInited())
+            dataset.init();
+
+        rank = dataset.getRank();
+
+        long[] start = dataset.getStartDims();
+        long[] stride = dataset.getStride();
+        long[] count = dataset.getSelectedDims();
+
+        selStart = new long[rank];
+        selStride = new long[rank];
+        selCount = new long[rank];
+        for (int i = 0; i < rank; i++) {
+            selStart[i] = start[i];
+            selStride[i] = (stride == null) ? 1 : stride[i];
+            selCount[i] = count[i];
+        }
+
+        chunkDims = dataset.getChunkSize();
+
+        long maxPoints = Math.max(1, Math.min(maxBlockPoints, Integer.MAX_VALUE - 8));
+
+        long npoints = 1;
+        for (int i = 0; i < rank; i++)
+            npoints *= selCount[i];
+        totalPoints = npoints;
+
+        // find the slowest varying dimension whose rows still fit in one block
+        int dim = 0;
+        long rowPoints = 1;
+        for (int i = 1; i < rank; i++)
+            rowPoints *= selCount[i];
+        while ((dim < rank - 1) && (rowPoints > maxPoints)) {
+            dim++;
+            rowPoints /= Math.max(1, selCount[dim]);
+        }
+
+        long rows = (rank > 0) ? Math.max(1, Math.min(selCount[dim], maxPoints / Math.max(1, rowPoints))) : 1;
+
+        // round the number of rows down to a whole number of chunks when a block spans several chunks
+        if ((chunkDims != null) && (rank > 0) && (chunkDims.length == rank)) {
+            long chunkRows = (chunkDims[dim] + selStride[dim] - 1) / selStride[dim];
+            if ((chunkRows > 0) && (rows > chunkRows))
+                rows = (rows / chunkRows) * chunkRows;
+        }
+
+        splitDim = dim;
+        blockRows = rows;
+        position = new long[Math.max(1, rank)];
+        blockStart = new long[rank];
+        blockDims = new long[rank];
+
+        log.trace("DataBlockIterator: {} points in selection, splitDim={} blockRows={}", totalPoints, splitDim, blockRows);
+    }
+
+    /**
+     * Returns true if there are more blocks to read.
+     *
+     * @return true if there are more blocks to read; otherwise returns false.
+     */
+    public boolean hasNext() {
+        return !isStopped && (pointsRead < totalPoints);
+    }
+
+    /**
+     * Ends the iteration: hasNext() returns false from now on. This method may
+     * be called from any thread, e.g. to cancel a long import or export.
+     */
+    public void stop() {
+        isStopped = true;
+    }
+
+    /**
+     * Reads the next block of the selection from file.
+     *
+     * @return the data of the next block, in the same form as returned by
+     *         {@link Dataset#read()} for a selection of the block size.
+     *
+     * @throws Exception
+     *             if the block can not be read
+     */
+    public Object next() throws Exception {
+        long prevPoints = blockPoints;
+
+        advance();
+
+        // reuse the previous buffer only if the block has the same size
+        Object reuseBuf = (blockPoints == prevPoints) ? blockBuf : null;
+
+        log.trace("next(): block offset={} points={}", blockOffset, blockPoints);
+        blockBuf = dataset.readBlock(blockStart.clone(), selStride.clone(), blockDims.clone(), reuseBuf);
+
+        return blockBuf;
+    }
+
+    /**
+     * Moves to the next block of the selection without reading it.
+     * <p>
+     * After advance(), getBlockStart(), getBlockDims(), getBlockOffset() and
+     * getBlockPoints() describe the new block. This allows applications to
+     * schedule the reading of blocks themselves, e.g. on several threads.
+     */
+    public void advance() {
+        if (!hasNext())
+            throw new NoSuchElementException("no more blocks in selection");
+
+        for (int i = 0; i < rank; i++) {
+            if (i < splitDim) {
+                blockStart[i] = selStart[i] + position[i] * selStride[i];
+                blockDims[i] = 1;
+            }
+            else if (i == splitDim) {
+                long rows = Math.min(blockRows, selCount[i] - position[i]);
+
+                // end the block on a chunk boundary so that no chunk is read twice
+                if ((chunkDims != null) && (chunkDims.length == rank) && (selStride[i] == 1) && (rows < selCount[i] - position[i])) {
+                    long end = selStart[i] + position[i] + rows;
+                    long alignedEnd = (end / chunkDims[i]) * chunkDims[i];
+                    if (alignedEnd > selStart[i] + position[i])
+                        rows = alignedEnd - selStart[i] - position[i];
+                }
+
+                blockStart[i] = selStart[i] + position[i] * selStride[i];
+                blockDims[i] = rows;
+            }
+            else {
+                blockStart[i] = selStart[i];
+                blockDims[i] = selCount[i];
+            }
+        }
+
+        long npoints = 1;
+        for (int i = 0; i < rank; i++)
+            npoints *= blockDims[i];
+
+        blockOffset = pointsRead;
+        blockPoints = npoints;
+        pointsRead += npoints;
+
+        // advance the position to the start of the next block
+        if (rank > 0) {
+            position[splitDim] += blockDims[splitDim];
+            int dim = splitDim;
+            while ((dim > 0) && (position[dim] >= selCount[dim])) {
+                position[dim] = 0;
+                dim--;
+                position[dim]++;
+            }
+        }
+    }
+
+    /**
+     * Returns the dataset being iterated.
+     *
+     * @return the dataset being iterated.
+     */
+    public Dataset getDataset() {
+        return dataset;
+    }
+
+    /**
+     * Returns the starting position in the dataset of the block last returned by next().
+     *
+     * @return the start of the current block.
+     */
+    public long[] getBlockStart() {
+        return blockStart;
+    }
+
+    /**
+     * Returns the dimension sizes of the block last returned by next().
+     *
+     * @return the dimension sizes of the current block.
+     */
+    public long[] getBlockDims() {
+        return blockDims;
+    }
+
+    /**
+     * Returns the stride of the selection being iterated.
+     *
+     * @return the stride of the selection.
+     */
+    public long[] getStride() {
+        return selStride;
+    }
+
+    /**
+     * Returns the position of the first point of the block last returned by
+     * next() in the linearized selection.
+     *
+     * @return the offset of the current block in the selection.
+     */
+    public long getBlockOffset() {
+        return blockOffset;
+    }
+
+    /**
+     * Returns the number of points in the block last returned by next().
+     *
+     * @return the number of points in the current block.
+     */
+    public long getBlockPoints() {
+        return blockPoints;
+    }
+
+    /**
+     * Returns the total number of points in the selection being iterated.
+     *
+     * @return the number of points in the selection.
+     */
+    public long getTotalPoints() {
+        return totalPoints;
+    }
+
+    /**
+     * Returns the number of points read so far. This method may be called from
+     * any thread, e.g. to show the progress of an import or export.
+     *
+     * @return the number of points read so far.
+     */
+    public long getPointsRead() {
+        return pointsRead;
+    }
+}
@@ -0,0 +1,460 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the files COPYING and Copyright.html. *
+ * COPYING can be found at the root of the source code distribution tree.    *
+ * Or, see https://support.hdfgroup.org/products/licenses.html               *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.lang.reflect.Array;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * DataStatistics computes the min, max, mean, standard deviation, NaN count
+ * and, optionally, the histogram of numerical data in a single pass.
+ * <p>
+ * The data is given as primitive arrays of byte, short, int, long, float or
+ * double, either as a whole or block by block through
+ * {@link #accumulate(Object)}, so the statistics of a selection that does not
+ * fit in memory can be computed from the blocks of a
+ * {@link hdf.object.DataBlockIterator}. Large arrays are split into partitions
+ * that are processed in parallel in the common fork-join pool; the results of
+ * the partitions and of the blocks are merged with the pairwise update of the
+ * mean and the sum of squared differences, so the mean and the standard
+ * deviation are as accurate as those of a two-pass computation.
+ * <p>
+ * Integer data can be unsigned, in which case the values are read without sign
+ * extension and the data does not have to be converted to a wider type first.
+ * Points equal to the fill value are excluded from the statistics, as are NaN
+ * and infinite floating-point values, which are counted separately.
+ *
+ * <pre>
+ * DataStatistics stats = new DataStatistics(fillValue, isUnsigned);
+ * stats.accumulate(data);
+ * double min = stats.getMin();
+ * double stdev = stats.getStdDev();
+ * </pre>
+ */
+public class DataStatistics {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DataStatistics.class);
+
+    /** Arrays with fewer points than this are processed by a single thread. */
+    private static final int PARTITION_POINTS = 1 << 16;
+
+    /** The number of points converted to double at a time by a partition. */
+    private static final int BATCH_POINTS = 1024;
+
+    private final boolean    isUnsigned;
+    private final boolean    hasFillValue;
+    private final double     fill;
+
+    /** The histogram range and the scale from a value to a bin, if a histogram is computed */
+    private double           histMin;
+    private double           histMax;
+    private double           histScale;
+    private long[]           histogram = null;
+
+    private Partial          result = new Partial(0);
+
+    /**
+     * Creates an empty set of statistics.
+     *
+     * @param fillValue
+     *            the fill value, as a one element array, or null if the data has
+     *            no fill value. Points equal to the fill value are excluded from
+     *            the statistics.
+     * @param isUnsigned
+     *            true if integer data is unsigned.
+     */
+    public DataStatistics(Object fillValue, boolean isUnsigned) {
+        this.isUnsigned = isUnsigned;
+
+        hasFillValue = (fillValue != null) && fillValue.getClass().isArray() && (Array.getLength(fillValue) > 0);
+        fill = hasFillValue ? toDouble(Array.get(fillValue, 0), isUnsigned) : 0;
+    }
+
+    /**
+     * Computes the histogram of the data, with nBins bins of equal width
+     * covering [min, max], in the following calls to {@link #accumulate(Object)}.
+     * A value v is counted in bin (int) ((v - min) * (nBins - 1) / (max - min)),
+     * so the last bin only holds max; values outside the range are not counted.
+     * <p>
+     * This must be called before any data is accumulated.
+     *
+     * @param nBins
+     *            the number of bins.
+     * @param min
+     *            the lower bound of the histogram.
+     * @param max
+     *            the upper bound of the histogram.
+     */
+    public void setHistogram(int nBins, double min, double max) {
+        if (nBins <= 0)
+            throw new IllegalArgumentException("invalid number of bins: " + nBins);
+        if (result.total > 0)
+            throw new IllegalStateException("histogram must be set before data is accumulated");
+
+        histMin = min;
+        histMax = max;
+        histScale = (max != min) ? (nBins - 1) / (max - min) : 1;
+        histogram = new long[nBins];
+        result = new Partial(nBins);
+    }
+
+    /**
+     * Returns true if the given data can be accumulated, i.e. it is an array of
+     * byte, short, int, long, float or double.
+     *
+     * @param data
+     *            the data array.
+     *
+     * @return true if the data is a primitive numerical array.
+     */
+    public static boolean isSupported(Object data) {
+        return (data instanceof byte[]) || (data instanceof short[]) || (data instanceof int[])
+                || (data instanceof long[]) || (data instanceof float[]) || (data instanceof double[]);
+    }
+
+    /**
+     * Adds the points of a data array to the statistics.
+     *
+     * @param data
+     *            an array of byte, short, int, long, float or double.
+     *
+     * @return this DataStatistics.
+     */
+    public DataStatistics accumulate(Object data) {
+        if (!isSupported(data))
+            throw new UnsupportedOperationException("unsupported data type: " + ((data == null) ? null : data.getClass().getName()));
+
+        int n = Array.getLength(data);
+        if (n <= 0)
+            return this;
+
+        Partial partial = null;
+        if (n <= PARTITION_POINTS)
+            partial = compute(data, 0, n);
+        else
+            partial = ForkJoinPool.commonPool().invoke(new StatisticsTask(data, 0, n));
+
+        result.merge(partial);
+        log.trace("accumulate(): {} points, total={}", n, result.total);
+
+        return this;
+    }
+
+    /**
+     * Computes the statistics of the current selection of a dataset. The
+     * selection is read in blocks through {@link Dataset#blockIterator()}, so the
+     * selection does not need to fit in memory.
+     *
+     * @param dataset
+     *            the dataset.
+     * @param fillValue
+     *            the fill value, as a one element array, or null.
+     * @param nBins
+     *            the number of histogram bins, or 0 for no histogram.
+     * @param range
+     *            the histogram range {min, max}, or null if nBins is 0.
+     *
+     * @return the statistics of the selection.
+     *
+     * @throws Exception
+     *             if the data can not be read
+     */
+    public static DataStatistics compute(Dataset dataset, Object fillValue, int nBins, double[] range) throws Exception {
+        Datatype dtype = dataset.getDatatype();
+        DataStatistics stats = new DataStatistics(fillValue, (dtype != null) && dtype.isUnsigned());
+        if (nBins > 0)
+            stats.setHistogram(nBins, range[0], range[1]);
+
+        DataBlockIterator blocks = dataset.blockIterator();
+        while (blocks.hasNext())
+            stats.accumulate(blocks.next());
+
+        return stats;
+    }
+
+    /** @return the number of points accumulated, including fill values and NaN. */
+    public long getTotalCount() {
+        return result.total;
+    }
+
+    /** @return the number of valid points, i.e. excluding fill values, NaN and infinite values. */
+    public long getCount() {
+        return result.count;
+    }
+
+    /** @return the number of NaN and infinite values. */
+    public long getNaNCount() {
+        return result.nanCount;
+    }
+
+    /** @return the number of points equal to the fill value. */
+    public long getFillCount() {
+        return result.fillCount;
+    }
+
+    /** @return the minimum valid value, or NaN if there is no valid point. */
+    public double getMin() {
+        return (result.count > 0) ? result.min : Double.NaN;
+    }
+
+    /** @return the maximum valid value, or NaN if there is no valid point. */
+    public double getMax() {
+        return (result.count > 0) ? result.max : Double.NaN;
+    }
+
+    /** @return the mean of the valid values, or NaN if there is no valid point. */
+    public double getMean() {
+        return (result.count > 0) ? result.mean : Double.NaN;
+    }
+
+    /** @return the sample standard deviation of the valid values, or 0 if there are fewer than two. */
+    public double getStdDev() {
+        return (result.count > 1) ? Math.sqrt(result.m2 / (result.count - 1)) : 0;
+    }
+
+    /**
+     * Returns the histogram set by {@link #setHistogram(int, double, double)}.
+     *
+     * @return the number of points in each bin, or null if no histogram is computed.
+     */
+    public long[] getHistogram() {
+        if (histogram == null)
+            return null;
+
+        System.arraycopy(result.hist, 0, histogram, 0, histogram.length);
+        return histogram;
+    }
+
+    private static double toDouble(Object value, boolean isUnsigned) {
+        if (!isUnsigned || (value instanceof Float) || (value instanceof Double))
+            return ((Number) value).doubleValue();
+
+        if (value instanceof Byte)
+            return ((Byte) value) & 0xFF;
+        else if (value instanceof Short)
+            return ((Short) value) & 0xFFFF;
+        else if (value instanceof Integer)
+            return ((Integer) value) & 0xFFFFFFFFL;
+        else
+            return unsignedToDouble(((Number) value).longValue());
+    }
+
+    private static double unsignedToDouble(long value) {
+        if (value >= 0)
+            return value;
+
+        // keep the low bit so the value rounds the same way as the exact unsigned value
+        return ((value >>> 1) | (value & 1)) * 2.0;
+    }
+
+    /**
+     * Computes the statistics of data[from, to) by converting a batch of points
+     * at a time to double. The batch stays in the CPU cache, so the mean and the
+     * sum of squared differences of a batch are computed in two passes over the
+     * batch without reading the data twice from memory.
+     */
+    private Partial compute(Object data, int from, int to) {
+        Partial partial = new Partial((histogram == null) ? 0 : histogram.length);
+        double[] batch = new double[Math.min(BATCH_POINTS, to - from)];
+
+        for (int start = from; start < to; start += BATCH_POINTS) {
+            int n = Math.min(BATCH_POINTS, to - start);
+            boolean isFloat = false;
+
+            if (data instanceof byte[]) {
+                byte[] b = (byte[]) data;
+                if (isUnsigned) {
+                    for (int i = 0; i < n; i++)
+                        batch[i] = b[start + i] & 0xFF;
+                }
+                else {
+                    for (int i = 0; i < n; i++)
+                        batch[i] = b[start + i];
+                }
+            }
+            else if (data instanceof short[]) {
+                short[] s = (short[]) data;
+                if (isUnsigned) {
+                    for (int i = 0; i < n; i++)
+                        batch[i] = s[start + i] & 0xFFFF;
+                }
+                else {
+                    for (int i = 0; i < n; i++)
+                        batch[i] = s[start + i];
+                }
+            }
+            else if (data instanceof int[]) {
+                int[] ia = (int[]) data;
+                if (isUnsigned) {
+                    for (int i = 0; i < n; i++)
+                        batch[i] = ia[start + i] & 0xFFFFFFFFL;
+                }
+                else {
+                    for (int i = 0; i < n; i++)
+                        batch[i] = ia[start + i];
+                }
+            }
+            else if (data instanceof long[]) {
+                long[] l = (long[]) data;
+                if (isUnsigned) {
+                    for (int i = 0; i < n; i++)
+                        batch[i] = unsignedToDouble(l[start + i]);
+                }
+                else {
+                    for (int i = 0; i < n; i++)
+                        batch[i] = l[start + i];
+                }
+            }
+            else if (data instanceof float[]) {
+                float[] f = (float[]) data;
+                for (int i = 0; i < n; i++)
+                    batch[i] = f[start + i];
+                isFloat = true;
+            }
+            else {
+                System.arraycopy(data, start, batch, 0, n);
+                isFloat = true;
+            }
+
+            partial.addBatch(batch, n, isFloat);
+        }
+
+        return partial;
+    }
+
+    /** The statistics of a part of the data, merged pairwise into the final result. */
+    private final class Partial {
+        long         total     = 0;
+        long         count     = 0;
+        long         nanCount  = 0;
+        long         fillCount = 0;
+        double       min       = Double.POSITIVE_INFINITY;
+        double       max       = Double.NEGATIVE_INFINITY;
+        double       mean      = 0;
+        double       m2        = 0;
+        final long[] hist;
+
+        Partial(int nBins) {
+            hist = new long[nBins];
+        }
+
+        void addBatch(double[] batch, int n, boolean isFloat) {
+            long bCount = 0;
+            double bSum = 0;
+            double bMin = Double.POSITIVE_INFINITY;
+            double bMax = Double.NEGATIVE_INFINITY;
+            boolean hasHistogram = (hist.length > 0);
+
+            total += n;
+            for (int i = 0; i < n; i++) {
+                double v = batch[i];
+                if (hasFillValue && (v == fill)) {
+                    fillCount++;
+                    batch[i] = Double.NaN;
+                    continue;
+                }
+                if (isFloat && (Double.isNaN(v) || Double.isInfinite(v))) {
+                    nanCount++;
+                    batch[i] = Double.NaN;
+                    continue;
+                }
+
+                bCount++;
+                bSum += v;
+                if (v < bMin)
+                    bMin = v;
+                if (v > bMax)
+                    bMax = v;
+                if (hasHistogram && (v >= histMin) && (v <= histMax))
+                    hist[(int) ((v - histMin) * histScale)]++;
+            }
+
+            if (bCount == 0)
+                return;
+
+            // excluded points were marked as NaN above
+            double bMean = bSum / bCount;
+            double bM2 = 0;
+            for (int i = 0; i < n; i++) {
+                double v = batch[i];
+                if (v == v) {
+                    double diff = v - bMean;
+                    bM2 += diff * diff;
+                }
+            }
+
+            merge(bCount, bMean, bM2, bMin, bMax);
+        }
+
+        void merge(long n, double otherMean, double otherM2, double otherMin, double otherMax) {
+            if (n == 0)
+                return;
+
+            if (count == 0) {
+                mean = otherMean;
+                m2 = otherM2;
+            }
+            else {
+                double newCount = (double) count + n;
+                double delta = otherMean - mean;
+                mean += delta * n / newCount;
+                m2 += otherM2 + delta * delta * ((double) count * n / newCount);
+            }
+
+            count += n;
+            min = Math.min(min, otherMin);
+            max = Math.max(max, otherMax);
+        }
+
+        void merge(Partial other) {
+            merge(other.count, other.mean, other.m2, other.min, other.max);
+
+            total += other.total;
+            nanCount += other.nanCount;
+            fillCount += other.fillCount;
+            for (int i = 0; i < hist.length; i++)
+                hist[i] += other.hist[i];
+        }
+    }
+
+    /** Splits data[from, to) in halves until a part is small enough to be processed by one thread. */
+    private final class StatisticsTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 6352154927213488462L;
+
+        private final Object data;
+        private final int    from;
+        private final int    to;
+
+        StatisticsTask(Object data, int from, int to) {
+            this.data = data;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= PARTITION_POINTS)
+                return DataStatistics.this.compute(data, from, to);
+
+            int mid = (from + to) >>> 1;
+            StatisticsTask left = new StatisticsTask(data, from, mid);
+            left.fork();
+            Partial partial = new StatisticsTask(data, mid, to).compute();
+            partial.merge(left.join());
+
+            return partial;
+        }
+    }
+}
@@ -15,6 +15,12 @@
 package hdf.object;
 
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 
 /**
@@ -136,6 +142,12 @@ public abstract class Dataset extends HObject implements MetaDataContainer, Data
     protected StringBuilder   compression;
     public static final String COMPRESSION_GZIP_TXT = "GZIP: level = ";
 
+    /** The default size in bytes of a block read by {@link #blockIterator()}. */
+    public static final long  DEFAULT_BLOCK_BYTES = 32L * 1024 * 1024;
+
+    /** The size in bytes of the direct buffer used by {@link #exportBinary(String, ByteOrder, boolean)}. */
+    private static final int  EXPORT_BUFFER_BYTES = 4 * 1024 * 1024;
+
     /** The filters information. */
     protected StringBuilder   filters;
 
@@ -457,6 +469,499 @@ public abstract class Dataset extends HObject implements MetaDataContainer, Data
      */
     public abstract byte[] readBytes() throws Exception;
 
+    /**
+     * Returns an iterator that reads the current selection of the dataset in
+     * blocks of at most {@link #DEFAULT_BLOCK_BYTES} bytes.
+     *
+     * @see #blockIterator(long)
+     *
+     * @return the iterator over the blocks of the current selection.
+     */
+    public DataBlockIterator blockIterator() {
+        if (!inited) init();
+
+        Datatype dtype = getDatatype();
+        long typeSize = (dtype == null) ? 1 : Math.max(1, dtype.getDatatypeSize());
+
+        return blockIterator(DEFAULT_BLOCK_BYTES / typeSize);
+    }
+
+    /**
+     * Returns an iterator that reads the current selection of the dataset in
+     * blocks of at most maxBlockPoints data points.
+     * <p>
+     * Unlike read(), the iterator never holds the whole selection in memory, so
+     * it can be used to process selections that are larger than the Java heap
+     * or that have more than Integer.MAX_VALUE points. The data of each block is
+     * returned in the same form as read() returns it.
+     *
+     * @param maxBlockPoints
+     *            the maximum number of data points held by one block.
+     *
+     * @return the iterator over the blocks of the current selection.
+     */
+    public DataBlockIterator blockIterator(long maxBlockPoints) {
+        return new DataBlockIterator(this, maxBlockPoints);
+    }
+
+    /**
+     * Returns true if readBlock() and writeBlock() access the file directly,
+     * without changing the selection of the dataset, so that they may be called
+     * from another thread while the dataset is displayed.
+     * <p>
+     * The default implementation returns false, since the default readBlock()
+     * and writeBlock() temporarily replace the selection of the dataset.
+     *
+     * @return true if blocks are read and written without changing the
+     *         selection; otherwise, false.
+     */
+    public boolean hasDirectBlockIO() {
+        return false;
+    }
+
+    /**
+     * Reads a rectangular block of the dataset from file.
+     * <p>
+     * The block is given independently of the current selection, and the data
+     * is not cached in the dataset object.
+     * <p>
+     * The default implementation temporarily replaces the selection of the
+     * dataset with the given block and calls read(), then restores the
+     * selection. It must therefore not be called while another thread uses the
+     * dataset, unless {@link #hasDirectBlockIO()} returns true. Sub-classes
+     * should replace this implementation with one that reads the block directly
+     * and reuses the given buffer.
+     *
+     * @param blockStart
+     *            the starting position of the block.
+     * @param blockStride
+     *            the stride of the block.
+     * @param blockDims
+     *            the dimension sizes of the block.
+     * @param blockBuf
+     *            a buffer of the same size from a previous block that may be
+     *            reused, or null.
+     *
+     * @return the data of the block.
+     *
+     * @throws Exception if the block can not be read
+     */
+    public Object readBlock(long[] blockStart, long[] blockStride, long[] blockDims, Object blockBuf) throws Exception {
+        if (!inited) init();
+
+        long[] stride = getStride();
+        long[] oldStart = startDims.clone();
+        long[] oldStride = (stride == null) ? null : stride.clone();
+        long[] oldSelected = selectedDims.clone();
+
+        try {
+            System.arraycopy(blockStart, 0, startDims, 0, rank);
+            System.arraycopy(blockDims, 0, selectedDims, 0, rank);
+            if (stride != null)
+                System.arraycopy(blockStride, 0, stride, 0, rank);
+
+            return read();
+        }
+        finally {
+            System.arraycopy(oldStart, 0, startDims, 0, rank);
+            System.arraycopy(oldSelected, 0, selectedDims, 0, rank);
+            if (stride != null)
+                System.arraycopy(oldStride, 0, stride, 0, rank);
+        }
+    }
+
+    /**
+     * Writes a rectangular block of the dataset to file.
+     * <p>
+     * The block is given independently of the current selection. The buffer
+     * holds the values of the block in the form accepted by write().
+     * <p>
+     * The default implementation temporarily replaces the selection of the
+     * dataset with the given block and calls write(), then restores the
+     * selection. It must therefore not be called while another thread uses the
+     * dataset, unless {@link #hasDirectBlockIO()} returns true.
+     *
+     * @param blockStart
+     *            the starting position of the block.
+     * @param blockStride
+     *            the stride of the block.
+     * @param blockDims
+     *            the dimension sizes of the block.
+     * @param blockBuf
+     *            the values of the block.
+     *
+     * @throws Exception if the block can not be written
+     */
+    public void writeBlock(long[] blockStart, long[] blockStride, long[] blockDims, Object blockBuf) throws Exception {
+        if (!inited) init();
+
+        long[] stride = getStride();
+        long[] oldStart = startDims.clone();
+        long[] oldStride = (stride == null) ? null : stride.clone();
+        long[] oldSelected = selectedDims.clone();
+
+        try {
+            System.arraycopy(blockStart, 0, startDims, 0, rank);
+            System.arraycopy(blockDims, 0, selectedDims, 0, rank);
+            if (stride != null)
+                System.arraycopy(blockStride, 0, stride, 0, rank);
+
+            write(blockBuf);
+        }
+        finally {
+            System.arraycopy(oldStart, 0, startDims, 0, rank);
+            System.arraycopy(oldSelected, 0, selectedDims, 0, rank);
+            if (stride != null)
+                System.arraycopy(oldStride, 0, stride, 0, rank);
+        }
+    }
+
+    /**
+     * Changes the current dimension sizes of the dataset. The new sizes must not
+     * exceed the maximum dimension sizes.
+     * <p>
+     * The default implementation throws UnsupportedOperationException;
+     * sub-classes of file formats that support extendible datasets override it.
+     *
+     * @param newDims
+     *            the new dimension sizes of the dataset.
+     *
+     * @throws Exception if the dataset can not be extended
+     */
+    public void extend(long[] newDims) throws Exception {
+        throw new UnsupportedOperationException("extend(): unsupported for " + getClass().getName());
+    }
+
+    /**
+     * Writes the current selection of the dataset to a binary file, optionally
+     * in the NumPy .npy format.
+     * <p>
+     * The selection is read block by block with {@link #blockIterator()} and
+     * each block is written through a direct buffer to a FileChannel, so the
+     * selection does not need to fit in memory. The values are written in
+     * row-major order of the selection. Only datasets whose read() returns an
+     * array of numbers (byte, short, int, long, float or double) are supported.
+     * <p>
+     * The .npy header describes the values as written: its shape is the
+     * selected dimension sizes and its type is the Java type of the values,
+     * marked unsigned when the values are unsigned integers stored as read.
+     *
+     * @param fileName
+     *            the name of the file to write to. An existing file is replaced.
+     * @param order
+     *            the byte order of the values in the file.
+     * @param npyFormat
+     *            if true, the values are preceded by a NumPy .npy header.
+     *
+     * @return the number of bytes written.
+     *
+     * @throws Exception if the data can not be read or written, or is not numerical
+     */
+    public long exportBinary(String fileName, ByteOrder order, boolean npyFormat) throws Exception {
+        DataBlockIterator blocks = blockIterator();
+        ByteBuffer buf = ByteBuffer.allocateDirect(EXPORT_BUFFER_BYTES).order(order);
+        long nbytes = 0;
+        boolean isHeaderWritten = !npyFormat;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (blocks.hasNext()) {
+                Object block = blocks.next();
+
+                char typeClass = Utils.getJavaObjectRuntimeClass(block);
+                if ("BSIJFD".indexOf(typeClass) < 0)
+                    throw new UnsupportedOperationException("exportBinary(): unsupported data type " + typeClass);
+
+                if (!isHeaderWritten) {
+                    nbytes += writeFully(channel, getNpyHeader(typeClass, order));
+                    isHeaderWritten = true;
+                }
+
+                int elementSize = getElementSize(typeClass);
+                int length = Array.getLength(block);
+                int maxElements = EXPORT_BUFFER_BYTES / elementSize;
+
+                for (int offset = 0; offset < length; offset += maxElements) {
+                    int n = Math.min(maxElements, length - offset);
+
+                    buf.clear();
+                    switch (typeClass) {
+                        case 'B':
+                            buf.put((byte[]) block, offset, n);
+                            break;
+                        case 'S':
+                            buf.asShortBuffer().put((short[]) block, offset, n);
+                            break;
+                        case 'I':
+                            buf.asIntBuffer().put((int[]) block, offset, n);
+                            break;
+                        case 'J':
+                            buf.asLongBuffer().put((long[]) block, offset, n);
+                            break;
+                        case 'F':
+                            buf.asFloatBuffer().put((float[]) block, offset, n);
+                            break;
+                        default:
+                            buf.asDoubleBuffer().put((double[]) block, offset, n);
+                            break;
+                    }
+                    buf.position(0).limit(n * elementSize);
+
+                    nbytes += writeFully(channel, buf);
+                }
+            }
+
+            if (!isHeaderWritten)
+                nbytes += writeFully(channel, getNpyHeader('B', order));
+        }
+
+        log.trace("exportBinary(): {} bytes written to {}", nbytes, fileName);
+
+        return nbytes;
+    }
+
+    /**
+     * Writes the values of a binary file to the current selection of the
+     * dataset.
+     * <p>
+     * The selection is written block by block with {@link #blockIterator()}.
+     * The part of the file holding the values of a block is memory-mapped and
+     * copied once, through a typed view in the given byte order, into the array
+     * written with {@link #writeBlock(long[], long[], long[], Object)}, so
+     * neither the file nor the selection needs to fit in memory, and files larger
+     * than 2 GB are supported. The values of the file are in row-major order of
+     * the selection and have the size of the datatype of the dataset. If the
+     * file holds fewer values than the selection, the rest of the selection is
+     * left unchanged; the values beyond the selection are ignored. Only integer
+     * datasets and 32- or 64-bit floating-point datasets are supported.
+     *
+     * @param fileName
+     *            the name of the file to read from.
+     * @param order
+     *            the byte order of the values in the file.
+     *
+     * @return the number of values written.
+     *
+     * @throws Exception if the file can not be read, or the data can not be written or is not numerical
+     */
+    public long importBinary(String fileName, ByteOrder order) throws Exception {
+        if (!inited) init();
+
+        return importBinary(fileName, order, blockIterator());
+    }
+
+    /**
+     * Writes the values of a binary file to the blocks of the given iterator,
+     * as {@link #importBinary(String, ByteOrder)} does for the current
+     * selection.
+     * <p>
+     * The iterator is created by the caller, so the selection is taken on the
+     * thread that owns the dataset. If the dataset writes blocks without
+     * changing its selection ({@link #hasDirectBlockIO()}), the import can then
+     * run on a worker thread, while another thread shows its progress with
+     * {@link DataBlockIterator#getPointsRead()} or cancels it with
+     * {@link DataBlockIterator#stop()}.
+     *
+     * @param fileName
+     *            the name of the file to read from.
+     * @param order
+     *            the byte order of the values in the file.
+     * @param blocks
+     *            the iterator over the blocks of the selection to write, created
+     *            by {@link #blockIterator()} and not advanced yet.
+     *
+     * @return the number of values written.
+     *
+     * @throws Exception if the file can not be read, or the data can not be written or is not numerical
+     */
+    public long importBinary(String fileName, ByteOrder order, DataBlockIterator blocks) throws Exception {
+        if ((blocks == null) || (blocks.getDataset() != this))
+            throw new IllegalArgumentException("importBinary(): the iterator is not over this dataset");
+
+        Datatype dtype = getDatatype();
+        if ((dtype == null) || !(dtype.isInteger() || dtype.isFloat()))
+            throw new UnsupportedOperationException("importBinary(): only integer and floating-point datasets are supported");
+
+        int elementSize = (int) dtype.getDatatypeSize();
+        if ((elementSize != 1) && (elementSize != 2) && (elementSize != 4) && (elementSize != 8))
+            throw new UnsupportedOperationException("importBinary(): unsupported datatype size " + elementSize);
+        if (dtype.isFloat() && (elementSize != 4) && (elementSize != 8))
+            throw new UnsupportedOperationException("importBinary(): unsupported datatype size " + elementSize);
+
+        // unsigned integers are written from the next larger Java type, as by write()
+        boolean isWidened = dtype.isInteger() && dtype.isUnsigned() && (elementSize < 8);
+
+        long nvalues = 0;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long fileValues = channel.size() / elementSize;
+
+            while (blocks.hasNext() && (nvalues < fileValues)) {
+                blocks.advance();
+                long[] blockStart = blocks.getBlockStart().clone();
+                long[] blockStride = blocks.getStride().clone();
+                long[] blockDims = blocks.getBlockDims().clone();
+                int blockPoints = (int) blocks.getBlockPoints();
+                int n = (int) Math.min(blockPoints, fileValues - nvalues);
+
+                Object buf = null;
+                if (n < blockPoints) {
+                    // keep the values of the block beyond the end of the file
+                    buf = readBlock(blockStart, blockStride, blockDims, null);
+                    if (isWidened)
+                        buf = convertFromUnsignedC(buf, null);
+                }
+                else if (dtype.isFloat()) {
+                    buf = (elementSize == 4) ? new float[n] : new double[n];
+                }
+
+                ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, nvalues * elementSize,
+                        (long) n * elementSize).order(order);
+
+                if (dtype.isFloat()) {
+                    if (elementSize == 4)
+                        map.asFloatBuffer().get((float[]) buf, 0, n);
+                    else
+                        map.asDoubleBuffer().get((double[]) buf, 0, n);
+                }
+                else {
+                    buf = getMappedIntegers(map, elementSize, isWidened, n, blockPoints, buf);
+                }
+
+                writeBlock(blockStart, blockStride, blockDims, buf);
+                nvalues += n;
+            }
+        }
+
+        log.trace("importBinary(): {} values written from {}", nvalues, fileName);
+
+        return nvalues;
+    }
+
+    /**
+     * Copies n integers of the given size from a mapped file into an array of
+     * blockPoints values, which is allocated if buf is null.
+     */
+    private static Object getMappedIntegers(ByteBuffer map, int elementSize, boolean isWidened, int n,
+            int blockPoints, Object buf) {
+        switch (elementSize) {
+            case 1:
+                if (!isWidened) {
+                    byte[] values = (buf == null) ? new byte[blockPoints] : (byte[]) buf;
+                    map.get(values, 0, n);
+                    return values;
+                }
+                else {
+                    short[] values = (buf == null) ? new short[blockPoints] : (short[]) buf;
+                    for (int i = 0; i < n; i++)
+                        values[i] = (short) (map.get(i) & 0xff);
+                    return values;
+                }
+            case 2:
+                if (!isWidened) {
+                    short[] values = (buf == null) ? new short[blockPoints] : (short[]) buf;
+                    map.asShortBuffer().get(values, 0, n);
+                    return values;
+                }
+                else {
+                    int[] values = (buf == null) ? new int[blockPoints] : (int[]) buf;
+                    for (int i = 0; i < n; i++)
+                        values[i] = map.getShort(2 * i) & 0xffff;
+                    return values;
+                }
+            case 4:
+                if (!isWidened) {
+                    int[] values = (buf == null) ? new int[blockPoints] : (int[]) buf;
+                    map.asIntBuffer().get(values, 0, n);
+                    return values;
+                }
+                else {
+                    long[] values = (buf == null) ? new long[blockPoints] : (long[]) buf;
+                    for (int i = 0; i < n; i++)
+                        values[i] = map.getInt(4 * i) & 0xffffffffL;
+                    return values;
+                }
+            default:
+                long[] values = (buf == null) ? new long[blockPoints] : (long[]) buf;
+                map.asLongBuffer().get(values, 0, n);
+                return values;
+        }
+    }
+
+    private static int getElementSize(char typeClass) {
+        switch (typeClass) {
+            case 'S':
+                return 2;
+            case 'I':
+            case 'F':
+                return 4;
+            case 'J':
+            case 'D':
+                return 8;
+            default:
+                return 1;
+        }
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buf) throws Exception {
+        long nbytes = buf.remaining();
+        while (buf.hasRemaining())
+            channel.write(buf);
+        return nbytes;
+    }
+
+    /**
+     * Returns the NumPy .npy (version 1.0) header of the current selection with
+     * values of the given Java type.
+     */
+    private ByteBuffer getNpyHeader(char typeClass, ByteOrder order) {
+        int elementSize = getElementSize(typeClass);
+
+        String descr;
+        if (elementSize == 1)
+            descr = "|";
+        else
+            descr = (order == ByteOrder.LITTLE_ENDIAN) ? "<" : ">";
+
+        Datatype dtype = getDatatype();
+        if ((typeClass == 'F') || (typeClass == 'D'))
+            descr += "f";
+        else if ((dtype != null) && dtype.isUnsigned() && (dtype.getDatatypeSize() == elementSize))
+            descr += "u";
+        else
+            descr += "i";
+        descr += elementSize;
+
+        StringBuilder shape = new StringBuilder("(");
+        for (int i = 0; i < rank; i++) {
+            shape.append(selectedDims[i]);
+            if ((i < rank - 1) || (rank == 1))
+                shape.append(",");
+            if (i < rank - 1)
+                shape.append(" ");
+        }
+        shape.append(")");
+
+        StringBuilder header = new StringBuilder();
+        header.append("{'descr': '").append(descr).append("', 'fortran_order': False, 'shape': ").append(shape).append(", }");
+
+        // the magic string, version and length take 10 bytes; the data starts on a multiple of 64 bytes
+        int total = 10 + header.length() + 1;
+        int padding = (64 - (total % 64)) % 64;
+        for (int i = 0; i < padding; i++)
+            header.append(' ');
+        header.append('\n');
+
+        byte[] text = header.toString().getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buf = ByteBuffer.allocate(10 + text.length).order(ByteOrder.LITTLE_ENDIAN);
+        buf.put((byte) 0x93).put("NUMPY".getBytes(StandardCharsets.US_ASCII)).put((byte) 1).put((byte) 0);
+        buf.putShort((short) text.length);
+        buf.put(text);
+        buf.flip();
+
+        return buf;
+    }
+
     /**
      * Writes the memory buffer of this dataset to file.
      *
@@ -641,6 +1146,36 @@ public abstract class Dataset extends HObject implements MetaDataContainer, Data
         isDataLoaded = false;
     }
 
+    /**
+     * Sets the memory buffer of the current selection to values read ahead of
+     * time, so that the next getData() returns them without reading the file.
+     * <p>
+     * The buffer must hold the values of the current selection as returned by
+     * read() or readBlock(), before any conversion of unsigned integers. The
+     * dataset keeps a reference to the buffer, so it must not be shared with a
+     * cache that may modify it.
+     *
+     * @param d
+     *            the values of the current selection, or null to read them from
+     *            file on the next getData().
+     *
+     * @see #getData()
+     * @see #readBlock(long[], long[], long[], Object)
+     */
+    public void setSelectionData(Object d) {
+        clearData();
+        if (d == null)
+            return;
+
+        data = d;
+        originalBuf = d;
+        isDataLoaded = true;
+        nPoints = 1;
+        for (int j = 0; j < selectedDims.length; j++) {
+            nPoints *= selectedDims[j];
+        }
+    }
+
     /**
      * Returns the dimension size of the vertical axis.
      *
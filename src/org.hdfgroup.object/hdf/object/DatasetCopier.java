@@ -0,0 +1,419 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the files COPYING and Copyright.html. *
+ * COPYING can be found at the root of the source code distribution tree.    *
+ * Or, see https://support.hdfgroup.org/products/licenses.html               *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DatasetCopier copies a dataset of numbers into a group, possibly of another
+ * file or file format, with a new chunk shape and compression level.
+ * <p>
+ * The data is copied block by block, without reading the whole dataset in
+ * memory: a reader thread reads slabs of whole rows of the first dimension,
+ * aligned to the new chunks, while the calling thread writes the previous
+ * slabs, which compresses the chunks of the new dataset. At most a few slabs
+ * of {@link Dataset#DEFAULT_BLOCK_BYTES} are held in memory.
+ * <p>
+ * The copy can be run on a worker thread: getProgress() and cancel() may be
+ * called from any thread while copy() runs.
+ *
+ * <pre>
+ * DatasetCopier copier = new DatasetCopier(dataset);
+ * copier.setChunkSize(new long[] { 64, 64 });
+ * copier.setGzipLevel(6);
+ * Dataset newDataset = copier.copy(dstGroup, dataset.getName());
+ * </pre>
+ */
+public class DatasetCopier {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DatasetCopier.class);
+
+    /** The number of slabs read ahead of the writer */
+    private static final int       QUEUE_BLOCKS = 3;
+
+    /** The size of the chunks chosen when the new dataset must be chunked */
+    private static final long      DEFAULT_CHUNK_BYTES = 1024 * 1024;
+
+    /** Marks the end of the slabs read */
+    private static final Block     END = new Block(null, null, null);
+
+    private final Dataset          srcDataset;
+    private long[]                 chunkSize = null;
+    private int                    gzipLevel = 0;
+
+    private volatile long          pointsWritten = 0;
+    private volatile long          totalPoints   = 0;
+    private volatile boolean       isCancelled   = false;
+
+    /**
+     * Creates a copier for a dataset.
+     *
+     * @param dset
+     *            the dataset to copy.
+     */
+    public DatasetCopier(Dataset dset) {
+        if (dset == null)
+            throw new IllegalArgumentException("dataset is null");
+
+        this.srcDataset = dset;
+    }
+
+    /**
+     * Checks if a dataset can be copied by a DatasetCopier. Only scalar datasets
+     * of integers or floating-point numbers with at least one dimension are
+     * supported. Datasets with attributes of references, such as attached
+     * dimension scales, are not supported, as the references of the copied
+     * attributes would still point into the file of the dataset.
+     *
+     * @param dset
+     *            the dataset.
+     *
+     * @return true if the dataset can be copied.
+     */
+    public static boolean isSupported(Dataset dset) {
+        if (!(dset instanceof ScalarDS))
+            return false;
+
+        try {
+            if (!dset.isInited())
+                dset.init();
+
+            Datatype dtype = dset.getDatatype();
+            if ((dset.getRank() <= 0) || (dtype == null) || !(dtype.isInteger() || dtype.isFloat()))
+                return false;
+
+            List<?> attrs = ((MetaDataContainer) dset).getMetadata();
+            if (attrs != null) {
+                for (Object attr : attrs) {
+                    if ((attr instanceof Attribute) && hasReference(((Attribute) attr).getDatatype()))
+                        return false;
+                }
+            }
+
+            return true;
+        }
+        catch (Exception ex) {
+            log.debug("isSupported(): {} failure: ", dset.getFullName(), ex);
+            return false;
+        }
+    }
+
+    /**
+     * Sets the chunk size of the new dataset. If it is null, the chunk size of the
+     * source dataset is kept; a chunk size is chosen if the source dataset is not
+     * chunked and the new one must be, because it is compressed or extendible.
+     *
+     * @param chunks
+     *            the chunk size, of the rank of the dataset, or null.
+     */
+    public void setChunkSize(long[] chunks) {
+        this.chunkSize = (chunks == null) ? null : chunks.clone();
+    }
+
+    /**
+     * Sets the GZIP compression level of the new dataset.
+     *
+     * @param level
+     *            the compression level (1 to 9), or 0 for no compression.
+     */
+    public void setGzipLevel(int level) {
+        this.gzipLevel = Math.max(0, Math.min(9, level));
+    }
+
+    /**
+     * Copies the dataset into a group, with its attributes.
+     *
+     * @param dstGroup
+     *            the group of the new dataset.
+     * @param dstName
+     *            the name of the new dataset.
+     *
+     * @return the new dataset, or null if the copy was cancelled.
+     *
+     * @throws Exception
+     *             if the dataset is not supported, or can not be read or created
+     */
+    public Dataset copy(Group dstGroup, String dstName) throws Exception {
+        if (!isSupported(srcDataset))
+            throw new UnsupportedOperationException("copy(): unsupported dataset " + srcDataset.getFullName());
+
+        int rank = srcDataset.getRank();
+        long[] dims = srcDataset.getDims().clone();
+        long[] maxDims = srcDataset.getMaxDims().clone();
+        Datatype srcType = srcDataset.getDatatype();
+
+        FileFormat dstFile = dstGroup.getFileFormat();
+        Datatype dstType = dstFile.createDatatype(srcType.getDatatypeClass(), (int) srcType.getDatatypeSize(),
+                srcType.getDatatypeOrder(), srcType.getDatatypeSign());
+
+        boolean isExtendible = false;
+        for (int i = 0; i < rank; i++)
+            isExtendible |= (maxDims[i] != dims[i]);
+
+        long[] chunks = chunkSize;
+        if ((chunks != null) && (chunks.length != rank))
+            chunks = null;
+        if (chunks == null)
+            chunks = srcDataset.getChunkSize();
+        if ((chunks == null) && ((gzipLevel > 0) || isExtendible))
+            chunks = getDefaultChunkSize(dims, srcType.getDatatypeSize());
+        if (chunks != null) {
+            chunks = chunks.clone();
+            for (int i = 0; i < rank; i++)
+                chunks[i] = Math.max(1, Math.min(chunks[i], Math.max(1, dims[i])));
+        }
+
+        log.trace("copy(): {} to {} chunks={} gzip={}", srcDataset.getFullName(), dstName, chunks, gzipLevel);
+
+        Dataset dstDataset = dstFile.createScalarDS(dstName, dstGroup, dstType, dims, maxDims, chunks, gzipLevel, null);
+        if (dstDataset == null)
+            throw new Exception("copy(): failed to create dataset " + dstName);
+
+        copyData(dstDataset, chunks);
+        if (isCancelled)
+            return null;
+
+        copyAttributes(srcDataset, dstDataset);
+
+        return dstDataset;
+    }
+
+    /**
+     * Cancels the copy. The new dataset keeps the data written so far.
+     */
+    public void cancel() {
+        isCancelled = true;
+    }
+
+    /**
+     * Returns true if the copy was cancelled.
+     *
+     * @return true if the copy was cancelled.
+     */
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    /**
+     * Returns the fraction of the values written so far.
+     *
+     * @return the progress of the copy, between 0 and 1.
+     */
+    public double getProgress() {
+        long total = totalPoints;
+        return (total <= 0) ? 0 : (double) pointsWritten / total;
+    }
+
+    /**
+     * Copies the attributes of an object to another object. The attributes that
+     * can not be written are skipped, and so are the attributes of references,
+     * whose values would still point into the file of the source object.
+     *
+     * @param src
+     *            the object to copy the attributes from.
+     * @param dst
+     *            the object to copy the attributes to.
+     */
+    public static void copyAttributes(HObject src, HObject dst) {
+        if (!(src instanceof MetaDataContainer) || !(dst instanceof MetaDataContainer))
+            return;
+
+        List<?> attrs = null;
+        try {
+            attrs = ((MetaDataContainer) src).getMetadata();
+        }
+        catch (Exception ex) {
+            log.debug("copyAttributes(): {} getMetadata failure: ", src.getFullName(), ex);
+        }
+
+        if (attrs == null)
+            return;
+
+        for (Object attr : attrs) {
+            if ((attr instanceof Attribute) && hasReference(((Attribute) attr).getDatatype())) {
+                log.debug("copyAttributes(): {} reference attribute {} skipped", src.getFullName(), ((Attribute) attr).getName());
+                continue;
+            }
+
+            try {
+                ((MetaDataContainer) dst).writeMetadata(attr);
+            }
+            catch (Exception ex) {
+                log.debug("copyAttributes(): {} writeMetadata failure: ", dst.getFullName(), ex);
+            }
+        }
+    }
+
+    /** Checks if a datatype is a reference or is made of references. */
+    private static boolean hasReference(Datatype dtype) {
+        if (dtype == null)
+            return false;
+        if (dtype.isRef())
+            return true;
+        if (hasReference(dtype.getDatatypeBase()))
+            return true;
+
+        List<Datatype> memberTypes = dtype.isCompound() ? dtype.getCompoundMemberTypes() : null;
+        if (memberTypes != null) {
+            for (Datatype memberType : memberTypes) {
+                if (hasReference(memberType))
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns a chunk size of about DEFAULT_CHUNK_BYTES, made by halving the
+     * largest dimension of the dataset.
+     */
+    private static long[] getDefaultChunkSize(long[] dims, long elementSize) {
+        long[] chunks = new long[dims.length];
+        long bytes = Math.max(1, elementSize);
+        for (int i = 0; i < dims.length; i++) {
+            chunks[i] = Math.max(1, dims[i]);
+            bytes *= chunks[i];
+        }
+
+        while (bytes > DEFAULT_CHUNK_BYTES) {
+            int largest = 0;
+            for (int i = 1; i < chunks.length; i++) {
+                if (chunks[i] > chunks[largest])
+                    largest = i;
+            }
+            if (chunks[largest] == 1)
+                break;
+
+            bytes = bytes / chunks[largest] * ((chunks[largest] + 1) / 2);
+            chunks[largest] = (chunks[largest] + 1) / 2;
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Copies the data in slabs of whole rows of the first dimension, read on a
+     * reader thread and written on the calling thread.
+     */
+    private void copyData(final Dataset dstDataset, long[] chunks) throws Exception {
+        final int rank = srcDataset.getRank();
+        final long[] dims = srcDataset.getDims().clone();
+
+        long rowPoints = 1;
+        for (int i = 1; i < rank; i++)
+            rowPoints *= dims[i];
+
+        totalPoints = rowPoints * dims[0];
+        pointsWritten = 0;
+        if (totalPoints == 0)
+            return;
+
+        // the slabs hold whole chunks of the new dataset, so each chunk is compressed once
+        long elementSize = Math.max(1, srcDataset.getDatatype().getDatatypeSize());
+        long rows = Math.max(1, Dataset.DEFAULT_BLOCK_BYTES / elementSize / rowPoints);
+        if (chunks != null)
+            rows = Math.max(chunks[0], rows / chunks[0] * chunks[0]);
+        if (rows * rowPoints > Integer.MAX_VALUE)
+            throw new UnsupportedOperationException("copy(): the rows of the dataset are too large");
+        final long rowsPerBlock = rows;
+
+        final BlockingQueue<Block> queue = new ArrayBlockingQueue<>(QUEUE_BLOCKS);
+        final Exception[] readError = { null };
+
+        Thread reader = new Thread("Copy " + srcDataset.getName()) {
+            @Override
+            public void run() {
+                long[] stride = new long[rank];
+                Arrays.fill(stride, 1);
+
+                try {
+                    for (long row = 0; (row < dims[0]) && !isCancelled; row += rowsPerBlock) {
+                        long[] start = new long[rank];
+                        long[] count = dims.clone();
+                        start[0] = row;
+                        count[0] = Math.min(rowsPerBlock, dims[0] - row);
+
+                        Object data = srcDataset.readBlock(start, stride, count, null);
+                        Block block = new Block(start, count, data);
+                        while (!isCancelled && !queue.offer(block, 100, TimeUnit.MILLISECONDS)) {
+                            // wait for the writer
+                        }
+                    }
+                }
+                catch (Exception ex) {
+                    readError[0] = ex;
+                }
+                finally {
+                    try {
+                        while (!isCancelled && !queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                            // wait for the writer
+                        }
+                    }
+                    catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        reader.setDaemon(true);
+        reader.start();
+
+        long[] stride = new long[rank];
+        Arrays.fill(stride, 1);
+
+        try {
+            while (!isCancelled) {
+                Block block = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (block == null)
+                    continue;
+                if (block == END)
+                    break;
+
+                dstDataset.writeBlock(block.start, stride, block.count, block.data);
+                pointsWritten += block.count[0] * rowPoints;
+            }
+        }
+        catch (Exception ex) {
+            // stop the reader before reporting the failure
+            isCancelled = true;
+            throw ex;
+        }
+        finally {
+            reader.join();
+        }
+
+        if (readError[0] != null)
+            throw readError[0];
+
+        log.trace("copyData(): {} of {} values copied", pointsWritten, totalPoints);
+    }
+
+    /** A slab of the dataset read for the writer. */
+    private static final class Block {
+        final long[] start;
+        final long[] count;
+        final Object data;
+
+        Block(long[] start, long[] count, Object data) {
+            this.start = start;
+            this.count = count;
+            this.data = data;
+        }
+    }
+}
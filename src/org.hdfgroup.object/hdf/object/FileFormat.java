@@ -15,12 +15,19 @@
 package hdf.object;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.StringTokenizer;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
@@ -180,6 +187,28 @@ public abstract class FileFormat extends File {
     private int                                  max_members        = 10000;      // 10,000 by default
     private int                                  start_members      = 0;          // 0 by default
 
+    /**
+     * Flag indicating if the members of the groups of the file are loaded when
+     * they are first accessed instead of when the file is opened.
+     */
+    private boolean                              isLazyHierarchy    = false;
+
+    /**
+     * The directory of the structure indexes of the files opened read-only, or
+     * null if the structure of the file is not indexed.
+     */
+    private File                                 structureIndexDir  = null;
+
+    /**
+     * The objects in memory by full path and by object ID, built by findObject()
+     * from the groups whose members are loaded, and updated in place when
+     * objects are added, removed or renamed in memory.
+     */
+    private transient volatile ObjectIndex       objectIndex        = null;
+
+    /** Incremented when objects are added, removed or renamed in memory */
+    private final transient AtomicLong           objectVersion      = new AtomicLong();
+
     /**
      * File identifier. -1 indicates the file is not open.
      */
@@ -889,6 +918,132 @@ public abstract class FileFormat extends File {
         return start_members;
     }
 
+    /**
+     * Sets whether the hierarchy of the file is loaded on demand.
+     * <p>
+     * By default, opening a file loads the whole file structure into memory.
+     * With a lazy hierarchy, only the members of the root group are loaded when
+     * the file is opened, and the members of any other group are loaded the
+     * first time the member list of the group is accessed, so the time to open
+     * a file does not depend on the number of objects in the file. The
+     * implementing FileFormat class may ignore this setting.
+     *
+     * @param lazy
+     *            true to load the members of groups on demand.
+     * @see #isLazyHierarchy()
+     * @see Group#isMemberListLoaded()
+     */
+    public final void setLazyHierarchy(boolean lazy) {
+        isLazyHierarchy = lazy;
+    }
+
+    /**
+     * Returns true if the members of the groups of the file are loaded on demand.
+     *
+     * @return true if the hierarchy of the file is loaded on demand.
+     * @see #setLazyHierarchy(boolean)
+     */
+    public final boolean isLazyHierarchy() {
+        return isLazyHierarchy;
+    }
+
+    /**
+     * Sets the directory where the structure of the file is indexed when the
+     * file is opened read-only.
+     * <p>
+     * When the file is opened read-only, the members of its groups are loaded
+     * from the {@link StructureIndex} of the file in this directory, if the file
+     * was not modified since it was indexed. The groups loaded from the file are
+     * added to the index when the file is closed, so reopening a file that does
+     * not change does not rediscover its structure. The implementing FileFormat
+     * class may ignore this setting.
+     *
+     * @param dir
+     *            the directory of the structure indexes, or null to not index
+     *            the structure of the file.
+     * @see #getStructureIndexDirectory()
+     */
+    public final void setStructureIndexDirectory(File dir) {
+        structureIndexDir = dir;
+    }
+
+    /**
+     * Returns the directory where the structure of the file is indexed.
+     *
+     * @return the directory of the structure indexes, or null if the structure of
+     *         the file is not indexed.
+     * @see #setStructureIndexDirectory(File)
+     */
+    public final File getStructureIndexDirectory() {
+        return structureIndexDir;
+    }
+
+    /**
+     * Discards the index of the objects in memory used by findObject(), for
+     * example when the file is closed, so that the index is rebuilt at the next
+     * search.
+     */
+    public final void invalidateObjectIndex() {
+        objectVersion.incrementAndGet();
+        objectIndex = null;
+    }
+
+    /**
+     * Adds an object added to the member list of a group, and the objects in
+     * memory under it, to the index of the objects used by findObject(), if the
+     * group is in the index.
+     *
+     * @param group
+     *            the group of the object.
+     * @param obj
+     *            the object added.
+     */
+    final void objectAdded(Group group, HObject obj) {
+        List<HObject> objects = getLoadedObjects(obj);
+
+        objectVersion.incrementAndGet();
+        ObjectIndex index = objectIndex;
+        if ((index != null) && index.contains(group)) {
+            for (HObject theObj : objects)
+                index.add(theObj);
+        }
+    }
+
+    /**
+     * Removes an object removed from the member list of a group, and the
+     * objects in memory under it, from the index of the objects used by
+     * findObject().
+     *
+     * @param obj
+     *            the object removed.
+     */
+    final void objectRemoved(HObject obj) {
+        List<HObject> objects = getLoadedObjects(obj);
+
+        objectVersion.incrementAndGet();
+        ObjectIndex index = objectIndex;
+        if (index != null) {
+            for (HObject theObj : objects)
+                index.remove(theObj);
+        }
+    }
+
+    /**
+     * Moves a renamed object to its new full name in the index of the objects
+     * used by findObject().
+     *
+     * @param obj
+     *            the object renamed.
+     * @param oldFullName
+     *            the full name of the object before it was renamed.
+     */
+    final void objectRenamed(HObject obj, String oldFullName) {
+        objectVersion.incrementAndGet();
+        ObjectIndex index = objectIndex;
+        if (index != null)
+            index.rename(obj, oldFullName);
+    }
+
     /**
      * Returns the number of objects in memory.
      * <p>
@@ -1751,19 +1906,15 @@ public abstract class FileFormat extends File {
             return null;
         }
 
-        HObject theObj = null;
-
-        HObject theRoot = file.getRootObject();
-        if (theRoot == null) {
+        ObjectIndex index = file.getObjectIndex();
+        if (index == null) {
             log.debug("findObject(): rootObject is null");
             return null;
         }
 
-        Iterator<HObject> member_it = ((Group) theRoot).breadthFirstMemberList().iterator();
-        while (member_it.hasNext()) {
-            theObj = member_it.next();
-            if (theObj.equalsOID(oid)) break;
-        }
+        HObject theObj = index.get(oid);
+        if ((theObj == null) && file.isLazyHierarchy())
+            theObj = findObjectInFile((Group) index.root, oid);
 
         return theObj;
     }
@@ -1801,23 +1952,215 @@ public abstract class FileFormat extends File {
             return theRoot;
         }
 
-        Iterator<HObject> member_it = ((Group) theRoot).breadthFirstMemberList().iterator();
-        HObject theObj = null;
-        while (member_it.hasNext()) {
-            theObj = member_it.next();
-            String fullPath = theObj.getFullName() + "/";
+        ObjectIndex index = file.getObjectIndex();
+        if (index == null) {
+            log.debug("findObject(): rootObject is not a group");
+            return null;
+        }
 
-            if (path.equals(fullPath) && theObj.getPath() != null) {
-                break;
-            }
-            else {
-                theObj = null;
+        String fullName = path.substring(0, path.length() - 1);
+        HObject theObj = index.get(fullName);
+        if ((theObj == null) && file.isLazyHierarchy())
+            theObj = findObjectInFile((Group) index.root, fullName);
+
+        return theObj;
+    }
+
+    /**
+     * Returns the index of the objects in memory, built from the members of the
+     * groups whose members are loaded, in breadth-first order, if the root
+     * object changed since the index was built. No group is read from file.
+     *
+     * @return the index of the objects, or null if the root object is not a
+     *         group.
+     */
+    private ObjectIndex getObjectIndex() {
+        HObject theRoot = getRootObject();
+        if (!(theRoot instanceof Group)) {
+            objectIndex = null;
+            return null;
+        }
+
+        ObjectIndex index = objectIndex;
+        if ((index != null) && (index.root == theRoot))
+            return index;
+
+        // an object added, removed or renamed by another thread during the walk
+        // may be missed: the index is then used for this search only
+        long version = objectVersion.get();
+        index = new ObjectIndex(theRoot);
+        List<HObject> objects = getLoadedObjects(theRoot);
+        for (int i = 1; i < objects.size(); i++)
+            index.add(objects.get(i));
+
+        log.trace("getObjectIndex(): {} objects indexed", objects.size() - 1);
+
+        objectIndex = index;
+        if (objectVersion.get() != version)
+            objectIndex = null;
+
+        return index;
+    }
+
+    /**
+     * Returns an object and the objects in memory under it, in breadth-first
+     * order, without reading the members of any group from file.
+     */
+    private static List<HObject> getLoadedObjects(HObject obj) {
+        List<HObject> objects = new ArrayList<>();
+        objects.add(obj);
+        for (int i = 0; i < objects.size(); i++) {
+            if (objects.get(i) instanceof Group)
+                objects.addAll(((Group) objects.get(i)).getLoadedMemberList());
+        }
+
+        return objects;
+    }
+
+    /**
+     * Finds an object by the names of the groups on its path, reading the
+     * members of these groups from file if they are not loaded.
+     */
+    private static HObject findObjectInFile(Group root, String fullName) {
+        HObject theObj = root;
+        StringTokenizer st = new StringTokenizer(fullName, HObject.SEPARATOR);
+        while ((theObj != null) && st.hasMoreTokens()) {
+            if (!(theObj instanceof Group))
+                return null;
+
+            String name = st.nextToken();
+            Iterator<HObject> member_it = ((Group) theObj).getMemberList().iterator();
+            theObj = null;
+            while (member_it.hasNext() && (theObj == null)) {
+                HObject member = member_it.next();
+                if (name.equals(member.getName()))
+                    theObj = member;
             }
         }
 
+        log.trace("findObjectInFile({}): found={}", fullName, theObj != null);
+
         return theObj;
     }
 
+    /**
+     * Finds an object by object ID in breadth-first order, reading the members
+     * of the groups from file if they are not loaded, until the object is found.
+     */
+    private static HObject findObjectInFile(Group root, long[] oid) {
+        Queue<Group> queue = new LinkedList<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Iterator<HObject> member_it = queue.remove().getMemberList().iterator();
+            while (member_it.hasNext()) {
+                HObject theObj = member_it.next();
+                if (theObj.equalsOID(oid))
+                    return theObj;
+
+                if ((theObj instanceof Group) && (((Group) theObj).getNumberOfMembersInFile() > 0))
+                    queue.add((Group) theObj);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * The objects in memory under the root group by full path and by object ID.
+     * When several objects have the same path or ID, the first one indexed is
+     * kept, as found by a search of the tree.
+     */
+    private static final class ObjectIndex {
+        final HObject                   root;
+        final Map<String, HObject>      paths   = new HashMap<>();
+        final Map<OIDKey, HObject>      oids    = new HashMap<>();
+
+        /** The length of the object IDs, or -1 if the lengths differ */
+        int                             oidLength = 0;
+
+        /** Set when an object is removed, as another object may have the same ID */
+        boolean                         isOIDRemoved = false;
+
+        ObjectIndex(HObject root) {
+            this.root = root;
+        }
+
+        synchronized boolean contains(HObject theObj) {
+            return (theObj == root) || (paths.get(theObj.getFullName()) == theObj);
+        }
+
+        synchronized void add(HObject theObj) {
+            if (theObj.getPath() != null)
+                paths.putIfAbsent(theObj.getFullName(), theObj);
+
+            long[] oid = theObj.getOID();
+            if ((oid == null) || (oid.length == 0))
+                return;
+
+            if (oidLength == 0)
+                oidLength = oid.length;
+            else if (oidLength != oid.length)
+                oidLength = -1;
+
+            oids.putIfAbsent(new OIDKey(oid), theObj);
+        }
+
+        synchronized void remove(HObject theObj) {
+            paths.remove(theObj.getFullName(), theObj);
+
+            long[] oid = theObj.getOID();
+            if ((oid != null) && (oid.length > 0) && oids.remove(new OIDKey(oid), theObj))
+                isOIDRemoved = true;
+        }
+
+        synchronized void rename(HObject theObj, String oldFullName) {
+            if (paths.remove(oldFullName, theObj) && (theObj.getPath() != null))
+                paths.putIfAbsent(theObj.getFullName(), theObj);
+        }
+
+        synchronized HObject get(String fullName) {
+            return paths.get(fullName);
+        }
+
+        synchronized HObject get(long[] oid) {
+            if (oid.length == 0)
+                return null;
+
+            HObject theObj = oids.get(new OIDKey(oid));
+            if ((theObj != null) || ((oid.length == oidLength) && !isOIDRemoved))
+                return theObj;
+
+            // equalsOID() compares the common part of IDs of different lengths
+            for (HObject obj : paths.values()) {
+                if (obj.equalsOID(oid))
+                    return obj;
+            }
+
+            return null;
+        }
+    }
+
+    /** An object ID as a hash key. */
+    private static final class OIDKey {
+        final long[] oid;
+        final int    hash;
+
+        OIDKey(long[] oid) {
+            this.oid = oid.clone();
+            this.hash = Arrays.hashCode(oid);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return (obj instanceof OIDKey) && Arrays.equals(oid, ((OIDKey) obj).oid);
+        }
+    }
+
     // ////////////////////////////////////////////////////////////////////////////////////
     // Added to support HDF5 1.8 features //
     // ////////////////////////////////////////////////////////////////////////////////////
@@ -1922,7 +2265,9 @@ public abstract class FileFormat extends File {
      * @param object
      *            The HDF5 dataset object.
      * @param binary_order
-     *            The data byte order
+     *            The data byte order: 1 for native order, 2 for little endian,
+     *            3 for big endian, 4 for a NumPy .npy file in native order, or
+     *            99 for text
      *
      * @throws Exception
      *             The exceptions thrown vary depending on the implementing class.
@@ -14,6 +14,8 @@
 
 package hdf.object;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -114,7 +116,14 @@ public abstract class Group extends HObject implements MetaDataContainer {
      */
     public void clear() {
         if (memberList != null) {
+            List<HObject> members = new ArrayList<>(memberList);
             ((Vector<HObject>) memberList).setSize(0);
+
+            FileFormat theFile = this.getFileFormat();
+            if (theFile != null) {
+                for (HObject member : members)
+                    theFile.objectRemoved(member);
+            }
         }
     }
 
@@ -133,6 +142,8 @@ public abstract class Group extends HObject implements MetaDataContainer {
 
         if ((object != null) && !memberList.contains(object)) {
             memberList.add(object);
+            if (this.getFileFormat() != null)
+                this.getFileFormat().objectAdded(this, object);
         }
     }
 
@@ -144,8 +155,8 @@ public abstract class Group extends HObject implements MetaDataContainer {
      *            list.
      */
     public void removeFromMemberList(HObject object) {
-        if (memberList != null) {
-            memberList.remove(object);
+        if ((memberList != null) && memberList.remove(object) && (this.getFileFormat() != null)) {
+            this.getFileFormat().objectRemoved(object);
         }
     }
 
@@ -201,6 +212,33 @@ public abstract class Group extends HObject implements MetaDataContainer {
         return memberList;
     }
 
+    /**
+     * Checks if the members of this group are in memory.
+     * <p>
+     * When a file is opened with a lazy hierarchy (see
+     * {@link FileFormat#setLazyHierarchy(boolean)}), the members of a group are
+     * read from file the first time the member list of the group is accessed.
+     *
+     * @return true if the members of this group have been loaded.
+     */
+    public boolean isMemberListLoaded() {
+        return true;
+    }
+
+    /**
+     * Returns the members of this group in memory, without reading them from
+     * file: an empty list if the members of the group are not loaded.
+     *
+     * @return a copy of the member list of this group in memory.
+     */
+    List<HObject> getLoadedMemberList() {
+        List<HObject> members = memberList;
+        if ((members == null) || !isMemberListLoaded())
+            return Collections.emptyList();
+
+        return new ArrayList<>(members);
+    }
+
     /**
      * @return the members of this Group in breadth-first order.
      */
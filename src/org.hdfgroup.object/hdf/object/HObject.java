@@ -295,7 +295,10 @@ public abstract class HObject implements Serializable {
             throw new IllegalArgumentException("The new name contains the SEPARATOR character: " + HObject.SEPARATOR);
         }
 
+        String oldFullName = fullName;
         name = newName;
+        fullName = createFullname(path, name);
+        objectRenamed(oldFullName);
     }
 
     /**
@@ -316,7 +319,10 @@ public abstract class HObject implements Serializable {
             newPath = "/";
         }
 
+        String oldFullName = fullName;
         path = newPath;
+        fullName = createFullname(path, name);
+        objectRenamed(oldFullName);
     }
 
     public void setFullname(String thePath, String theName) throws Exception {
@@ -378,10 +384,12 @@ public abstract class HObject implements Serializable {
             }
         }
 
+        String oldFullName = this.fullName;
         this.name = theName;
         this.path = thePath;
 
         this.fullName = createFullname(thePath, theName);
+        objectRenamed(oldFullName);
     }
 
     public String createFullname(String thePath, String theName) {
@@ -462,6 +470,16 @@ public abstract class HObject implements Serializable {
         return fileFormat;
     }
 
+    /**
+     * Updates the index of the objects of the file used by
+     * FileFormat.findObject() after the full name of this object changed.
+     */
+    private void objectRenamed(String oldFullName) {
+        if ((fileFormat != null) && (oldFullName != null)) {
+            fileFormat.objectRenamed(this, oldFullName);
+        }
+    }
+
     /**
      * Returns a cloned copy of the object identifier.
      * <p>
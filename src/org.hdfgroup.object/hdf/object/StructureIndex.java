@@ -0,0 +1,410 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the files COPYING and Copyright.html. *
+ * COPYING can be found at the root of the source code distribution tree.    *
+ * Or, see https://support.hdfgroup.org/products/licenses.html               *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StructureIndex is an on-disk index of the structure of a file: the names,
+ * object types and object IDs of the members of its groups. A FileFormat that
+ * is opened read-only can load the members of its groups from the index instead
+ * of from the file, and records the groups it loads from the file into the
+ * index, which is saved when the file is closed.
+ * <p>
+ * The index of a file is stored in an index directory, in a file named after
+ * the path of the data file. It is used only if the length and the time of the
+ * last modification of the data file are the ones it was built for; otherwise,
+ * it is rebuilt. The member lists of the groups are read from the index file
+ * only when they are requested, so the time to open an index does not depend
+ * on the number of objects in the file.
+ *
+ * <pre>
+ * StructureIndex index = StructureIndex.open(indexDir, new File(fileName));
+ * List&lt;StructureIndex.Entry&gt; members = index.getMembers("/");
+ * if (members == null) {
+ *     members = ... // load the members of the group from the file
+ *     index.putMembers("/", members);
+ * }
+ * index.save();
+ * </pre>
+ */
+public class StructureIndex {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(StructureIndex.class);
+
+    /** An object that can not be identified, such as a dangling link */
+    public static final int         UNKNOWN = 0;
+
+    /** A group */
+    public static final int         GROUP = 1;
+
+    /** A dataset that is not a compound dataset */
+    public static final int         DATASET = 2;
+
+    /** A compound dataset */
+    public static final int         COMPOUND_DATASET = 3;
+
+    /** A named datatype */
+    public static final int         DATATYPE = 4;
+
+    private static final int        MAGIC = 0x48564958; // "HVIX"
+
+    private static final int        VERSION = 1;
+
+    private static final String     INDEX_SUFFIX = ".idx";
+
+    private final File              indexFile;
+    private final String            dataPath;
+    private final long              dataLength;
+    private final long              dataModified;
+
+    /**
+     * The length and time of the last modification of the index file the group
+     * table was read from, so that the member lists are not read from an index
+     * file replaced since
+     */
+    private long                    indexLength = -1;
+    private long                    indexModified = 0;
+
+    /** The position and length of the member list of each group in the index file */
+    private final Map<String, long[]> groupTable = new HashMap<>();
+
+    /** The member lists added since the index was opened */
+    private final Map<String, List<Entry>> addedGroups = new LinkedHashMap<>();
+
+    /**
+     * A member of a group in the index.
+     */
+    public static final class Entry {
+        private final String name;
+        private final int    type;
+        private final long[] oid;
+
+        /**
+         * Creates an entry.
+         *
+         * @param name
+         *            the name of the member.
+         * @param type
+         *            the object type of the member, such as GROUP or DATASET.
+         * @param oid
+         *            the object ID of the member.
+         */
+        public Entry(String name, int type, long[] oid) {
+            this.name = name;
+            this.type = type;
+            this.oid = (oid == null) ? new long[0] : oid;
+        }
+
+        /** @return the name of the member. */
+        public String getName() {
+            return name;
+        }
+
+        /** @return the object type of the member, such as GROUP or DATASET. */
+        public int getType() {
+            return type;
+        }
+
+        /** @return the object ID of the member. */
+        public long[] getOID() {
+            return oid;
+        }
+    }
+
+    private StructureIndex(File indexFile, File dataFile) {
+        this.indexFile = indexFile;
+        this.dataPath = dataFile.getAbsolutePath();
+        this.dataLength = dataFile.length();
+        this.dataModified = dataFile.lastModified();
+    }
+
+    /**
+     * Opens the index of a data file in an index directory. If the index does not
+     * exist or does not match the data file, an empty index is returned, which
+     * is filled by putMembers() and written by save().
+     *
+     * @param indexDir
+     *            the directory of the index files.
+     * @param dataFile
+     *            the data file.
+     *
+     * @return the index of the data file, or null if the index directory can not
+     *         be used.
+     */
+    public static StructureIndex open(File indexDir, File dataFile) {
+        if ((indexDir == null) || (dataFile == null) || !dataFile.isFile())
+            return null;
+
+        if (!indexDir.isDirectory() && !indexDir.mkdirs()) {
+            log.debug("open(): failed to create index directory {}", indexDir);
+            return null;
+        }
+
+        File dataPath;
+        try {
+            dataPath = dataFile.getCanonicalFile();
+        }
+        catch (IOException ex) {
+            dataPath = dataFile.getAbsoluteFile();
+        }
+
+        StructureIndex index = new StructureIndex(new File(indexDir, getIndexName(dataPath.getPath())), dataPath);
+        if (index.indexFile.isFile()) {
+            try {
+                index.load();
+            }
+            catch (Exception ex) {
+                log.debug("open(): invalid index {}: ", index.indexFile, ex);
+                index.indexLength = -1;
+                index.groupTable.clear();
+            }
+        }
+
+        log.trace("open(): {} groups indexed for {}", index.groupTable.size(), dataPath);
+
+        return index;
+    }
+
+    /**
+     * Returns the members of a group, or null if the group is not in the index.
+     *
+     * @param groupPath
+     *            the key of the group, such as its full path.
+     *
+     * @return the members of the group, or null if the group is not indexed.
+     */
+    public synchronized List<Entry> getMembers(String groupPath) {
+        List<Entry> members = addedGroups.get(groupPath);
+        if (members != null)
+            return Collections.unmodifiableList(members);
+
+        long[] location = groupTable.get(groupPath);
+        if (location == null)
+            return null;
+
+        try (RandomAccessFile raf = openIndex()) {
+            ByteBuffer buf = ByteBuffer.wrap(readIndex(raf, location));
+
+            int count = buf.getInt();
+            members = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = getString(buf);
+                int type = buf.get();
+                long[] oid = new long[buf.get()];
+                for (int j = 0; j < oid.length; j++)
+                    oid[j] = buf.getLong();
+                members.add(new Entry(name, type, oid));
+            }
+        }
+        catch (IOException | RuntimeException ex) {
+            log.debug("getMembers(): invalid entries of {}: ", groupPath, ex);
+            groupTable.remove(groupPath);
+            return null;
+        }
+
+        return members;
+    }
+
+    /**
+     * Adds the members of a group to the index.
+     *
+     * @param groupPath
+     *            the key of the group, such as its full path.
+     * @param members
+     *            all the members of the group.
+     */
+    public synchronized void putMembers(String groupPath, List<Entry> members) {
+        if (groupTable.containsKey(groupPath))
+            return;
+
+        addedGroups.put(groupPath, new ArrayList<>(members));
+    }
+
+    /**
+     * Writes the index file if groups were added to the index. The index file is
+     * replaced at once, so that a failure leaves the previous index in place; it
+     * is not kept open between reads, so that it can be replaced on every
+     * platform.
+     */
+    public synchronized void save() {
+        if (addedGroups.isEmpty())
+            return;
+
+        File tmpFile = new File(indexFile.getPath() + ".tmp");
+        Map<String, long[]> table = new LinkedHashMap<>();
+        try {
+            try (RandomAccessFile raf = groupTable.isEmpty() ? null : openIndex();
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                putString(out, dataPath);
+                out.writeLong(dataLength);
+                out.writeLong(dataModified);
+
+                // copy the member lists of the previous index as they are
+                for (Map.Entry<String, long[]> group : groupTable.entrySet()) {
+                    byte[] bytes = readIndex(raf, group.getValue());
+
+                    table.put(group.getKey(), new long[] { out.size(), bytes.length });
+                    out.write(bytes);
+                }
+
+                for (Map.Entry<String, List<Entry>> group : addedGroups.entrySet()) {
+                    long start = out.size();
+                    List<Entry> members = group.getValue();
+                    out.writeInt(members.size());
+                    for (Entry member : members) {
+                        putString(out, member.getName());
+                        out.writeByte(member.getType());
+                        out.writeByte(member.getOID().length);
+                        for (long id : member.getOID())
+                            out.writeLong(id);
+                    }
+
+                    table.put(group.getKey(), new long[] { start, out.size() - start });
+                }
+
+                // DataOutputStream.size() stops counting at Integer.MAX_VALUE
+                if (out.size() == Integer.MAX_VALUE)
+                    throw new IOException("index is too large");
+
+                long tableStart = out.size();
+                out.writeInt(table.size());
+                for (Map.Entry<String, long[]> group : table.entrySet()) {
+                    putString(out, group.getKey());
+                    out.writeLong(group.getValue()[0]);
+                    out.writeLong(group.getValue()[1]);
+                }
+                out.writeLong(tableStart);
+            }
+
+            Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            log.trace("save(): {} groups added to {}", addedGroups.size(), indexFile);
+
+            groupTable.clear();
+            groupTable.putAll(table);
+            addedGroups.clear();
+            indexLength = indexFile.length();
+            indexModified = indexFile.lastModified();
+        }
+        catch (Exception ex) {
+            log.debug("save(): failed to write index {}: ", indexFile, ex);
+            if (!tmpFile.delete())
+                log.debug("save(): failed to delete {}", tmpFile);
+        }
+    }
+
+    /**
+     * Reads the group table of the index file, if the index was built for the
+     * current version of the data file.
+     */
+    private void load() throws Exception {
+        try (RandomAccessFile raf = new RandomAccessFile(indexFile, "r")) {
+            long length = raf.length();
+            if (length > Integer.MAX_VALUE)
+                throw new IOException("index is too large");
+
+            if ((raf.readInt() != MAGIC) || (raf.readInt() != VERSION))
+                throw new IOException("not an index file");
+
+            byte[] path = new byte[raf.readInt()];
+            raf.readFully(path);
+            if (!dataPath.equals(new String(path, StandardCharsets.UTF_8)) || (raf.readLong() != dataLength)
+                    || (raf.readLong() != dataModified)) {
+                log.trace("load(): {} was modified since it was indexed", dataPath);
+                return;
+            }
+
+            raf.seek(length - 8);
+            long tableStart = raf.readLong();
+            ByteBuffer buf = ByteBuffer.wrap(readIndex(raf, new long[] { tableStart, length - 8 - tableStart }));
+            try {
+                int count = buf.getInt();
+                for (int i = 0; i < count; i++) {
+                    String groupPath = getString(buf);
+                    groupTable.put(groupPath, new long[] { buf.getLong(), buf.getLong() });
+                }
+            }
+            catch (BufferUnderflowException | IllegalArgumentException ex) {
+                throw new IOException("truncated index file", ex);
+            }
+
+            indexLength = length;
+            indexModified = indexFile.lastModified();
+        }
+    }
+
+    /** Opens the index file the group table was read from, to read member lists. */
+    private RandomAccessFile openIndex() throws IOException {
+        if ((indexFile.length() != indexLength) || (indexFile.lastModified() != indexModified))
+            throw new IOException("index file " + indexFile + " was replaced");
+
+        return new RandomAccessFile(indexFile, "r");
+    }
+
+    /** Reads the bytes at a location of the index file, given as position and length. */
+    private static byte[] readIndex(RandomAccessFile raf, long[] location) throws IOException {
+        if ((location[0] < 0) || (location[1] < 0) || (location[0] + location[1] > raf.length()))
+            throw new IOException("truncated index file");
+
+        byte[] bytes = new byte[(int) location[1]];
+        raf.seek(location[0]);
+        raf.readFully(bytes);
+        return bytes;
+    }
+
+    /** Returns the name of the index file of a data file, a digest of its path. */
+    private static String getIndexName(String path) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(path.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2 + INDEX_SUFFIX.length());
+            for (byte b : digest)
+                name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            return name.append(INDEX_SUFFIX).toString();
+        }
+        catch (Exception ex) {
+            return Integer.toHexString(path.hashCode()) + INDEX_SUFFIX;
+        }
+    }
+
+    private static void putString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String getString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,342 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the files COPYING and Copyright.html. *
+ * COPYING can be found at the root of the source code distribution tree.    *
+ * Or, see https://support.hdfgroup.org/products/licenses.html               *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * TextExporter writes the values of a dataset to a text file, one line per row
+ * of the fastest varying dimension, without holding the data in memory.
+ * <p>
+ * The dataset is read block by block with {@link DataBlockIterator}, in blocks
+ * sized by the length of their text rather than by the size of their values.
+ * The values of a block are formatted in parallel on the common fork-join pool,
+ * while the next block is read, and the formatted text is written to the file
+ * in order. Only a few pieces of text are formatted ahead of the file, so the
+ * memory used does not depend on the size of the dataset. Integers are written
+ * in decimal, unsigned integers without sign, and floating-point values as by
+ * Float.toString() and Double.toString().
+ * <p>
+ * The selection to export is taken when the exporter is created. If the
+ * dataset reads blocks without changing its selection
+ * ({@link Dataset#hasDirectBlockIO()}), export() can then be run on a worker
+ * thread: getProgress() and cancel() may be called from any thread while
+ * export() runs. An exporter writes the dataset once.
+ *
+ * <pre>
+ * TextExporter exporter = new TextExporter(dataset, ",", true);
+ * exporter.export("data.csv");
+ * </pre>
+ */
+public class TextExporter {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(TextExporter.class);
+
+    /** The number of values formatted by one task */
+    private static final int     VALUES_PER_TASK = 64 * 1024;
+
+    /** The approximate length of the text of a block read from the dataset */
+    private static final long    TEXT_BLOCK_BYTES = 8L * 1024 * 1024;
+
+    private final Dataset        dataset;
+    private final String         delimiter;
+    private final boolean        isWholeDataset;
+    private final DataBlockIterator blocks;
+    private final long           columns;
+
+    private volatile long        pointsWritten = 0;
+    private volatile long        totalPoints   = 0;
+    private volatile boolean     isCancelled   = false;
+
+    /**
+     * Creates an exporter for a dataset.
+     *
+     * @param dset
+     *            the dataset to export.
+     * @param delimiter
+     *            the delimiter written between the values of a line.
+     * @param wholeDataset
+     *            if true, all the values of the dataset are exported; otherwise,
+     *            only the values of the current selection are exported.
+     */
+    public TextExporter(Dataset dset, String delimiter, boolean wholeDataset) {
+        if (dset == null)
+            throw new IllegalArgumentException("dataset is null");
+
+        this.dataset = dset;
+        this.delimiter = (delimiter == null) ? " " : delimiter;
+        this.isWholeDataset = wholeDataset;
+
+        blocks = createIterator();
+        totalPoints = blocks.getTotalPoints();
+
+        long[] count = isWholeDataset ? dataset.getDims() : dataset.getSelectedDims();
+        columns = (count.length > 1) ? Math.max(1, count[count.length - 1]) : 1;
+    }
+
+    /**
+     * Writes the values of the dataset to a text file. An existing file is
+     * replaced. If the export is cancelled, the partial file is deleted.
+     *
+     * @param fileName
+     *            the name of the file to write to.
+     *
+     * @return true if the values were written; false if the export was cancelled.
+     *
+     * @throws Exception
+     *             if the data can not be read or written, or is not supported
+     */
+    public boolean export(String fileName) throws Exception {
+        if (blocks.getPointsRead() > 0)
+            throw new IllegalStateException("export(): the dataset was already exported");
+
+        Datatype dtype = dataset.getDatatype();
+        final boolean isUnsigned = (dtype != null) && dtype.isUnsigned();
+        final long typeSize = (dtype == null) ? 0 : dtype.getDatatypeSize();
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int maxPending = 2 * pool.getParallelism();
+        ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+        ArrayDeque<Integer> pendingPoints = new ArrayDeque<>();
+        boolean isDone = false;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (blocks.hasNext() && !isCancelled) {
+                // read a new buffer for every block, as the previous block may still be formatted
+                blocks.advance();
+                final Object block = dataset.readBlock(blocks.getBlockStart().clone(), blocks.getStride().clone(),
+                        blocks.getBlockDims().clone(), null);
+                final long blockOffset = blocks.getBlockOffset();
+
+                if ((block == null) || !block.getClass().isArray())
+                    throw new UnsupportedOperationException("export(): unsupported data type");
+
+                final boolean isBlockUnsigned = isUnsigned && (getElementSize(block) == typeSize);
+                int length = Array.getLength(block);
+                for (int from = 0; (from < length) && !isCancelled; from += VALUES_PER_TASK) {
+                    final int start = from;
+                    final int end = Math.min(length, from + VALUES_PER_TASK);
+                    pending.add(pool.submit(new Callable<byte[]>() {
+                        @Override
+                        public byte[] call() {
+                            return format(block, start, end, blockOffset, columns, isBlockUnsigned);
+                        }
+                    }));
+                    pendingPoints.add(end - start);
+
+                    // write the text formatted first while the rest is formatted
+                    while (pending.size() > maxPending)
+                        write(channel, pending.poll(), pendingPoints.poll());
+                }
+            }
+
+            while (!pending.isEmpty() && !isCancelled)
+                write(channel, pending.poll(), pendingPoints.poll());
+
+            isDone = !isCancelled;
+        }
+        finally {
+            for (Future<byte[]> task : pending)
+                task.cancel(false);
+
+            if (!isDone && !new File(fileName).delete())
+                log.debug("export(): failed to delete partial file {}", fileName);
+        }
+
+        log.trace("export(): {} of {} values written to {}", pointsWritten, totalPoints, fileName);
+
+        return isDone;
+    }
+
+    /**
+     * Cancels the export. export() returns false as soon as the block being
+     * written is done.
+     */
+    public void cancel() {
+        isCancelled = true;
+    }
+
+    /**
+     * Returns true if the export was cancelled.
+     *
+     * @return true if the export was cancelled.
+     */
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    /**
+     * Returns the fraction of the values written so far.
+     *
+     * @return the progress of the export, between 0 and 1.
+     */
+    public double getProgress() {
+        long total = totalPoints;
+        return (total <= 0) ? 0 : (double) pointsWritten / total;
+    }
+
+    /**
+     * Creates the block iterator over the selection or over the whole dataset,
+     * with blocks of about TEXT_BLOCK_BYTES of text.
+     */
+    private DataBlockIterator createIterator() {
+        if (!dataset.isInited())
+            dataset.init();
+
+        long maxBlockPoints = Math.max(1, TEXT_BLOCK_BYTES / (getCharsPerValue(dataset.getDatatype()) + delimiter.length()));
+
+        if (!isWholeDataset)
+            return dataset.blockIterator(maxBlockPoints);
+
+        // the iterator copies the selection, so it can be restored at once
+        int rank = dataset.getRank();
+        long[] dims = dataset.getDims();
+        long[] start = dataset.getStartDims();
+        long[] stride = dataset.getStride();
+        long[] count = dataset.getSelectedDims();
+
+        long[] oldStart = start.clone();
+        long[] oldStride = (stride == null) ? null : stride.clone();
+        long[] oldCount = count.clone();
+
+        try {
+            for (int i = 0; i < rank; i++) {
+                start[i] = 0;
+                count[i] = dims[i];
+                if (stride != null)
+                    stride[i] = 1;
+            }
+
+            return dataset.blockIterator(maxBlockPoints);
+        }
+        finally {
+            System.arraycopy(oldStart, 0, start, 0, rank);
+            System.arraycopy(oldCount, 0, count, 0, rank);
+            if (stride != null)
+                System.arraycopy(oldStride, 0, stride, 0, rank);
+        }
+    }
+
+    private void write(FileChannel channel, Future<byte[]> task, int points) throws Exception {
+        ByteBuffer buf = ByteBuffer.wrap(Utils.getTaskResult(task));
+        while (buf.hasRemaining())
+            channel.write(buf);
+
+        pointsWritten += points;
+    }
+
+    /** Returns the usual length of the text of a value of the datatype. */
+    private static int getCharsPerValue(Datatype dtype) {
+        long size = (dtype == null) ? 8 : dtype.getDatatypeSize();
+
+        if (size <= 2)
+            return 7;
+        else if (size == 4)
+            return dtype.isFloat() ? 16 : 12;
+        else
+            return 24;
+    }
+
+    private static int getElementSize(Object data) {
+        switch (Utils.getJavaObjectRuntimeClass(data)) {
+            case 'B':
+                return 1;
+            case 'S':
+                return 2;
+            case 'I':
+            case 'F':
+                return 4;
+            case 'J':
+            case 'D':
+                return 8;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Formats the values [start, end) of a block. offset is the position of the
+     * first value of the block in the linearized selection; a line ends after
+     * every columns values.
+     */
+    private byte[] format(Object block, int start, int end, long offset, long columns, boolean isUnsigned) {
+        char typeClass = Utils.getJavaObjectRuntimeClass(block);
+
+        int charsPerValue;
+        switch (typeClass) {
+            case 'B':
+            case 'S':
+                charsPerValue = 7;
+                break;
+            case 'I':
+                charsPerValue = 12;
+                break;
+            case 'F':
+                charsPerValue = 16;
+                break;
+            default:
+                charsPerValue = 24;
+                break;
+        }
+
+        StringBuilder sb = new StringBuilder((end - start) * (charsPerValue + delimiter.length()));
+        for (int i = start; i < end; i++) {
+            switch (typeClass) {
+                case 'B':
+                    byte b = ((byte[]) block)[i];
+                    sb.append(isUnsigned ? (b & 0xff) : b);
+                    break;
+                case 'S':
+                    short s = ((short[]) block)[i];
+                    sb.append(isUnsigned ? (s & 0xffff) : s);
+                    break;
+                case 'I':
+                    int n = ((int[]) block)[i];
+                    sb.append(isUnsigned ? (n & 0xffffffffL) : n);
+                    break;
+                case 'J':
+                    long l = ((long[]) block)[i];
+                    sb.append(isUnsigned ? Long.toUnsignedString(l) : Long.toString(l));
+                    break;
+                case 'F':
+                    sb.append(((float[]) block)[i]);
+                    break;
+                case 'D':
+                    sb.append(((double[]) block)[i]);
+                    break;
+                default:
+                    sb.append(Array.get(block, i));
+                    break;
+            }
+
+            if ((offset + i + 1) % columns == 0)
+                sb.append('\n');
+            else
+                sb.append(delimiter);
+        }
+
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
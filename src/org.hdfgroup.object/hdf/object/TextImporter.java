@@ -0,0 +1,633 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the files COPYING and Copyright.html. *
+ * COPYING can be found at the root of the source code distribution tree.    *
+ * Or, see https://support.hdfgroup.org/products/licenses.html               *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * TextImporter writes the numbers of a text file into a dataset of integers or
+ * floating-point numbers, without loading the file or the dataset in memory.
+ * <p>
+ * The file is memory-mapped in large windows, and each window is split at line
+ * boundaries into chunks that are parsed in parallel on the common fork-join
+ * pool. The numbers are parsed directly from the bytes of the file, without
+ * creating a String for each value. The values are written in the order of
+ * the file, row after row of the first dimension, so a line of the file
+ * usually holds one row of a 2D dataset. Blocks of whole rows are written
+ * with {@link Dataset#writeBlock(long[], long[], long[], Object)}, and the
+ * dataset is extended with {@link Dataset#extend(long[])} when it is too small
+ * and its first dimension can grow.
+ * <p>
+ * Values are separated by the delimiter or by white space; empty values are
+ * skipped. If the dataset writes blocks without changing its selection
+ * ({@link Dataset#hasDirectBlockIO()}), the import can be run on a worker
+ * thread: getProgress() and cancel() may be called from any thread while
+ * importFile() runs.
+ *
+ * <pre>
+ * TextImporter importer = new TextImporter(dataset, &quot;,&quot;);
+ * long rows = importer.importFile(&quot;data.csv&quot;, 0);
+ * </pre>
+ */
+public class TextImporter {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(TextImporter.class);
+
+    /** The size of the windows of the file mapped in memory */
+    private static final long     MAP_BYTES   = 256L * 1024 * 1024;
+
+    /** The size of the chunks of text parsed by one task */
+    private static final int      CHUNK_BYTES = 4 * 1024 * 1024;
+
+    /** The number of values written to the dataset at once */
+    private static final long     BLOCK_VALUES = Dataset.DEFAULT_BLOCK_BYTES / 8;
+
+    private static final double[] POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+            1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    private static final float[]  POW10F = { 1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+
+    private final Dataset         dataset;
+    private final boolean[]       isSeparator = new boolean[256];
+
+    private volatile long         bytesParsed = 0;
+    private volatile long         fileSize    = 0;
+    private volatile boolean      isCancelled = false;
+
+    /* the kind of values of the dataset */
+    private boolean               isFloat;
+    private boolean               isFloat32;
+    private long                  minValue;
+    private long                  maxValue;
+    private boolean               isUnsigned64;
+
+    /* the block of rows being filled */
+    private Object                block;
+    private int                   blockFill;
+    private long                  rowValues;
+    private long                  nextRow;
+    private long                  rowLimit;
+
+    /**
+     * Creates an importer for a dataset.
+     *
+     * @param dset
+     *            the dataset to write to.
+     * @param delimiter
+     *            the characters that separate the values in addition to white
+     *            space, or null.
+     */
+    public TextImporter(Dataset dset, String delimiter) {
+        if (dset == null)
+            throw new IllegalArgumentException("dataset is null");
+
+        this.dataset = dset;
+
+        isSeparator[' '] = true;
+        isSeparator['\t'] = true;
+        isSeparator['\r'] = true;
+        isSeparator['\n'] = true;
+        if (delimiter != null) {
+            for (byte b : delimiter.getBytes(StandardCharsets.UTF_8))
+                isSeparator[b & 0xff] = true;
+        }
+    }
+
+    /**
+     * Writes the numbers of a text file into the dataset, starting at the given
+     * row of the first dimension. The rows that do not fit in the dataset are
+     * ignored, unless the dataset can be extended.
+     *
+     * @param fileName
+     *            the name of the text file.
+     * @param firstRow
+     *            the index, in the first dimension, of the first row written.
+     *
+     * @return the number of rows written.
+     *
+     * @throws Exception
+     *             if the file can not be read or parsed, or the dataset can not
+     *             be written
+     */
+    public long importFile(String fileName, long firstRow) throws Exception {
+        if (!dataset.isInited())
+            dataset.init();
+
+        initValueType(dataset.getDatatype());
+
+        long[] dims = dataset.getDims();
+        long[] maxDims = dataset.getMaxDims();
+        rowValues = 1;
+        for (int i = 1; i < dataset.getRank(); i++)
+            rowValues *= dims[i];
+
+        long rowsPerBlock = Math.max(1, BLOCK_VALUES / Math.max(1, rowValues));
+        if (rowsPerBlock * rowValues > Integer.MAX_VALUE)
+            throw new UnsupportedOperationException("importFile(): the rows of the dataset are too large");
+
+        rowLimit = dims[0];
+        if ((maxDims != null) && (maxDims[0] < 0))
+            rowLimit = Long.MAX_VALUE;
+        else if ((maxDims != null) && (maxDims[0] > dims[0]))
+            rowLimit = maxDims[0];
+
+        block = allocateBlock(dataset.getDatatype(), (int) (rowsPerBlock * rowValues));
+        blockFill = 0;
+        nextRow = firstRow;
+        bytesParsed = 0;
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int maxPending = 2 * pool.getParallelism();
+        ArrayDeque<Future<Values>> pending = new ArrayDeque<>();
+        long ignoredValues = 0;
+        long position = 0;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            fileSize = channel.size();
+
+            while ((position < fileSize) && !isCancelled && (nextRow < rowLimit)) {
+                long length = Math.min(MAP_BYTES, fileSize - position);
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                // the window ends at the last line that is complete
+                int end = (int) length;
+                if (position + length < fileSize) {
+                    end = lastLineEnd(map, end);
+                    if (end == 0)
+                        throw new UnsupportedOperationException("importFile(): line too long at offset " + position);
+                }
+
+                for (int from = 0; (from < end) && !isCancelled; ) {
+                    int to = Math.min(end, from + CHUNK_BYTES);
+                    if (to < end)
+                        to = nextLineEnd(map, to, end);
+
+                    ByteBuffer chunk = map.duplicate();
+                    chunk.limit(to).position(from);
+                    final ByteBuffer text = chunk.slice();
+                    pending.add(pool.submit(new Callable<Values>() {
+                        @Override
+                        public Values call() {
+                            return parse(text);
+                        }
+                    }));
+
+                    while (pending.size() > maxPending)
+                        ignoredValues += addValues(Utils.getTaskResult(pending.poll()));
+
+                    from = to;
+                }
+
+                position += end;
+            }
+
+            while (!pending.isEmpty() && !isCancelled)
+                ignoredValues += addValues(Utils.getTaskResult(pending.poll()));
+
+            if (!isCancelled) {
+                int rows = (int) (blockFill / rowValues);
+                if (rows > 0)
+                    writeRows(rows);
+
+                // the values left did not fit in the dataset or did not make a whole row
+                ignoredValues += blockFill;
+            }
+        }
+        finally {
+            for (Future<Values> task : pending)
+                task.cancel(false);
+
+            block = null;
+        }
+
+        log.trace("importFile(): rows {} to {} written from {}, {} values ignored", firstRow, nextRow, fileName, ignoredValues);
+
+        if (!isCancelled && ((ignoredValues > 0) || (position < fileSize))) {
+            throw new Exception((nextRow - firstRow) + " rows imported; the rest of the file did not fit in the dataset"
+                    + " or did not make a complete row");
+        }
+
+        return nextRow - firstRow;
+    }
+
+    /**
+     * Cancels the import. The rows already written are kept.
+     */
+    public void cancel() {
+        isCancelled = true;
+    }
+
+    /**
+     * Returns true if the import was cancelled.
+     *
+     * @return true if the import was cancelled.
+     */
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    /**
+     * Returns the fraction of the file parsed so far.
+     *
+     * @return the progress of the import, between 0 and 1.
+     */
+    public double getProgress() {
+        long total = fileSize;
+        return (total <= 0) ? 0 : (double) bytesParsed / total;
+    }
+
+    private void initValueType(Datatype dtype) {
+        if ((dtype == null) || !(dtype.isInteger() || dtype.isFloat()))
+            throw new UnsupportedOperationException("importFile(): only integer and floating-point datasets are supported");
+
+        long size = dtype.getDatatypeSize();
+        isFloat = dtype.isFloat();
+        isFloat32 = isFloat && (size == 4);
+        isUnsigned64 = !isFloat && dtype.isUnsigned() && (size == 8);
+
+        if (!isFloat && (size < 8)) {
+            if (dtype.isUnsigned()) {
+                minValue = 0;
+                maxValue = (1L << (8 * size)) - 1;
+            }
+            else {
+                minValue = -(1L << (8 * size - 1));
+                maxValue = (1L << (8 * size - 1)) - 1;
+            }
+        }
+        else {
+            minValue = Long.MIN_VALUE;
+            maxValue = Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Allocates a block of the Java type written by Dataset.write() for the
+     * datatype; unsigned integers use the next larger Java type.
+     */
+    private static Object allocateBlock(Datatype dtype, int length) {
+        long size = dtype.getDatatypeSize();
+
+        if (dtype.isFloat())
+            return (size == 4) ? new float[length] : new double[length];
+
+        boolean isUnsigned = dtype.isUnsigned();
+        switch ((int) size) {
+            case 1:
+                return isUnsigned ? (Object) new short[length] : (Object) new byte[length];
+            case 2:
+                return isUnsigned ? (Object) new int[length] : (Object) new short[length];
+            case 4:
+                return isUnsigned ? (Object) new long[length] : (Object) new int[length];
+            case 8:
+                return new long[length];
+            default:
+                throw new UnsupportedOperationException("importFile(): unsupported datatype size " + size);
+        }
+    }
+
+    /**
+     * Copies the parsed values of a chunk into the block, and writes the block
+     * each time it is full.
+     *
+     * @return the number of values that did not fit in the dataset.
+     */
+    private long addValues(Values values) throws Exception {
+        int blockLength = Array.getLength(block);
+        int from = 0;
+
+        while ((from < values.count) && (nextRow < rowLimit)) {
+            int n = Math.min(values.count - from, blockLength - blockFill);
+            copyValues(values, from, blockFill, n);
+            from += n;
+            blockFill += n;
+
+            if (blockFill == blockLength)
+                writeRows((int) (blockLength / rowValues));
+        }
+
+        bytesParsed += values.bytes;
+
+        return values.count - from;
+    }
+
+    private void copyValues(Values values, int from, int to, int n) {
+        if (isFloat) {
+            double[] src = values.doubles;
+            if (block instanceof float[]) {
+                float[] dst = (float[]) block;
+                for (int i = 0; i < n; i++)
+                    dst[to + i] = (float) src[from + i];
+            }
+            else {
+                System.arraycopy(src, from, block, to, n);
+            }
+            return;
+        }
+
+        long[] src = values.longs;
+        if (block instanceof byte[]) {
+            byte[] dst = (byte[]) block;
+            for (int i = 0; i < n; i++)
+                dst[to + i] = (byte) src[from + i];
+        }
+        else if (block instanceof short[]) {
+            short[] dst = (short[]) block;
+            for (int i = 0; i < n; i++)
+                dst[to + i] = (short) src[from + i];
+        }
+        else if (block instanceof int[]) {
+            int[] dst = (int[]) block;
+            for (int i = 0; i < n; i++)
+                dst[to + i] = (int) src[from + i];
+        }
+        else {
+            System.arraycopy(src, from, block, to, n);
+        }
+    }
+
+    /** Writes the first rows of the block at the next row of the dataset. */
+    private void writeRows(int rows) throws Exception {
+        int rank = dataset.getRank();
+        long[] dims = dataset.getDims();
+
+        long rowsLeft = rowLimit - nextRow;
+        if (rows > rowsLeft)
+            rows = (int) rowsLeft;
+        if (rows <= 0)
+            return;
+
+        if (nextRow + rows > dims[0]) {
+            long[] newDims = dims.clone();
+            newDims[0] = nextRow + rows;
+            dataset.extend(newDims);
+            log.trace("writeRows(): dataset extended to {} rows", newDims[0]);
+        }
+
+        long[] start = new long[rank];
+        long[] stride = new long[rank];
+        long[] count = dataset.getDims().clone();
+        Arrays.fill(stride, 1);
+        start[0] = nextRow;
+        count[0] = rows;
+
+        Object buf = block;
+        int length = (int) (rows * rowValues);
+        if (length < Array.getLength(block)) {
+            buf = Array.newInstance(block.getClass().getComponentType(), length);
+            System.arraycopy(block, 0, buf, 0, length);
+        }
+
+        dataset.writeBlock(start, stride, count, buf);
+
+        // keep the values that did not make a whole block
+        int left = blockFill - length;
+        if (left > 0)
+            System.arraycopy(block, length, block, 0, left);
+        blockFill = left;
+        nextRow += rows;
+    }
+
+    /** Returns the position after the last end of line before end, or 0. */
+    private static int lastLineEnd(ByteBuffer buf, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (buf.get(i) == '\n')
+                return i + 1;
+        }
+        return 0;
+    }
+
+    /** Returns the position after the first end of line at or after from. */
+    private static int nextLineEnd(ByteBuffer buf, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buf.get(i) == '\n')
+                return i + 1;
+        }
+        return end;
+    }
+
+    /** Parses the values of a chunk of text. */
+    private Values parse(ByteBuffer text) {
+        int end = text.limit();
+        Values values = new Values(isFloat, Math.max(16, end / 4));
+        values.bytes = end;
+
+        int pos = 0;
+        while (pos < end) {
+            byte b = text.get(pos);
+            if (isSeparator[b & 0xff]) {
+                pos++;
+                continue;
+            }
+
+            int tokenEnd = pos + 1;
+            while ((tokenEnd < end) && !isSeparator[text.get(tokenEnd) & 0xff])
+                tokenEnd++;
+
+            if (isFloat)
+                values.add(parseDouble(text, pos, tokenEnd));
+            else
+                values.add(parseLong(text, pos, tokenEnd));
+
+            pos = tokenEnd;
+        }
+
+        return values;
+    }
+
+    private long parseLong(ByteBuffer text, int start, int end) {
+        int pos = start;
+        boolean isNegative = false;
+        byte b = text.get(pos);
+        if ((b == '-') || (b == '+')) {
+            isNegative = (b == '-');
+            pos++;
+        }
+
+        if (pos == end)
+            throw new NumberFormatException("invalid integer \"" + getToken(text, start, end) + "\"");
+
+        long value = 0;
+        for (; pos < end; pos++) {
+            int digit = text.get(pos) - '0';
+            if ((digit < 0) || (digit > 9))
+                throw new NumberFormatException("invalid integer \"" + getToken(text, start, end) + "\"");
+
+            // the magnitude is accumulated as an unsigned 64-bit number
+            if (Long.compareUnsigned(value, Long.divideUnsigned(-1L - digit, 10)) > 0)
+                throw new NumberFormatException("integer out of range \"" + getToken(text, start, end) + "\"");
+
+            value = value * 10 + digit;
+        }
+
+        if (isUnsigned64) {
+            if (isNegative && (value != 0))
+                throw new NumberFormatException("integer out of range \"" + getToken(text, start, end) + "\"");
+            return value;
+        }
+
+        if (isNegative) {
+            if (Long.compareUnsigned(value, Long.MIN_VALUE) > 0)
+                throw new NumberFormatException("integer out of range \"" + getToken(text, start, end) + "\"");
+            value = -value;
+        }
+        else if (value < 0) {
+            throw new NumberFormatException("integer out of range \"" + getToken(text, start, end) + "\"");
+        }
+
+        if ((value < minValue) || (value > maxValue))
+            throw new NumberFormatException("integer out of range \"" + getToken(text, start, end) + "\"");
+
+        return value;
+    }
+
+    /**
+     * Parses a decimal number. Numbers with few significant digits and a small
+     * exponent are converted exactly with a single multiplication or division;
+     * the others are passed to Double.parseDouble() or Float.parseFloat().
+     */
+    private double parseDouble(ByteBuffer text, int start, int end) {
+        int pos = start;
+        boolean isNegative = false;
+        byte b = text.get(pos);
+        if ((b == '-') || (b == '+')) {
+            isNegative = (b == '-');
+            pos++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean hasDigits = false;
+
+        for (; (pos < end) && isDigit(text.get(pos)); pos++) {
+            hasDigits = true;
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (text.get(pos) - '0');
+                if (mantissa != 0)
+                    digits++;
+            }
+            else {
+                exponent++;
+            }
+        }
+
+        if ((pos < end) && (text.get(pos) == '.')) {
+            for (pos++; (pos < end) && isDigit(text.get(pos)); pos++) {
+                hasDigits = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (text.get(pos) - '0');
+                    if (mantissa != 0)
+                        digits++;
+                    exponent--;
+                }
+            }
+        }
+
+        if (hasDigits && (pos < end) && ((text.get(pos) == 'e') || (text.get(pos) == 'E'))) {
+            pos++;
+            boolean isNegativeExponent = false;
+            if ((pos < end) && ((text.get(pos) == '-') || (text.get(pos) == '+'))) {
+                isNegativeExponent = (text.get(pos) == '-');
+                pos++;
+            }
+
+            int value = 0;
+            boolean hasExponentDigits = false;
+            for (; (pos < end) && isDigit(text.get(pos)); pos++) {
+                hasExponentDigits = true;
+                if (value < 100000)
+                    value = value * 10 + (text.get(pos) - '0');
+            }
+
+            if (!hasExponentDigits)
+                hasDigits = false;
+            exponent += isNegativeExponent ? -value : value;
+        }
+
+        if (hasDigits && (pos == end)) {
+            if (mantissa == 0)
+                return isNegative ? -0.0 : 0.0;
+
+            if (isFloat32) {
+                if ((mantissa < (1L << 24)) && (Math.abs(exponent) < POW10F.length)) {
+                    float value = (exponent >= 0) ? mantissa * POW10F[exponent] : mantissa / POW10F[-exponent];
+                    return isNegative ? -value : value;
+                }
+            }
+            else if ((digits <= 15) && (Math.abs(exponent) < POW10.length)) {
+                double value = (exponent >= 0) ? mantissa * POW10[exponent] : mantissa / POW10[-exponent];
+                return isNegative ? -value : value;
+            }
+        }
+
+        // NaN, Infinity, hexadecimal or long numbers, and invalid values
+        String token = getToken(text, start, end);
+        try {
+            return isFloat32 ? Float.parseFloat(token) : Double.parseDouble(token);
+        }
+        catch (NumberFormatException ex) {
+            throw new NumberFormatException("invalid number \"" + token + "\"");
+        }
+    }
+
+    private static boolean isDigit(byte b) {
+        return (b >= '0') && (b <= '9');
+    }
+
+    private static String getToken(ByteBuffer text, int start, int end) {
+        byte[] bytes = new byte[Math.min(end - start, 64)];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = text.get(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** The values parsed from a chunk of text. */
+    private static final class Values {
+        long[]   longs;
+        double[] doubles;
+        int      count;
+        int      bytes;
+
+        Values(boolean isFloat, int capacity) {
+            if (isFloat)
+                doubles = new double[capacity];
+            else
+                longs = new long[capacity];
+        }
+
+        void add(long value) {
+            if (count == longs.length)
+                longs = Arrays.copyOf(longs, 2 * count);
+            longs[count++] = value;
+        }
+
+        void add(double value) {
+            if (count == doubles.length)
+                doubles = Arrays.copyOf(doubles, 2 * count);
+            doubles[count++] = value;
+        }
+    }
+}
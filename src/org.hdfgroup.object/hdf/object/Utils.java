@@ -14,6 +14,9 @@
 
 package hdf.object;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
 public final class Utils {
     private Utils() {
         throw new IllegalStateException("Utility class");
@@ -45,4 +48,32 @@ public final class Utils {
         return ' ';
     }
 
+    /**
+     * Waits for a task and returns its result. The exception thrown by the task
+     * is rethrown as is, rather than wrapped in an ExecutionException.
+     *
+     * @param task
+     *            the task to wait for.
+     * @param <T>
+     *            the type of the result of the task.
+     *
+     * @return the result of the task.
+     *
+     * @throws Exception
+     *             the exception thrown by the task, or if the wait was
+     *             interrupted or the task cancelled
+     */
+    public static <T> T getTaskResult(Future<T> task) throws Exception {
+        try {
+            return task.get();
+        }
+        catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            // the fork-join pool may rethrow a copy of the exception of the task
+            if ((cause != null) && (cause.getCause() != null) && (cause.getClass() == cause.getCause().getClass()))
+                cause = cause.getCause();
+            throw (cause instanceof Exception) ? (Exception) cause : ex;
+        }
+    }
+
 }
\ No newline at end of file
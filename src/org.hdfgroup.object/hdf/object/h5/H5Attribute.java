@@ -166,7 +166,7 @@ public class H5Attribute extends Attribute {
      */
     @SuppressWarnings({ "rawtypes", "unchecked", "deprecation" })
     public H5Attribute(HObject parentObj, String attrName, Datatype attrType, long[] attrDims, Object attrValue) {
-        super(parentObj, attrName, attrType, null);
+        super(parentObj, attrName, attrType, attrDims, attrValue);
     }
 
     /*
@@ -361,6 +361,19 @@ public class H5Attribute extends Attribute {
         resetSelection();
     }
 
+    /**
+     * Reads the value of the attribute from the file if it was not read yet, as
+     * for the attributes returned by
+     * {@link H5File#getAttribute(HObject, int, int, boolean)} without their values.
+     */
+    @Override
+    public synchronized Object read() throws Exception, OutOfMemoryError {
+        if ((data == null) && (parentObject != null))
+            H5File.readAttributeValue(this);
+
+        return super.read();
+    }
+
     /**
      * Given an array of bytes representing a compound Datatype and a start index
      * and length, converts len number of bytes into the correct Object type and
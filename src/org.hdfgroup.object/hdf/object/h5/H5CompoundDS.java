@@ -15,6 +15,8 @@
 package hdf.object.h5;
 
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -130,6 +132,9 @@ public class H5CompoundDS extends CompoundDS {
     private boolean isVirtual = false;
     private List<String> virtualNameList;
 
+    /** flag to indicate if the selected members are read together in a single pass */
+    private boolean isPackedRead = true;
+
     /*
      * Enum to indicate the type of I/O to perform inside of the common I/O
      * function.
@@ -687,6 +692,34 @@ public class H5CompoundDS extends CompoundDS {
         }
     }
 
+    /**
+     * Sets the flag that indicates if the selected members of the dataset are
+     * read together in a single pass.
+     * <p>
+     * When the flag is set, read() reads the selected members of all the
+     * selected records with a single H5Dread into a packed buffer and then copies
+     * each member into its own array, instead of reading the dataset once per
+     * member. Datasets with members that cannot be copied from a packed buffer,
+     * such as variable-length data or arrays of compounds, are read member by
+     * member. The flag is set by default.
+     *
+     * @param b
+     *            true to read the members in a single pass; otherwise, false.
+     */
+    public void setPackedRead(boolean b) {
+        isPackedRead = b;
+    }
+
+    /**
+     * Returns the flag that indicates if the selected members of the dataset
+     * are read together in a single pass.
+     *
+     * @return true if the members are read in a single pass; otherwise, false.
+     */
+    public boolean isPackedRead() {
+        return isPackedRead;
+    }
+
     private Object compoundDatasetCommonIO(IO_TYPE ioType, Object writeBuf) throws Exception {
         H5Datatype dsDatatype = (H5Datatype) getDatatype();
         Object data = null;
@@ -732,7 +765,11 @@ public class H5CompoundDS extends CompoundDS {
                 long totalSelectedSpacePoints = H5Utils.getTotalSelectedSpacePoints(did, dims, startDims,
                         selectedStride, selectedDims, spaceIDs);
 
-                data = compoundTypeIO(ioType, did, spaceIDs, (int) totalSelectedSpacePoints, dsDatatype, writeBuf, new int[]{0});
+                if ((ioType == IO_TYPE.READ) && isPackedRead && dsDatatype.isCompound())
+                    data = compoundPackedRead(did, spaceIDs, (int) totalSelectedSpacePoints, dsDatatype);
+
+                if (data == null)
+                    data = compoundTypeIO(ioType, did, spaceIDs, (int) totalSelectedSpacePoints, dsDatatype, writeBuf, new int[]{0});
             }
             finally {
                 if (HDF5Constants.H5S_ALL != spaceIDs[0]) {
@@ -1031,26 +1068,278 @@ public class H5CompoundDS extends CompoundDS {
                 dsDatatype.close(compTid);
             }
 
+            memberData = convertMemberData(memberType, memberData);
+        }
+
+        return memberData;
+    }
+
+    /*
+     * Private routine to perform any necessary conversions of the data of a
+     * compound member after it has been read.
+     */
+    private Object convertMemberData(final H5Datatype memberType, Object memberData) {
+        if (memberType.isUnsigned()) {
+            log.trace("convertMemberData(): converting from unsigned C-type integers");
+            memberData = Dataset.convertFromUnsignedC(memberData, null);
+        }
+        else if (Utils.getJavaObjectRuntimeClass(memberData) == 'B') {
+            log.trace("convertMemberData(): converting byte array member into Object");
+
             /*
-             * Perform any necessary data conversions.
+             * For all other types that get read into memory as a byte[] (such as nested
+             * compounds and arrays of compounds), we must manually convert the byte[] into
+             * something usable.
              */
-            if (memberType.isUnsigned()) {
-                log.trace("readSingleCompoundMember(): converting from unsigned C-type integers");
-                memberData = Dataset.convertFromUnsignedC(memberData, null);
+            memberData = convertByteMember(memberType, (byte[]) memberData);
+        }
+
+        return memberData;
+    }
+
+    /*
+     * Private routine to read all the selected members of a compound dataset in a
+     * single pass. A packed memory datatype that holds only the selected members is
+     * built from the dataset's datatype, the selected records are read into a single
+     * buffer of that type, and each member is then copied out of the buffer into its
+     * own array using the offsets recorded while the memory datatype was built.
+     *
+     * Returns null if the datatype has members that cannot be read this way, or if
+     * the read fails, so that the caller can read the dataset member by member.
+     */
+    private Object compoundPackedRead(long did, long[] spaceIDs, int nSelPoints, final H5Datatype cmpdType) {
+        PackedMember root = new PackedMember(cmpdType, 0, 0);
+        long memTid = HDF5Constants.H5I_INVALID_HID;
+        byte[] buf = null;
+
+        try {
+            memTid = createPackedMemoryType(root, new int[]{0}, new int[]{0});
+            if (memTid < 0) {
+                log.debug("compoundPackedRead(): no members selected");
+                return null;
             }
-            else if (Utils.getJavaObjectRuntimeClass(memberData) == 'B') {
-                log.trace("readSingleCompoundMember(): converting byte array member into Object");
 
-                /*
-                 * For all other types that get read into memory as a byte[] (such as nested
-                 * compounds and arrays of compounds), we must manually convert the byte[] into
-                 * something usable.
-                 */
-                memberData = convertByteMember(memberType, (byte[]) memberData);
+            long bufSize = (long) root.size * Math.max(nSelPoints, 1);
+            if (bufSize > Integer.MAX_VALUE - 8) {
+                log.debug("compoundPackedRead(): {} bytes do not fit in a single buffer", bufSize);
+                return null;
             }
+
+            log.trace("compoundPackedRead(): H5Dread did={} memTid={} recordSize={} nSelPoints={}",
+                    did, memTid, root.size, nSelPoints);
+
+            buf = new byte[(int) bufSize];
+            H5.H5Dread(did, memTid, spaceIDs[0], spaceIDs[1], HDF5Constants.H5P_DEFAULT, buf);
+        }
+        catch (OutOfMemoryError err) {
+            log.debug("compoundPackedRead(): out of memory: ", err);
+            return null;
+        }
+        catch (Exception ex) {
+            log.debug("compoundPackedRead(): falling back to member by member read: ", ex);
+            return null;
+        }
+        finally {
+            cmpdType.close(memTid);
         }
 
-        return memberData;
+        return scatterMembers(root, buf, root.size, Math.max(nSelPoints, 1));
+    }
+
+    /*
+     * Private recursive routine to build the packed memory datatype of the selected
+     * members of a compound datatype. The members are walked in the same order as
+     * compoundTypeIO() so that the same member selection and name indices apply.
+     * The offset and size of each selected member in a packed record are recorded
+     * in the PackedMember tree.
+     *
+     * Returns the memory datatype, or a negative value if no member of the
+     * compound is selected. Throws an exception if a selected member cannot be
+     * copied from a packed buffer.
+     */
+    private long createPackedMemoryType(PackedMember parent, int[] globalMemberIndex, int[] position)
+            throws Exception {
+        List<Datatype> typeList = parent.type.getCompoundMemberTypes();
+        List<String> nameList = parent.type.getCompoundMemberNames();
+        List<Long> memberTids = new ArrayList<>(typeList.size());
+        List<String> memberNames = new ArrayList<>(typeList.size());
+        List<Integer> memberOffsets = new ArrayList<>(typeList.size());
+        long tid = HDF5Constants.H5I_INVALID_HID;
+
+        try {
+            for (int i = 0; i < typeList.size(); i++) {
+                H5Datatype memberType = (H5Datatype) typeList.get(i);
+                int offset = position[0];
+                long memberTid = HDF5Constants.H5I_INVALID_HID;
+
+                if (memberType.isCompound()) {
+                    PackedMember nested = new PackedMember(memberType, offset, 0);
+                    memberTid = createPackedMemoryType(nested, globalMemberIndex, position);
+                    parent.members.add(nested);
+                }
+                else {
+                    if (!isMemberSelected[globalMemberIndex[0]++ % this.getMemberCount()])
+                        continue; // the field is not selected
+
+                    memberTid = memberType.createNative();
+                    int size = (int) H5.H5Tget_size(memberTid);
+                    if (!canReadPacked(memberType, size)) {
+                        memberType.close(memberTid);
+                        throw new HDF5Exception("member " + nameList.get(i) + " of type "
+                                + memberType.getDescription() + " cannot be read in a single pass");
+                    }
+
+                    parent.members.add(new PackedMember(memberType, offset, size));
+                    position[0] += size;
+                }
+
+                if (memberTid >= 0) {
+                    memberTids.add(memberTid);
+                    memberNames.add(nameList.get(i));
+                    memberOffsets.add(offset - parent.offset);
+                }
+            }
+
+            parent.size = position[0] - parent.offset;
+            if (parent.size > 0) {
+                tid = H5.H5Tcreate(HDF5Constants.H5T_COMPOUND, parent.size);
+                for (int i = 0; i < memberTids.size(); i++)
+                    H5.H5Tinsert(tid, memberNames.get(i), memberOffsets.get(i), memberTids.get(i));
+            }
+        }
+        catch (Exception ex) {
+            parent.type.close(tid);
+            throw ex;
+        }
+        finally {
+            for (int i = 0; i < memberTids.size(); i++)
+                parent.type.close(memberTids.get(i));
+        }
+
+        return tid;
+    }
+
+    /*
+     * Private routine to check if a member whose native datatype has the given
+     * size can be copied from a packed buffer into the array that a member by
+     * member read would have filled, i.e. into a primitive array that holds the
+     * member's native bytes as they are.
+     */
+    private boolean canReadPacked(final H5Datatype memberType, int nativeSize) {
+        if (memberType.isVLEN() || memberType.isVarStr() || memberType.isRegRef())
+            return false;
+
+        Object sample = H5Datatype.allocateArray(memberType, 1);
+        if ((sample == null) || !sample.getClass().isArray())
+            return false;
+
+        int elementSize;
+        switch (Utils.getJavaObjectRuntimeClass(sample)) {
+            case 'B':
+                elementSize = 1;
+                break;
+            case 'S':
+                elementSize = 2;
+                break;
+            case 'I':
+            case 'F':
+                elementSize = 4;
+                break;
+            case 'J':
+            case 'D':
+                elementSize = 8;
+                break;
+            default:
+                return false;
+        }
+
+        return (nativeSize > 0) && (Array.getLength(sample) * elementSize == nativeSize);
+    }
+
+    /*
+     * Private recursive routine to copy the members of a compound out of a buffer
+     * of packed records into the member data list a member by member read returns.
+     */
+    private List<Object> scatterMembers(PackedMember parent, byte[] buf, int recordSize, int nPoints) {
+        List<Object> memberDataList = (List<Object>) H5Datatype.allocateArray(parent.type, nPoints);
+        ByteBuffer bb = ByteBuffer.wrap(buf).order(ByteOrder.nativeOrder());
+
+        for (int i = 0; i < parent.members.size(); i++) {
+            PackedMember member = parent.members.get(i);
+
+            if (member.type.isCompound()) {
+                memberDataList.add(scatterMembers(member, buf, recordSize, nPoints));
+                continue;
+            }
+
+            Object memberData = H5Datatype.allocateArray(member.type, nPoints);
+            int count = Array.getLength(memberData) / nPoints; // values per record
+
+            switch (Utils.getJavaObjectRuntimeClass(memberData)) {
+                case 'B':
+                    for (int r = 0, pos = member.offset; r < nPoints; r++, pos += recordSize)
+                        System.arraycopy(buf, pos, memberData, r * member.size, member.size);
+                    break;
+                case 'S': {
+                    short[] values = (short[]) memberData;
+                    for (int r = 0, k = 0, pos = member.offset; r < nPoints; r++, pos += recordSize)
+                        for (int j = 0; j < count; j++)
+                            values[k++] = bb.getShort(pos + j * 2);
+                    break;
+                }
+                case 'I': {
+                    int[] values = (int[]) memberData;
+                    for (int r = 0, k = 0, pos = member.offset; r < nPoints; r++, pos += recordSize)
+                        for (int j = 0; j < count; j++)
+                            values[k++] = bb.getInt(pos + j * 4);
+                    break;
+                }
+                case 'J': {
+                    long[] values = (long[]) memberData;
+                    for (int r = 0, k = 0, pos = member.offset; r < nPoints; r++, pos += recordSize)
+                        for (int j = 0; j < count; j++)
+                            values[k++] = bb.getLong(pos + j * 8);
+                    break;
+                }
+                case 'F': {
+                    float[] values = (float[]) memberData;
+                    for (int r = 0, k = 0, pos = member.offset; r < nPoints; r++, pos += recordSize)
+                        for (int j = 0; j < count; j++)
+                            values[k++] = bb.getFloat(pos + j * 4);
+                    break;
+                }
+                case 'D': {
+                    double[] values = (double[]) memberData;
+                    for (int r = 0, k = 0, pos = member.offset; r < nPoints; r++, pos += recordSize)
+                        for (int j = 0; j < count; j++)
+                            values[k++] = bb.getDouble(pos + j * 8);
+                    break;
+                }
+                default:
+                    break;
+            }
+
+            memberDataList.add(convertMemberData(member.type, memberData));
+        }
+
+        return memberDataList;
+    }
+
+    /*
+     * A member of the packed memory datatype: its datatype, its offset and size in
+     * a packed record and, for a compound member, its selected members.
+     */
+    private static final class PackedMember {
+        final H5Datatype         type;
+        final int                offset;
+        int                      size;
+        final List<PackedMember> members = new ArrayList<>();
+
+        PackedMember(H5Datatype type, int offset, int size) {
+            this.type = type;
+            this.offset = offset;
+            this.size = size;
+        }
     }
 
     /*
@@ -1354,7 +1643,7 @@ public class H5CompoundDS extends CompoundDS {
             }
         }
 
-        attributeList = H5File.getAttribute(this, indxType, order);
+        attributeList = H5File.getCachedAttribute(this, indxType, order);
 
         did = open();
         if (did >= 0) {
@@ -1661,6 +1950,7 @@ public class H5CompoundDS extends CompoundDS {
         if (did >= 0) {
             try {
                 H5.H5Adelete(did, attr.getName());
+                H5File.invalidateAttributeCache(this);
                 List<Attribute> attrList = getMetadata();
                 attrList.remove(attr);
                 nAttributes = attrList.size();
@@ -2016,7 +2016,7 @@ public class H5Datatype extends Datatype {
             }
 
             try {
-                attributeList = H5File.getAttribute(this, indxType, order);
+                attributeList = H5File.getCachedAttribute(this, indxType, order);
             }
             catch (Exception ex) {
                 log.debug("getMetadata(): H5File.getAttribute failure: ", ex);
@@ -2084,6 +2084,7 @@ public class H5Datatype extends Datatype {
         long tid = open();
         try {
             H5.H5Adelete(tid, attr.getName());
+            H5File.invalidateAttributeCache(this);
             List<Attribute> attrList = getMetadata();
             attrList.remove(attr);
             nAttributes = attributeList.size();
@@ -17,16 +17,22 @@ package hdf.object.h5;
 import java.io.File;
 import java.lang.reflect.Array;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 import hdf.hdf5lib.H5;
 import hdf.hdf5lib.HDF5Constants;
 import hdf.hdf5lib.HDFNativeData;
+import hdf.hdf5lib.callbacks.H5L_iterate_opdata_t;
+import hdf.hdf5lib.callbacks.H5L_iterate_t;
 import hdf.hdf5lib.exceptions.HDF5Exception;
 import hdf.hdf5lib.structs.H5G_info_t;
 import hdf.hdf5lib.structs.H5L_info_t;
@@ -38,6 +44,7 @@ import hdf.object.FileFormat;
 import hdf.object.Group;
 import hdf.object.HObject;
 import hdf.object.ScalarDS;
+import hdf.object.StructureIndex;
 
 
 /**
@@ -83,6 +90,9 @@ public class H5File extends FileFormat {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(H5File.class);
 
+    /** The number of links of a group enumerated at a time when a group is loaded on demand. */
+    private static final int MEMBER_BATCH_SIZE = 1024;
+
     /**
      * the file access flag. Valid values are HDF5Constants.H5F_ACC_RDONLY, HDF5Constants.H5F_ACC_RDWR and
      * HDF5Constants.H5F_ACC_CREAT.
@@ -104,6 +114,17 @@ public class H5File extends FileFormat {
      */
     private HObject rootObject;
 
+    /**
+     * The attributes of the objects of the file, by object ID, index type and order.
+     */
+    private final transient Map<String, List<Attribute>> attributeCache = new ConcurrentHashMap<>();
+
+    /**
+     * The index of the structure of the file, if the file is opened read-only with a
+     * structure index directory.
+     */
+    private transient StructureIndex structureIndex = null;
+
     /**
      * How many characters maximum in an attribute name?
      */
@@ -402,7 +423,38 @@ public class H5File extends FileFormat {
      */
 
     public static final List<Attribute> getAttribute(HObject obj, int idx_type, int order) throws HDF5Exception {
-        log.trace("getAttribute(): start: obj={} idx_type={} order={}", obj, idx_type, order);
+        return H5File.getAttribute(obj, idx_type, order, true);
+    }
+
+    /**
+     * Returns a list of attributes for the specified object, with or without
+     * their values.
+     * <p>
+     * Without their values, only the names, datatypes and dimension sizes of the
+     * attributes are read. The value of an attribute is then read by
+     * {@link #readAttributeValue(Attribute)} when the data of the attribute is
+     * first requested.
+     *
+     * @param obj
+     *            The HObject whose attributes are to be returned.
+     * @param idx_type
+     *            The type of index, H5_INDEX_NAME or H5_INDEX_CRT_ORDER.
+     * @param order
+     *            The index traversal order, H5_ITER_INC or H5_ITER_DEC.
+     * @param readValues
+     *            If true, the values of the attributes are read.
+     *
+     * @return The list of the object's attributes.
+     *
+     * @throws HDF5Exception
+     *             If an underlying HDF library routine is unable to perform a step
+     *             necessary to retrieve the attributes.
+     *
+     * @see #getAttribute(HObject,int,int)
+     */
+    public static final List<Attribute> getAttribute(HObject obj, int idx_type, int order, boolean readValues)
+            throws HDF5Exception {
+        log.trace("getAttribute(): start: obj={} idx_type={} order={} readValues={}", obj, idx_type, order, readValues);
         List<Attribute> attributeList = null;
         long objID = -1;
         long aid = -1;
@@ -485,115 +537,17 @@ public class H5File extends FileFormat {
                             attrType = null;
                         }
 
-                        Attribute attr = new Attribute(obj, nameA, attrType, dims);
+                        Attribute attr;
+                        if (readValues)
+                            attr = new Attribute(obj, nameA, attrType, dims);
+                        else
+                            attr = new H5Attribute(obj, nameA, attrType, dims);
                         attributeList.add(attr);
 
-                        // retrieve the attribute value
-                        if (lsize <= 0) {
-                            log.debug("getAttribute(): Attribute[{}] lsize <= 0", i);
-                            continue;
-                        }
-
-                        if (lsize < Integer.MIN_VALUE || lsize > Integer.MAX_VALUE) {
-                            log.debug("getAttribute(): Attribute[{}] lsize outside valid Java int range; unsafe cast", i);
+                        if (!readValues)
                             continue;
-                        }
 
-                        Object value = null;
-                        try {
-                            if (attr.getDatatype().isVarStr()) {
-                                String[] strs = new String[(int) lsize];
-                                for (int j = 0; j < lsize; j++) {
-                                    strs[j] = "";
-                                }
-                                try {
-                                    log.trace("getAttribute(): Attribute[{}] H5AreadVL", i);
-                                    H5.H5AreadVL(aid, tid, strs);
-                                }
-                                catch (Exception ex) {
-                                    log.debug("getAttribute(): Attribute[{}] H5AreadVL failure: ", i, ex);
-                                    ex.printStackTrace();
-                                }
-                                value = strs;
-                            }
-                            else if (attr.getDatatype().isCompound()) {
-                                String[] strs = new String[(int) lsize];
-                                for (int j = 0; j < lsize; j++) {
-                                    strs[j] = "";
-                                }
-                                try {
-                                    log.trace("getAttribute: attribute[{}] H5AreadComplex", i);
-                                    H5.H5AreadComplex(aid, tid, strs);
-                                }
-                                catch (Exception ex) {
-                                    ex.printStackTrace();
-                                }
-                                value = strs;
-                            }
-                            else if (attr.getDatatype().isVLEN()) {
-                                String[] strs = new String[(int) lsize];
-                                for (int j = 0; j < lsize; j++) {
-                                    strs[j] = "";
-                                }
-                                try {
-                                    log.trace("getAttribute(): Attribute[{}] H5AreadVL", i);
-                                    H5.H5AreadVL(aid, tid, strs);
-                                }
-                                catch (Exception ex) {
-                                    log.debug("getAttribute(): Attribute[{}] H5AreadVL failure: ", i, ex);
-                                    ex.printStackTrace();
-                                }
-                                value = strs;
-                            }
-                            else {
-                                try {
-                                    value = H5Datatype.allocateArray(((H5Datatype) attr.getDatatype()), (int) lsize);
-                                }
-                                catch (OutOfMemoryError e) {
-                                    log.debug("getAttribute(): Attribute[{}] out of memory", i, e);
-                                    value = null;
-                                }
-                                if (value == null) {
-                                    log.debug("getAttribute(): Attribute[{}] allocateArray returned null", i);
-                                    continue;
-                                }
-
-                                if (attr.getDatatype().isArray()) {
-                                    try {
-                                        log.trace("getAttribute(): Attribute[{}] H5Aread ARRAY tid={}", i, tid);
-                                        H5.H5Aread(aid, tid, value);
-                                    }
-                                    catch (Exception ex) {
-                                        log.debug("getAttribute(): Attribute[{}] H5Aread failure: ", i, ex);
-                                        ex.printStackTrace();
-                                    }
-                                }
-                                else {
-                                    log.trace("getAttribute(): Attribute[{}] H5Aread", i);
-                                    H5.H5Aread(aid, tid, value);
-                                }
-
-                                if (attr.getDatatype().isText() && value instanceof byte[]) {
-                                    log.trace("getAttribute(): isText: converting byte array to string array");
-                                    value = Attribute.byteToString((byte[]) value, (int) attr.getDatatype().getDatatypeSize());
-                                }
-                                else if (attr.getDatatype().isFloat() && attr.getDatatype().getDatatypeSize() == 16) {
-                                    log.trace("scalarDatasetCommonIO(): isFloat: converting byte array to BigDecimal array");
-                                    value = ((H5Datatype)attr.getDatatype()).byteToBigDecimal(0, (int) lsize, (byte[]) value);
-                                }
-                                else if (((H5Datatype)attr.getDatatype()).isRefObj()) {
-                                    log.trace("getAttribute(): Attribute[{}] isREF: converting byte array to long array", i);
-                                    value = HDFNativeData.byteToLong((byte[]) value);
-                                }
-                            }
-                        }
-                        catch (Exception ex) {
-                            log.debug("getAttribute(): Attribute[{}] read failure: ", i, ex);
-                            continue;
-                        }
-
-                        log.trace("getAttribute(): Attribute[{}] data: {}", i, value);
-                        attr.setData(value);
+                        attr.setData(readAttributeData(aid, tid, attr, lsize));
                     }
                     catch (HDF5Exception ex) {
                         log.debug("getAttribute(): Attribute[{}] inspection failure: ", i, ex);
@@ -628,6 +582,293 @@ public class H5File extends FileFormat {
         return attributeList;
     }
 
+    /**
+     * Reads the value of an attribute from the file, and sets it as the data of
+     * the attribute.
+     *
+     * @param attr
+     *            the attribute, attached to an object of an HDF5 file.
+     *
+     * @return the value of the attribute, or null if it can not be read.
+     *
+     * @throws HDF5Exception
+     *             If the attribute can not be opened.
+     */
+    public static final Object readAttributeValue(Attribute attr) throws HDF5Exception {
+        HObject obj = attr.getParentObject();
+        if (obj == null)
+            return null;
+
+        Object value = null;
+        long objID = obj.open();
+        if (objID >= 0) {
+            long aid = -1;
+            long sid = -1;
+            long tid = -1;
+            try {
+                aid = H5.H5Aopen(objID, attr.getName(), HDF5Constants.H5P_DEFAULT);
+                sid = H5.H5Aget_space(aid);
+
+                long lsize = 1;
+                int rank = H5.H5Sget_simple_extent_ndims(sid);
+                if (rank > 0) {
+                    long[] dims = new long[rank];
+                    H5.H5Sget_simple_extent_dims(sid, dims, null);
+                    for (int j = 0; j < dims.length; j++)
+                        lsize *= dims[j];
+                }
+
+                long tmptid = H5.H5Aget_type(aid);
+                try {
+                    tid = H5.H5Tget_native_type(tmptid);
+                }
+                finally {
+                    try {
+                        H5.H5Tclose(tmptid);
+                    }
+                    catch (Exception ex) {
+                        log.debug("readAttributeValue(): H5Tclose(tmptid {}) failure: ", tmptid, ex);
+                    }
+                }
+
+                value = readAttributeData(aid, tid, attr, lsize);
+                attr.setData(value);
+            }
+            finally {
+                try {
+                    H5.H5Tclose(tid);
+                }
+                catch (Exception ex) {
+                    log.debug("readAttributeValue(): H5Tclose(tid {}) failure: ", tid, ex);
+                }
+                try {
+                    H5.H5Sclose(sid);
+                }
+                catch (Exception ex) {
+                    log.debug("readAttributeValue(): H5Sclose(sid {}) failure: ", sid, ex);
+                }
+                try {
+                    H5.H5Aclose(aid);
+                }
+                catch (Exception ex) {
+                    log.debug("readAttributeValue(): H5Aclose(aid {}) failure: ", aid, ex);
+                }
+                obj.close(objID);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Reads the value of an open attribute.
+     *
+     * @param aid
+     *            the identifier of the attribute.
+     * @param tid
+     *            the native datatype of the attribute.
+     * @param attr
+     *            the attribute.
+     * @param lsize
+     *            the number of values of the attribute.
+     *
+     * @return the value of the attribute, or null if it can not be read.
+     */
+    private static Object readAttributeData(long aid, long tid, Attribute attr, long lsize) {
+        if (lsize <= 0) {
+            log.debug("readAttributeData(): Attribute[{}] lsize <= 0", attr.getName());
+            return null;
+        }
+
+        if (lsize < Integer.MIN_VALUE || lsize > Integer.MAX_VALUE) {
+            log.debug("readAttributeData(): Attribute[{}] lsize outside valid Java int range; unsafe cast", attr.getName());
+            return null;
+        }
+
+        Object value = null;
+        try {
+            if (attr.getDatatype().isVarStr()) {
+                String[] strs = new String[(int) lsize];
+                for (int j = 0; j < lsize; j++) {
+                    strs[j] = "";
+                }
+                try {
+                    log.trace("readAttributeData(): Attribute[{}] H5AreadVL", attr.getName());
+                    H5.H5AreadVL(aid, tid, strs);
+                }
+                catch (Exception ex) {
+                    log.debug("readAttributeData(): Attribute[{}] H5AreadVL failure: ", attr.getName(), ex);
+                    ex.printStackTrace();
+                }
+                value = strs;
+            }
+            else if (attr.getDatatype().isCompound()) {
+                String[] strs = new String[(int) lsize];
+                for (int j = 0; j < lsize; j++) {
+                    strs[j] = "";
+                }
+                try {
+                    log.trace("readAttributeData(): attribute[{}] H5AreadComplex", attr.getName());
+                    H5.H5AreadComplex(aid, tid, strs);
+                }
+                catch (Exception ex) {
+                    ex.printStackTrace();
+                }
+                value = strs;
+            }
+            else if (attr.getDatatype().isVLEN()) {
+                String[] strs = new String[(int) lsize];
+                for (int j = 0; j < lsize; j++) {
+                    strs[j] = "";
+                }
+                try {
+                    log.trace("readAttributeData(): Attribute[{}] H5AreadVL", attr.getName());
+                    H5.H5AreadVL(aid, tid, strs);
+                }
+                catch (Exception ex) {
+                    log.debug("readAttributeData(): Attribute[{}] H5AreadVL failure: ", attr.getName(), ex);
+                    ex.printStackTrace();
+                }
+                value = strs;
+            }
+            else {
+                try {
+                    value = H5Datatype.allocateArray(((H5Datatype) attr.getDatatype()), (int) lsize);
+                }
+                catch (OutOfMemoryError e) {
+                    log.debug("readAttributeData(): Attribute[{}] out of memory", attr.getName(), e);
+                    value = null;
+                }
+                if (value == null) {
+                    log.debug("readAttributeData(): Attribute[{}] allocateArray returned null", attr.getName());
+                    return null;
+                }
+
+                if (attr.getDatatype().isArray()) {
+                    try {
+                        log.trace("readAttributeData(): Attribute[{}] H5Aread ARRAY tid={}", attr.getName(), tid);
+                        H5.H5Aread(aid, tid, value);
+                    }
+                    catch (Exception ex) {
+                        log.debug("readAttributeData(): Attribute[{}] H5Aread failure: ", attr.getName(), ex);
+                        ex.printStackTrace();
+                    }
+                }
+                else {
+                    log.trace("readAttributeData(): Attribute[{}] H5Aread", attr.getName());
+                    H5.H5Aread(aid, tid, value);
+                }
+
+                if (attr.getDatatype().isText() && value instanceof byte[]) {
+                    log.trace("readAttributeData(): isText: converting byte array to string array");
+                    value = Attribute.byteToString((byte[]) value, (int) attr.getDatatype().getDatatypeSize());
+                }
+                else if (attr.getDatatype().isFloat() && attr.getDatatype().getDatatypeSize() == 16) {
+                    log.trace("scalarDatasetCommonIO(): isFloat: converting byte array to BigDecimal array");
+                    value = ((H5Datatype)attr.getDatatype()).byteToBigDecimal(0, (int) lsize, (byte[]) value);
+                }
+                else if (((H5Datatype)attr.getDatatype()).isRefObj()) {
+                    log.trace("readAttributeData(): Attribute[{}] isREF: converting byte array to long array", attr.getName());
+                    value = HDFNativeData.byteToLong((byte[]) value);
+                }
+            }
+        }
+        catch (Exception ex) {
+            log.debug("readAttributeData(): Attribute[{}] read failure: ", attr.getName(), ex);
+            return null;
+        }
+
+        log.trace("readAttributeData(): Attribute[{}] data: {}", attr.getName(), value);
+
+        return value;
+    }
+
+    /**
+     * Returns a list of attributes for the specified object from the attribute
+     * cache of its file.
+     * <p>
+     * The names, datatypes and dimension sizes of the attributes are cached by
+     * object ID, so that the objects of a file share the attribute headers read
+     * once. Each call returns a new list of new attributes attached to the given
+     * object, which the caller may change: the value of an attribute is read
+     * when it is first requested.
+     *
+     * @param obj
+     *            The HObject whose attributes are to be returned.
+     * @param idx_type
+     *            The type of index, H5_INDEX_NAME or H5_INDEX_CRT_ORDER.
+     * @param order
+     *            The index traversal order, H5_ITER_INC or H5_ITER_DEC.
+     *
+     * @return The list of the object's attributes.
+     *
+     * @throws HDF5Exception
+     *             If an underlying HDF library routine is unable to perform a step
+     *             necessary to retrieve the attributes.
+     *
+     * @see #invalidateAttributeCache(HObject)
+     */
+    public static final List<Attribute> getCachedAttribute(HObject obj, int idx_type, int order) throws HDF5Exception {
+        String key = getAttributeCacheKey(obj, idx_type, order);
+        if (key == null)
+            return H5File.getAttribute(obj, idx_type, order);
+
+        Map<String, List<Attribute>> cache = ((H5File) obj.getFileFormat()).attributeCache;
+        List<Attribute> attrs = cache.get(key);
+        if (attrs == null) {
+            attrs = H5File.getAttribute(obj, idx_type, order, false);
+            cache.put(key, attrs);
+        }
+        else {
+            log.trace("getCachedAttribute(): {} attributes of {} from cache", attrs.size(), obj);
+        }
+
+        List<Attribute> attributeList = new Vector<>(attrs.size());
+        for (Attribute attr : attrs) {
+            long[] dims = attr.isScalar() ? null : attr.getDims().clone();
+            attributeList.add(new H5Attribute(obj, attr.getName(), attr.getDatatype(), dims));
+        }
+
+        return attributeList;
+    }
+
+    /**
+     * Removes the attributes of an object from the attribute cache of its file,
+     * when the attributes of the object are changed.
+     *
+     * @param obj
+     *            The HObject whose attributes were changed.
+     */
+    public static final void invalidateAttributeCache(HObject obj) {
+        String key = getAttributeCacheKey(obj, 0, 0);
+        if (key == null)
+            return;
+
+        String prefix = key.substring(0, key.indexOf(':') + 1);
+        Map<String, List<Attribute>> cache = ((H5File) obj.getFileFormat()).attributeCache;
+        Iterator<String> it = cache.keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().startsWith(prefix))
+                it.remove();
+        }
+    }
+
+    /**
+     * Returns the key of the attributes of an object in the attribute cache, made
+     * of the object ID, the index type and the index order, or null if the object
+     * can not be cached.
+     */
+    private static String getAttributeCacheKey(HObject obj, int idx_type, int order) {
+        if ((obj == null) || !(obj.getFileFormat() instanceof H5File) || (obj instanceof Attribute))
+            return null;
+
+        long[] oid = obj.getOID();
+        if ((oid == null) || (oid.length == 0))
+            return null;
+
+        return oid[0] + ":" + idx_type + ":" + order;
+    }
+
     /**
      * Creates attributes for an HDF5 image dataset.
      * <p>
@@ -1301,6 +1542,14 @@ public class H5File extends FileFormat {
         }
         System.setProperty("user.dir", rootPath);//H5.H5Dchdir_ext(rootPath);
 
+        attributeCache.clear();
+        invalidateObjectIndex();
+
+        if (structureIndex != null) {
+            structureIndex.save();
+            structureIndex = null;
+        }
+
         // clean up unused objects
         if (rootObject != null) {
             HObject theObj = null;
@@ -1860,6 +2109,7 @@ public class H5File extends FileFormat {
         }
 
         if (H5.H5Lexists(fid, new_full_name, HDF5Constants.H5P_DEFAULT)) {
+            attributeCache.clear();
             H5.H5Ldelete(fid, new_full_name, HDF5Constants.H5P_DEFAULT);
         }
 
@@ -1953,6 +2203,7 @@ public class H5File extends FileFormat {
         }
 
         if (H5.H5Lexists(fid, new_full_name, HDF5Constants.H5P_DEFAULT)) {
+            attributeCache.clear();
             H5.H5Ldelete(fid, new_full_name, HDF5Constants.H5P_DEFAULT);
         }
 
@@ -2055,6 +2306,9 @@ public class H5File extends FileFormat {
 
         String name = obj.getPath() + obj.getName();
 
+        // the address of a deleted object may be given to a new object
+        attributeCache.clear();
+
         H5.H5Ldelete(fid, name, HDF5Constants.H5P_DEFAULT);
     }
 
@@ -2072,6 +2326,8 @@ public class H5File extends FileFormat {
         long aid = -1;
         log.trace("writeAttribute(): name is {}", name);
 
+        invalidateAttributeCache(obj);
+
         long objID = obj.open();
         if (objID < 0) {
             log.debug("writeAttribute(): Invalid Object ID");
@@ -2383,6 +2639,9 @@ public class H5File extends FileFormat {
 
         initLibBounds();
 
+        if ((fid >= 0) && isReadOnly && (getStructureIndexDirectory() != null))
+            structureIndex = StructureIndex.open(getStructureIndexDirectory(), new File(fullFileName));
+
         if ((fid >= 0) && loadFullHierarchy) {
             // load the hierarchy of the file
             loadIntoMemory();
@@ -2409,6 +2668,14 @@ public class H5File extends FileFormat {
          * appropriately, as it currently assumes the root path to be null.
          */
         rootObject = new H5Group(this, "/", null, null);
+
+        if (isLazyHierarchy()) {
+            // the members of the other groups are loaded when they are accessed
+            log.trace("loadIntoMemory(): load members of root");
+            loadMembers((H5Group) rootObject);
+            return;
+        }
+
         log.trace("loadIntoMemory(): depth_first on root");
         depth_first(rootObject, 0);
     }
@@ -2442,6 +2709,12 @@ public class H5File extends FileFormat {
             fullPath = ppath + pgroup.getName() + HObject.SEPARATOR;
         }
 
+        List<StructureIndex.Entry> indexedMembers = getIndexedMembers(fullPath);
+        if (indexedMembers != null) {
+            log.trace("depth_first({}): {} members from the structure index", parentObject, indexedMembers.size());
+            return depth_first(pgroup, fullPath, indexedMembers, nTotal);
+        }
+
         nelems = 0;
         try {
             gid = pgroup.open();
@@ -2483,6 +2756,10 @@ public class H5File extends FileFormat {
         String obj_name;
         int obj_type;
 
+        // the members are indexed only if all of them are loaded
+        List<StructureIndex.Entry> entries = new ArrayList<>(nelems);
+        boolean isComplete = true;
+
         // Iterate through the file to see members of the group
         for (int i = 0; i < nelems; i++) {
             obj_name = objNames[i];
@@ -2493,14 +2770,17 @@ public class H5File extends FileFormat {
 
             if (obj_name == null) {
                 log.trace("depth_first({}): continue after null obj_name", parentObject);
+                isComplete = false;
                 continue;
             }
 
             nTotal++;
 
             if (nMax > 0) {
-                if ((nTotal - nStart) >= nMax)
+                if ((nTotal - nStart) >= nMax) {
+                    isComplete = false;
                     break; // loaded enough objects
+                }
             }
 
             boolean skipLoad = false;
@@ -2512,107 +2792,374 @@ public class H5File extends FileFormat {
                 H5Group g = new H5Group(this, obj_name, fullPath, pgroup);
 
                 pgroup.addToMemberList(g);
-
-                // detect and stop loops
-                // a loop is detected if there exists object with the same
-                // object ID by tracing path back up to the root.
-                boolean hasLoop = false;
-                H5Group tmpObj = (H5Group) parentObject;
-
-                while (tmpObj != null) {
-                    if (tmpObj.equalsOID(oid) && (tmpObj.getPath() != null)) {
-                        hasLoop = true;
-                        break;
-                    }
-                    else {
-                        tmpObj = (H5Group) tmpObj.getParent();
-                    }
-                }
+                entries.add(new StructureIndex.Entry(obj_name, StructureIndex.GROUP, oid));
 
                 // recursively go through the next group
                 // stops if it has loop.
-                if (!hasLoop) {
+                if (!hasLoop(pgroup, oid)) {
                     nTotal = depth_first(g, nTotal);
                 }
             }
             else if (skipLoad) {
+                isComplete = false;
                 continue;
             }
-            else if (obj_type == HDF5Constants.H5O_TYPE_DATASET) {
-                long did = -1;
-                long tid = -1;
-                int tclass = -1;
-                try {
-                    did = H5.H5Dopen(fid, fullPath + obj_name, HDF5Constants.H5P_DEFAULT);
-                    if (did >= 0) {
-                        tid = H5.H5Dget_type(did);
+            else {
+                HObject member = createMember(pgroup, fullPath, obj_name, obj_type, oid);
+                pgroup.addToMemberList(member);
+                if (member != null)
+                    entries.add(new StructureIndex.Entry(obj_name, getIndexType(member), oid));
+            }
+        } // ( i = 0; i < nelems; i++)
 
-                        tclass = H5.H5Tget_class(tid);
-                        if ((tclass == HDF5Constants.H5T_ARRAY) || (tclass == HDF5Constants.H5T_VLEN)) {
-                            // for ARRAY, the type is determined by the base type
-                            long btid = H5.H5Tget_super(tid);
+        pgroup.close(gid);
 
-                            tclass = H5.H5Tget_class(btid);
+        if (isComplete && (structureIndex != null))
+            structureIndex.putMembers(getIndexKey(fullPath), entries);
 
-                            try {
-                                H5.H5Tclose(btid);
-                            }
-                            catch (Exception ex) {
-                                log.debug("depth_first({})[{}] dataset {} H5Tclose(btid {}) failure: ", parentObject, i, obj_name, btid, ex);
-                            }
+        return nTotal;
+    } // private depth_first()
+
+    /**
+     * Retrieves the file structure below a group by depth-first order from the
+     * members of the group in the structure index.
+     */
+    private int depth_first(H5Group pgroup, String fullPath, List<StructureIndex.Entry> members, int nTotal) {
+        int nStart = getStartMembers();
+        int nMax = getMaxMembers();
+
+        for (StructureIndex.Entry member : members) {
+            nTotal++;
+
+            if ((nMax > 0) && ((nTotal - nStart) >= nMax))
+                break; // loaded enough objects
+
+            if (member.getType() == StructureIndex.GROUP) {
+                H5Group g = new H5Group(this, member.getName(), fullPath, pgroup);
+                pgroup.addToMemberList(g);
+
+                if (!hasLoop(pgroup, member.getOID()))
+                    nTotal = depth_first(g, nTotal);
+            }
+            else if ((nTotal <= 0) || (nTotal >= nStart)) {
+                pgroup.addToMemberList(createIndexedMember(fullPath, member));
+            }
+        }
+
+        return nTotal;
+    }
+
+    /**
+     * Returns the members of a group in the structure index of the file, or null
+     * if the group is not indexed.
+     */
+    private List<StructureIndex.Entry> getIndexedMembers(String fullPath) {
+        if (structureIndex == null)
+            return null;
+
+        return structureIndex.getMembers(getIndexKey(fullPath));
+    }
+
+    /**
+     * Returns the key of a group in the structure index. The order of the members
+     * depends on the index type and order used to load the group.
+     */
+    private String getIndexKey(String fullPath) {
+        return indexType + ":" + indexOrder + ":" + fullPath;
+    }
+
+    /**
+     * Returns the type of an object in the structure index.
+     */
+    private static int getIndexType(HObject obj) {
+        if (obj instanceof Group)
+            return StructureIndex.GROUP;
+        else if (obj instanceof H5CompoundDS)
+            return StructureIndex.COMPOUND_DATASET;
+        else if (obj instanceof Dataset)
+            return StructureIndex.DATASET;
+        else if (obj instanceof Datatype)
+            return StructureIndex.DATATYPE;
+
+        return StructureIndex.UNKNOWN;
+    }
+
+    /**
+     * Creates the object of a member of a group that is not a group from its
+     * entry in the structure index, without accessing the file.
+     */
+    @SuppressWarnings("deprecation")
+    private HObject createIndexedMember(String fullPath, StructureIndex.Entry member) {
+        switch (member.getType()) {
+            case StructureIndex.COMPOUND_DATASET:
+                return new H5CompoundDS(this, member.getName(), fullPath, member.getOID()); // deprecated!
+            case StructureIndex.DATASET:
+                return new H5ScalarDS(this, member.getName(), fullPath, member.getOID()); // deprecated!
+            case StructureIndex.DATATYPE:
+                return new H5Datatype(this, member.getName(), fullPath, member.getOID()); // deprecated!
+            default:
+                return new H5Link(this, member.getName(), fullPath, member.getOID());
+        }
+    }
+
+    /**
+     * Checks if a group with the given object ID is the parent group or one of
+     * its ancestors. Such a group would be a loop in the file structure.
+     */
+    private static boolean hasLoop(H5Group parentGroup, long[] oid) {
+        H5Group tmpObj = parentGroup;
+
+        while (tmpObj != null) {
+            if (tmpObj.equalsOID(oid) && (tmpObj.getPath() != null))
+                return true;
+
+            tmpObj = (H5Group) tmpObj.getParent();
+        }
+
+        return false;
+    }
+
+    /**
+     * Creates the object of a member of a group that is not a group, i.e. a
+     * dataset, a named datatype or an object that can not be identified.
+     */
+    @SuppressWarnings("deprecation")
+    private HObject createMember(H5Group pgroup, String fullPath, String obj_name, int obj_type, long[] oid) {
+        if (obj_type == HDF5Constants.H5O_TYPE_DATASET) {
+            long did = -1;
+            long tid = -1;
+            int tclass = -1;
+            try {
+                did = H5.H5Dopen(fid, fullPath + obj_name, HDF5Constants.H5P_DEFAULT);
+                if (did >= 0) {
+                    tid = H5.H5Dget_type(did);
+
+                    tclass = H5.H5Tget_class(tid);
+                    if ((tclass == HDF5Constants.H5T_ARRAY) || (tclass == HDF5Constants.H5T_VLEN)) {
+                        // for ARRAY, the type is determined by the base type
+                        long btid = H5.H5Tget_super(tid);
+
+                        tclass = H5.H5Tget_class(btid);
+
+                        try {
+                            H5.H5Tclose(btid);
+                        }
+                        catch (Exception ex) {
+                            log.debug("createMember({}): dataset {} H5Tclose(btid {}) failure: ", pgroup, obj_name, btid, ex);
                         }
                     }
-                    else {
-                        log.debug("depth_first({})[{}] {} dataset open failure", parentObject, i, obj_name);
-                    }
+                }
+                else {
+                    log.debug("createMember({}): {} dataset open failure", pgroup, obj_name);
+                }
+            }
+            catch (Exception ex) {
+                log.debug("createMember({}): {} dataset access failure: ", pgroup, obj_name, ex);
+            }
+            finally {
+                try {
+                    H5.H5Tclose(tid);
                 }
                 catch (Exception ex) {
-                    log.debug("depth_first({})[{}] {} dataset access failure: ", parentObject, i, obj_name, ex);
+                    log.debug("createMember({}): dataset {} H5Tclose(tid {}) failure: ", pgroup, obj_name, tid, ex);
                 }
-                finally {
-                    try {
-                        H5.H5Tclose(tid);
-                    }
-                    catch (Exception ex) {
-                        log.debug("depth_first({})[{}] daatset {} H5Tclose(tid {}) failure: ", parentObject, i, obj_name, tid, ex);
-                    }
-                    try {
-                        H5.H5Dclose(did);
-                    }
-                    catch (Exception ex) {
-                        log.debug("depth_first({})[{}] dataset {} H5Dclose(did {}) failure: ", parentObject, i, obj_name, did, ex);
-                    }
+                try {
+                    H5.H5Dclose(did);
                 }
-                Dataset d = null;
-                if (tclass == HDF5Constants.H5T_COMPOUND) {
-                    // create a new compound dataset
-                    d = new H5CompoundDS(this, obj_name, fullPath, oid); // deprecated!
+                catch (Exception ex) {
+                    log.debug("createMember({}): dataset {} H5Dclose(did {}) failure: ", pgroup, obj_name, did, ex);
                 }
-                else {
-                    // create a new scalar dataset
-                    d = new H5ScalarDS(this, obj_name, fullPath, oid); // deprecated!
+            }
+
+            if (tclass == HDF5Constants.H5T_COMPOUND) {
+                // create a new compound dataset
+                return new H5CompoundDS(this, obj_name, fullPath, oid); // deprecated!
+            }
+
+            // create a new scalar dataset
+            return new H5ScalarDS(this, obj_name, fullPath, oid); // deprecated!
+        }
+        else if (obj_type == HDF5Constants.H5O_TYPE_NAMED_DATATYPE) {
+            Datatype t = new H5Datatype(this, obj_name, fullPath, oid); // deprecated!
+            log.trace("createMember({}): H5O_TYPE_NAMED_DATATYPE name={}", pgroup, t.getFullName());
+
+            return t;
+        }
+        else if (obj_type == HDF5Constants.H5O_TYPE_UNKNOWN) {
+            // the object is not identified, e.g. a dangling soft link
+            return new H5Link(this, obj_name, fullPath, oid);
+        }
+
+        return null;
+    }
+
+    /**
+     * Loads the immediate members of a group of a file opened with a lazy
+     * hierarchy. Member groups are created without their members, which are
+     * loaded when the member list of the group is first accessed.
+     * <p>
+     * The links of the group are enumerated with H5Literate in batches of
+     * MEMBER_BATCH_SIZE links, starting at link getStartMembers() of the group
+     * and loading at most getMaxMembers() members of the group.
+     *
+     * @param pgroup
+     *            the group to load the members of.
+     */
+    void loadMembers(H5Group pgroup) {
+        log.trace("loadMembers({}): start", pgroup);
+
+        if (fid < 0) {
+            log.debug("loadMembers({}): Invalid FID", pgroup);
+            return;
+        }
+
+        String ppath = pgroup.getPath();
+        String fullPath = (ppath == null) ? HObject.SEPARATOR : ppath + pgroup.getName() + HObject.SEPARATOR;
+
+        List<StructureIndex.Entry> indexedMembers = getIndexedMembers(fullPath);
+        if (indexedMembers != null) {
+            log.trace("loadMembers({}): {} members from the structure index", pgroup, indexedMembers.size());
+
+            long end = Math.min(indexedMembers.size(), (long) getStartMembers() + getMaxMembers());
+            for (int i = getStartMembers(); i < end; i++) {
+                StructureIndex.Entry member = indexedMembers.get(i);
+                if (member.getType() == StructureIndex.GROUP) {
+                    // the number of members of a group is known if the group is indexed too
+                    List<StructureIndex.Entry> groupMembers = getIndexedMembers(fullPath + member.getName() + HObject.SEPARATOR);
+                    int nMembers = (groupMembers == null) ? -1 : groupMembers.size();
+                    pgroup.addToMemberList(createLazyGroup(pgroup, fullPath, member.getName(), member.getOID(), nMembers));
                 }
+                else
+                    pgroup.addToMemberList(createIndexedMember(fullPath, member));
+            }
+
+            return;
+        }
+
+        long gid = pgroup.open();
+        if (gid < 0) {
+            log.debug("loadMembers({}): group open failure", pgroup);
+            return;
+        }
+
+        try {
+            H5G_info_t info = H5.H5Gget_info(gid);
+            long end = Math.min(info.nlinks, (long) getStartMembers() + getMaxMembers());
+
+            // the members are indexed only if all of them are loaded
+            List<StructureIndex.Entry> entries = new ArrayList<>();
+            boolean isComplete = (getStartMembers() == 0) && (end == info.nlinks);
+
+            for (long idx = getStartMembers(); idx < end; idx += MEMBER_BATCH_SIZE) {
+                MemberBatch batch = new MemberBatch((int) Math.min(MEMBER_BATCH_SIZE, end - idx));
+                H5.H5Literate(gid, indexType, indexOrder, idx, batch, batch);
 
-                pgroup.addToMemberList(d);
+                for (int i = 0; i < batch.count; i++) {
+                    if (batch.types[i] == HDF5Constants.H5O_TYPE_GROUP) {
+                        pgroup.addToMemberList(createLazyGroup(pgroup, fullPath, batch.names[i], batch.oids[i], batch.nMembers[i]));
+                        entries.add(new StructureIndex.Entry(batch.names[i], StructureIndex.GROUP, batch.oids[i]));
+                    }
+                    else {
+                        HObject member = createMember(pgroup, fullPath, batch.names[i], batch.types[i], batch.oids[i]);
+                        pgroup.addToMemberList(member);
+                        if (member != null)
+                            entries.add(new StructureIndex.Entry(batch.names[i], getIndexType(member), batch.oids[i]));
+                    }
+                }
+
+                if (batch.count < batch.names.length) {
+                    isComplete = false;
+                    break; // the group has fewer links than reported
+                }
             }
-            else if (obj_type == HDF5Constants.H5O_TYPE_NAMED_DATATYPE) {
-                Datatype t = new H5Datatype(parentObject.getFileFormat(), obj_name, fullPath, oid); // deprecated!
-                log.trace("depth_first({}): H5O_TYPE_NAMED_DATATYPE name={}", parentObject, t.getFullName());
 
-                pgroup.addToMemberList(t);
+            if (isComplete && (structureIndex != null))
+                structureIndex.putMembers(getIndexKey(fullPath), entries);
+        }
+        catch (Exception ex) {
+            log.debug("loadMembers({}): failure: ", pgroup, ex);
+        }
+        finally {
+            pgroup.close(gid);
+        }
+
+        log.trace("loadMembers({}): finish", pgroup);
+    }
+
+    /**
+     * Creates a member group of a group of a file opened with a lazy hierarchy,
+     * without its members. nMembers is the number of members of the group in
+     * file, or -1 if it is not known.
+     */
+    private H5Group createLazyGroup(H5Group pgroup, String fullPath, String name, long[] oid, int nMembers) {
+        H5Group g = new H5Group(this, name, fullPath, pgroup);
+        if (nMembers >= 0)
+            g.setNumberOfMembersInFile(nMembers);
+
+        // a group that loops back to an ancestor is shown without members
+        if (hasLoop(pgroup, oid))
+            g.addToMemberList(null);
+        else
+            g.setMemberListLoaded(false);
+
+        return g;
+    }
+
+    /**
+     * Collects the names, object types and object IDs of a batch of links of a
+     * group through H5Literate, and the number of members of the groups among
+     * them, so that the groups need not be opened to find out if they are empty.
+     */
+    private static class MemberBatch implements H5L_iterate_t, H5L_iterate_opdata_t {
+        final String[] names;
+        final int[]    types;
+        final long[][] oids;
+        final int[]    nMembers;
+        int            count = 0;
+
+        MemberBatch(int size) {
+            names = new String[size];
+            types = new int[size];
+            oids = new long[size][];
+            nMembers = new int[size];
+        }
+
+        @Override
+        public int callback(long group, String name, H5L_info_t info, H5L_iterate_opdata_t op_data) {
+            int type = HDF5Constants.H5O_TYPE_UNKNOWN;
+            long[] oid = { 0, 0 };
+
+            try {
+                // follows soft and external links to the object they point to
+                H5O_info_t objInfo = H5.H5Oget_info_by_name(group, name, HDF5Constants.H5O_INFO_BASIC, HDF5Constants.H5P_DEFAULT);
+                type = objInfo.type;
+                oid[0] = ByteBuffer.wrap(objInfo.token.data).getLong();
+                oid[1] = objInfo.fileno;
+            }
+            catch (Exception ex) {
+                log.debug("MemberBatch.callback(): {} is not resolved: ", name, ex);
             }
-            else if (obj_type == HDF5Constants.H5O_TYPE_UNKNOWN) {
-                H5Link link = new H5Link(this, obj_name, fullPath, oid);
 
-                pgroup.addToMemberList(link);
-                continue; // do the next one, if the object is not identified.
+            int n = -1;
+            if (type == HDF5Constants.H5O_TYPE_GROUP) {
+                try {
+                    n = (int) H5.H5Gget_info_by_name(group, name, HDF5Constants.H5P_DEFAULT).nlinks;
+                }
+                catch (Exception ex) {
+                    log.debug("MemberBatch.callback(): H5Gget_info_by_name({}) failure: ", name, ex);
+                }
             }
-        } // ( i = 0; i < nelems; i++)
 
-        pgroup.close(gid);
+            names[count] = name;
+            types[count] = type;
+            oids[count] = oid;
+            nMembers[count] = n;
+            count++;
 
-        return nTotal;
-    } // private depth_first()
+            // a positive value stops the iteration at the end of the batch
+            return (count < names.length) ? 0 : 1;
+        }
+    }
 
     /**
      * Returns a list of all the members of this H5File in a
@@ -3059,24 +3606,96 @@ public class H5File extends FileFormat {
 
     /**
      * Export dataset.
+     * <p>
+     * The binary export of a dataset of numbers is streamed block by block with
+     * {@link Dataset#exportBinary(String, ByteOrder, boolean)}, so the dataset
+     * does not need to fit in memory. Text exports and other datatypes are
+     * exported with H5export_dataset.
      *
      * @param file_export_name
      *            The file name to export data into.
      * @param object
      *            The id of the HDF5 dataset.
      * @param binary_order
-     *            The data byte order
+     *            The data byte order: 1 for native order, 2 for little endian,
+     *            3 for big endian, 4 for a NumPy .npy file in native order, or
+     *            99 for text
      *
      * @throws Exception
      *            If there is a failure.
      */
+    @Override
     public void exportDataset(String file_export_name, Dataset object, int binary_order)
             throws Exception {
+        if ((binary_order >= 1) && (binary_order <= 4) && canExportBinary(object)) {
+            ByteOrder order = ByteOrder.nativeOrder();
+            if (binary_order == 2)
+                order = ByteOrder.LITTLE_ENDIAN;
+            else if (binary_order == 3)
+                order = ByteOrder.BIG_ENDIAN;
+
+            exportWholeDataset(file_export_name, object, order, binary_order == 4);
+            return;
+        }
+
+        if (binary_order == 4)
+            throw new UnsupportedOperationException("only datasets of numbers can be exported to NumPy files");
+
         long did = object.open();
         H5.H5export_dataset(file_export_name, did, object.getFullName(), binary_order);
         object.close(did);
     }
 
+    /** Returns true if the values of a dataset can be streamed to a binary file. */
+    private static boolean canExportBinary(Dataset object) {
+        if (!(object instanceof ScalarDS))
+            return false;
+
+        if (!object.isInited())
+            object.init();
+
+        Datatype dtype = object.getDatatype();
+        if ((dtype == null) || !(dtype.isInteger() || dtype.isFloat()) || dtype.isText())
+            return false;
+
+        long size = dtype.getDatatypeSize();
+        if (dtype.isFloat())
+            return (size == 4) || (size == 8);
+
+        return (size == 1) || (size == 2) || (size == 4) || (size == 8);
+    }
+
+    /** Exports all the values of a dataset, whatever its current selection. */
+    private static void exportWholeDataset(String fileName, Dataset object, ByteOrder order, boolean npyFormat)
+            throws Exception {
+        int rank = object.getRank();
+        long[] dims = object.getDims();
+        long[] start = object.getStartDims();
+        long[] stride = object.getStride();
+        long[] count = object.getSelectedDims();
+
+        long[] oldStart = start.clone();
+        long[] oldStride = (stride == null) ? null : stride.clone();
+        long[] oldCount = count.clone();
+
+        try {
+            for (int i = 0; i < rank; i++) {
+                start[i] = 0;
+                count[i] = dims[i];
+                if (stride != null)
+                    stride[i] = 1;
+            }
+
+            object.exportBinary(fileName, order, npyFormat);
+        }
+        finally {
+            System.arraycopy(oldStart, 0, start, 0, rank);
+            System.arraycopy(oldCount, 0, count, 0, rank);
+            if (stride != null)
+                System.arraycopy(oldStride, 0, stride, 0, rank);
+        }
+    }
+
     /**
      * Renames an attribute.
      *
@@ -3094,6 +3713,7 @@ public class H5File extends FileFormat {
     public void renameAttribute(HObject obj, String oldAttrName, String newAttrName) throws Exception {
         log.trace("renameAttribute(): rename {} to {}", oldAttrName, newAttrName);
         H5.H5Arename_by_name(obj.getFID(), obj.getFullName(), oldAttrName, newAttrName, HDF5Constants.H5P_DEFAULT);
+        invalidateAttributeCache(obj);
     }
 
     /**
@@ -61,6 +61,9 @@ public class H5Group extends Group {
 
     private H5O_info_t        obj_info;
 
+    /** false until the members of a group of a file opened with a lazy hierarchy are read from file */
+    private boolean           isMemberListLoaded = true;
+
     /**
      * Constructs an HDF5 group with specific name, path, and parent.
      *
@@ -164,6 +167,76 @@ public class H5Group extends Group {
         return nMembersInFile;
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see hdf.object.Group#getMemberList()
+     */
+    @Override
+    public List<HObject> getMemberList() {
+        loadMemberList();
+
+        return super.getMemberList();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see hdf.object.Group#getMember(int)
+     */
+    @Override
+    public HObject getMember(int idx) {
+        loadMemberList();
+
+        return super.getMember(idx);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see hdf.object.Group#isMemberListLoaded()
+     */
+    @Override
+    public boolean isMemberListLoaded() {
+        return isMemberListLoaded;
+    }
+
+    /**
+     * Sets whether the members of this group have been read from file. A group
+     * whose members are not loaded reads them the first time its member list is
+     * accessed.
+     *
+     * @param loaded
+     *            true if the members are in memory.
+     */
+    void setMemberListLoaded(boolean loaded) {
+        isMemberListLoaded = loaded;
+    }
+
+    /**
+     * Sets the number of members of this group in file, when it is already known
+     * from its parent group, so that getNumberOfMembersInFile() does not open
+     * the group.
+     *
+     * @param n
+     *            the number of links of the group.
+     */
+    void setNumberOfMembersInFile(int n) {
+        nMembersInFile = n;
+    }
+
+    private synchronized void loadMemberList() {
+        if (isMemberListLoaded)
+            return;
+
+        isMemberListLoaded = true;
+        ((H5File) getFileFormat()).loadMembers(this);
+
+        // make sure the member list exists, even for an empty group, so that
+        // Group.getMemberList() does not search the file structure for it
+        addToMemberList(null);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -208,7 +281,7 @@ public class H5Group extends Group {
                 }
             }
             try {
-                attributeList = H5File.getAttribute(this, indxType, order);
+                attributeList = H5File.getCachedAttribute(this, indxType, order);
             }
             catch (Exception ex) {
                 log.debug("getMetadata(): H5File.getAttribute failure: ", ex);
@@ -277,6 +350,7 @@ public class H5Group extends Group {
         if(gid >= 0) {
             try {
                 H5.H5Adelete(gid, attr.getName());
+                H5File.invalidateAttributeCache(this);
                 List attrList = getMetadata();
                 attrList.remove(attr);
                 nAttributes = attributeList.size();
@@ -474,6 +548,10 @@ public class H5Group extends Group {
     public void setPath(String newPath) throws Exception {
         super.setPath(newPath);
 
+        // the members not loaded yet are read with the new path
+        if (!isMemberListLoaded())
+            return;
+
         List members = this.getMemberList();
         if (members == null) {
             return;
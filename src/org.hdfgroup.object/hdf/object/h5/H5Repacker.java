@@ -0,0 +1,308 @@
+/*****************************************************************************
+ * Copyright by The HDF Group.                                               *
+ * Copyright by the Board of Trustees of the University of Illinois.         *
+ * All rights reserved.                                                      *
+ *                                                                           *
+ * This file is part of the HDF Java Products distribution.                  *
+ * The full copyright notice, including terms governing use, modification,   *
+ * and redistribution, is contained in the files COPYING and Copyright.html. *
+ * COPYING can be found at the root of the source code distribution tree.    *
+ * Or, see https://support.hdfgroup.org/products/licenses.html               *
+ * If you do not have access to either file, you may request a copy from     *
+ * help@hdfgroup.org.                                                        *
+ ****************************************************************************/
+
+package hdf.object.h5;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import hdf.hdf5lib.H5;
+import hdf.hdf5lib.HDF5Constants;
+import hdf.hdf5lib.structs.H5L_info_t;
+import hdf.object.Dataset;
+import hdf.object.DatasetCopier;
+import hdf.object.FileFormat;
+import hdf.object.Group;
+import hdf.object.HObject;
+
+/**
+ * H5Repacker copies the objects of an HDF5 file into another HDF5 file, and
+ * gives the datasets of numbers a new chunk size and compression level.
+ * <p>
+ * The datasets supported by {@link DatasetCopier} are copied block by block
+ * with the new storage layout. The groups that hold such datasets are created
+ * again, with their attributes; every other object, and every group whose
+ * members are all copied unchanged, is copied with H5Ocopy, as by
+ * {@link H5File#copy(HObject, Group, String)}, which keeps the links and the
+ * references inside the copied group.
+ * <p>
+ * The structure of the file is kept: an object reached through several hard
+ * links is copied once, and the other links are created as hard links to the
+ * copy; soft and external links are created again with the same target.
+ * <p>
+ * The copy can be run on a worker thread: getCurrentName(), getProgress() and
+ * cancel() may be called from any thread while repack() runs.
+ *
+ * <pre>
+ * H5Repacker repacker = new H5Repacker(srcFile);
+ * repacker.setChunkSize(new long[] { 64, 64 });
+ * repacker.setGzipLevel(6);
+ * repacker.repack(dstFile);
+ * </pre>
+ */
+public class H5Repacker {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(H5Repacker.class);
+
+    private final H5File                srcFile;
+    private long[]                      chunkSize = null;
+    private int                         gzipLevel = 0;
+
+    /** The full name in the new file of the objects copied so far, by object ID in the source file */
+    private final Map<String, String>   copiedObjects = new HashMap<>();
+
+    private volatile DatasetCopier      copier = null;
+    private volatile String             currentName = "";
+    private volatile boolean            isCancelled = false;
+
+    /**
+     * Creates a repacker for an HDF5 file.
+     *
+     * @param srcFile
+     *            the open file to copy.
+     */
+    public H5Repacker(H5File srcFile) {
+        if (srcFile == null)
+            throw new IllegalArgumentException("file is null");
+
+        this.srcFile = srcFile;
+    }
+
+    /**
+     * Sets the chunk size of the datasets of numbers. If it is null, or if its
+     * rank is not the rank of a dataset, the chunk size of the dataset is kept.
+     *
+     * @param chunks
+     *            the chunk size, or null.
+     */
+    public void setChunkSize(long[] chunks) {
+        this.chunkSize = (chunks == null) ? null : chunks.clone();
+    }
+
+    /**
+     * Sets the GZIP compression level of the datasets of numbers.
+     *
+     * @param level
+     *            the compression level (1 to 9), or 0 for no compression.
+     */
+    public void setGzipLevel(int level) {
+        this.gzipLevel = level;
+    }
+
+    /**
+     * Copies the attributes and the members of the root group of the file into
+     * the root group of another file.
+     *
+     * @param dstFile
+     *            the open file to copy to, usually a new empty file.
+     *
+     * @return true if the file was copied; false if the copy was cancelled.
+     *
+     * @throws Exception
+     *             if an object can not be read or copied
+     */
+    public boolean repack(H5File dstFile) throws Exception {
+        Group srcRoot = (Group) srcFile.getRootObject();
+        Group dstRoot = (Group) dstFile.getRootObject();
+
+        copiedObjects.clear();
+        copiedObjects.put(getKey(srcRoot), HObject.SEPARATOR);
+
+        DatasetCopier.copyAttributes(srcRoot, dstRoot);
+        copyMembers(srcRoot, dstRoot, dstFile);
+
+        log.trace("repack(): {} objects of {} copied, cancelled={}", copiedObjects.size(), srcFile.getFilePath(), isCancelled);
+
+        return !isCancelled;
+    }
+
+    /**
+     * Cancels the copy. repack() returns false as soon as the object being
+     * copied is done.
+     */
+    public void cancel() {
+        isCancelled = true;
+        DatasetCopier datasetCopier = copier;
+        if (datasetCopier != null)
+            datasetCopier.cancel();
+    }
+
+    /**
+     * Returns true if the copy was cancelled.
+     *
+     * @return true if the copy was cancelled.
+     */
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    /**
+     * Returns the full name of the object being copied.
+     *
+     * @return the full name of the object being copied.
+     */
+    public String getCurrentName() {
+        return currentName;
+    }
+
+    /**
+     * Returns the fraction of the values of the dataset being repacked written
+     * so far, or -1 if no dataset is being repacked.
+     *
+     * @return the progress of the dataset being repacked, between 0 and 1, or -1.
+     */
+    public double getProgress() {
+        DatasetCopier datasetCopier = copier;
+        return (datasetCopier == null) ? -1 : datasetCopier.getProgress();
+    }
+
+    /** Copies the members of a group into a group of the new file. */
+    private void copyMembers(Group srcGroup, Group dstGroup, H5File dstFile) throws Exception {
+        for (HObject obj : srcGroup.getMemberList()) {
+            if (isCancelled)
+                return;
+
+            currentName = obj.getFullName();
+            String dstName = getFullName(dstGroup, obj.getName());
+
+            String[] linkValue = getLinkValue(obj);
+            if (linkValue != null) {
+                copyLink(linkValue, dstName, dstFile);
+                continue;
+            }
+
+            String key = getKey(obj);
+            String copiedName = copiedObjects.get(key);
+            if (copiedName != null) {
+                log.trace("copyMembers(): {} is a hard link to {}", obj.getFullName(), copiedName);
+                H5.H5Lcreate_hard(dstFile.getFID(), copiedName, dstFile.getFID(), dstName, HDF5Constants.H5P_DEFAULT,
+                        HDF5Constants.H5P_DEFAULT);
+                continue;
+            }
+
+            List<String> unchangedKeys = new ArrayList<>();
+            if ((obj instanceof Group) && !isCopiedUnchanged((Group) obj, "", unchangedKeys)) {
+                Group group = dstFile.createGroup(obj.getName(), dstGroup);
+                copiedObjects.put(key, group.getFullName());
+                DatasetCopier.copyAttributes(obj, group);
+                copyMembers((Group) obj, group, dstFile);
+            }
+            else if ((obj instanceof Dataset) && DatasetCopier.isSupported((Dataset) obj)) {
+                DatasetCopier datasetCopier = new DatasetCopier((Dataset) obj);
+                datasetCopier.setChunkSize(chunkSize);
+                datasetCopier.setGzipLevel(gzipLevel);
+
+                copier = datasetCopier;
+                if (isCancelled)
+                    datasetCopier.cancel();
+                Dataset dset = datasetCopier.copy(dstGroup, obj.getName());
+                copier = null;
+
+                if (dset != null)
+                    copiedObjects.put(key, dset.getFullName());
+            }
+            else {
+                HObject copy = srcFile.copy(obj, dstGroup, obj.getName());
+                if (copy == null)
+                    throw new Exception("failed to copy " + obj.getFullName());
+
+                // the objects of a copied group can be reached through other links
+                copiedObjects.put(key, copy.getFullName());
+                for (int i = 0; i < unchangedKeys.size(); i += 2) {
+                    if (!copiedObjects.containsKey(unchangedKeys.get(i)))
+                        copiedObjects.put(unchangedKeys.get(i), copy.getFullName() + unchangedKeys.get(i + 1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a group can be copied with H5Ocopy: none of the objects it holds
+     * is repacked or was copied already. The ID and the path relative to the
+     * group of the objects held by the group are added to keys.
+     */
+    private boolean isCopiedUnchanged(Group group, String path, List<String> keys) throws Exception {
+        for (HObject obj : group.getMemberList()) {
+            // soft and external links are kept by H5Ocopy
+            if (getLinkValue(obj) != null)
+                continue;
+
+            String key = getKey(obj);
+            if (copiedObjects.containsKey(key))
+                return false;
+
+            String objPath = path + HObject.SEPARATOR + obj.getName();
+            if (obj instanceof Group) {
+                // a group reached twice in the group is only walked once
+                if (keys.contains(key))
+                    continue;
+
+                keys.add(key);
+                keys.add(objPath);
+                if (!isCopiedUnchanged((Group) obj, objPath, keys))
+                    return false;
+            }
+            else if ((obj instanceof Dataset) && DatasetCopier.isSupported((Dataset) obj)) {
+                return false;
+            }
+            else {
+                keys.add(key);
+                keys.add(objPath);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the value of a soft or external link of the source file, as
+     * returned by H5Lget_value: the target object and, for an external link,
+     * the target file; or null if the object is reached through a hard link.
+     */
+    private String[] getLinkValue(HObject obj) throws Exception {
+        H5L_info_t linkInfo = H5.H5Lget_info(srcFile.getFID(), obj.getFullName(), HDF5Constants.H5P_DEFAULT);
+        if ((linkInfo.type != HDF5Constants.H5L_TYPE_SOFT) && (linkInfo.type != HDF5Constants.H5L_TYPE_EXTERNAL))
+            return null;
+
+        String[] linkValue = { null, null };
+        H5.H5Lget_value(srcFile.getFID(), obj.getFullName(), linkValue, HDF5Constants.H5P_DEFAULT);
+        if (linkInfo.type == HDF5Constants.H5L_TYPE_SOFT)
+            linkValue[1] = null;
+
+        return linkValue;
+    }
+
+    /** Creates a soft or external link in the new file, with the target of a link of the source file. */
+    private static void copyLink(String[] linkValue, String dstName, H5File dstFile) throws Exception {
+        log.trace("copyLink(): {} to {}{}", dstName, (linkValue[1] == null) ? "" : linkValue[1] + FileFormat.FILE_OBJ_SEP,
+                linkValue[0]);
+
+        if (linkValue[1] == null)
+            H5.H5Lcreate_soft(linkValue[0], dstFile.getFID(), dstName, HDF5Constants.H5P_DEFAULT, HDF5Constants.H5P_DEFAULT);
+        else
+            H5.H5Lcreate_external(linkValue[1], linkValue[0], dstFile.getFID(), dstName, HDF5Constants.H5P_DEFAULT,
+                    HDF5Constants.H5P_DEFAULT);
+    }
+
+    /** Returns the key of an object in copiedObjects: its object ID in the source file. */
+    private static String getKey(HObject obj) {
+        return Arrays.toString(obj.getOID());
+    }
+
+    private static String getFullName(Group group, String name) {
+        return group.isRoot() ? HObject.SEPARATOR + name : group.getFullName() + HObject.SEPARATOR + name;
+    }
+}
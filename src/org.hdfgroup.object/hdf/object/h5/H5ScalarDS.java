@@ -815,38 +815,149 @@ public class H5ScalarDS extends ScalarDS {
         }
     }
 
-    private Object scalarDatasetCommonIO(IO_TYPE ioType, Object writeBuf) throws Exception {
+    /*
+     * (non-Javadoc)
+     *
+     * @see hdf.object.Dataset#readBlock(long[], long[], long[], java.lang.Object)
+     */
+    @Override
+    public Object readBlock(long[] blockStart, long[] blockStride, long[] blockDims, Object blockBuf) throws Exception {
+        if (!isInited())
+            init();
+
         H5Datatype dsDatatype = (H5Datatype) getDatatype();
         Object theData = null;
 
-        /*
-         * I/O type-specific pre-initialization.
-         */
-        if (ioType == IO_TYPE.WRITE) {
-            if (writeBuf == null) {
-                log.debug("scalarDatasetCommonIO(): writeBuf is null");
-                throw new Exception("write buffer is null");
+        long did = open();
+        if (did < 0) {
+            log.debug("readBlock(): failed to open dataset");
+            throw new HDF5Exception("Failed to open dataset " + getFullName());
+        }
+
+        long[] spaceIDs = { HDF5Constants.H5I_INVALID_HID, HDF5Constants.H5I_INVALID_HID }; // spaceIDs[0]=mspace, spaceIDs[1]=fspace
+
+        try {
+            long blockPoints = H5Utils.getTotalSelectedSpacePoints(did, dims, blockStart, blockStride, blockDims, spaceIDs);
+            log.trace("readBlock(): blockPoints={}", blockPoints);
+
+            // the buffer can only be reused if the raw data is not converted after reading
+            boolean isConverted = dsDatatype.isEnum() || dsDatatype.isText() || dsDatatype.isRefObj()
+                    || (dsDatatype.isFloat() && dsDatatype.getDatatypeSize() == 16)
+                    || (dsDatatype.isArray() && dsDatatype.getDatatypeBase().isFloat()
+                            && dsDatatype.getDatatypeBase().getDatatypeSize() == 16);
+
+            if ((blockBuf != null) && !isConverted) {
+                theData = blockBuf;
+            }
+            else {
+                try {
+                    theData = H5Datatype.allocateArray(dsDatatype, (int) blockPoints);
+                }
+                catch (OutOfMemoryError err) {
+                    log.debug("readBlock(): Out of memory");
+                    throw new HDF5Exception("Out Of Memory");
+                }
             }
 
-            /*
-             * Check for any unsupported datatypes and fail early before
-             * attempting to write to the dataset.
-             */
-            if (dsDatatype.isVLEN() && !dsDatatype.isText()) {
-                log.debug("scalarDatasetCommonIO(): Cannot write non-string variable-length data");
-                throw new HDF5Exception("Writing non-string variable-length data is not supported");
+            if (theData != null)
+                theData = scalarDatasetReadData(did, spaceIDs, blockPoints, theData);
+        }
+        finally {
+            if (HDF5Constants.H5S_ALL != spaceIDs[0]) {
+                try {
+                    H5.H5Sclose(spaceIDs[0]);
+                }
+                catch (Exception ex) {
+                    log.debug("readBlock(): H5Sclose(spaceIDs[0] {}) failure: ", spaceIDs[0], ex);
+                }
             }
 
-            if (dsDatatype.isStdRef()) {
-                log.debug("scalarDatasetCommonIO(): Cannot write region reference data");
-                throw new HDF5Exception("Writing region reference data is not supported");
+            if (HDF5Constants.H5S_ALL != spaceIDs[1]) {
+                try {
+                    H5.H5Sclose(spaceIDs[1]);
+                }
+                catch (Exception ex) {
+                    log.debug("readBlock(): H5Sclose(spaceIDs[1] {}) failure: ", spaceIDs[1], ex);
+                }
+            }
+
+            close(did);
+        }
+
+        return theData;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see hdf.object.Dataset#writeBlock(long[], long[], long[], java.lang.Object)
+     */
+    @Override
+    public void writeBlock(long[] blockStart, long[] blockStride, long[] blockDims, Object blockBuf) throws Exception {
+        if (this.getFileFormat().isReadOnly())
+            throw new Exception("cannot write to scalar dataset in file opened as read-only");
+
+        if (!isInited())
+            init();
+
+        checkWriteSupport((H5Datatype) getDatatype(), blockBuf);
+
+        long did = open();
+        if (did < 0) {
+            log.debug("writeBlock(): failed to open dataset");
+            throw new HDF5Exception("Failed to open dataset " + getFullName());
+        }
+
+        long[] spaceIDs = { HDF5Constants.H5I_INVALID_HID, HDF5Constants.H5I_INVALID_HID }; // spaceIDs[0]=mspace, spaceIDs[1]=fspace
+
+        try {
+            long blockPoints = H5Utils.getTotalSelectedSpacePoints(did, dims, blockStart, blockStride, blockDims, spaceIDs);
+            log.trace("writeBlock(): blockPoints={}", blockPoints);
+
+            scalarDatasetWriteData(did, spaceIDs, blockPoints, blockBuf);
+        }
+        finally {
+            if (HDF5Constants.H5S_ALL != spaceIDs[0]) {
+                try {
+                    H5.H5Sclose(spaceIDs[0]);
+                }
+                catch (Exception ex) {
+                    log.debug("writeBlock(): H5Sclose(spaceIDs[0] {}) failure: ", spaceIDs[0], ex);
+                }
             }
 
-            if (dsDatatype.isRegRef()) {
-                log.debug("scalarDatasetCommonIO(): Cannot write region reference data");
-                throw new HDF5Exception("Writing region reference data is not supported");
+            if (HDF5Constants.H5S_ALL != spaceIDs[1]) {
+                try {
+                    H5.H5Sclose(spaceIDs[1]);
+                }
+                catch (Exception ex) {
+                    log.debug("writeBlock(): H5Sclose(spaceIDs[1] {}) failure: ", spaceIDs[1], ex);
+                }
             }
+
+            close(did);
         }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see hdf.object.Dataset#hasDirectBlockIO()
+     */
+    @Override
+    public boolean hasDirectBlockIO() {
+        return true;
+    }
+
+    private Object scalarDatasetCommonIO(IO_TYPE ioType, Object writeBuf) throws Exception {
+        H5Datatype dsDatatype = (H5Datatype) getDatatype();
+        Object theData = null;
+
+        /*
+         * I/O type-specific pre-initialization.
+         */
+        if (ioType == IO_TYPE.WRITE)
+            checkWriteSupport(dsDatatype, writeBuf);
 
         long did = open();
         if (did >= 0) {
@@ -879,137 +990,11 @@ public class H5ScalarDS extends ScalarDS {
                         theData = originalBuf;
                     }
 
-                    if (theData != null) {
-                        /*
-                         * Actually read the data now that everything has been setup.
-                         */
-                        long tid = HDF5Constants.H5I_INVALID_HID;
-                        try {
-                            log.trace("scalarDatasetCommonIO():read ioType create native");
-                            tid = dsDatatype.createNative();
-
-                            if (dsDatatype.isVLEN() || (dsDatatype.isArray() && dsDatatype.getDatatypeBase().isVLEN())) {
-                                log.trace("scalarDatasetCommonIO(): H5DreadVL did={} tid={} spaceIDs[0]={} spaceIDs[1]={}",
-                                        did, tid, (spaceIDs[0] == HDF5Constants.H5P_DEFAULT) ? "H5P_DEFAULT" : spaceIDs[0],
-                                        (spaceIDs[1] == HDF5Constants.H5P_DEFAULT) ? "H5P_DEFAULT" : spaceIDs[1]);
-
-                                H5.H5DreadVL(did, tid, spaceIDs[0], spaceIDs[1], HDF5Constants.H5P_DEFAULT,
-                                        (Object[]) theData);
-                            }
-                            else {
-                                log.trace("scalarDatasetCommonIO(): H5Dread did={} tid={} spaceIDs[0]={} spaceIDs[1]={}",
-                                        did, tid, (spaceIDs[0] == HDF5Constants.H5P_DEFAULT) ? "H5P_DEFAULT" : spaceIDs[0],
-                                        (spaceIDs[1] == HDF5Constants.H5P_DEFAULT) ? "H5P_DEFAULT" : spaceIDs[1]);
-
-                                H5.H5Dread(did, tid, spaceIDs[0], spaceIDs[1], HDF5Constants.H5P_DEFAULT, theData);
-                            }
-                        }
-                        catch (HDF5DataFiltersException exfltr) {
-                            log.debug("scalarDatasetCommonIO(): read failure: ", exfltr);
-                            throw new Exception("Filter not available exception: " + exfltr.getMessage(), exfltr);
-                        }
-                        catch (Exception ex) {
-                            log.debug("scalarDatasetCommonIO(): read failure: ", ex);
-                            throw new Exception(ex.getMessage(), ex);
-                        }
-                        finally {
-                            dsDatatype.close(tid);
-                        }
-
-                        /*
-                         * Perform any necessary data conversions.
-                         */
-                        if (dsDatatype.isText() && convertByteToString && (theData instanceof byte[])) {
-                            log.trace("scalarDatasetCommonIO(): isText: converting byte array to string array");
-                            theData = byteToString((byte[]) theData, (int) dsDatatype.getDatatypeSize());
-                        }
-                        else if (dsDatatype.isFloat() && dsDatatype.getDatatypeSize() == 16) {
-                            log.trace("scalarDatasetCommonIO(): isFloat: converting byte array to BigDecimal array");
-                            theData = dsDatatype.byteToBigDecimal(0, (int)totalSelectedSpacePoints, (byte[]) theData);
-                        }
-                        else if (dsDatatype.isArray() && dsDatatype.getDatatypeBase().isFloat() && dsDatatype.getDatatypeBase().getDatatypeSize() == 16) {
-                            log.trace("scalarDatasetCommonIO(): isArray and isFloat: converting byte array to BigDecimal array");
-                            long[] arrayDims = dsDatatype.getArrayDims();
-                            int asize = (int)totalSelectedSpacePoints;
-                            for (int j = 0; j < arrayDims.length; j++) {
-                                asize *= arrayDims[j];
-                            }
-                            theData = ((H5Datatype)dsDatatype.getDatatypeBase()).byteToBigDecimal(0, asize, (byte[]) theData);
-                        }
-                        else if (dsDatatype.isRefObj()) {
-                            log.trace("scalarDatasetCommonIO(): isREF: converting byte array to long array");
-                            theData = HDFNativeData.byteToLong((byte[]) theData);
-                        }
-                    }
+                    if (theData != null)
+                        theData = scalarDatasetReadData(did, spaceIDs, totalSelectedSpacePoints, theData);
                 } // IO_TYPE.READ
                 else {
-                    /*
-                     * Perform any necessary data conversions before writing the data.
-                     *
-                     * Note that v-len strings do not get converted, regardless of
-                     * conversion request type.
-                     */
-                    Object tmpData = writeBuf;
-                    try {
-                        // Check if we need to convert integer data
-                        int tsize = (int) dsDatatype.getDatatypeSize();
-                        String cname = writeBuf.getClass().getName();
-                        char dname = cname.charAt(cname.lastIndexOf("[") + 1);
-                        boolean doIntConversion = (((tsize == 1) && (dname == 'S')) || ((tsize == 2) && (dname == 'I'))
-                                || ((tsize == 4) && (dname == 'J')) || (dsDatatype.isUnsigned() && unsignedConverted));
-
-                        if (doIntConversion) {
-                            log.trace("scalarDatasetCommonIO(): converting integer data to unsigned C-type integers");
-                            tmpData = convertToUnsignedC(writeBuf, null);
-                        }
-                        else if (dsDatatype.isText() && !dsDatatype.isVarStr() && convertByteToString) {
-                            log.trace("scalarDatasetCommonIO(): converting string array to byte array");
-                            tmpData = stringToByte((String[]) writeBuf, tsize);
-                        }
-                        else if (dsDatatype.isEnum() && (Array.get(writeBuf, 0) instanceof String)) {
-                            log.trace("scalarDatasetCommonIO(): converting enum names to values");
-                            throw new Exception("data conversion failure: cannot write BigDecimal values");
-                            //tmpData = dsDatatype.convertEnumNameToValue((String[]) writeBuf);
-                        }
-                        else if (dsDatatype.isFloat() && dsDatatype.getDatatypeSize() == 16) {
-                            log.trace("scalarDatasetCommonIO(): isFloat: converting BigDecimal array to byte array");
-                            tmpData = dsDatatype.bigDecimalToByte(0, (int)totalSelectedSpacePoints, (BigDecimal[]) writeBuf);
-                        }
-                    }
-                    catch (Exception ex) {
-                        log.debug("scalarDatasetCommonIO(): data conversion failure: ", ex);
-                        throw new Exception("data conversion failure: " + ex.getMessage());
-                    }
-
-                    /*
-                     * Actually write the data now that everything has been setup.
-                     */
-                    long tid = HDF5Constants.H5I_INVALID_HID;
-                    try {
-                        tid = dsDatatype.createNative();
-
-                        if (dsDatatype.isVLEN() || (dsDatatype.isArray() && dsDatatype.getDatatypeBase().isVLEN())) {
-                            log.trace("scalarDatasetCommonIO(): H5DwriteVL did={} tid={} spaceIDs[0]={} spaceIDs[1]={}",
-                                    did, tid, (spaceIDs[0] == HDF5Constants.H5P_DEFAULT) ? "H5P_DEFAULT" : spaceIDs[0],
-                                    (spaceIDs[1] == HDF5Constants.H5P_DEFAULT) ? "H5P_DEFAULT" : spaceIDs[1]);
-
-                            H5.H5DwriteVL(did, tid, spaceIDs[0], spaceIDs[1], HDF5Constants.H5P_DEFAULT, (Object[]) tmpData);
-                        }
-                        else {
-                            log.trace("scalarDatasetCommonIO(): H5Dwrite did={} tid={} spaceIDs[0]={} spaceIDs[1]={}",
-                                    did, tid, (spaceIDs[0] == HDF5Constants.H5P_DEFAULT) ? "H5P_DEFAULT" : spaceIDs[0],
-                                    (spaceIDs[1] == HDF5Constants.H5P_DEFAULT) ? "H5P_DEFAULT" : spaceIDs[1]);
-
-                            H5.H5Dwrite(did, tid, spaceIDs[0], spaceIDs[1], HDF5Constants.H5P_DEFAULT, tmpData);
-                        }
-                    }
-                    catch (Exception ex) {
-                        log.debug("scalarDatasetCommonIO(): write failure: ", ex);
-                        throw new Exception(ex.getMessage());
-                    }
-                    finally {
-                        dsDatatype.close(tid);
-                    }
+                    scalarDatasetWriteData(did, spaceIDs, totalSelectedSpacePoints, writeBuf);
                 } // IO_TYPE.WRITE
             }
             finally {
@@ -1040,6 +1025,181 @@ public class H5ScalarDS extends ScalarDS {
         return theData;
     }
 
+    /*
+     * Checks for any unsupported datatypes and fails early before attempting to
+     * write to the dataset.
+     */
+    private void checkWriteSupport(H5Datatype dsDatatype, Object writeBuf) throws Exception {
+        if (writeBuf == null) {
+            log.debug("checkWriteSupport(): writeBuf is null");
+            throw new Exception("write buffer is null");
+        }
+
+        if (dsDatatype.isVLEN() && !dsDatatype.isText()) {
+            log.debug("checkWriteSupport(): Cannot write non-string variable-length data");
+            throw new HDF5Exception("Writing non-string variable-length data is not supported");
+        }
+
+        if (dsDatatype.isStdRef()) {
+            log.debug("checkWriteSupport(): Cannot write region reference data");
+            throw new HDF5Exception("Writing region reference data is not supported");
+        }
+
+        if (dsDatatype.isRegRef()) {
+            log.debug("checkWriteSupport(): Cannot write region reference data");
+            throw new HDF5Exception("Writing region reference data is not supported");
+        }
+    }
+
+    /*
+     * Performs any necessary data conversions on the given buffer and writes it
+     * to the points selected by the given memory and file dataspaces.
+     */
+    private void scalarDatasetWriteData(long did, long[] spaceIDs, long totalSelectedSpacePoints, Object writeBuf)
+            throws Exception {
+        H5Datatype dsDatatype = (H5Datatype) getDatatype();
+
+        /*
+         * Perform any necessary data conversions before writing the data.
+         *
+         * Note that v-len strings do not get converted, regardless of
+         * conversion request type.
+         */
+        Object tmpData = writeBuf;
+        try {
+            // Check if we need to convert integer data
+            int tsize = (int) dsDatatype.getDatatypeSize();
+            String cname = writeBuf.getClass().getName();
+            char dname = cname.charAt(cname.lastIndexOf("[") + 1);
+            boolean doIntConversion = (((tsize == 1) && (dname == 'S')) || ((tsize == 2) && (dname == 'I'))
+                    || ((tsize == 4) && (dname == 'J')) || (dsDatatype.isUnsigned() && unsignedConverted));
+
+            if (doIntConversion) {
+                log.trace("scalarDatasetWriteData(): converting integer data to unsigned C-type integers");
+                tmpData = convertToUnsignedC(writeBuf, null);
+            }
+            else if (dsDatatype.isText() && !dsDatatype.isVarStr() && convertByteToString) {
+                log.trace("scalarDatasetWriteData(): converting string array to byte array");
+                tmpData = stringToByte((String[]) writeBuf, tsize);
+            }
+            else if (dsDatatype.isEnum() && (Array.get(writeBuf, 0) instanceof String)) {
+                log.trace("scalarDatasetWriteData(): converting enum names to values");
+                throw new Exception("data conversion failure: cannot write BigDecimal values");
+                //tmpData = dsDatatype.convertEnumNameToValue((String[]) writeBuf);
+            }
+            else if (dsDatatype.isFloat() && dsDatatype.getDatatypeSize() == 16) {
+                log.trace("scalarDatasetWriteData(): isFloat: converting BigDecimal array to byte array");
+                tmpData = dsDatatype.bigDecimalToByte(0, (int)totalSelectedSpacePoints, (BigDecimal[]) writeBuf);
+            }
+        }
+        catch (Exception ex) {
+            log.debug("scalarDatasetWriteData(): data conversion failure: ", ex);
+            throw new Exception("data conversion failure: " + ex.getMessage());
+        }
+
+        /*
+         * Actually write the data now that everything has been setup.
+         */
+        long tid = HDF5Constants.H5I_INVALID_HID;
+        try {
+            tid = dsDatatype.createNative();
+
+            if (dsDatatype.isVLEN() || (dsDatatype.isArray() && dsDatatype.getDatatypeBase().isVLEN())) {
+                log.trace("scalarDatasetWriteData(): H5DwriteVL did={} tid={} spaceIDs[0]={} spaceIDs[1]={}",
+                        did, tid, (spaceIDs[0] == HDF5Constants.H5P_DEFAULT) ? "H5P_DEFAULT" : spaceIDs[0],
+                        (spaceIDs[1] == HDF5Constants.H5P_DEFAULT) ? "H5P_DEFAULT" : spaceIDs[1]);
+
+                H5.H5DwriteVL(did, tid, spaceIDs[0], spaceIDs[1], HDF5Constants.H5P_DEFAULT, (Object[]) tmpData);
+            }
+            else {
+                log.trace("scalarDatasetWriteData(): H5Dwrite did={} tid={} spaceIDs[0]={} spaceIDs[1]={}",
+                        did, tid, (spaceIDs[0] == HDF5Constants.H5P_DEFAULT) ? "H5P_DEFAULT" : spaceIDs[0],
+                        (spaceIDs[1] == HDF5Constants.H5P_DEFAULT) ? "H5P_DEFAULT" : spaceIDs[1]);
+
+                H5.H5Dwrite(did, tid, spaceIDs[0], spaceIDs[1], HDF5Constants.H5P_DEFAULT, tmpData);
+            }
+        }
+        catch (Exception ex) {
+            log.debug("scalarDatasetWriteData(): write failure: ", ex);
+            throw new Exception(ex.getMessage());
+        }
+        finally {
+            dsDatatype.close(tid);
+        }
+    }
+
+    /*
+     * Reads the points selected by the given memory and file dataspaces into
+     * the given buffer and performs any necessary data conversions.
+     */
+    private Object scalarDatasetReadData(long did, long[] spaceIDs, long totalSelectedSpacePoints, Object theData)
+            throws Exception {
+        H5Datatype dsDatatype = (H5Datatype) getDatatype();
+
+        /*
+         * Actually read the data now that everything has been setup.
+         */
+        long tid = HDF5Constants.H5I_INVALID_HID;
+        try {
+            log.trace("scalarDatasetReadData(): create native");
+            tid = dsDatatype.createNative();
+
+            if (dsDatatype.isVLEN() || (dsDatatype.isArray() && dsDatatype.getDatatypeBase().isVLEN())) {
+                log.trace("scalarDatasetReadData(): H5DreadVL did={} tid={} spaceIDs[0]={} spaceIDs[1]={}",
+                        did, tid, (spaceIDs[0] == HDF5Constants.H5P_DEFAULT) ? "H5P_DEFAULT" : spaceIDs[0],
+                        (spaceIDs[1] == HDF5Constants.H5P_DEFAULT) ? "H5P_DEFAULT" : spaceIDs[1]);
+
+                H5.H5DreadVL(did, tid, spaceIDs[0], spaceIDs[1], HDF5Constants.H5P_DEFAULT,
+                        (Object[]) theData);
+            }
+            else {
+                log.trace("scalarDatasetReadData(): H5Dread did={} tid={} spaceIDs[0]={} spaceIDs[1]={}",
+                        did, tid, (spaceIDs[0] == HDF5Constants.H5P_DEFAULT) ? "H5P_DEFAULT" : spaceIDs[0],
+                        (spaceIDs[1] == HDF5Constants.H5P_DEFAULT) ? "H5P_DEFAULT" : spaceIDs[1]);
+
+                H5.H5Dread(did, tid, spaceIDs[0], spaceIDs[1], HDF5Constants.H5P_DEFAULT, theData);
+            }
+        }
+        catch (HDF5DataFiltersException exfltr) {
+            log.debug("scalarDatasetReadData(): read failure: ", exfltr);
+            throw new Exception("Filter not available exception: " + exfltr.getMessage(), exfltr);
+        }
+        catch (Exception ex) {
+            log.debug("scalarDatasetReadData(): read failure: ", ex);
+            throw new Exception(ex.getMessage(), ex);
+        }
+        finally {
+            dsDatatype.close(tid);
+        }
+
+        /*
+         * Perform any necessary data conversions.
+         */
+        if (dsDatatype.isText() && convertByteToString && (theData instanceof byte[])) {
+            log.trace("scalarDatasetReadData(): isText: converting byte array to string array");
+            theData = byteToString((byte[]) theData, (int) dsDatatype.getDatatypeSize());
+        }
+        else if (dsDatatype.isFloat() && dsDatatype.getDatatypeSize() == 16) {
+            log.trace("scalarDatasetReadData(): isFloat: converting byte array to BigDecimal array");
+            theData = dsDatatype.byteToBigDecimal(0, (int)totalSelectedSpacePoints, (byte[]) theData);
+        }
+        else if (dsDatatype.isArray() && dsDatatype.getDatatypeBase().isFloat() && dsDatatype.getDatatypeBase().getDatatypeSize() == 16) {
+            log.trace("scalarDatasetReadData(): isArray and isFloat: converting byte array to BigDecimal array");
+            long[] arrayDims = dsDatatype.getArrayDims();
+            int asize = (int)totalSelectedSpacePoints;
+            for (int j = 0; j < arrayDims.length; j++) {
+                asize *= arrayDims[j];
+            }
+            theData = ((H5Datatype)dsDatatype.getDatatypeBase()).byteToBigDecimal(0, asize, (byte[]) theData);
+        }
+        else if (dsDatatype.isRefObj()) {
+            log.trace("scalarDatasetReadData(): isREF: converting byte array to long array");
+            theData = HDFNativeData.byteToLong((byte[]) theData);
+        }
+
+        return theData;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -1086,7 +1246,7 @@ public class H5ScalarDS extends ScalarDS {
             }
         }
 
-        attributeList = H5File.getAttribute(this, indxType, order);
+        attributeList = H5File.getCachedAttribute(this, indxType, order);
 
         did = open();
         if (did >= 0) {
@@ -1392,6 +1552,7 @@ public class H5ScalarDS extends ScalarDS {
         if (did >= 0) {
             try {
                 H5.H5Adelete(did, attr.getName());
+                H5File.invalidateAttributeCache(this);
                 List<Attribute> attrList = getMetadata();
                 attrList.remove(attr);
                 nAttributes = attrList.size();
@@ -2344,6 +2505,7 @@ public class H5ScalarDS extends ScalarDS {
      * @throws HDF5Exception
      *             If there is an error at the HDF5 library level.
      */
+    @Override
     public void extend(long[] newDims) throws HDF5Exception {
         long did = HDF5Constants.H5I_INVALID_HID;
         long sid = HDF5Constants.H5I_INVALID_HID;
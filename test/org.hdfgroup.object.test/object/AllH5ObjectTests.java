@@ -15,11 +15,14 @@ import org.junit.runners.Suite;
     H5GroupTest.class, 
     H5DatatypeTest.class, 
     H5FileTest.class,
+    H5RepackerTest.class,
 
 // hdf.object package
     CompoundDSTest.class, 
     DatasetTest.class, 
+    DataStatisticsTest.class, 
     ScalarDSTest.class, 
+    StructureIndexTest.class, 
     AttributeTest.class, 
     DatatypeTest.class, 
     FileFormatTest.class, 
@@ -0,0 +1,106 @@
+package test.object;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import hdf.object.DataStatistics;
+
+/**
+ * Tests the single pass statistics of {@link hdf.object.DataStatistics}.
+ */
+public class DataStatisticsTest {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(DataStatisticsTest.class);
+
+    private static final double EPS = 1e-9;
+
+    /**
+     * Checks min, max, mean and stdev of an array large enough to be split
+     * across threads against a direct two-pass computation.
+     */
+    @Test
+    public void testParallelDouble() {
+        log.debug("testParallelDouble");
+        int n = 1000003;
+        double[] data = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            data[i] = 1.0e6 + Math.sin(i) * 100;
+            sum += data[i];
+        }
+        double mean = sum / n;
+        double var = 0;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            var += (data[i] - mean) * (data[i] - mean);
+            min = Math.min(min, data[i]);
+            max = Math.max(max, data[i]);
+        }
+
+        DataStatistics stats = new DataStatistics(null, false).accumulate(data);
+        assertEquals(n, stats.getCount());
+        assertEquals(min, stats.getMin(), 0);
+        assertEquals(max, stats.getMax(), 0);
+        assertEquals(mean, stats.getMean(), EPS * 1e6);
+        assertEquals(Math.sqrt(var / (n - 1)), stats.getStdDev(), EPS * 100);
+        assertNull(stats.getHistogram());
+    }
+
+    /**
+     * Checks that fill values and NaN are excluded, and that the statistics of
+     * blocks accumulated one at a time equal those of the whole array.
+     */
+    @Test
+    public void testFillValueAndBlocks() {
+        log.debug("testFillValueAndBlocks");
+        float[] data = { 1, -999, 2, Float.NaN, 3, Float.POSITIVE_INFINITY, 4, -999 };
+        float[] fill = { -999 };
+
+        DataStatistics whole = new DataStatistics(fill, false).accumulate(data);
+        assertEquals(8, whole.getTotalCount());
+        assertEquals(4, whole.getCount());
+        assertEquals(2, whole.getFillCount());
+        assertEquals(2, whole.getNaNCount());
+        assertEquals(1, whole.getMin(), 0);
+        assertEquals(4, whole.getMax(), 0);
+        assertEquals(2.5, whole.getMean(), EPS);
+
+        DataStatistics blocks = new DataStatistics(fill, false);
+        blocks.accumulate(new float[] { 1, -999, 2 });
+        blocks.accumulate(new float[] { Float.NaN, 3, Float.POSITIVE_INFINITY, 4, -999 });
+        assertEquals(whole.getCount(), blocks.getCount());
+        assertEquals(whole.getMean(), blocks.getMean(), EPS);
+        assertEquals(whole.getStdDev(), blocks.getStdDev(), EPS);
+    }
+
+    /**
+     * Checks that unsigned integers are read without sign extension and that
+     * the histogram bins match the value range.
+     */
+    @Test
+    public void testUnsignedHistogram() {
+        log.debug("testUnsignedHistogram");
+        byte[] data = { 0, 127, (byte) 128, (byte) 255, (byte) 255 };
+
+        DataStatistics stats = new DataStatistics(new byte[] { (byte) 128 }, true);
+        stats.setHistogram(256, 0, 255);
+        stats.accumulate(data);
+
+        assertEquals(4, stats.getCount());
+        assertEquals(1, stats.getFillCount());
+        assertEquals(0, stats.getMin(), 0);
+        assertEquals(255, stats.getMax(), 0);
+
+        long[] hist = stats.getHistogram();
+        assertEquals(1, hist[0]);
+        assertEquals(1, hist[127]);
+        assertEquals(0, hist[128]);
+        assertEquals(2, hist[255]);
+
+        long[] ulong = { -1L, 1L };
+        DataStatistics ustats = new DataStatistics(null, true).accumulate(ulong);
+        assertEquals(1.8446744073709552E19, ustats.getMax(), 0);
+    }
+}
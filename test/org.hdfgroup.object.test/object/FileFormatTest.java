@@ -4,8 +4,10 @@
 package test.object;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -20,6 +22,8 @@ import org.junit.Test;
 import hdf.hdf5lib.H5;
 import hdf.hdf5lib.HDF5Constants;
 import hdf.object.FileFormat;
+import hdf.object.Group;
+import hdf.object.HObject;
 import hdf.object.h5.H5File;
 
 /**
@@ -277,4 +281,97 @@ public class FileFormatTest {
         assertEquals(1, nObjs); // file id should be the only one left open
     }
 
+    /**
+     * Test method for {@link hdf.object.FileFormat#findObject(FileFormat, String)} and
+     * {@link hdf.object.FileFormat#findObject(FileFormat, long[])}.
+     * <p>
+     * <ul>
+     * <li>Find all the objects by path and by OID.
+     * <li>Find an object removed from and added back to the tree in memory.
+     * <li>Find an object by its new name after it is renamed.
+     * </ul>
+     */
+    @Test
+    public void testFindObject() {
+        log.debug("testFindObject");
+        for (int i = 0; i < H5TestFile.OBJ_NAMES.length; i++) {
+            HObject obj = FileFormat.findObject(testFile, H5TestFile.OBJ_NAMES[i]);
+            assertNotNull(H5TestFile.OBJ_NAMES[i], obj);
+            assertEquals(H5TestFile.OBJ_NAMES[i], obj.getFullName());
+            assertSame(obj, FileFormat.findObject(testFile, H5TestFile.OBJ_NAMES[i] + "/"));
+            assertTrue(FileFormat.findObject(testFile, obj.getOID()).equalsOID(obj.getOID()));
+        }
+        assertNull(FileFormat.findObject(testFile, "/not_an_object"));
+        assertNull(FileFormat.findObject(testFile, new long[] { -1 }));
+
+        Group root = (Group) testFile.getRootObject();
+        HObject obj = FileFormat.findObject(testFile, H5TestFile.NAME_DATASET_INT);
+        root.removeFromMemberList(obj);
+        assertNull(FileFormat.findObject(testFile, H5TestFile.NAME_DATASET_INT));
+        root.addToMemberList(obj);
+        assertSame(obj, FileFormat.findObject(testFile, H5TestFile.NAME_DATASET_INT));
+
+        try {
+            obj.setName("dataset_int_renamed");
+            assertNull(FileFormat.findObject(testFile, H5TestFile.NAME_DATASET_INT));
+            assertSame(obj, FileFormat.findObject(testFile, "/dataset_int_renamed"));
+            obj.setName(H5TestFile.NAME_DATASET_INT.substring(1));
+        }
+        catch (final Exception ex) {
+            fail("setName() failed. " + ex);
+        }
+        assertSame(obj, FileFormat.findObject(testFile, H5TestFile.NAME_DATASET_INT));
+
+        long nObjs = 0;
+        try {
+            nObjs = H5.H5Fget_obj_count(testFile.getFID(), HDF5Constants.H5F_OBJ_ALL);
+        }
+        catch (final Exception ex) {
+            fail("H5.H5Fget_obj_count() failed. " + ex);
+        }
+        assertEquals(1, nObjs); // file id should be the only one left open
+    }
+
+    /**
+     * Test method for {@link hdf.object.FileFormat#findObject(FileFormat, String)} and
+     * {@link hdf.object.FileFormat#findObject(FileFormat, long[])} with a lazy hierarchy.
+     * <p>
+     * <ul>
+     * <li>Find an object in a group not loaded, loading only the groups on its path.
+     * <li>Find an object by OID in a group not loaded.
+     * </ul>
+     */
+    @Test
+    public void testFindObjectLazy() throws Exception {
+        log.debug("testFindObjectLazy");
+        testFile.close();
+        testFile = H5FILE.createInstance(H5TestFile.NAME_FILE_H5, FileFormat.READ);
+        testFile.setLazyHierarchy(true);
+        testFile.open();
+
+        Group g0 = (Group) FileFormat.findObject(testFile, H5TestFile.NAME_GROUP);
+        assertNotNull(g0);
+        assertFalse(g0.isMemberListLoaded());
+
+        HObject obj = FileFormat.findObject(testFile, H5TestFile.NAME_DATASET_FLOAT_SUB_SUB);
+        assertNotNull(obj);
+        assertEquals(H5TestFile.NAME_DATASET_FLOAT_SUB_SUB, obj.getFullName());
+        assertTrue(g0.isMemberListLoaded());
+        assertSame(obj, FileFormat.findObject(testFile, obj.getOID()));
+
+        Group g00 = (Group) FileFormat.findObject(testFile, H5TestFile.NAME_GROUP_SUB);
+        assertSame(g00, FileFormat.findObject(testFile, g00.getOID()));
+        assertNull(FileFormat.findObject(testFile, H5TestFile.NAME_GROUP + "/not_an_object"));
+
+        testFile.close();
+        testFile = H5FILE.createInstance(H5TestFile.NAME_FILE_H5, FileFormat.READ);
+        testFile.setLazyHierarchy(true);
+        testFile.open();
+
+        // an object ID is found by loading the groups until it is found
+        HObject dset = FileFormat.findObject(testFile, obj.getOID());
+        assertNotNull(dset);
+        assertEquals(H5TestFile.NAME_DATASET_FLOAT_SUB_SUB, dset.getFullName());
+    }
+
 }
@@ -30,6 +30,7 @@ import hdf.hdf5lib.HDF5Constants;
 import hdf.hdf5lib.HDFNativeData;
 import hdf.hdf5lib.exceptions.HDF5Exception;
 import hdf.object.Attribute;
+import hdf.object.CompoundQuery;
 import hdf.object.Datatype;
 import hdf.object.FileFormat;
 import hdf.object.h5.H5CompoundDS;
@@ -770,6 +771,136 @@ public class H5CompoundDSTest {
         assertEquals(1, nObjs); // file id should be the only one left open
     }
 
+    /**
+     * Test method for {@link hdf.object.h5.H5CompoundDS#setPackedRead(boolean)}.
+     * <p>
+     * What to test:
+     * <ul>
+     * <li>Read the dataset member by member and in a single pass
+     * <li>Read a subset of the members in a single pass
+     * <li>Check that the data is the same
+     * </ul>
+     */
+    @Test
+    public void testReadPacked() {
+        log.debug("testReadPacked");
+        List<?> byMember = null;
+        List<?> packed = null;
+
+        try {
+            testDataset.clearData();
+            testDataset.init();
+            testDataset.setPackedRead(false);
+            byMember = (List<?>) testDataset.getData();
+
+            testDataset.clearData();
+            testDataset.init();
+            testDataset.setPackedRead(true);
+            packed = (List<?>) testDataset.getData();
+        }
+        catch (final Exception ex) {
+            fail("getData() failed. " + ex);
+        }
+        assertNotNull(byMember);
+        assertNotNull(packed);
+        assertEquals(byMember.size(), packed.size());
+
+        final int[] ints = (int[]) packed.get(0);
+        final float[] floats = (float[]) packed.get(1);
+        final String[] strs = (String[]) packed.get(2);
+        final long[] longs = (long[]) packed.get(3);
+        for (int i = 0; i < H5TestFile.DIM_SIZE; i++) {
+            assertEquals(((int[]) byMember.get(0))[i], ints[i]);
+            assertEquals(((float[]) byMember.get(1))[i], floats[i], Float.MIN_VALUE);
+            assertTrue(((String[]) byMember.get(2))[i].equals(strs[i]));
+            assertEquals(((long[]) byMember.get(3))[i], longs[i]);
+        }
+
+        // read the float and long members only
+        try {
+            testDataset.clearData();
+            testDataset.init();
+            testDataset.setAllMemberSelection(false);
+            testDataset.selectMember(1);
+            testDataset.selectMember(3);
+            packed = (List<?>) testDataset.getData();
+        }
+        catch (final Exception ex) {
+            fail("getData() failed. " + ex);
+        }
+        assertNotNull(packed);
+        assertEquals(2, packed.size());
+        for (int i = 0; i < H5TestFile.DIM_SIZE; i++) {
+            assertEquals(H5TestFile.DATA_FLOAT[i], ((float[]) packed.get(0))[i], Float.MIN_VALUE);
+            assertEquals(H5TestFile.DATA_LONG[i], ((long[]) packed.get(1))[i]);
+        }
+
+        long nObjs = 0;
+        try {
+            nObjs = H5.H5Fget_obj_count(testFile.getFID(), HDF5Constants.H5F_OBJ_ALL);
+        }
+        catch (final Exception ex) {
+            fail("H5.H5Fget_obj_count() failed. " + ex);
+        }
+        assertEquals(1, nObjs); // file id should be the only one left open
+    }
+
+    /**
+     * Test method for {@link hdf.object.CompoundDS#query(String[], String)}.
+     * <p>
+     * What to test:
+     * <ul>
+     * <li>Query the points in a range of the int32 member
+     * <li>Check the positions and the projected members of the matches
+     * <li>Check that the member selection is unchanged
+     * </ul>
+     */
+    @Test
+    public void testQuery() {
+        log.debug("testQuery");
+        CompoundQuery query = null;
+
+        testDataset.init();
+        testDataset.setAllMemberSelection(false);
+        testDataset.selectMember(0);
+
+        try {
+            query = testDataset.query(new String[] { "uint32", "float32" },
+                    "(int32 >= 100 && int32 < 110) || int32 == 400");
+        }
+        catch (final Exception ex) {
+            fail("query() failed. " + ex);
+        }
+        assertNotNull(query);
+        assertEquals(H5TestFile.DIM_SIZE, query.getPointsScanned());
+
+        final long[] positions = query.getPositions();
+        assertEquals(11, positions.length);
+        for (int i = 0; i < 10; i++)
+            assertEquals(100 + i, positions[i]);
+        assertEquals(400, positions[10]);
+
+        final List<Object> data = query.getData();
+        assertEquals(2, data.size());
+        final long[] longs = (long[]) data.get(0);
+        final float[] floats = (float[]) data.get(1);
+        for (int i = 0; i < positions.length; i++) {
+            assertEquals(H5TestFile.DATA_LONG[(int) positions[i]], longs[i]);
+            assertEquals(H5TestFile.DATA_FLOAT[(int) positions[i]], floats[i], Float.MIN_VALUE);
+        }
+
+        assertEquals(1, testDataset.getSelectedMemberCount());
+        assertTrue(testDataset.isMemberSelected(0));
+
+        try {
+            testDataset.query(null, "int32 >");
+            fail("query() with an invalid predicate did not fail");
+        }
+        catch (final Exception ex) {
+            log.trace("invalid predicate: {}", ex.getMessage());
+        }
+    }
+
     /**
      * Test method for {@link hdf.object.h5.H5CompoundDS#readBytes()}.
      * <p>
@@ -0,0 +1,95 @@
+package test.object;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import hdf.hdf5lib.H5;
+import hdf.hdf5lib.HDF5Constants;
+import hdf.object.Dataset;
+import hdf.object.FileFormat;
+import hdf.object.Group;
+import hdf.object.HObject;
+import hdf.object.h5.H5File;
+import hdf.object.h5.H5Repacker;
+
+/**
+ * Tests the copy of an HDF5 file by {@link hdf.object.h5.H5Repacker}.
+ */
+public class H5RepackerTest {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(H5RepackerTest.class);
+    private static final H5File H5FILE = new H5File();
+    private static final String SRC_FILE = "H5RepackerTestSrc.h5";
+    private static final String DST_FILE = "H5RepackerTestDst.h5";
+    private static final String NAME_SOFT_LINK = "a_soft_link_to_int";
+
+    private H5File srcFile = null;
+    private H5File dstFile = null;
+
+    @Before
+    public void createFiles() throws Exception {
+        H5TestFile.createTestFile(SRC_FILE);
+
+        srcFile = (H5File) H5FILE.createInstance(SRC_FILE, FileFormat.WRITE);
+        srcFile.open();
+        srcFile.createLink((Group) srcFile.getRootObject(), NAME_SOFT_LINK, H5TestFile.NAME_DATASET_INT,
+                Group.LINK_TYPE_SOFT);
+
+        dstFile = (H5File) H5FILE.createFile(DST_FILE, FileFormat.FILE_CREATE_DELETE);
+        dstFile.open();
+    }
+
+    @After
+    public void removeFiles() throws Exception {
+        if (srcFile != null)
+            srcFile.close();
+        if (dstFile != null)
+            dstFile.close();
+
+        new File(SRC_FILE).delete();
+        new File(DST_FILE).delete();
+    }
+
+    /**
+     * Checks that the datasets of numbers get the new chunk size, that the
+     * datasets with reference attributes are copied unchanged, and that hard and
+     * soft links are kept.
+     */
+    @Test
+    public void testRepack() throws Exception {
+        log.debug("testRepack");
+        H5Repacker repacker = new H5Repacker(srcFile);
+        repacker.setChunkSize(new long[] { 5, 5 });
+        repacker.setGzipLevel(6);
+        assertTrue(repacker.repack(dstFile));
+
+        dstFile.close();
+        dstFile.open();
+
+        Dataset dset = (Dataset) dstFile.get(H5TestFile.NAME_DATASET_INT);
+        assertNotNull(dset);
+        dset.init();
+        assertArrayEquals(new long[] { 5, 5 }, dset.getChunkSize());
+        assertArrayEquals(H5TestFile.DATA_INT, (int[]) dset.getData());
+
+        // the image has a palette reference, so it keeps its chunks
+        Dataset image = (Dataset) dstFile.get(H5TestFile.NAME_DATASET_IMAGE);
+        assertNotNull(image);
+        image.init();
+        assertArrayEquals(H5TestFile.CHUNKs, image.getChunkSize());
+
+        HObject link = dstFile.get(H5TestFile.NAME_GROUP + HObject.SEPARATOR + H5TestFile.NAME_HARD_LINK_TO_IMAGE);
+        assertNotNull(link);
+        assertArrayEquals(image.getOID(), link.getOID());
+
+        assertEquals(HDF5Constants.H5L_TYPE_SOFT,
+                H5.H5Lget_info(dstFile.getFID(), HObject.SEPARATOR + NAME_SOFT_LINK, HDF5Constants.H5P_DEFAULT).type);
+    }
+}
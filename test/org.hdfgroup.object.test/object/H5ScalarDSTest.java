@@ -3,9 +3,11 @@ package test.object;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -15,6 +17,11 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
 import java.util.Vector;
 
 import org.junit.After;
@@ -29,11 +36,14 @@ import hdf.hdf5lib.HDF5Constants;
 import hdf.hdf5lib.HDFNativeData;
 import hdf.hdf5lib.exceptions.HDF5Exception;
 import hdf.object.Attribute;
+import hdf.object.DataBlockIterator;
 import hdf.object.Dataset;
 import hdf.object.Datatype;
 import hdf.object.FileFormat;
 import hdf.object.Group;
 import hdf.object.ScalarDS;
+import hdf.object.TextExporter;
+import hdf.object.TextImporter;
 import hdf.object.h5.H5Datatype;
 import hdf.object.h5.H5File;
 import hdf.object.h5.H5ScalarDS;
@@ -759,6 +769,65 @@ public class H5ScalarDSTest {
         assertEquals(1, nObjs); // file id should be the only one left open
     }
 
+    /**
+     * Test method for {@link hdf.object.Dataset#blockIterator(long)}.
+     * <p>
+     * What to test:
+     * <ul>
+     * <li>Read the whole dataset in blocks smaller than a chunk
+     * <li>check the blocks are contiguous and match the data content
+     * <li>check the selection of the dataset is not changed
+     * <li>Repeat all above
+     * </ul>
+     */
+    @Test
+    public void testBlockIterator() {
+        log.debug("testBlockIterator");
+
+        for (int loop = 0; loop < NLOOPS; loop++) {
+            testDataset.init();
+
+            final long[] count = testDataset.getSelectedDims();
+            final long[] start = testDataset.getStartDims();
+            final long count0 = count[0];
+            final long start0 = start[0];
+
+            DataBlockIterator blocks = testDataset.blockIterator(6 * H5TestFile.DIM2);
+            assertEquals(H5TestFile.DIM_SIZE, blocks.getTotalPoints());
+
+            long offset = 0;
+            try {
+                while (blocks.hasNext()) {
+                    int[] ints = (int[]) blocks.next();
+                    assertNotNull(ints);
+                    assertEquals(offset, blocks.getBlockOffset());
+                    assertTrue(blocks.getBlockPoints() <= 6 * H5TestFile.DIM2);
+
+                    for (int i = 0; i < blocks.getBlockPoints(); i++) {
+                        assertEquals(H5TestFile.DATA_INT[(int) offset + i], ints[i]);
+                    }
+                    offset += blocks.getBlockPoints();
+                }
+            }
+            catch (final Exception ex) {
+                fail("blocks.next() failed. " + ex);
+            }
+            assertEquals(H5TestFile.DIM_SIZE, offset);
+
+            assertEquals(count0, testDataset.getSelectedDims()[0]);
+            assertEquals(start0, testDataset.getStartDims()[0]);
+        } //  (int loop=0; loop<NLOOPS; loop++)
+
+        long nObjs = 0;
+        try {
+            nObjs = H5.H5Fget_obj_count(testFile.getFID(), HDF5Constants.H5F_OBJ_ALL);
+        }
+        catch (final Exception ex) {
+            fail("H5.H5Fget_obj_count() failed. " + ex);
+        }
+        assertEquals(1, nObjs); // file id should be the only one left open
+    }
+
     /**
      * Test method for {@link hdf.object.h5.H5ScalarDS#readBytes()}.
      * <p>
@@ -795,6 +864,338 @@ public class H5ScalarDSTest {
         assertEquals(1, nObjs); // file id should be the only one left open
     }
 
+    /**
+     * Test method for {@link hdf.object.TextExporter#export(java.lang.String)}.
+     * <p>
+     * What to test:
+     * <ul>
+     * <li>Export the whole dataset while only a part of it is selected
+     * <li>check there is one line per row and the values match the data content
+     * <li>check the selection of the dataset is not changed
+     * </ul>
+     */
+    @Test
+    public void testExportText() {
+        log.debug("testExportText");
+        File textFile = null;
+
+        testDataset.init();
+        long[] count = testDataset.getSelectedDims();
+        count[0] = 1;
+
+        try {
+            textFile = File.createTempFile("H5ScalarDSTest", ".txt");
+            TextExporter exporter = new TextExporter(testDataset, ",", true);
+            assertTrue(exporter.export(textFile.getAbsolutePath()));
+            assertEquals(1.0, exporter.getProgress(), 0.0);
+
+            List<String> lines = Files.readAllLines(textFile.toPath());
+            assertEquals(H5TestFile.DIM1, lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                String[] values = lines.get(i).split(",");
+                assertEquals(H5TestFile.DIM2, values.length);
+                for (int j = 0; j < values.length; j++)
+                    assertEquals(H5TestFile.DATA_INT[(int) (i * H5TestFile.DIM2) + j], Integer.parseInt(values[j]));
+            }
+        }
+        catch (final Exception ex) {
+            fail("export() failed. " + ex);
+        }
+        finally {
+            if (textFile != null)
+                textFile.delete();
+        }
+
+        assertEquals(1, testDataset.getSelectedDims()[0]);
+
+        long nObjs = 0;
+        try {
+            nObjs = H5.H5Fget_obj_count(testFile.getFID(), HDF5Constants.H5F_OBJ_ALL);
+        }
+        catch (final Exception ex) {
+            fail("H5.H5Fget_obj_count() failed. " + ex);
+        }
+        assertEquals(1, nObjs); // file id should be the only one left open
+    }
+
+    /**
+     * Test method for {@link hdf.object.TextImporter#importFile(java.lang.String, long)}.
+     * <p>
+     * What to test:
+     * <ul>
+     * <li>Import a text file with one row of the dataset per line
+     * <li>check the values read from file match the text
+     * <li>check the selection of the dataset is not changed
+     * <li>write the original data back to file
+     * </ul>
+     */
+    @Test
+    public void testImportText() {
+        log.debug("testImportText");
+        File textFile = null;
+
+        testDataset.init();
+        long[] count = testDataset.getSelectedDims();
+        count[0] = 1;
+
+        try {
+            textFile = File.createTempFile("H5ScalarDSTest", ".txt");
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < H5TestFile.DIM_SIZE; i++) {
+                text.append(-i);
+                text.append(((i + 1) % H5TestFile.DIM2 == 0) ? "\n" : ", ");
+            }
+            Files.write(textFile.toPath(), text.toString().getBytes("UTF-8"));
+
+            TextImporter importer = new TextImporter(testDataset, ",");
+            assertEquals(H5TestFile.DIM1, importer.importFile(textFile.getAbsolutePath(), 0));
+            assertEquals(1, testDataset.getSelectedDims()[0]);
+
+            testDataset.init();
+            testDataset.clearData();
+            int[] ints = (int[]) testDataset.getData();
+            assertNotNull(ints);
+            assertEquals(H5TestFile.DIM_SIZE, ints.length);
+            for (int i = 0; i < H5TestFile.DIM_SIZE; i++)
+                assertEquals(-i, ints[i]);
+        }
+        catch (final Exception ex) {
+            fail("importFile() failed. " + ex);
+        }
+        finally {
+            if (textFile != null)
+                textFile.delete();
+        }
+
+        // write the original data into file
+        try {
+            testDataset.init();
+            testDataset.write(H5TestFile.DATA_INT);
+        }
+        catch (final Exception ex) {
+            fail("write() failed. " + ex);
+        }
+
+        long nObjs = 0;
+        try {
+            nObjs = H5.H5Fget_obj_count(testFile.getFID(), HDF5Constants.H5F_OBJ_ALL);
+        }
+        catch (final Exception ex) {
+            fail("H5.H5Fget_obj_count() failed. " + ex);
+        }
+        assertEquals(1, nObjs); // file id should be the only one left open
+    }
+
+    /**
+     * Test method for {@link hdf.object.Dataset#importBinary(java.lang.String, java.nio.ByteOrder, hdf.object.DataBlockIterator)}.
+     * <p>
+     * What to test:
+     * <ul>
+     * <li>Import nothing with an iterator that was stopped
+     * <li>Import a binary file in big-endian order
+     * <li>check the values read from file match the binary file
+     * <li>write the original data back to file
+     * </ul>
+     */
+    @Test
+    public void testImportBinary() {
+        log.debug("testImportBinary");
+        File binFile = null;
+
+        testDataset.init();
+
+        try {
+            binFile = File.createTempFile("H5ScalarDSTest", ".bin");
+            ByteBuffer buf = ByteBuffer.allocate(H5TestFile.DIM_SIZE * 4).order(ByteOrder.BIG_ENDIAN);
+            for (int i = 0; i < H5TestFile.DIM_SIZE; i++)
+                buf.putInt(-i);
+            Files.write(binFile.toPath(), buf.array());
+
+            DataBlockIterator blocks = testDataset.blockIterator(6 * H5TestFile.DIM2);
+            blocks.stop();
+            assertEquals(0, testDataset.importBinary(binFile.getAbsolutePath(), ByteOrder.BIG_ENDIAN, blocks));
+
+            blocks = testDataset.blockIterator(6 * H5TestFile.DIM2);
+            assertEquals(H5TestFile.DIM_SIZE, testDataset.importBinary(binFile.getAbsolutePath(), ByteOrder.BIG_ENDIAN, blocks));
+            assertEquals(H5TestFile.DIM_SIZE, blocks.getPointsRead());
+
+            testDataset.init();
+            testDataset.clearData();
+            int[] ints = (int[]) testDataset.getData();
+            assertNotNull(ints);
+            assertEquals(H5TestFile.DIM_SIZE, ints.length);
+            for (int i = 0; i < H5TestFile.DIM_SIZE; i++)
+                assertEquals(-i, ints[i]);
+        }
+        catch (final Exception ex) {
+            fail("importBinary() failed. " + ex);
+        }
+        finally {
+            if (binFile != null)
+                binFile.delete();
+        }
+
+        // write the original data into file
+        try {
+            testDataset.init();
+            testDataset.write(H5TestFile.DATA_INT);
+        }
+        catch (final Exception ex) {
+            fail("write() failed. " + ex);
+        }
+
+        long nObjs = 0;
+        try {
+            nObjs = H5.H5Fget_obj_count(testFile.getFID(), HDF5Constants.H5F_OBJ_ALL);
+        }
+        catch (final Exception ex) {
+            fail("H5.H5Fget_obj_count() failed. " + ex);
+        }
+        assertEquals(1, nObjs); // file id should be the only one left open
+    }
+
+    /**
+     * Test method for {@link hdf.object.Dataset#importBinary(java.lang.String, java.nio.ByteOrder, hdf.object.DataBlockIterator)}.
+     * <p>
+     * What to test:
+     * <ul>
+     * <li>Create a dataset of floating-point values that are neither 32 nor 64 bits
+     * <li>Check the import is rejected as for the unsupported integer sizes
+     * <li>Restore to the orginal file (remove the new dataset)
+     * </ul>
+     */
+    @Test
+    public void testImportBinaryFloatSize() {
+        log.debug("testImportBinaryFloatSize");
+        ScalarDS dset = null;
+        final String nameNew = "/tmpH5ScalarDSLongDouble";
+
+        // long double is stored in 64 bits on some platforms
+        try {
+            assumeTrue(H5.H5Tget_size(HDF5Constants.H5T_NATIVE_LDOUBLE) > 8);
+        }
+        catch (final Exception ex) {
+            fail("H5.H5Tget_size() failed. " + ex);
+        }
+
+        try {
+            H5Datatype typeLongDouble = new H5Datatype(Datatype.CLASS_FLOAT, 16, Datatype.NATIVE, Datatype.NATIVE);
+            final Group rootGrp = (Group) testFile.get("/");
+            dset = (ScalarDS) H5ScalarDS.create(nameNew, rootGrp, typeLongDouble, H5TestFile.DIMs, null, null, 0, null);
+            dset.init();
+        }
+        catch (final Exception ex) {
+            fail("H5ScalarDS.create() failed. " + ex);
+        }
+
+        try {
+            dset.importBinary("H5ScalarDSTest.bin", ByteOrder.BIG_ENDIAN, dset.blockIterator());
+            fail("importBinary() did not reject a floating-point size of "
+                    + dset.getDatatype().getDatatypeSize());
+        }
+        catch (final UnsupportedOperationException ex) {
+            assertTrue(ex.getMessage().contains("unsupported datatype size"));
+        }
+        catch (final Exception ex) {
+            fail("importBinary() failed. " + ex);
+        }
+
+        try {
+            testFile.delete(dset); // delete the new datast
+        }
+        catch (final Exception ex) {
+            fail("testFile.delete failed. " + ex);
+        }
+        long nObjs = 0;
+        try {
+            nObjs = H5.H5Fget_obj_count(testFile.getFID(), HDF5Constants.H5F_OBJ_ALL);
+        }
+        catch (final Exception ex) {
+            fail("H5.H5Fget_obj_count() failed. " + ex);
+        }
+        assertEquals(1, nObjs); // file id should be the only one left open
+    }
+
+    /**
+     * Test method for {@link hdf.object.h5.H5File#exportDataset(java.lang.String, hdf.object.Dataset, int)}
+     * with a NumPy .npy file.
+     * <p>
+     * What to test:
+     * <ul>
+     * <li>Export the integer and the float datasets to .npy files
+     * <li>Check the magic string and the version of the files
+     * <li>Check the type, the order and the shape in the header
+     * <li>Check the header is padded to a multiple of 64 bytes
+     * <li>Check the values after the header match the datasets
+     * </ul>
+     */
+    @Test
+    public void testExportNpy() {
+        log.debug("testExportNpy");
+        File npyFile = null;
+        String byteOrder = (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) ? "<" : ">";
+
+        try {
+            npyFile = File.createTempFile("H5ScalarDSTest", ".npy");
+
+            testFile.exportDataset(npyFile.getAbsolutePath(), testDataset, 4);
+            ByteBuffer values = getNpyValues(npyFile, byteOrder + "i4");
+            assertEquals(H5TestFile.DIM_SIZE * 4, values.remaining());
+            for (int i = 0; i < H5TestFile.DIM_SIZE; i++)
+                assertEquals(H5TestFile.DATA_INT[i], values.getInt());
+
+            final H5ScalarDS floatDataset = (H5ScalarDS) testFile.get(H5TestFile.NAME_DATASET_FLOAT);
+            testFile.exportDataset(npyFile.getAbsolutePath(), floatDataset, 4);
+            values = getNpyValues(npyFile, byteOrder + "f4");
+            assertEquals(H5TestFile.DIM_SIZE * 4, values.remaining());
+            for (int i = 0; i < H5TestFile.DIM_SIZE; i++)
+                assertEquals(H5TestFile.DATA_FLOAT[i], values.getFloat(), Float.MIN_VALUE);
+        }
+        catch (final Exception ex) {
+            fail("exportDataset() failed. " + ex);
+        }
+        finally {
+            if (npyFile != null)
+                npyFile.delete();
+        }
+
+        long nObjs = 0;
+        try {
+            nObjs = H5.H5Fget_obj_count(testFile.getFID(), HDF5Constants.H5F_OBJ_ALL);
+        }
+        catch (final Exception ex) {
+            fail("H5.H5Fget_obj_count() failed. " + ex);
+        }
+        assertEquals(1, nObjs); // file id should be the only one left open
+    }
+
+    /**
+     * Checks the header of a .npy file of a DIM1 x DIM2 array, and returns the
+     * values that follow it in native byte order.
+     */
+    private static ByteBuffer getNpyValues(File npyFile, String descr) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(npyFile.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals((byte) 0x93, buf.get());
+        byte[] magic = new byte[5];
+        buf.get(magic);
+        assertEquals("NUMPY", new String(magic, StandardCharsets.US_ASCII));
+        assertEquals(1, buf.get()); // major version
+        assertEquals(0, buf.get()); // minor version
+
+        int headerLength = buf.getShort() & 0xffff;
+        assertEquals(0, (10 + headerLength) % 64);
+
+        byte[] header = new byte[headerLength];
+        buf.get(header);
+        String text = new String(header, StandardCharsets.US_ASCII);
+        assertTrue(text.endsWith("\n"));
+        assertEquals("{'descr': '" + descr + "', 'fortran_order': False, 'shape': (" + H5TestFile.DIM1 + ", "
+                + H5TestFile.DIM2 + "), }", text.trim());
+
+        return buf.slice().order(ByteOrder.nativeOrder());
+    }
+
     /**
      * Test method for {@link hdf.object.h5.H5ScalarDS#write(java.lang.Object)}.
      * <p>
@@ -1570,6 +1971,84 @@ public class H5ScalarDSTest {
         assertEquals(1, nObjs); // file id should be the only one left open
     }
 
+    /**
+     * Test method for {@link hdf.object.h5.H5File#getCachedAttribute(hdf.object.HObject, int, int)}.
+     * <p>
+     * What to test:
+     * <ul>
+     * <li>Get the attributes twice from the attribute cache
+     * <li>Check that each call returns its own attributes
+     * <li>Check that the values are read on demand
+     * <li>Invalidate the cache and check that the attributes are read again
+     * </ul>
+     */
+    @Test
+    public void testGetCachedAttribute() {
+        log.debug("testGetCachedAttribute");
+        List<Attribute> attrs = null;
+        List<Attribute> cached = null;
+        int indxType = testFile.getIndexType(null);
+        int order = testFile.getIndexOrder(null);
+
+        try {
+            attrs = H5File.getCachedAttribute(testDataset, indxType, order);
+            cached = H5File.getCachedAttribute(testDataset, indxType, order);
+        }
+        catch (final Exception ex) {
+            fail("getCachedAttribute() failed. " + ex);
+        }
+        assertNotNull(attrs);
+        assertTrue(attrs.size() > 0);
+        assertNotSame(attrs, cached);
+        assertEquals(attrs.size(), cached.size());
+        for (int i = 0; i < attrs.size(); i++) {
+            assertNotSame(attrs.get(i), cached.get(i));
+            assertEquals(attrs.get(i).getName(), cached.get(i).getName());
+        }
+
+        for (int i = 0; i < attrs.size(); i++) {
+            Attribute attr = attrs.get(i);
+            if (!H5TestFile.ATTRIBUTE_INT_ARRAY.getName().equals(attr.getName()))
+                continue;
+
+            assertNull(attr.toString(", "));
+            try {
+                final int[] expected = (int[]) H5TestFile.ATTRIBUTE_INT_ARRAY.getData();
+                final int[] ints = (int[]) attr.getData();
+                assertNotNull(ints);
+                for (int j = 0; j < expected.length; j++) {
+                    assertEquals(expected[j], ints[j]);
+                }
+
+                // a change to the value of an attribute is not seen by the other lists
+                ints[0] = expected[0] + 1;
+                assertEquals(expected[0], ((int[]) cached.get(i).getData())[0]);
+            }
+            catch (Exception ex) {
+                fail("getData() failure " + ex);
+            }
+        }
+
+        H5File.invalidateAttributeCache(testDataset);
+        try {
+            cached = H5File.getCachedAttribute(testDataset, indxType, order);
+        }
+        catch (final Exception ex) {
+            fail("getCachedAttribute() failed. " + ex);
+        }
+        assertEquals(attrs.size(), cached.size());
+        assertNotSame(attrs.get(0), cached.get(0));
+
+        long nObjs = 0;
+        try {
+            nObjs = H5.H5Fget_obj_count(testFile.getFID(), HDF5Constants.H5F_OBJ_ALL);
+        }
+        catch (final Exception ex) {
+            fail("H5.H5Fget_obj_count() failed. " + ex);
+        }
+        assertEquals(1, nObjs); // file id should be the only one left open
+    }
+
     /**
      * Test method for {@link hdf.object.h5.H5ScalarDS#writeMetadata(java.lang.Object)}.
      * <p>
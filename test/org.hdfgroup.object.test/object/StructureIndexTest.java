@@ -0,0 +1,118 @@
+package test.object;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import hdf.object.StructureIndex;
+
+/**
+ * Tests the on-disk structure index of {@link hdf.object.StructureIndex}.
+ */
+public class StructureIndexTest {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(StructureIndexTest.class);
+
+    private File indexDir = null;
+    private File dataFile = null;
+
+    @Before
+    public void createFiles() throws Exception {
+        indexDir = new File(System.getProperty("java.io.tmpdir"), "StructureIndexTest" + System.nanoTime());
+        dataFile = File.createTempFile("StructureIndexTest", ".h5");
+        try (FileOutputStream out = new FileOutputStream(dataFile)) {
+            out.write(new byte[] { 1, 2, 3, 4 });
+        }
+    }
+
+    @After
+    public void removeFiles() {
+        File[] files = indexDir.listFiles();
+        if (files != null) {
+            for (File file : files)
+                file.delete();
+        }
+        indexDir.delete();
+        dataFile.delete();
+    }
+
+    /**
+     * Checks that the members of the groups are read back after the index is
+     * saved and reopened, in order, that the groups added later are merged, and
+     * that an index reads the file it replaced.
+     */
+    @Test
+    public void testSaveAndReopen() {
+        log.debug("testSaveAndReopen");
+        List<StructureIndex.Entry> root = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            root.add(new StructureIndex.Entry("dset" + i, StructureIndex.DATASET, new long[] { i, 7 }));
+        root.add(new StructureIndex.Entry("g1", StructureIndex.GROUP, new long[] { 5000, 7 }));
+        root.add(new StructureIndex.Entry("\u00e9t\u00e9", StructureIndex.COMPOUND_DATASET, new long[] { 5001, 7 }));
+
+        StructureIndex index = StructureIndex.open(indexDir, dataFile);
+        assertNotNull(index);
+        assertNull(index.getMembers("/"));
+        index.putMembers("/", root);
+        assertEquals(root.size(), index.getMembers("/").size());
+        index.save();
+
+        index = StructureIndex.open(indexDir, dataFile);
+        List<StructureIndex.Entry> members = index.getMembers("/");
+        assertNotNull(members);
+        assertEquals(root.size(), members.size());
+        for (int i = 0; i < root.size(); i++) {
+            assertEquals(root.get(i).getName(), members.get(i).getName());
+            assertEquals(root.get(i).getType(), members.get(i).getType());
+            assertArrayEquals(root.get(i).getOID(), members.get(i).getOID());
+        }
+        assertNull(index.getMembers("/g1/"));
+
+        List<StructureIndex.Entry> group = new ArrayList<>();
+        group.add(new StructureIndex.Entry("type", StructureIndex.DATATYPE, new long[] { 6000, 7 }));
+        index.putMembers("/g1/", group);
+        index.save();
+        assertEquals(root.size(), index.getMembers("/").size());
+        assertEquals("type", index.getMembers("/g1/").get(0).getName());
+
+        index.putMembers("/g2/", group);
+        index.save();
+
+        index = StructureIndex.open(indexDir, dataFile);
+        assertEquals(root.size(), index.getMembers("/").size());
+        assertEquals("type", index.getMembers("/g1/").get(0).getName());
+        assertEquals("type", index.getMembers("/g2/").get(0).getName());
+    }
+
+    /**
+     * Checks that the index of a data file is not used once the file is modified.
+     */
+    @Test
+    public void testModifiedFile() throws Exception {
+        log.debug("testModifiedFile");
+        List<StructureIndex.Entry> root = new ArrayList<>();
+        root.add(new StructureIndex.Entry("dset", StructureIndex.DATASET, new long[] { 1, 2 }));
+
+        StructureIndex index = StructureIndex.open(indexDir, dataFile);
+        index.putMembers("/", root);
+        index.save();
+        assertNotNull(StructureIndex.open(indexDir, dataFile).getMembers("/"));
+
+        try (FileOutputStream out = new FileOutputStream(dataFile, true)) {
+            out.write(5);
+        }
+        assertTrue(dataFile.setLastModified(dataFile.lastModified() + 2000));
+
+        assertNull(StructureIndex.open(indexDir, dataFile).getMembers("/"));
+    }
+}